@@ -0,0 +1,112 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.crypto
+
+import android.content.Context
+import com.toshi.crypto.keyStore.KeyStoreHandler
+import com.toshi.crypto.util.HashUtil
+import com.toshi.exception.KeyStoreException
+import com.toshi.util.logging.LogUtil
+import com.toshi.util.sharedPrefs.WalletPrefsInterface
+import org.spongycastle.util.encoders.Hex
+
+/**
+ * Keystore encrypted copy of the keys derived from the master seed, together with their
+ * public keys, so an existing wallet can be opened without running BIP39 seed stretching
+ * and BIP32 derivation again. An entry is only used if it was written for the same master
+ * seed and its checksum still matches; anything else is discarded and re-derived.
+ */
+class DerivedKeyCache(
+        private val walletPrefs: WalletPrefsInterface,
+        private val context: Context
+) {
+
+    companion object {
+        private const val ALIAS = "DerivedKeysAlias"
+        private const val VERSION = "1"
+        private const val FIELD_SEPARATOR = "|"
+        private const val KEY_SEPARATOR = ","
+        private const val PAIR_SEPARATOR = ":"
+    }
+
+    data class DerivedKeys(val identityKey: ECKey, val paymentKeys: List<ECKey>)
+
+    fun load(masterSeed: String): DerivedKeys? {
+        val encryptedKeys = walletPrefs.getDerivedKeys() ?: return null
+        return try {
+            val keyStoreHandler = KeyStoreHandler(context, ALIAS)
+            val serializedKeys = keyStoreHandler.decrypt(encryptedKeys, { walletPrefs.setDerivedKeys(it) })
+            deserialize(serializedKeys, masterSeed) ?: run { clear(); null }
+        } catch (e: Exception) {
+            LogUtil.exception("Error while reading derived keys, deriving from seed instead", e)
+            clear()
+            null
+        }
+    }
+
+    fun save(masterSeed: String, identityKey: ECKey, paymentKeys: List<ECKey>) {
+        try {
+            val keyStoreHandler = KeyStoreHandler(context, ALIAS)
+            val encryptedKeys = keyStoreHandler.encrypt(serialize(masterSeed, identityKey, paymentKeys))
+            walletPrefs.setDerivedKeys(encryptedKeys)
+        } catch (e: KeyStoreException) {
+            // Not fatal, the keys will be derived again on the next start
+            LogUtil.exception("Error while saving derived keys", e)
+        }
+    }
+
+    fun clear() = walletPrefs.setDerivedKeys(null)
+
+    private fun serialize(masterSeed: String, identityKey: ECKey, paymentKeys: List<ECKey>): String {
+        val body = listOf(
+                VERSION,
+                fingerprint(masterSeed),
+                serializeKey(identityKey),
+                paymentKeys.joinToString(separator = KEY_SEPARATOR) { serializeKey(it) }
+        ).joinToString(separator = FIELD_SEPARATOR)
+        return body + FIELD_SEPARATOR + checksum(body)
+    }
+
+    private fun serializeKey(key: ECKey): String {
+        val privateKey = key.privKeyBytes ?: throw IllegalStateException("Derived key has no private key")
+        return Hex.toHexString(privateKey) + PAIR_SEPARATOR + Hex.toHexString(key.pubKey)
+    }
+
+    private fun deserialize(serializedKeys: String, masterSeed: String): DerivedKeys? {
+        val body = serializedKeys.substringBeforeLast(FIELD_SEPARATOR)
+        if (serializedKeys.substringAfterLast(FIELD_SEPARATOR) != checksum(body)) return null
+
+        val fields = body.split(FIELD_SEPARATOR)
+        if (fields.size != 4 || fields[0] != VERSION || fields[1] != fingerprint(masterSeed)) return null
+
+        val identityKey = deserializeKey(fields[2])
+        val paymentKeys = fields[3].split(KEY_SEPARATOR).map { deserializeKey(it) }
+        if (paymentKeys.isEmpty()) return null
+        return DerivedKeys(identityKey, paymentKeys)
+    }
+
+    private fun deserializeKey(serializedKey: String): ECKey {
+        val privateKey = Hex.decode(serializedKey.substringBefore(PAIR_SEPARATOR))
+        val publicKey = Hex.decode(serializedKey.substringAfter(PAIR_SEPARATOR))
+        return ECKey.fromPrivateAndPrecalculatedPublic(privateKey, publicKey)
+    }
+
+    private fun fingerprint(masterSeed: String) = checksum(masterSeed)
+
+    private fun checksum(value: String) = Hex.toHexString(HashUtil.sha3(value.toByteArray()))
+}
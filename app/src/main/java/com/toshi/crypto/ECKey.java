@@ -32,11 +32,11 @@ import com.toshi.crypto.util.TypeConverter;
 import org.spongycastle.asn1.ASN1InputStream;
 import org.spongycastle.asn1.ASN1Integer;
 import org.spongycastle.asn1.DLSequence;
-import org.spongycastle.asn1.sec.SECNamedCurves;
 import org.spongycastle.asn1.x9.X9ECParameters;
 import org.spongycastle.asn1.x9.X9IntegerConverter;
 import org.spongycastle.crypto.agreement.ECDHBasicAgreement;
 import org.spongycastle.crypto.digests.SHA256Digest;
+import org.spongycastle.crypto.ec.CustomNamedCurves;
 import org.spongycastle.crypto.engines.AESFastEngine;
 import org.spongycastle.crypto.modes.SICBlockCipher;
 import org.spongycastle.crypto.params.ECDomainParameters;
@@ -53,8 +53,9 @@ import org.spongycastle.jce.spec.ECParameterSpec;
 import org.spongycastle.jce.spec.ECPrivateKeySpec;
 import org.spongycastle.jce.spec.ECPublicKeySpec;
 import org.spongycastle.math.ec.ECAlgorithms;
-import org.spongycastle.math.ec.ECCurve;
+import org.spongycastle.math.ec.ECMultiplier;
 import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.math.ec.FixedPointCombMultiplier;
 import org.spongycastle.util.BigIntegers;
 import org.spongycastle.util.encoders.Base64;
 import org.spongycastle.util.encoders.Hex;
@@ -98,11 +99,17 @@ public class ECKey implements Serializable {
     public static final BigInteger HALF_CURVE_ORDER;
 
     private static final SecureRandom secureRandom;
+    // The comb table for G is built on first use and cached on the point itself, so every fixed-base
+    // multiplication after that is a table walk. Variable-base multiplications go through the curve's
+    // default multiplier, which for secp256k1 is GLV-split interleaved wNAF.
+    private static final ECMultiplier BASE_POINT_MULTIPLIER = new FixedPointCombMultiplier();
     private static final long serialVersionUID = -728224901792295832L;
 
     static {
         // All clients must agree on the curve to use by agreement. Ethereum uses secp256k1.
-        X9ECParameters params = SECNamedCurves.getByName("secp256k1");
+        // The custom curve has dedicated field arithmetic and the GLV endomorphism, where the
+        // generic SEC curve does plain BigInteger maths.
+        X9ECParameters params = CustomNamedCurves.getByName("secp256k1");
         CURVE = new ECDomainParameters(params.getCurve(), params.getG(), params.getN(), params.getH());
         CURVE_SPEC = new ECParameterSpec(params.getCurve(), params.getG(), params.getN(), params.getH());
         HALF_CURVE_ORDER = params.getN().shiftRight(1);
@@ -159,7 +166,7 @@ public class ECKey implements Serializable {
 
         final PublicKey pubKey = keyPair.getPublic();
         if (pubKey instanceof BCECPublicKey) {
-            pub = ((BCECPublicKey) pubKey).getQ();
+            pub = CURVE.getCurve().importPoint(((BCECPublicKey) pubKey).getQ());
         } else if (pubKey instanceof ECPublicKey) {
             pub = extractPublicKey((ECPublicKey) pubKey);
         } else {
@@ -278,7 +285,7 @@ public class ECKey implements Serializable {
      * @return  -
      */
     public static ECKey fromPrivate(BigInteger privKey) {
-        return new ECKey(privKey, CURVE.getG().multiply(privKey));
+        return new ECKey(privKey, multiplyBasePoint(privKey));
     }
 
     /**
@@ -396,10 +403,25 @@ public class ECKey implements Serializable {
      * @return -
      */
     public static byte[] publicKeyFromPrivate(BigInteger privKey, boolean compressed) {
-        ECPoint point = CURVE.getG().multiply(privKey);
+        ECPoint point = multiplyBasePoint(privKey);
         return point.getEncoded(compressed);
     }
 
+    /**
+     * Multiplies the generator by the given scalar using the precomputed comb table.
+     *
+     * @param k -
+     * @return k * G, not normalised
+     */
+    private static ECPoint multiplyBasePoint(BigInteger k) {
+        // The comb only covers scalars up to the bit length of the order; anything larger is reduced
+        // first, which gives the same point since nG is the point at infinity.
+        if (k.bitLength() > CURVE.getN().bitLength()) {
+            k = k.mod(CURVE.getN());
+        }
+        return BASE_POINT_MULTIPLIER.multiply(CURVE.getG(), k);
+    }
+
     /**
      * Compute an address from an encoded public key.
      *
@@ -407,8 +429,7 @@ public class ECKey implements Serializable {
      * @return 20-byte address
      */
     public static byte[] computeAddress(byte[] pubBytes) {
-        return HashUtil.sha3omit12(
-                Arrays.copyOfRange(pubBytes, 1, pubBytes.length));
+        return HashUtil.sha3omit12(pubBytes, 1, pubBytes.length - 1);
     }
 
     /**
@@ -725,6 +746,10 @@ public class ECKey implements Serializable {
      * @throws IllegalStateException if this ECKey does not have the private part.
      */
     public ECDSASignature sign(byte[] messageHash) {
+        if (privKey instanceof BCECPrivateKey) {
+            return signWithRecoveryId(messageHash, ((BCECPrivateKey) privKey).getD());
+        }
+
         ECDSASignature sig = doSign(messageHash);
         // Now we have to work backwards to figure out the recId needed to recover the signature.
         int recId = -1;
@@ -743,6 +768,51 @@ public class ECKey implements Serializable {
     }
 
 
+    /**
+     * Deterministic (RFC 6979) ECDSA over secp256k1 that reads the recovery id off the nonce
+     * point R while signing, rather than trying to recover the public key for each candidate
+     * id afterwards. The result is the same canonical signature that {@link #doSign(byte[])}
+     * produces, with v set.
+     *
+     * @param messageHash 32 byte hash to sign
+     * @param d private key
+     * @return -
+     */
+    private ECDSASignature signWithRecoveryId(byte[] messageHash, BigInteger d) {
+        if (messageHash.length != 32) {
+            throw new IllegalArgumentException("Expected 32 byte input to ECDSA signature, not " + messageHash.length);
+        }
+        final BigInteger n = CURVE.getN();
+        final BigInteger e = new BigInteger(1, messageHash);
+        final HMacDSAKCalculator kCalculator = new HMacDSAKCalculator(new SHA256Digest());
+        kCalculator.init(n, d, messageHash);
+
+        BigInteger r, s;
+        int recId;
+        do {
+            BigInteger k;
+            do {
+                k = kCalculator.nextK();
+                final ECPoint p = multiplyBasePoint(k).normalize();
+                final BigInteger x = p.getAffineXCoord().toBigInteger();
+                r = x.mod(n);
+                // Bit 0 is the parity of R.y, bit 1 is set when R.x overflowed the curve order
+                recId = (p.getAffineYCoord().testBitZero() ? 1 : 0) | (x.compareTo(n) >= 0 ? 2 : 0);
+            } while (r.signum() == 0);
+            s = k.modInverse(n).multiply(e.add(d.multiply(r))).mod(n);
+        } while (s.signum() == 0);
+
+        if (s.compareTo(HALF_CURVE_ORDER) > 0) {
+            // Using N - s is equivalent to having signed with -k, whose point is R mirrored in the x axis
+            s = n.subtract(s);
+            recId ^= 1;
+        }
+
+        final ECDSASignature sig = new ECDSASignature(r, s);
+        sig.v = (byte) (recId + 27);
+        return sig;
+    }
+
     /**
      * Given a piece of text and a message signature encoded in base64, returns an ECKey
      * containing the public key that was used to sign it. This can then be compared to the expected public key to
@@ -1033,8 +1103,7 @@ public class ECKey implements Serializable {
         //        do another iteration of Step 1.
         //
         // More concisely, what these points mean is to use X as a compressed public key.
-        ECCurve.Fp curve = (ECCurve.Fp) CURVE.getCurve();
-        BigInteger prime = curve.getQ();  // Bouncy Castle is not consistent about the letter it uses for the prime.
+        BigInteger prime = CURVE.getCurve().getField().getCharacteristic();
         if (x.compareTo(prime) >= 0) {
             // Cannot have point co-ordinates larger than this as everything takes place modulo Q.
             return null;
@@ -1043,7 +1112,9 @@ public class ECKey implements Serializable {
         // So it's encoded in the recId.
         ECPoint R = decompressKey(x, (recId & 1) == 1);
         //   1.4. If nR != point at infinity, then do another iteration of Step 1 (callers responsibility).
-        if (!R.multiply(n).isInfinity())
+        // With a cofactor of one every point on the curve has order n, so the multiplication is only
+        // needed for curves where that does not hold.
+        if (!CURVE.getH().equals(BigInteger.ONE) && !R.multiply(n).isInfinity())
             return null;
         //   1.5. Compute e from M using Steps 2 and 3 of ECDSA signature verification.
         BigInteger e = new BigInteger(1, messageHash);
@@ -1062,7 +1133,7 @@ public class ECKey implements Serializable {
         BigInteger rInv = sig.r.modInverse(n);
         BigInteger srInv = rInv.multiply(sig.s).mod(n);
         BigInteger eInvrInv = rInv.multiply(eInv).mod(n);
-        ECPoint.Fp q = (ECPoint.Fp) ECAlgorithms.sumOfTwoMultiplies(CURVE.getG(), eInvrInv, R, srInv);
+        ECPoint q = ECAlgorithms.sumOfTwoMultiplies(CURVE.getG(), eInvrInv, R, srInv);
         return q.getEncoded(/* compressed */ false);
     }
 
@@ -19,6 +19,7 @@ package com.toshi.crypto
 
 import com.toshi.crypto.util.HashUtil.sha3
 import com.toshi.crypto.util.TypeConverter
+import com.toshi.crypto.util.toAddressWithChecksum
 import com.toshi.exception.InvalidKeySetException
 import com.toshi.exception.SignTransactionException
 import com.toshi.util.logging.LogUtil
@@ -52,11 +53,13 @@ class HDWallet(
                     ?: throw IllegalStateException("Wallet name is null")
         }
 
-    val ownerAddress: String
-        get() {
-            val identityAddress = identityKey.address
-            return TypeConverter.toJsonHex(identityAddress)
-        }
+    // The keys never change for the lifetime of a wallet, so every address form is worked out once here
+    val ownerAddress: String = TypeConverter.toJsonHex(identityKey.address)
+    private val addresses: List<String> = paymentKeys.map { TypeConverter.toJsonHex(it.address) }
+    private val checksumAddresses: List<String> = addresses.map { toAddressWithChecksum(it) }
+    private val walletIndexByAddress: Map<String, Int> = addresses
+            .withIndex()
+            .associate { it.value to it.index }
 
     fun getPaymentAddressObservable(): Observable<String> = paymentAddressSubject.asObservable()
 
@@ -139,10 +142,7 @@ class HDWallet(
         paymentAddressSubject.onNext(address)
     }
 
-    private fun addressFromIndex(index: Int): String {
-        val key = getSafeKeyFromIndex(index)
-        return TypeConverter.toJsonHex(key.address)
-    }
+    private fun addressFromIndex(index: Int): String = addresses.getOrNull(index) ?: addresses[0]
 
     private fun publishCurrentWalletName(index: Int) {
         val name = getWalletNameFromIndex(index)
@@ -160,20 +160,26 @@ class HDWallet(
     private fun getKeyFromIndex(index: Int): ECKey = paymentKeys.getOrNull(index)
             ?: throw IllegalStateException("Couldn't get key from index: $index")
 
-    private fun getSafeKeyFromIndex(index: Int): ECKey = paymentKeys.getOrNull(index) ?: paymentKeys[0]
-
     private fun saveCurrentIndexToPrefs(index: Int) = walletPrefs.setCurrentWalletIndex(index)
 
     fun getCurrentWalletIndex() = walletPrefs.getCurrentWalletIndex()
 
     fun clear() = walletPrefs.clear()
 
-    fun hasAddress(paymentAddress: String): Boolean {
-        val walletAddresses = getAddresses()
-        return walletAddresses.contains(paymentAddress)
+    fun hasAddress(paymentAddress: String?): Boolean = getWalletIndexOf(paymentAddress) != -1
+
+    /**
+     * @return the wallet index the address belongs to, or -1 if it isn't one of ours.
+     * Checksummed and lowercase addresses both match.
+     */
+    fun getWalletIndexOf(address: String?): Int {
+        if (address == null) return -1
+        return walletIndexByAddress[address.toLowerCase()] ?: -1
     }
 
-    fun getAddresses(): List<String> = paymentKeys.map { TypeConverter.toJsonHex(it.address) }
+    fun getAddresses(): List<String> = addresses
+
+    fun getChecksumAddresses(): List<String> = checksumAddresses
 
     override fun toString(): String {
         val identityAddress = identityKey.address
@@ -47,6 +47,8 @@ class HdWalletBuilder(
         private const val ALIAS = "MasterSeedAlias"
     }
 
+    private val derivedKeyCache by lazy { DerivedKeyCache(walletPrefs, context) }
+
     fun createWalletAndOverrideWalletSeedOnDisk(): Single<HDWallet> {
         return Single.fromCallable {
             val networkParameters = getNetworkParameters()
@@ -67,6 +69,7 @@ class HdWalletBuilder(
         val identityKey = deriveKeyFromIdentityWallet(wallet)
         val paymentKeys = deriveKeysFromPaymentWallet(wallet)
         val masterSeed = seedToString(wallet.keyChainSeed)
+        derivedKeyCache.save(masterSeed, identityKey, paymentKeys)
         return HDWallet(walletPrefs, identityKey, paymentKeys, masterSeed)
     }
 
@@ -169,6 +172,11 @@ class HdWalletBuilder(
         return Single.fromCallable {
             val masterSeed = readMasterSeedFromStorage()
                     ?: throw InvalidMasterSeedException(Throwable("Master seed is null"))
+            val cachedKeys = derivedKeyCache.load(masterSeed)
+            if (cachedKeys != null) {
+                return@fromCallable HDWallet(walletPrefs, cachedKeys.identityKey, cachedKeys.paymentKeys, masterSeed)
+            }
+
             val wallet = initFromMasterSeed(masterSeed)
 
             return@fromCallable createFromWallet(wallet)
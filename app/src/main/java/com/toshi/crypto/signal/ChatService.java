@@ -58,6 +58,7 @@ public final class ChatService extends SignalServiceAccountManager {
     private final ChatInterface chatInterface;
     private final OkHttpClient.Builder client;
     private final String url;
+    private final String user;
 
     public ChatService(
             final SignalServiceUrl[] urls,
@@ -76,6 +77,7 @@ public final class ChatService extends SignalServiceAccountManager {
                 password,
                 userAgent);
         this.url = urls[0].getUrl();
+        this.user = user;
         this.client = new OkHttpClient.Builder();
         this.chatInterface = generateSignalInterface();
     }
@@ -114,6 +116,14 @@ public final class ChatService extends SignalServiceAccountManager {
         this.client.addInterceptor(interceptor);
     }
 
+    public String getUrl() {
+        return this.url;
+    }
+
+    public String getUser() {
+        return this.user;
+    }
+
     public Completable registerKeys(final ProtocolStore protocolStore) {
         try {
             return registerKeys(
@@ -21,6 +21,7 @@ package com.toshi.crypto.signal.store;
 import com.toshi.crypto.signal.util.PreKeyUtil;
 import com.toshi.crypto.util.HashUtil;
 import com.toshi.util.sharedPrefs.SignalPrefs;
+import com.toshi.util.sharedPrefs.SignalPrefsInterface;
 import com.toshi.view.BaseApplication;
 
 import org.whispersystems.libsignal.IdentityKey;
@@ -50,13 +51,24 @@ public class ProtocolStore implements SignalProtocolStore {
     private final SignedPreKeyStore signedPreKeyStore;
     private final IdentityKeyStore identityKeyStore;
     private final SignalSessionStore sessionStore;
+    private final SignalPrefsInterface signalPrefs;
     private List<PreKeyRecord> preKeyRecords;
 
+    // Decoded identity material, valid for as long as signalPrefs.getClearCount() matches
+    private IdentityKeyPair cachedIdentityKeyPair;
+    private int cachedRegistrationId = -1;
+    private int cachedClearCount = -1;
+
     public ProtocolStore() {
+        this(SignalPrefs.INSTANCE);
+    }
+
+    public ProtocolStore(final SignalPrefsInterface signalPrefs) {
         this.preKeyStore  = new SignalPreKeyStore();
         this.signedPreKeyStore = new SignalPreKeyStore();
-        this.identityKeyStore = new SignalIdentityKeyStore();
+        this.identityKeyStore = new SignalIdentityKeyStore(signalPrefs);
         this.sessionStore = new SignalSessionStore();
+        this.signalPrefs = signalPrefs;
     }
 
     public ProtocolStore init() {
@@ -64,7 +76,7 @@ public class ProtocolStore implements SignalProtocolStore {
     }
 
     public SignedPreKeyRecord getSignedPreKey() throws InvalidKeyIdException, InvalidKeyException {
-        final int signedPreKeyId = SignalPrefs.INSTANCE.getSignedPreKeyId();
+        final int signedPreKeyId = this.signalPrefs.getSignedPreKeyId();
         if (signedPreKeyId == -1) {
             return generateSignedPreKey();
         }
@@ -78,42 +90,52 @@ public class ProtocolStore implements SignalProtocolStore {
 
     private SignedPreKeyRecord generateSignedPreKey() throws InvalidKeyException {
         final SignedPreKeyRecord pk = PreKeyUtil.generateSignedPreKey(BaseApplication.get(), getIdentityKeyPair(), true);
-        SignalPrefs.INSTANCE.setSignedPreKeyId(pk.getId());
+        this.signalPrefs.setSignedPreKeyId(pk.getId());
         return pk;
     }
 
     @Override
-    public IdentityKeyPair getIdentityKeyPair() {
+    public synchronized IdentityKeyPair getIdentityKeyPair() {
+        invalidateIdentityIfCleared();
+        if (cachedIdentityKeyPair != null) return cachedIdentityKeyPair;
+
         final IdentityKeyPair ikp = identityKeyStore.getIdentityKeyPair();
-        if (ikp == null) {
-            return generateIdentityKeyPair();
-        }
-        return ikp;
+        cachedIdentityKeyPair = ikp == null ? generateIdentityKeyPair() : ikp;
+        return cachedIdentityKeyPair;
     }
 
     private IdentityKeyPair generateIdentityKeyPair() {
         final IdentityKeyPair ikp = KeyHelper.generateIdentityKeyPair();
-        SignalPrefs.INSTANCE.setSerializedIdentityKeyPair(ikp.serialize());
+        this.signalPrefs.setSerializedIdentityKeyPair(ikp.serialize());
         return ikp;
     }
 
     @Override
-    public int getLocalRegistrationId() {
+    public synchronized int getLocalRegistrationId() {
+        invalidateIdentityIfCleared();
+        if (cachedRegistrationId != -1) return cachedRegistrationId;
+
         final int rid = identityKeyStore.getLocalRegistrationId();
-        if (rid == -1) {
-            return generateLocalRegistrationId();
-        }
-        return rid;
+        cachedRegistrationId = rid == -1 ? generateLocalRegistrationId() : rid;
+        return cachedRegistrationId;
     }
 
     private int generateLocalRegistrationId() {
         final int rid = KeyHelper.generateRegistrationId(false);
-        SignalPrefs.INSTANCE.setLocalRegistrationId(rid);
+        this.signalPrefs.setLocalRegistrationId(rid);
         return rid;
     }
 
+    private void invalidateIdentityIfCleared() {
+        final int clearCount = this.signalPrefs.getClearCount();
+        if (clearCount == cachedClearCount) return;
+        cachedIdentityKeyPair = null;
+        cachedRegistrationId = -1;
+        cachedClearCount = clearCount;
+    }
+
     public String getSignalingKey() {
-        final String signallingKey = SignalPrefs.INSTANCE.getSignalingKey();
+        final String signallingKey = this.signalPrefs.getSignalingKey();
         if (signallingKey == null) {
             return generateSignalingKey();
         }
@@ -122,7 +144,7 @@ public class ProtocolStore implements SignalProtocolStore {
 
     private String generateSignalingKey() {
         final String signallingKey = HashUtil.getSecret(52);
-        SignalPrefs.INSTANCE.setSignalingKey(signallingKey);
+        this.signalPrefs.setSignalingKey(signallingKey);
         return signallingKey;
     }
 
@@ -153,7 +175,7 @@ public class ProtocolStore implements SignalProtocolStore {
     }
 
     public PreKeyRecord getLastResortKey() throws IOException {
-        final byte[] serializedLastResortKey = SignalPrefs.INSTANCE.getSerializedLastResortKey();
+        final byte[] serializedLastResortKey = this.signalPrefs.getSerializedLastResortKey();
         if (serializedLastResortKey == null) {
             return generateLastResortKey();
         }
@@ -162,12 +184,12 @@ public class ProtocolStore implements SignalProtocolStore {
 
     private PreKeyRecord generateLastResortKey() {
         final PreKeyRecord lrk = PreKeyUtil.generateLastResortKey(BaseApplication.get());
-        SignalPrefs.INSTANCE.setSerializedLastResortKey(lrk.serialize());
+        this.signalPrefs.setSerializedLastResortKey(lrk.serialize());
         return lrk;
     }
 
     public String getPassword() {
-        final String password = SignalPrefs.INSTANCE.getPassword();
+        final String password = this.signalPrefs.getPassword();
         if (password == null) {
             return generatePassword();
         }
@@ -176,7 +198,7 @@ public class ProtocolStore implements SignalProtocolStore {
 
     private String generatePassword() {
         final String password = HashUtil.getSecret(18);
-        SignalPrefs.INSTANCE.setPassword(password);
+        this.signalPrefs.setPassword(password);
         return password;
     }
 
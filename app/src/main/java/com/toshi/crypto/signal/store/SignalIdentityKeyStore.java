@@ -20,6 +20,7 @@ package com.toshi.crypto.signal.store;
 import com.toshi.crypto.signal.model.SignalIdentity;
 import com.toshi.util.logging.LogUtil;
 import com.toshi.util.sharedPrefs.SignalPrefs;
+import com.toshi.util.sharedPrefs.SignalPrefsInterface;
 import com.toshi.view.BaseApplication;
 
 import org.whispersystems.libsignal.IdentityKey;
@@ -32,10 +33,20 @@ import io.realm.Realm;
 
 public class SignalIdentityKeyStore implements IdentityKeyStore {
 
+    private final SignalPrefsInterface signalPrefs;
+
+    public SignalIdentityKeyStore() {
+        this(SignalPrefs.INSTANCE);
+    }
+
+    public SignalIdentityKeyStore(final SignalPrefsInterface signalPrefs) {
+        this.signalPrefs = signalPrefs;
+    }
+
     @Override
     public IdentityKeyPair getIdentityKeyPair() {
         try {
-            final byte[] serializedKey = SignalPrefs.INSTANCE.getSerializedIdentityKeyPair();
+            final byte[] serializedKey = this.signalPrefs.getSerializedIdentityKeyPair();
             if (serializedKey == null) {
                 return null;
             }
@@ -48,7 +59,7 @@ public class SignalIdentityKeyStore implements IdentityKeyStore {
 
     @Override
     public int getLocalRegistrationId() {
-        return SignalPrefs.INSTANCE.getLocalRegistrationId();
+        return this.signalPrefs.getLocalRegistrationId();
     }
 
     @Override
@@ -37,15 +37,16 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import static org.whispersystems.libsignal.state.StorageProtos.SessionStructure;
 
 public class SignalSessionStore implements SessionStore {
 
     private static final String SESSIONS_DIRECTORY_V2 = "sessions-v2";
-    private static final Object FILE_LOCK             = new Object();
 
     private static final int SINGLE_STATE_VERSION   = 1;
     private static final int ARCHIVE_STATES_VERSION = 2;
@@ -53,60 +54,107 @@ public class SignalSessionStore implements SessionStore {
     private static final int CURRENT_VERSION        = 3;
     private static final int DEFAULT_DEVICE_ID = 1;
 
+    // Sessions for different addresses live in different files, so they only need
+    // to be serialised against other work on the same file.
+    private static final int LOCK_STRIPES = 16;
+    private static final Object[] FILE_LOCKS = createLocks(LOCK_STRIPES);
+
+    // Write-through cache of serialized records, shared by every instance like the files are.
+    // Records are handed out as fresh copies because libsignal mutates them before storing.
+    private static final int MAX_CACHED_SESSIONS = 256;
+    private static final Map<String, CachedSession> SESSION_CACHE = new LinkedHashMap<String, CachedSession>(MAX_CACHED_SESSIONS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, CachedSession> eldest) {
+            return size() > MAX_CACHED_SESSIONS;
+        }
+    };
+
     @NonNull  private final Context context;
 
     public SignalSessionStore() {
-        this.context = BaseApplication.get();
+        this(BaseApplication.get());
+    }
+
+    public SignalSessionStore(@NonNull final Context context) {
+        this.context = context;
+    }
+
+    private static Object[] createLocks(final int count) {
+        final Object[] locks = new Object[count];
+        for (int i = 0; i < count; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
+    private Object getLock(final SignalProtocolAddress address) {
+        final int hash = getSessionName(address).hashCode();
+        return FILE_LOCKS[(hash & Integer.MAX_VALUE) % LOCK_STRIPES];
     }
 
     @Override
     public SessionRecord loadSession(@NonNull final SignalProtocolAddress address) {
-        synchronized (FILE_LOCK) {
-            try {
-                FileInputStream in            = new FileInputStream(getSessionFile(address));
-                int             versionMarker = readInteger(in);
+        synchronized (getLock(address)) {
+            final CachedSession cachedSession = getCachedSession(address);
+            if (cachedSession != null) return cachedSession.toSessionRecord();
+
+            final SessionRecord sessionRecord = loadSessionFromFile(address);
+            putCachedSession(address, sessionRecord == null
+                    ? CachedSession.ABSENT
+                    : new CachedSession(sessionRecord));
+            return sessionRecord == null ? new SessionRecord() : sessionRecord;
+        }
+    }
 
-                if (versionMarker > CURRENT_VERSION) {
-                    throw new AssertionError("Unknown version: " + versionMarker);
-                }
+    // Returns null if there is no readable session on disk
+    private @Nullable SessionRecord loadSessionFromFile(@NonNull final SignalProtocolAddress address) {
+        try {
+            FileInputStream in            = new FileInputStream(getSessionFile(address));
+            int             versionMarker = readInteger(in);
 
-                byte[] serialized = readBlob(in);
-                in.close();
+            if (versionMarker > CURRENT_VERSION) {
+                throw new AssertionError("Unknown version: " + versionMarker);
+            }
 
-                if (versionMarker < PLAINTEXT_VERSION) {
-                    throw new AssertionError("Session didn't get migrated: (" + versionMarker + "," + address + ")");
-                }
+            byte[] serialized = readBlob(in);
+            in.close();
 
-                if (versionMarker == SINGLE_STATE_VERSION) {
-                    SessionStructure sessionStructure = SessionStructure.parseFrom(serialized);
-                    SessionState     sessionState     = new SessionState(sessionStructure);
-                    return new SessionRecord(sessionState);
-                } else if (versionMarker >= ARCHIVE_STATES_VERSION) {
-                    return new SessionRecord(serialized);
-                } else {
-                    throw new AssertionError("Unknown version: " + versionMarker);
-                }
-            } catch (final IOException e) {
-                LogUtil.exception("No existing session information found.", e);
-                return new SessionRecord();
+            if (versionMarker < PLAINTEXT_VERSION) {
+                throw new AssertionError("Session didn't get migrated: (" + versionMarker + "," + address + ")");
             }
+
+            if (versionMarker == SINGLE_STATE_VERSION) {
+                SessionStructure sessionStructure = SessionStructure.parseFrom(serialized);
+                SessionState     sessionState     = new SessionState(sessionStructure);
+                return new SessionRecord(sessionState);
+            } else if (versionMarker >= ARCHIVE_STATES_VERSION) {
+                return new SessionRecord(serialized);
+            } else {
+                throw new AssertionError("Unknown version: " + versionMarker);
+            }
+        } catch (final IOException e) {
+            LogUtil.exception("No existing session information found.", e);
+            return null;
         }
     }
 
     @Override
     public void storeSession(@NonNull final SignalProtocolAddress address, @NonNull final SessionRecord record) {
-        synchronized (FILE_LOCK) {
+        synchronized (getLock(address)) {
             try {
                 RandomAccessFile sessionFile  = new RandomAccessFile(getSessionFile(address), "rw");
                 FileChannel      out          = sessionFile.getChannel();
+                final byte[]     serialized   = record.serialize();
 
                 out.position(0);
                 writeInteger(CURRENT_VERSION, out);
-                writeBlob(record.serialize(), out);
+                writeBlob(serialized, out);
                 out.truncate(out.position());
 
                 sessionFile.close();
+                putCachedSession(address, new CachedSession(serialized, record.getSessionState().hasSenderChain()));
             } catch (IOException e) {
+                removeCachedSession(address);
                 LogUtil.exception("Error while storing session", e);
                 throw new AssertionError(e);
             }
@@ -115,13 +163,20 @@ public class SignalSessionStore implements SessionStore {
 
     @Override
     public boolean containsSession(final SignalProtocolAddress address) {
+        synchronized (getLock(address)) {
+            final CachedSession cachedSession = getCachedSession(address);
+            if (cachedSession != null) return cachedSession.hasSenderChain;
+        }
         return getSessionFile(address).exists() &&
                 loadSession(address).getSessionState().hasSenderChain();
     }
 
     @Override
     public void deleteSession(final SignalProtocolAddress address) {
-        getSessionFile(address).delete();
+        synchronized (getLock(address)) {
+            getSessionFile(address).delete();
+            removeCachedSession(address);
+        }
     }
 
     @Override
@@ -140,6 +195,9 @@ public class SignalSessionStore implements SessionStore {
         for (final String sessionName : sessionNames) {
             deleteAllSessions(sessionName);
         }
+        synchronized (SESSION_CACHE) {
+            SESSION_CACHE.clear();
+        }
     }
 
     private List<String> getAllSessions() {
@@ -186,14 +244,14 @@ public class SignalSessionStore implements SessionStore {
 
 
     public void migrateSessions() {
-        synchronized (FILE_LOCK) {
-            File directory = getSessionDirectory();
+        File directory = getSessionDirectory();
 
-            for (File session : directory.listFiles()) {
-                if (session.isFile()) {
-                    SignalProtocolAddress address = getAddressName(session);
+        for (File session : directory.listFiles()) {
+            if (session.isFile()) {
+                SignalProtocolAddress address = getAddressName(session);
 
-                    if (address != null) {
+                if (address != null) {
+                    synchronized (getLock(address)) {
                         SessionRecord sessionRecord = loadSession(address);
                         storeSession(address, sessionRecord);
                     }
@@ -202,6 +260,24 @@ public class SignalSessionStore implements SessionStore {
         }
     }
 
+    private @Nullable CachedSession getCachedSession(final SignalProtocolAddress address) {
+        synchronized (SESSION_CACHE) {
+            return SESSION_CACHE.get(getSessionName(address));
+        }
+    }
+
+    private void putCachedSession(final SignalProtocolAddress address, final CachedSession cachedSession) {
+        synchronized (SESSION_CACHE) {
+            SESSION_CACHE.put(getSessionName(address), cachedSession);
+        }
+    }
+
+    private void removeCachedSession(final SignalProtocolAddress address) {
+        synchronized (SESSION_CACHE) {
+            SESSION_CACHE.remove(getSessionName(address));
+        }
+    }
+
     private File getSessionFile(final SignalProtocolAddress address) {
         return new File(getSessionDirectory(), getSessionName(address));
     }
@@ -261,4 +337,28 @@ public class SignalSessionStore implements SessionStore {
         out.write(ByteBuffer.wrap(valueBytes));
     }
 
-}
\ No newline at end of file
+    private static class CachedSession {
+        private static final CachedSession ABSENT = new CachedSession(null, false);
+
+        private final @Nullable byte[] serialized;
+        private final boolean hasSenderChain;
+
+        private CachedSession(final SessionRecord record) {
+            this(record.serialize(), record.getSessionState().hasSenderChain());
+        }
+
+        private CachedSession(final @Nullable byte[] serialized, final boolean hasSenderChain) {
+            this.serialized = serialized;
+            this.hasSenderChain = hasSenderChain;
+        }
+
+        private SessionRecord toSessionRecord() {
+            if (this.serialized == null) return new SessionRecord();
+            try {
+                return new SessionRecord(this.serialized);
+            } catch (final IOException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
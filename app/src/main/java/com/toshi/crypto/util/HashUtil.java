@@ -18,8 +18,6 @@
 package com.toshi.crypto.util;
 
 
-import com.toshi.crypto.cryptohash.Keccak256;
-
 import org.spongycastle.util.Arrays;
 import org.whispersystems.signalservice.internal.util.Base64;
 
@@ -29,14 +27,20 @@ import java.security.SecureRandom;
 public class HashUtil {
 
     public static byte[] sha3omit12(byte[] input) {
-        byte[] hash = sha3(input);
+        return sha3omit12(input, 0, input.length);
+    }
+
+    public static byte[] sha3omit12(byte[] input, int offset, int length) {
+        byte[] hash = sha3(input, offset, length);
         return Arrays.copyOfRange(hash, 12, hash.length);
     }
 
     public static byte[] sha3(byte[] input) {
-        Keccak256 digest = new Keccak256();
-        digest.update(input);
-        return digest.digest();
+        return KeccakContext.get().update(input).digest();
+    }
+
+    public static byte[] sha3(byte[] input, int offset, int length) {
+        return KeccakContext.get().update(input, offset, length).digest();
     }
 
     public static String getSecret(final int size) {
@@ -0,0 +1,109 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.crypto.util;
+
+
+import com.toshi.crypto.cryptohash.Keccak256;
+
+import java.nio.ByteBuffer;
+
+import okio.Buffer;
+
+/**
+ * A Keccak-256 context that is reused for every hash on the calling thread.
+ *
+ * {@link #get()} hands out the thread's context reset and ready for input. Feed it with the
+ * update methods and finish with {@link #digest()} or {@link #digestInto(byte[], int)}, which also
+ * reset it. The context is shared by everything hashing on the thread, so finish a hash before
+ * starting another one rather than keeping the context around.
+ */
+public final class KeccakContext {
+
+    public static final int DIGEST_LENGTH = 32;
+
+    private static final ThreadLocal<KeccakContext> CONTEXT = new ThreadLocal<KeccakContext>() {
+        @Override
+        protected KeccakContext initialValue() {
+            return new KeccakContext();
+        }
+    };
+
+    private final Keccak256 digest = new Keccak256();
+    private final byte[] transferBuffer = new byte[digest.getBlockLength()];
+    private final Buffer.UnsafeCursor cursor = new Buffer.UnsafeCursor();
+
+    private KeccakContext() {}
+
+    public static KeccakContext get() {
+        final KeccakContext context = CONTEXT.get();
+        context.digest.reset();
+        return context;
+    }
+
+    public KeccakContext update(final byte[] input) {
+        this.digest.update(input, 0, input.length);
+        return this;
+    }
+
+    public KeccakContext update(final byte[] input, final int offset, final int length) {
+        this.digest.update(input, offset, length);
+        return this;
+    }
+
+    /**
+     * Consumes the remaining bytes of the buffer.
+     */
+    public KeccakContext update(final ByteBuffer input) {
+        if (input.hasArray()) {
+            this.digest.update(input.array(), input.arrayOffset() + input.position(), input.remaining());
+            input.position(input.limit());
+            return this;
+        }
+        while (input.hasRemaining()) {
+            final int length = Math.min(input.remaining(), this.transferBuffer.length);
+            input.get(this.transferBuffer, 0, length);
+            this.digest.update(this.transferBuffer, 0, length);
+        }
+        return this;
+    }
+
+    /**
+     * Hashes the buffer's segments in place. The buffer itself is left untouched.
+     */
+    public KeccakContext update(final Buffer input) {
+        input.readUnsafe(this.cursor);
+        try {
+            for (int length = this.cursor.seek(0); length != -1; length = this.cursor.next()) {
+                this.digest.update(this.cursor.data, this.cursor.start, length);
+            }
+        } finally {
+            this.cursor.close();
+        }
+        return this;
+    }
+
+    public byte[] digest() {
+        final byte[] output = new byte[DIGEST_LENGTH];
+        digestInto(output, 0);
+        return output;
+    }
+
+    public void digestInto(final byte[] output, final int offset) {
+        this.digest.digest(output, offset, DIGEST_LENGTH);
+    }
+}
@@ -31,11 +31,9 @@ import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 
-import static com.toshi.crypto.util.ByteUtil.byteArrayToInt;
 import static com.toshi.crypto.util.ByteUtil.intToBytesNoLeadZeroes;
 import static com.toshi.crypto.util.ByteUtil.isNullOrZeroArray;
 import static com.toshi.crypto.util.ByteUtil.isSingleZero;
-import static java.util.Arrays.copyOfRange;
 import static org.spongycastle.util.Arrays.concatenate;
 import static org.spongycastle.util.BigIntegers.asUnsignedByteArray;
 public class RLP {
@@ -604,47 +602,23 @@ public class RLP {
         if (data == null || data.length < 1) {
             return null;
         }
-        int prefix = data[pos] & 0xFF;
-        if (prefix == OFFSET_SHORT_ITEM) {
-            return new DecodeResult(pos + 1, ""); // means no length or 0
-        } else if (prefix < OFFSET_SHORT_ITEM) {
-            return new DecodeResult(pos + 1, new byte[]{data[pos]}); // byte is its own RLP encoding
-        } else if (prefix < OFFSET_LONG_ITEM) {
-            int len = prefix - OFFSET_SHORT_ITEM; // length of the encoded bytes
-            return new DecodeResult(pos + 1 + len, copyOfRange(data, pos + 1, pos + 1 + len));
-        } else if (prefix < OFFSET_SHORT_LIST) {
-            int lenlen = prefix - OFFSET_LONG_ITEM; // length of length the encoded bytes
-            int lenbytes = byteArrayToInt(copyOfRange(data, pos + 1, pos + 1 + lenlen)); // length of encoded bytes
-            return new DecodeResult(pos + 1 + lenlen + lenbytes, copyOfRange(data, pos + 1 + lenlen, pos + 1 + lenlen
-                    + lenbytes));
-        } else if (prefix <= OFFSET_LONG_LIST) {
-            int len = prefix - OFFSET_SHORT_LIST; // length of the encoded list
-            int prevPos = pos;
-            pos++;
-            return decodeList(data, pos, prevPos, len);
-        } else if (prefix < 0xFF) {
-            int lenlen = prefix - OFFSET_LONG_LIST; // length of length the encoded list
-            int lenlist = byteArrayToInt(copyOfRange(data, pos + 1, pos + 1 + lenlen)); // length of encoded bytes
-            pos = pos + lenlen + 1; // start at position of first element in list
-            int prevPos = lenlist;
-            return decodeList(data, pos, prevPos, lenlist);
-        } else {
-            throw new RuntimeException("Only byte values between 0x00 and 0xFF are supported, but got: " + prefix);
-        }
+        final RlpReader reader = new RlpReader(data, pos, data.length).next();
+        return new DecodeResult(reader.position(), decodedValue(reader));
     }
 
-    private static DecodeResult decodeList(byte[] data, int pos, int prevPos, int len) {
-        List<Object> slice = new ArrayList<>();
-        for (int i = 0; i < len; ) {
-            // Get the next item in the data list and append it
-            DecodeResult result = decode(data, pos);
-            slice.add(result.getDecoded());
-            // Increment pos by the amount bytes in the previous read
-            prevPos = result.getPos();
-            i += (prevPos - pos);
-            pos = prevPos;
+    private static Object decodedValue(RlpReader item) {
+        if (item.isList()) {
+            final List<Object> slice = new ArrayList<>();
+            final RlpReader list = item.list();
+            while (list.hasNext()) {
+                slice.add(decodedValue(list.next()));
+            }
+            return slice.toArray();
+        }
+        if (item.isEmptyItem()) {
+            return ""; // means no length or 0
         }
-        return new DecodeResult(pos, slice.toArray());
+        return item.payload();
     }
 
     /* ******************************************************
@@ -659,27 +633,7 @@ public class RLP {
      * @return byte[] RLP encoded
      */
     public static byte[] encode(Object input) {
-        Value val = new Value(input);
-        if (val.isList()) {
-            List<Object> inputArray = val.asList();
-            if (inputArray.isEmpty()) {
-                return encodeLength(inputArray.size(), OFFSET_SHORT_LIST);
-            }
-            byte[] output = ByteUtil.EMPTY_BYTE_ARRAY;
-            for (Object object : inputArray) {
-                output = concatenate(output, encode(object));
-            }
-            byte[] prefix = encodeLength(output.length, OFFSET_SHORT_LIST);
-            return concatenate(prefix, output);
-        } else {
-            byte[] inputAsBytes = toBytes(input);
-            if (inputAsBytes.length == 1 && (inputAsBytes[0] & 0xff) <= 0x80) {
-                return inputAsBytes;
-            } else {
-                byte[] firstByte = encodeLength(inputAsBytes.length, OFFSET_SHORT_ITEM);
-                return concatenate(firstByte, inputAsBytes);
-            }
-        }
+        return RlpWriter.encode(input);
     }
 
     /**
@@ -961,32 +915,6 @@ public class RLP {
         return data;
     }
 
-    /*
-     *  Utility function to convert Objects into byte arrays
-     */
-    private static byte[] toBytes(Object input) {
-        if (input instanceof byte[]) {
-            return (byte[]) input;
-        } else if (input instanceof String) {
-            String inputString = (String) input;
-            return inputString.getBytes();
-        } else if (input instanceof Long) {
-            Long inputLong = (Long) input;
-            return (inputLong == 0) ? ByteUtil.EMPTY_BYTE_ARRAY : asUnsignedByteArray(BigInteger.valueOf(inputLong));
-        } else if (input instanceof Integer) {
-            Integer inputInt = (Integer) input;
-            return (inputInt == 0) ? ByteUtil.EMPTY_BYTE_ARRAY : asUnsignedByteArray(BigInteger.valueOf(inputInt));
-        } else if (input instanceof BigInteger) {
-            BigInteger inputBigInt = (BigInteger) input;
-            return (inputBigInt.equals(BigInteger.ZERO)) ? ByteUtil.EMPTY_BYTE_ARRAY : asUnsignedByteArray(inputBigInt);
-        } else if (input instanceof Value) {
-            Value val = (Value) input;
-            return toBytes(val.asObj());
-        }
-        throw new RuntimeException("Unsupported type: Only accepting String, Integer and BigInteger for now");
-    }
-
-
     private static int calculateLength(byte[] data, int index) {
         if ((data[index] & 0xFF) >= OFFSET_LONG_ITEM
                 && (data[index] & 0xFF) < OFFSET_SHORT_LIST) {
@@ -0,0 +1,159 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.crypto.util;
+
+
+import java.util.Arrays;
+
+/**
+ * Cursor over RLP encoded data.
+ *
+ * Each call to {@link #next()} parses the header of the next item and reports where its encoding
+ * and payload sit in the original array. Nothing is copied unless the caller asks for the bytes.
+ */
+public final class RlpReader {
+
+    private static final int OFFSET_SHORT_ITEM = 0x80;
+    private static final int OFFSET_LONG_ITEM = 0xb7;
+    private static final int OFFSET_SHORT_LIST = 0xc0;
+    private static final int OFFSET_LONG_LIST = 0xf7;
+
+    private final byte[] data;
+    private final int limit;
+    private int position;
+
+    private boolean isList;
+    private int itemOffset;
+    private int payloadOffset;
+    private int payloadLength;
+
+    public RlpReader(final byte[] data) {
+        this(data, 0, data.length);
+    }
+
+    public RlpReader(final byte[] data, final int offset, final int limit) {
+        this.data = data;
+        this.position = offset;
+        this.limit = limit;
+    }
+
+    public boolean hasNext() {
+        return this.position < this.limit;
+    }
+
+    /**
+     * Moves the cursor onto the next item and past it.
+     */
+    public RlpReader next() {
+        if (!hasNext()) {
+            throw new RuntimeException("RLP wrong encoding: no item at " + this.position);
+        }
+        final int prefix = this.data[this.position] & 0xFF;
+        this.itemOffset = this.position;
+        if (prefix < OFFSET_SHORT_ITEM) {
+            // The byte is its own encoding
+            this.isList = false;
+            this.payloadOffset = this.position;
+            this.payloadLength = 1;
+        } else if (prefix <= OFFSET_LONG_ITEM) {
+            this.isList = false;
+            this.payloadOffset = this.position + 1;
+            this.payloadLength = prefix - OFFSET_SHORT_ITEM;
+        } else if (prefix < OFFSET_SHORT_LIST) {
+            this.isList = false;
+            readLongLength(prefix - OFFSET_LONG_ITEM);
+        } else if (prefix <= OFFSET_LONG_LIST) {
+            this.isList = true;
+            this.payloadOffset = this.position + 1;
+            this.payloadLength = prefix - OFFSET_SHORT_LIST;
+        } else {
+            this.isList = true;
+            readLongLength(prefix - OFFSET_LONG_LIST);
+        }
+        final int end = this.payloadOffset + this.payloadLength;
+        if (end > this.limit || end < this.payloadOffset) {
+            throw new RuntimeException("RLP wrong encoding: item at " + this.itemOffset + " runs past " + this.limit);
+        }
+        this.position = end;
+        return this;
+    }
+
+    public boolean isList() {
+        return this.isList;
+    }
+
+    /**
+     * @return true for an item encoded as the bare 0x80 prefix
+     */
+    public boolean isEmptyItem() {
+        return (this.data[this.itemOffset] & 0xFF) == OFFSET_SHORT_ITEM;
+    }
+
+    /**
+     * @return a cursor over the items of the current list
+     */
+    public RlpReader list() {
+        if (!this.isList) {
+            throw new RuntimeException("RLP wrong decode attempt: item at " + this.itemOffset + " is not a list");
+        }
+        return new RlpReader(this.data, this.payloadOffset, this.payloadOffset + this.payloadLength);
+    }
+
+    public byte[] data() {
+        return this.data;
+    }
+
+    public int position() {
+        return this.position;
+    }
+
+    public int itemOffset() {
+        return this.itemOffset;
+    }
+
+    public int itemLength() {
+        return this.payloadOffset + this.payloadLength - this.itemOffset;
+    }
+
+    public int payloadOffset() {
+        return this.payloadOffset;
+    }
+
+    public int payloadLength() {
+        return this.payloadLength;
+    }
+
+    public byte[] payload() {
+        return Arrays.copyOfRange(this.data, this.payloadOffset, this.payloadOffset + this.payloadLength);
+    }
+
+    private void readLongLength(final int lengthOfLength) {
+        if (lengthOfLength > 4 || this.position + 1 + lengthOfLength > this.limit) {
+            throw new RuntimeException("RLP wrong encoding: bad length of length at " + this.position);
+        }
+        int length = 0;
+        for (int i = 1; i <= lengthOfLength; i++) {
+            length = (length << 8) | (this.data[this.position + i] & 0xFF);
+        }
+        if (length < 0) {
+            throw new RuntimeException("RLP wrong encoding: length too large at " + this.position);
+        }
+        this.payloadOffset = this.position + 1 + lengthOfLength;
+        this.payloadLength = length;
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.crypto.util;
+
+
+import java.math.BigInteger;
+
+import static org.spongycastle.util.BigIntegers.asUnsignedByteArray;
+
+/**
+ * Writes RLP into a single buffer sized up front.
+ *
+ * The exact encoded length is computed first, so the output is allocated once and every item is
+ * written straight into it instead of being built from concatenated intermediate arrays. Accepts the
+ * same inputs as {@link RLP#encode(Object)} and produces the same bytes.
+ */
+public final class RlpWriter {
+
+    private static final int SIZE_THRESHOLD = 56;
+    private static final int OFFSET_SHORT_ITEM = 0x80;
+    private static final int OFFSET_SHORT_LIST = 0xc0;
+
+    private final byte[] buffer;
+    private int position;
+
+    public RlpWriter(final int size) {
+        this.buffer = new byte[size];
+    }
+
+    public static byte[] encode(final Object input) {
+        final RlpWriter writer = new RlpWriter(encodedLength(input));
+        writer.write(input);
+        return writer.toByteArray();
+    }
+
+    /**
+     * @param input String, Integer, Long, BigInteger, byte[], Value or an array of any of these
+     * @return the number of bytes {@link #write(Object)} will produce for the input
+     */
+    public static int encodedLength(final Object input) {
+        final Object value = unwrap(input);
+        if (isList(value)) {
+            final int payloadLength = payloadLength((Object[]) value);
+            return headerLength(payloadLength) + payloadLength;
+        }
+        if (value instanceof byte[]) {
+            final byte[] bytes = (byte[]) value;
+            return itemLength(bytes.length, bytes.length == 1 ? bytes[0] & 0xFF : 0);
+        }
+        if (value instanceof String) {
+            final byte[] bytes = ((String) value).getBytes();
+            return itemLength(bytes.length, bytes.length == 1 ? bytes[0] & 0xFF : 0);
+        }
+        final long number = nonNegativeNumber(value);
+        if (number >= 0) {
+            return itemLength(numberLength(number), (int) Math.min(number, 0xFF));
+        }
+        final BigInteger bigInteger = numberToBigInteger(value);
+        if (bigInteger.signum() > 0) {
+            final int length = (bigInteger.bitLength() + 7) / 8;
+            return itemLength(length, length == 1 ? bigInteger.intValue() : 0);
+        }
+        final byte[] bytes = toBytes(bigInteger);
+        return itemLength(bytes.length, bytes.length == 1 ? bytes[0] & 0xFF : 0);
+    }
+
+    public static int listHeaderLength(final int payloadLength) {
+        return headerLength(payloadLength);
+    }
+
+    public RlpWriter write(final Object input) {
+        final Object value = unwrap(input);
+        if (isList(value)) {
+            final Object[] items = (Object[]) value;
+            writeHeader(payloadLength(items), OFFSET_SHORT_LIST);
+            for (final Object item : items) {
+                write(item);
+            }
+            return this;
+        }
+        if (value instanceof byte[]) {
+            final byte[] bytes = (byte[]) value;
+            return writeItem(bytes, 0, bytes.length);
+        }
+        if (value instanceof String) {
+            final byte[] bytes = ((String) value).getBytes();
+            return writeItem(bytes, 0, bytes.length);
+        }
+        final long number = nonNegativeNumber(value);
+        if (number >= 0) {
+            return writeNumber(number);
+        }
+        final byte[] bytes = toBytes(numberToBigInteger(value));
+        return writeItem(bytes, 0, bytes.length);
+    }
+
+    public RlpWriter writeListHeader(final int payloadLength) {
+        writeHeader(payloadLength, OFFSET_SHORT_LIST);
+        return this;
+    }
+
+    /**
+     * Copies bytes that are already RLP encoded, such as items sliced out of another message.
+     */
+    public RlpWriter writeRaw(final byte[] source, final int offset, final int length) {
+        System.arraycopy(source, offset, this.buffer, this.position, length);
+        this.position += length;
+        return this;
+    }
+
+    public byte[] toByteArray() {
+        if (this.position != this.buffer.length) {
+            throw new IllegalStateException("RLP buffer not filled: wrote " + this.position + " of " + this.buffer.length + " bytes");
+        }
+        return this.buffer;
+    }
+
+    private RlpWriter writeItem(final byte[] bytes, final int offset, final int length) {
+        // A single byte up to and including 0x80 is written as is, matching RLP.encode.
+        if (length == 1 && (bytes[offset] & 0xFF) <= OFFSET_SHORT_ITEM) {
+            this.buffer[this.position++] = bytes[offset];
+            return this;
+        }
+        writeHeader(length, OFFSET_SHORT_ITEM);
+        return writeRaw(bytes, offset, length);
+    }
+
+    private RlpWriter writeNumber(final long number) {
+        final int length = numberLength(number);
+        if (length == 1 && number <= OFFSET_SHORT_ITEM) {
+            this.buffer[this.position++] = (byte) number;
+            return this;
+        }
+        writeHeader(length, OFFSET_SHORT_ITEM);
+        for (int shift = (length - 1) * 8; shift >= 0; shift -= 8) {
+            this.buffer[this.position++] = (byte) (number >>> shift);
+        }
+        return this;
+    }
+
+    private void writeHeader(final int length, final int offset) {
+        if (length < SIZE_THRESHOLD) {
+            this.buffer[this.position++] = (byte) (offset + length);
+            return;
+        }
+        final int lengthOfLength = numberLength(length);
+        this.buffer[this.position++] = (byte) (offset + SIZE_THRESHOLD - 1 + lengthOfLength);
+        for (int shift = (lengthOfLength - 1) * 8; shift >= 0; shift -= 8) {
+            this.buffer[this.position++] = (byte) (length >>> shift);
+        }
+    }
+
+    // Nested lists are measured once per enclosing level. Transactions are at most two levels
+    // deep, so this stays effectively linear without keeping a table of list lengths.
+    private static int payloadLength(final Object[] items) {
+        int length = 0;
+        for (final Object item : items) {
+            length += encodedLength(item);
+        }
+        return length;
+    }
+
+    private static int itemLength(final int length, final int firstByte) {
+        if (length == 1 && firstByte <= OFFSET_SHORT_ITEM) {
+            return 1;
+        }
+        return headerLength(length) + length;
+    }
+
+    private static int headerLength(final int length) {
+        return length < SIZE_THRESHOLD ? 1 : 1 + numberLength(length);
+    }
+
+    private static int numberLength(final long number) {
+        return (64 - Long.numberOfLeadingZeros(number) + 7) / 8;
+    }
+
+    private static Object unwrap(final Object input) {
+        return input instanceof Value ? ((Value) input).asObj() : input;
+    }
+
+    private static boolean isList(final Object value) {
+        return value != null && value.getClass().isArray() && !value.getClass().getComponentType().isPrimitive();
+    }
+
+    /**
+     * @return the value of a non-negative Integer or Long, or -1 for anything else
+     */
+    private static long nonNegativeNumber(final Object value) {
+        if (value instanceof Integer || value instanceof Long) {
+            final long number = ((Number) value).longValue();
+            return number >= 0 ? number : -1;
+        }
+        return -1;
+    }
+
+    private static BigInteger numberToBigInteger(final Object value) {
+        if (value instanceof BigInteger) {
+            return (BigInteger) value;
+        } else if (value instanceof Integer || value instanceof Long) {
+            return BigInteger.valueOf(((Number) value).longValue());
+        }
+        throw new RuntimeException("Unsupported type: Only accepting String, Integer and BigInteger for now");
+    }
+
+    private static byte[] toBytes(final BigInteger value) {
+        return value.equals(BigInteger.ZERO) ? ByteUtil.EMPTY_BYTE_ARRAY : asUnsignedByteArray(value);
+    }
+}
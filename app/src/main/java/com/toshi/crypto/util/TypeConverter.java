@@ -83,39 +83,60 @@ public class TypeConverter {
         return String.valueOf(new BigInteger(hex, 16));
     }
 
+    private static final int TRANSACTION_FIELD_COUNT = 9;
+
     public static String skeletonAndSignatureToRLPEncodedHex(final String skeleton, final String signature) {
-        final Object[] decoded = (Object[])RLP.decode(TypeConverter.StringHexToByteArray(skeleton), 0).getDecoded();
+        final byte[] skeletonBytes = TypeConverter.StringHexToByteArray(skeleton);
+        final RlpReader fields = new RlpReader(skeletonBytes).next().list();
+
+        // Only the offsets of each field are kept; the unsigned fields are copied across as encoded.
+        final int[] fieldOffsets = new int[TRANSACTION_FIELD_COUNT];
+        int fieldCount = 0;
+        while (fields.hasNext() && fieldCount < TRANSACTION_FIELD_COUNT) {
+            fieldOffsets[fieldCount++] = fields.next().itemOffset();
+        }
 
-        if (decoded.length != 9) {
+        if (fieldCount != TRANSACTION_FIELD_COUNT || fields.hasNext()) {
             throw new IllegalStateException("Invalid Transaction Skeleton: Decoded RLP length is wrong");
         }
 
-        if (!isEmptyString(decoded[decoded.length - 2])
-            ||!isEmptyString(decoded[decoded.length - 1])) {
+        if (!isEmptyItem(skeletonBytes, fieldOffsets[TRANSACTION_FIELD_COUNT - 2])
+            ||!isEmptyItem(skeletonBytes, fieldOffsets[TRANSACTION_FIELD_COUNT - 1])) {
             throw new IllegalStateException("Transaction is already signed!");
         }
 
         final BigInteger r = TypeConverter.StringHexToBigInteger(signature.substring(2, 66));
         final BigInteger s = TypeConverter.StringHexToBigInteger(signature.substring(66, 130));
         final int v = TypeConverter.StringHexToBigInteger(signature.substring(130)).intValue();
-        final int vee = getVee(decoded[decoded.length - 3]);
-
-        decoded[decoded.length - 3] = v + vee;
-        decoded[decoded.length - 2] = r;
-        decoded[decoded.length - 1] = s;
-        return TypeConverter.toJsonHex(RLP.encode(decoded));
+        final int vee = getVee(new RlpReader(skeletonBytes, fieldOffsets[TRANSACTION_FIELD_COUNT - 3], skeletonBytes.length).next());
+
+        final int unsignedLength = fieldOffsets[TRANSACTION_FIELD_COUNT - 3] - fieldOffsets[0];
+        final int payloadLength = unsignedLength
+                + RlpWriter.encodedLength(v + vee)
+                + RlpWriter.encodedLength(r)
+                + RlpWriter.encodedLength(s);
+        final byte[] signed = new RlpWriter(RlpWriter.listHeaderLength(payloadLength) + payloadLength)
+                .writeListHeader(payloadLength)
+                .writeRaw(skeletonBytes, fieldOffsets[0], unsignedLength)
+                .write(v + vee)
+                .write(r)
+                .write(s)
+                .toByteArray();
+        return TypeConverter.toJsonHex(signed);
     }
 
-    private static int getVee(final Object obj) {
-        if (obj instanceof byte[]) {
-            int networkId = RLP.decodeInt((byte[]) obj, 0);
+    private static int getVee(final RlpReader networkIdField) {
+        if (!networkIdField.isList() && !networkIdField.isEmptyItem()) {
+            // decodeInt reads the length prefix itself, so it has to start at the item
+            final int networkId = RLP.decodeInt(networkIdField.data(), networkIdField.itemOffset());
             return 35 + networkId * 2;
         }
         return 27;
     }
 
-    private static boolean isEmptyString(final Object obj) {
-        return obj instanceof String && ((String) obj).length() == 0;
+    private static boolean isEmptyItem(final byte[] data, final int offset) {
+        final RlpReader item = new RlpReader(data, offset, data.length).next();
+        return item.isEmptyItem();
     }
 
     // Set pattern to null if you want the original format
@@ -21,10 +21,12 @@ import com.toshi.crypto.HDWallet
 import com.toshi.crypto.util.TypeConverter
 import com.toshi.extensions.getTimeoutSingle
 import com.toshi.manager.ethRegistration.EthGcmRegistration
+import com.toshi.manager.exchangeRate.ExchangeRateCache
 import com.toshi.manager.network.CurrencyInterface
 import com.toshi.manager.network.CurrencyService
 import com.toshi.manager.network.EthereumService
 import com.toshi.manager.network.EthereumServiceInterface
+import com.toshi.manager.network.ServerClock
 import com.toshi.model.local.network.Network
 import com.toshi.model.network.Balance
 import com.toshi.model.network.Currencies
@@ -59,6 +61,10 @@ class BalanceManager(
         private val currencyService: CurrencyInterface = CurrencyService.getApi(),
         private val balancePrefs: BalancePrefsInterface = BalancePrefs(),
         private val appPrefs: AppPrefsInterface = AppPrefs,
+        private val exchangeRateCache: ExchangeRateCache = ExchangeRateCache(
+                fetchRate = { currencyService.getRates(it) },
+                balancePrefs = balancePrefs
+        ),
         private val baseApplication: BaseApplication = BaseApplication.get(),
         private val walletObservable: Observable<HDWallet>,
         private val ethGcmRegistration: EthGcmRegistration = EthGcmRegistration(
@@ -109,7 +115,9 @@ class BalanceManager(
                 )
     }
 
-    fun registerEthGcm(): Completable = ethGcmRegistration.forceRegisterEthGcm()
+    fun registerEthGcm(): Completable = ethGcmRegistration.registerEthGcm()
+
+    fun forceRegisterEthGcm(): Completable = ethGcmRegistration.forceRegisterEthGcm()
 
     fun refreshBalance() {
         getBalance()
@@ -162,9 +170,8 @@ class BalanceManager(
     }
 
     fun addCustomToken(customERCToken: CustomERCToken): Completable {
-        return ethService
-                .get()
-                .timestamp
+        return ServerClock
+                .getServerTime(ethService.getCurrentBaseUrl(), ethService.get().timestamp)
                 .flatMapCompletable { ethService.get().addCustomToken(it.get(), customERCToken) }
                 .subscribeOn(scheduler)
     }
@@ -194,7 +201,7 @@ class BalanceManager(
                 .subscribeOn(scheduler)
     }
 
-    private fun fetchLatestExchangeRate(code: String): Single<ExchangeRate> = currencyService.getRates(code)
+    private fun fetchLatestExchangeRate(code: String): Single<ExchangeRate> = exchangeRateCache.getRate(code)
 
     fun getCurrencies(): Single<Currencies> {
         return currencyService
@@ -264,6 +271,7 @@ class BalanceManager(
     fun clear() {
         clearConnectivitySubscription()
         balancePrefs.clear()
+        exchangeRateCache.clear()
         ethGcmRegistration.clear()
     }
 
@@ -22,6 +22,7 @@ import com.toshi.manager.chat.SofaMessageManager
 import com.toshi.manager.store.ConversationStore
 import com.toshi.model.local.Conversation
 import com.toshi.model.local.ConversationObservables
+import com.toshi.model.local.ConversationStatus
 import com.toshi.model.local.Group
 import com.toshi.model.local.IncomingMessage
 import com.toshi.model.local.Recipient
@@ -66,8 +67,16 @@ class ChatManager(
                 .subscribeOn(scheduler)
     }
 
+    fun loadConversationStatus(threadId: String): Single<ConversationStatus?> {
+        return conversationStore
+                .loadConversationStatus(threadId)
+                .subscribeOn(scheduler)
+    }
+
     fun loadConversationAndResetUnreadCounter(threadId: String): Single<Conversation> {
-        return loadConversation(threadId)
+        return conversationStore
+                .loadSummaryByThreadId(threadId)
+                .subscribeOn(scheduler)
                 .flatMap { createEmptyConversationIfNullAndSetToAccepted(it, threadId) }
                 .doOnSuccess { conversationStore.resetUnreadMessageCounter(it.threadId) }
     }
@@ -80,6 +89,24 @@ class ChatManager(
                 .flatMap { conversationStore.createEmptyConversation(it) }
     }
 
+    fun loadLatestMessages(threadId: String, limit: Int): Single<List<SofaMessage>> {
+        return conversationStore
+                .loadLatestMessages(threadId, limit)
+                .subscribeOn(scheduler)
+    }
+
+    fun loadMessagesBefore(threadId: String, creationTime: Long, privateKey: String, limit: Int): Single<List<SofaMessage>> {
+        return conversationStore
+                .loadMessagesBefore(threadId, creationTime, privateKey, limit)
+                .subscribeOn(scheduler)
+    }
+
+    fun loadMessagesAfter(threadId: String, creationTime: Long, privateKey: String, limit: Int): Single<List<SofaMessage>> {
+        return conversationStore
+                .loadMessagesAfter(threadId, creationTime, privateKey, limit)
+                .subscribeOn(scheduler)
+    }
+
     fun deleteConversation(conversation: Conversation): Completable {
         return conversationStore
                 .deleteByThreadId(conversation.threadId)
@@ -208,7 +235,9 @@ class ChatManager(
 
     fun forceRegisterChatGcm(): Completable = sofaMessageManager.forceRegisterChatGcm()
 
-    fun fetchLatestMessage(): Single<IncomingMessage> = sofaMessageManager.fetchLatestMessage()
+    fun initReceiving(wallet: HDWallet) = sofaMessageManager.initReceiving(wallet)
+
+    fun drainMessages(): Observable<IncomingMessage> = sofaMessageManager.drainMessages()
 
     fun clear() = sofaMessageManager.clear()
 
@@ -17,6 +17,7 @@
 
 package com.toshi.manager
 
+import com.toshi.manager.dapp.DappCatalogue
 import com.toshi.manager.network.DirectoryInterface
 import com.toshi.manager.network.DirectoryService
 import com.toshi.model.network.dapp.DappResult
@@ -28,9 +29,14 @@ import rx.schedulers.Schedulers
 
 class DappManager(
         private val directoryService: DirectoryInterface = DirectoryService.get(),
+        private val dappCatalogue: DappCatalogue = DappCatalogue(directoryService),
         private val scheduler: Scheduler = Schedulers.io()
 ) {
 
+    companion object {
+        private const val PAGE_SIZE = 20
+    }
+
     fun getFrontPageDapps(): Single<DappSections> {
         return directoryService
                 .getFrontpageDapps()
@@ -38,26 +44,34 @@ class DappManager(
     }
 
     fun search(input: String): Single<DappSearchResult> {
-        return directoryService
-                .search(input)
+        return dappCatalogue
+                .getIndex()
+                .map { it.search(input) }
+                .onErrorResumeNext { directoryService.search(input) }
                 .subscribeOn(scheduler)
     }
 
     fun getAllDapps(): Single<DappSearchResult> {
-        return directoryService
-                .getAllDapps()
+        return dappCatalogue
+                .getIndex()
+                .map { it.page(0, it.size) }
+                .onErrorResumeNext { directoryService.getAllDapps() }
                 .subscribeOn(scheduler)
     }
 
     fun getAllDappsWithOffset(offset: Int): Single<DappSearchResult> {
-        return directoryService
-                .getAllDappsWithOffset(offset, 20)
+        return dappCatalogue
+                .getIndex()
+                .map { it.page(offset, PAGE_SIZE) }
+                .onErrorResumeNext { directoryService.getAllDappsWithOffset(offset, PAGE_SIZE) }
                 .subscribeOn(scheduler)
     }
 
     fun getAllDappsInCategoryWithOffset(categoryId: Int, offset: Int): Single<DappSearchResult> {
-        return directoryService
-                .getAllDappsInCategory(categoryId, offset, 20)
+        return dappCatalogue
+                .getIndex()
+                .map { it.pageInCategory(categoryId, offset, PAGE_SIZE) }
+                .onErrorResumeNext { directoryService.getAllDappsInCategory(categoryId, offset, PAGE_SIZE) }
                 .subscribeOn(scheduler)
     }
 
@@ -3,6 +3,7 @@ package com.toshi.manager
 import com.toshi.extensions.getQueryMap
 import com.toshi.extensions.isGroupId
 import com.toshi.manager.network.IdService
+import com.toshi.manager.network.ServerClock
 import com.toshi.manager.store.BlockedUserStore
 import com.toshi.manager.store.GroupStore
 import com.toshi.manager.store.UserStore
@@ -23,6 +24,7 @@ import rx.Scheduler
 import rx.Single
 import rx.schedulers.Schedulers
 import java.io.IOException
+import java.util.concurrent.ConcurrentHashMap
 
 class RecipientManager(
         private val idService: IdService = IdService.get(),
@@ -33,6 +35,8 @@ class RecipientManager(
         private val scheduler: Scheduler = Schedulers.io()
 ) {
 
+    private val inFlightSearches = ConcurrentHashMap<String, Observable<List<User>>>()
+
     fun getFromId(recipientId: String): Single<Recipient> {
         return if (recipientId.isGroupId()) getGroupFromId(recipientId).map { Recipient(it) }
         else getUserFromToshiId(recipientId).map { Recipient(it) }
@@ -127,12 +131,50 @@ class RecipientManager(
                 )
     }
 
-    fun searchOnlineUsers(query: String): Single<List<User>> {
-        return idService
-                .api
-                .searchBy(UserType.USER.name.toLowerCase(), query)
+    /**
+     * Emits the cached users matching the query straight away, then the same list merged with
+     * the server results once they arrive. Identical searches that are in flight share one request.
+     * If the server search fails only the cached users are emitted, even when there are none, so
+     * callers always replace the results of the previous query.
+     */
+    fun searchUsers(type: UserType, query: String): Observable<List<User>> {
+        return userStore
+                .search(query, type)
+                .onErrorReturn { emptyList() }
+                .toObservable()
+                .concatMap { localUsers ->
+                    val onlineUsers = searchOnlineUsers(type, query)
+                            .map { mergeSearchResults(localUsers, it) }
+                            .onErrorResumeNext {
+                                LogUtil.w("Error while searching for users $it")
+                                if (localUsers.isEmpty()) Observable.just(localUsers) else Observable.empty()
+                            }
+                    if (localUsers.isEmpty()) onlineUsers
+                    else onlineUsers.startWith(localUsers)
+                }
                 .subscribeOn(scheduler)
-                .map { it.results }
+    }
+
+    private fun searchOnlineUsers(type: UserType, query: String): Observable<List<User>> {
+        val key = "${type.type}:$query"
+        return inFlightSearches[key] ?: synchronized(inFlightSearches) {
+            inFlightSearches.getOrPut(key) {
+                idService
+                        .api
+                        .search(type.type, query)
+                        .toObservable()
+                        .map { it.results }
+                        .doOnNext { cacheUsers(it) }
+                        .doOnTerminate { inFlightSearches.remove(key) }
+                        .cache()
+            }
+        }
+    }
+
+    private fun mergeSearchResults(localUsers: List<User>, onlineUsers: List<User>): List<User> {
+        val onlineUsersById = onlineUsers.associateBy { it.toshiId }
+        val localIds = localUsers.map { it.toshiId }.toSet()
+        return localUsers.map { onlineUsersById[it.toshiId] ?: it } + onlineUsers.filter { it.toshiId !in localIds }
     }
 
     fun isUserBlocked(ownerAddress: String): Single<Boolean> {
@@ -195,9 +237,12 @@ class RecipientManager(
                 )
     }
 
-    fun getTimestamp(): Single<ServerTime> = idService.api.timestamp
+    fun getTimestamp(): Single<ServerTime> = ServerClock.getServerTime(idService.baseUrl, idService.api.timestamp)
 
-    fun clear() = clearCache()
+    fun clear() {
+        clearCache()
+        userStore.clearSearchIndex()
+    }
 
     private fun clearCache() {
         try {
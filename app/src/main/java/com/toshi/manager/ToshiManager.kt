@@ -22,6 +22,7 @@ import com.toshi.crypto.HDWallet
 import com.toshi.crypto.HdWalletBuilder
 import com.toshi.extensions.getTimeoutSingle
 import com.toshi.extensions.toast
+import com.toshi.manager.store.AvatarStore
 import com.toshi.manager.store.DbMigration
 import com.toshi.util.ImageUtil
 import com.toshi.util.logging.LogUtil
@@ -122,6 +123,25 @@ class ToshiManager(
                 .subscribeOn(scheduler)
     }
 
+    // Push wakeups only need the database and the chat receiver, everything else is initialised when the app is opened
+    fun tryInitForMessageDrain(): Completable {
+        return getOrLoadWallet()
+                .doOnSuccess {
+                    initRealm(it)
+                    chatManager.initReceiving(it)
+                }
+                .toCompletable()
+                .doOnError { LogUtil.exception("Error while trying to init message drain", it) }
+                .subscribeOn(scheduler)
+    }
+
+    private fun getOrLoadWallet(): Single<HDWallet> {
+        val wallet = wallet ?: return walletBuilder
+                .getExistingWallet()
+                .doOnSuccess { setWallet(it) }
+        return Single.just(wallet)
+    }
+
     private fun setWallet(wallet: HDWallet?) {
         this.wallet = wallet
         walletSubject.onNext(wallet)
@@ -156,7 +176,7 @@ class ToshiManager(
         val key = wallet.generateDatabaseEncryptionKey()
         Realm.init(baseApplication)
         realmConfig = RealmConfiguration.Builder()
-                .schemaVersion(22)
+                .schemaVersion(25)
                 .migration(DbMigration(wallet))
                 .name(wallet.ownerAddress)
                 .encryptionKey(key)
@@ -195,6 +215,7 @@ class ToshiManager(
         areManagersInitialised = false
         closeDatabase()
         ImageUtil.clear()
+        AvatarStore.get().clear()
         setWallet(null)
     }
 
@@ -187,5 +187,6 @@ class TransactionManager(
         incomingTransactionManager.clearSubscriptions()
         outgoingTransactionManager.clearSubscriptions()
         updateTransactionManager.clearSubscription()
+        updateTransactionManager.stopPolling()
     }
 }
\ No newline at end of file
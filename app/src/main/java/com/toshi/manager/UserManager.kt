@@ -20,6 +20,7 @@ package com.toshi.manager
 import com.toshi.crypto.HDWallet
 import com.toshi.extensions.getTimeoutSingle
 import com.toshi.manager.network.IdService
+import com.toshi.manager.network.ServerClock
 import com.toshi.model.local.User
 import com.toshi.model.network.ServerTime
 import com.toshi.model.network.UserDetails
@@ -44,7 +45,7 @@ import java.util.concurrent.TimeUnit
 
 class UserManager(
         private val idService: IdService = IdService.get(),
-        private val fileUploader: FileUploader = FileUploader(idService.api),
+        private val fileUploader: FileUploader = FileUploader(idService),
         private val userPrefs: UserPrefsInterface = UserPrefs(),
         private val appPrefs: AppPrefsInterface = AppPrefs,
         private val recipientManager: RecipientManager,
@@ -202,7 +203,7 @@ class UserManager(
                 .doOnSuccess { userSubject.onNext(it) }
     }
 
-    private fun getTimestamp() = idService.api.timestamp
+    private fun getTimestamp() = ServerClock.getServerTime(idService.baseUrl, idService.api.timestamp)
 
     fun webLogin(loginToken: String): Completable {
         return getTimestamp()
@@ -25,6 +25,7 @@ import com.toshi.crypto.signal.store.ProtocolStore
 import com.toshi.crypto.signal.store.SignalTrustStore
 import com.toshi.manager.UserManager
 import com.toshi.manager.model.SofaMessageTask
+import com.toshi.manager.pushRegistration.PushRegistrar
 import com.toshi.manager.store.ConversationStore
 import com.toshi.model.local.Conversation
 import com.toshi.model.local.Group
@@ -55,6 +56,7 @@ class SofaMessageManager(
         private val signalServiceUrl: SignalServiceUrl = SignalServiceUrl(baseApplication.getString(R.string.chat_url), trustStore),
         private val signalServiceUrls: Array<SignalServiceUrl> = Array(1, { signalServiceUrl }),
         private val signalPrefs: SignalPrefs = SignalPrefs,
+        private val pushRegistrar: PushRegistrar = PushRegistrar(),
         private val walletObservable: Observable<HDWallet>,
         private val userAgent: String = "Android " + BuildConfig.APPLICATION_ID + " - " + BuildConfig.VERSION_NAME + ":" + BuildConfig.VERSION_CODE,
         private val scheduler: Scheduler = Schedulers.io()
@@ -135,7 +137,7 @@ class SofaMessageManager(
     }
 
     private fun initSofaMessageRegistration(): Completable {
-        val messageRegister = SofaMessageRegistration(chatService, protocolStore)
+        val messageRegister = SofaMessageRegistration(chatService, protocolStore, pushRegistrar)
         this.messageRegister = messageRegister
         return messageRegister
                 .registerIfNeeded()
@@ -143,7 +145,7 @@ class SofaMessageManager(
     }
 
     private fun redoRegistrationTask(): Completable {
-        val messageRegister = messageRegister ?: SofaMessageRegistration(chatService, protocolStore)
+        val messageRegister = messageRegister ?: SofaMessageRegistration(chatService, protocolStore, pushRegistrar)
         this.messageRegister = messageRegister
         return messageRegister
                 .registerIfNeededWithOnboarding()
@@ -225,14 +227,20 @@ class SofaMessageManager(
 
     fun forceRegisterChatGcm(): Completable {
         return messageRegister
-                ?.registerChatGcm()
+                ?.forceRegisterChatGcm()
                 ?: Completable.error(IllegalStateException("Unable to register as class hasn't been initialised yet."))
     }
 
-    fun fetchLatestMessage(): Single<IncomingMessage> {
+    // Only what's needed to receive and store messages, used when woken up by a push
+    fun initReceiving(wallet: HDWallet) {
+        if (chatService == null) initChatService(wallet)
+        if (messageReceiver == null) initSenderAndReceiver(wallet)
+    }
+
+    fun drainMessages(): Observable<IncomingMessage> {
         return messageReceiver
-                ?.fetchLatestMessage()
-                ?: Single.error(IllegalStateException("SofaMessageReceiver is null while fetchLatestMessage"))
+                ?.drainMessages(SofaMessageReceiver.DRAIN_IDLE_TIMEOUT_MILLIS)
+                ?: Observable.error(IllegalStateException("SofaMessageReceiver is null while drainMessages"))
     }
 
     fun clear() {
@@ -51,12 +51,14 @@ import org.whispersystems.signalservice.internal.configuration.SignalServiceConf
 import org.whispersystems.signalservice.internal.configuration.SignalServiceUrl;
 
 import java.io.IOException;
-import java.util.concurrent.ExecutorService;
+import java.util.Arrays;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import rx.Completable;
 import rx.Observable;
+import rx.Scheduler;
 import rx.Single;
 import rx.Subscription;
 import rx.schedulers.Schedulers;
@@ -65,6 +67,13 @@ public class SofaMessageReceiver {
 
     private final static String USER_AGENT = "Android " + BuildConfig.APPLICATION_ID + " - " + BuildConfig.VERSION_NAME +  ":" + BuildConfig.VERSION_CODE;
     public final static int INCOMING_MESSAGE_TIMEOUT = 10;
+    // The pipe has no queue-empty signal, so a drain ends once no envelope arrives within this window
+    public final static long DRAIN_IDLE_TIMEOUT_MILLIS = 1500;
+    // Upper bound for a whole drain, so a push wakeup always finishes
+    private final static long DRAIN_DEADLINE_MILLIS = 15000;
+    private final static int MAX_CONSECUTIVE_FAILED_READS = 10;
+    private final static int PROCESSING_LANE_COUNT = 4;
+    private final static int MAX_PENDING_ENVELOPES = 256;
 
     private final ProtocolStore protocolStore;
     private final SignalServiceMessageReceiver messageReceiver;
@@ -74,8 +83,11 @@ public class SofaMessageReceiver {
 
     private SignalServiceMessagePipe messagePipe;
     private boolean isReceivingMessages;
+    // Counted on the receiver thread, reset when a drain starts
+    private volatile int consecutiveFailedReads;
     private Subscription messagesSubscription;
-    private final ExecutorService messageReceiverThread = Executors.newSingleThreadExecutor();
+    private final Scheduler receiverScheduler = Schedulers.from(Executors.newSingleThreadExecutor());
+    private final Scheduler[] processingLanes = createProcessingLanes();
 
     public SofaMessageReceiver(@NonNull final String ownerAddress,
                                @NonNull final Observable<HDWallet> hdWalletObservable,
@@ -97,6 +109,14 @@ public class SofaMessageReceiver {
         this.taskHandleMessage = new HandleMessageTask(this.messageReceiver, conversationStore, hdWalletObservable, messageSender);
     }
 
+    private static Scheduler[] createProcessingLanes() {
+        final Scheduler[] lanes = new Scheduler[PROCESSING_LANE_COUNT];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = Schedulers.from(Executors.newSingleThreadExecutor());
+        }
+        return lanes;
+    }
+
     public void receiveMessagesAsync() {
         if (this.isReceivingMessages) {
             // Already running.
@@ -105,10 +125,17 @@ public class SofaMessageReceiver {
 
         this.isReceivingMessages = true;
 
-        this.messagesSubscription = fetchLatestMessage()
+        // Envelopes are read and decrypted one at a time on the receiver thread, which keeps
+        // the Signal sessions ratcheting in order. Everything after decryption runs on a
+        // processing lane so a slow sender lookup or attachment download doesn't hold up
+        // the rest of the backlog.
+        this.messagesSubscription = readNextEnvelope()
                 .toObservable()
                 .onErrorResumeNext(this::returnNullIfTimeoutException)
                 .repeatWhen(completed -> completed)
+                .filter(envelope -> envelope != null)
+                .flatMap(envelope -> processEnvelope(envelope).toObservable(), MAX_PENDING_ENVELOPES)
+                .observeOn(Schedulers.io())
                 .subscribe(
                         ChatNotificationManager::showNotification,
                         throwable -> LogUtil.exception("Error while receiving messages " + throwable)
@@ -120,55 +147,149 @@ public class SofaMessageReceiver {
         else return Observable.error(throwable);
     }
 
-    public Single<IncomingMessage> fetchLatestMessage() {
-        return Single.fromCallable(this::tryFetchLatestMessage)
-                .subscribeOn(Schedulers.from(messageReceiverThread));
+    /**
+     * Reads and processes everything that is queued for this device, and completes once
+     * no new envelope has arrived for {@code idleTimeoutMillis}. Meant for push wakeups,
+     * so the pipe is closed afterwards unless the app is receiving messages itself.
+     *
+     * The drain also ends when the connection fails, after repeated envelopes that can't be
+     * decrypted, or at {@link #DRAIN_DEADLINE_MILLIS}. Whatever was read by then is still emitted.
+     */
+    public Observable<IncomingMessage> drainMessages(final long idleTimeoutMillis) {
+        if (this.isReceivingMessages) {
+            // The open pipe is already delivering and notifying.
+            return Observable.empty();
+        }
+
+        return Single.fromCallable(() -> readAndDecryptNextEnvelope(idleTimeoutMillis))
+                .subscribeOn(this.receiverScheduler)
+                .toObservable()
+                .repeat()
+                .doOnSubscribe(() -> this.consecutiveFailedReads = 0)
+                .takeUntil(__ -> this.consecutiveFailedReads >= MAX_CONSECUTIVE_FAILED_READS)
+                .takeUntil(Observable.timer(DRAIN_DEADLINE_MILLIS, TimeUnit.MILLISECONDS))
+                .onErrorResumeNext(this::completeDrain)
+                .filter(envelope -> envelope != null)
+                .flatMap(envelope -> processEnvelope(envelope).toObservable(), MAX_PENDING_ENVELOPES)
+                .filter(incomingMessage -> incomingMessage != null)
+                .doAfterTerminate(this::closePipeIfNotReceiving);
+    }
+
+    private Observable<DecryptedEnvelope> completeDrain(final Throwable throwable) {
+        if (throwable instanceof TimeoutException) return Observable.empty(); // The queue has been drained
+        if (throwable instanceof IOException || throwable instanceof IllegalStateException) {
+            // A dead or unauthenticated socket fails every read straight away, retrying won't help
+            LogUtil.w("Connection failed while draining messages " + throwable);
+            return Observable.empty();
+        }
+        return Observable.error(throwable);
+    }
+
+    private void closePipeIfNotReceiving() {
+        // Runs on the receiver thread so it can't race with a read
+        Completable.fromAction(() -> {
+            if (this.isReceivingMessages || this.messagePipe == null) return;
+            this.messagePipe.shutdown();
+            this.messagePipe = null;
+        })
+        .subscribeOn(this.receiverScheduler)
+        .subscribe(
+                () -> {},
+                throwable -> LogUtil.w("Error while closing message pipe " + throwable)
+        );
+    }
+
+    private Single<DecryptedEnvelope> readNextEnvelope() {
+        return readNextEnvelope(TimeUnit.SECONDS.toMillis(INCOMING_MESSAGE_TIMEOUT));
+    }
+
+    private Single<DecryptedEnvelope> readNextEnvelope(final long timeoutMillis) {
+        return Single.fromCallable(() -> tryReadNextEnvelope(timeoutMillis))
+                .subscribeOn(this.receiverScheduler);
+    }
+
+    @WorkerThread
+    private DecryptedEnvelope tryReadNextEnvelope(final long timeoutMillis) throws TimeoutException {
+        try {
+            return readAndDecryptNextEnvelope(timeoutMillis);
+        } catch (final IllegalStateException | IOException e) {
+            LogUtil.exception("Error while fetching latest message " + e);
+        }
+        return null;
     }
 
+    // Connection errors are thrown, while an envelope that can't be decrypted is logged and
+    // skipped, since the next one may well be fine.
     @WorkerThread
-    private IncomingMessage tryFetchLatestMessage() throws TimeoutException {
+    private DecryptedEnvelope readAndDecryptNextEnvelope(final long timeoutMillis) throws TimeoutException, IOException {
         if (this.messagePipe == null) {
             this.messagePipe = messageReceiver.createMessagePipe();
         }
 
+        final SignalServiceEnvelope envelope = readEnvelope(timeoutMillis);
+        try {
+            final DecryptedEnvelope decryptedEnvelope = decryptIncomingSignalServiceEnvelope(envelope);
+            this.consecutiveFailedReads = 0;
+            return decryptedEnvelope;
+        } catch (final InvalidKeyException | InvalidKeyIdException | DuplicateMessageException | InvalidVersionException | LegacyMessageException | InvalidMessageException | NoSessionException | org.whispersystems.libsignal.UntrustedIdentityException e) {
+            this.consecutiveFailedReads++;
+            LogUtil.exception("Error while decrypting latest message " + e);
+        }
+        return null;
+    }
+
+    private SignalServiceEnvelope readEnvelope(final long timeoutMillis) throws TimeoutException, IOException {
         try {
-            final SignalServiceEnvelope envelope = messagePipe.read(INCOMING_MESSAGE_TIMEOUT, TimeUnit.SECONDS);
-            return decryptIncomingSignalServiceEnvelope(envelope);
+            return this.messagePipe.read(timeoutMillis, TimeUnit.MILLISECONDS);
         } catch (final TimeoutException ex) {
             throw new TimeoutException(ex.getMessage());
-        } catch (final IllegalStateException | InvalidKeyException | InvalidKeyIdException | DuplicateMessageException | InvalidVersionException | LegacyMessageException | InvalidMessageException | NoSessionException | org.whispersystems.libsignal.UntrustedIdentityException | IOException e) {
-            LogUtil.exception("Error while fetching latest message " + e);
         }
-        return null;
     }
 
-    private IncomingMessage decryptIncomingSignalServiceEnvelope(final SignalServiceEnvelope envelope) throws InvalidVersionException, InvalidMessageException, InvalidKeyException, DuplicateMessageException, InvalidKeyIdException, org.whispersystems.libsignal.UntrustedIdentityException, LegacyMessageException, NoSessionException {
+    private DecryptedEnvelope decryptIncomingSignalServiceEnvelope(final SignalServiceEnvelope envelope) throws InvalidVersionException, InvalidMessageException, InvalidKeyException, DuplicateMessageException, InvalidKeyIdException, org.whispersystems.libsignal.UntrustedIdentityException, LegacyMessageException, NoSessionException {
         // ToDo -- When do we need to create new keys?
  /*       if (envelope.getType() == SignalServiceProtos.Envelope.Type.PREKEY_BUNDLE_VALUE) {
             // New keys need to be registered with the server.
             registerWithServer();
             return;
         }*/
-        return handleIncomingSofaMessage(envelope);
-    }
-
-    private IncomingMessage handleIncomingSofaMessage(final SignalServiceEnvelope envelope) throws InvalidVersionException, InvalidMessageException, InvalidKeyException, DuplicateMessageException, InvalidKeyIdException, org.whispersystems.libsignal.UntrustedIdentityException, LegacyMessageException, NoSessionException {
         final SignalServiceAddress localAddress = new SignalServiceAddress(this.ownerAddress);
         final SignalServiceCipher cipher = new SignalServiceCipher(localAddress, this.protocolStore);
         final SignalServiceContent content = cipher.decrypt(envelope);
-        final String messageSource = envelope.getSource();
+        if (!content.getDataMessage().isPresent()) return null;
+        return new DecryptedEnvelope(envelope.getSource(), content.getDataMessage().get());
+    }
+
+    private Single<IncomingMessage> processEnvelope(final DecryptedEnvelope envelope) {
+        // The lane is released as soon as the message has been queued for saving, and the
+        // result arrives once ConversationStore has committed the batch it ended up in.
+        return Single.fromCallable(() -> handleIncomingSofaMessage(envelope))
+                .subscribeOn(getProcessingLane(envelope))
+                .flatMap(savedMessage -> savedMessage)
+                .onErrorReturn(throwable -> {
+                    LogUtil.exception("Error while processing message " + throwable);
+                    return null;
+                });
+    }
+
+    private Scheduler getProcessingLane(final DecryptedEnvelope envelope) {
+        // Everything that ends up in the same thread must go through the same lane
+        // so ConversationStore sees those messages in the order they were sent.
+        final int laneIndex = (envelope.getThreadKey() & Integer.MAX_VALUE) % this.processingLanes.length;
+        return this.processingLanes[laneIndex];
+    }
 
+    @WorkerThread
+    private Single<IncomingMessage> handleIncomingSofaMessage(final DecryptedEnvelope envelope) {
+        final String messageSource = envelope.source;
         if (isUserBlocked(messageSource)) {
             LogUtil.i("A blocked user is trying to send a message");
-            return null;
+            return Single.just(null);
         }
 
-        if (content.getDataMessage().isPresent()) {
-            final SignalServiceDataMessage dataMessage = content.getDataMessage().get();
-            if (dataMessage.isGroupUpdate()) return taskGroupUpdate.run(messageSource, dataMessage);
-            else return taskHandleMessage.run(messageSource, dataMessage);
-        }
-        return null;
+        final SignalServiceDataMessage dataMessage = envelope.dataMessage;
+        if (dataMessage.isGroupUpdate()) return Single.just(taskGroupUpdate.run(messageSource, dataMessage));
+        else return taskHandleMessage.run(messageSource, dataMessage);
     }
 
     private boolean isUserBlocked(final String address) {
@@ -188,4 +309,21 @@ public class SofaMessageReceiver {
             this.messagePipe = null;
         }
     }
+
+    private static class DecryptedEnvelope {
+        private final String source;
+        private final SignalServiceDataMessage dataMessage;
+
+        private DecryptedEnvelope(final String source, final SignalServiceDataMessage dataMessage) {
+            this.source = source;
+            this.dataMessage = dataMessage;
+        }
+
+        private int getThreadKey() {
+            if (this.dataMessage.getGroupInfo().isPresent()) {
+                return Arrays.hashCode(this.dataMessage.getGroupInfo().get().getGroupId());
+            }
+            return this.source.hashCode();
+        }
+    }
 }
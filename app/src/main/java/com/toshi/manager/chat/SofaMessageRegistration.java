@@ -21,6 +21,7 @@ package com.toshi.manager.chat;
 import com.toshi.crypto.signal.ChatService;
 import com.toshi.crypto.signal.store.ProtocolStore;
 import com.toshi.manager.OnboardingManager;
+import com.toshi.manager.pushRegistration.PushRegistrar;
 import com.toshi.util.gcm.GcmToken;
 import com.toshi.util.logging.LogUtil;
 import com.toshi.util.sharedPrefs.SignalPrefs;
@@ -34,14 +35,20 @@ import rx.schedulers.Schedulers;
 
 public class SofaMessageRegistration {
 
+    private static final String CHAT_ENDPOINT = "chat";
+
     private final ChatService chatService;
     private final ProtocolStore protocolStore;
+    private final PushRegistrar pushRegistrar;
 
-    public SofaMessageRegistration(final ChatService chatService, final ProtocolStore protocolStore) {
+    public SofaMessageRegistration(final ChatService chatService,
+                                   final ProtocolStore protocolStore,
+                                   final PushRegistrar pushRegistrar) {
         this.chatService = chatService;
         this.protocolStore = protocolStore;
+        this.pushRegistrar = pushRegistrar;
 
-        if (this.chatService == null || this.protocolStore == null) {
+        if (this.chatService == null || this.protocolStore == null || this.pushRegistrar == null) {
             throw new NullPointerException("Initialised with null");
         }
     }
@@ -73,25 +80,36 @@ public class SofaMessageRegistration {
         return Completable.fromAction(SignalPrefs.INSTANCE::setRegisteredWithServer);
     }
 
+    // Skipped if the token and chat account haven't changed since the last registration
     public Completable registerChatGcm() {
         return new GcmToken().get()
                 .flatMapCompletable(this::tryRegisterChatGcm);
     }
 
+    public Completable forceRegisterChatGcm() {
+        return Completable
+                .fromAction(() -> this.pushRegistrar.invalidate(CHAT_ENDPOINT))
+                .andThen(registerChatGcm());
+    }
+
     private Completable tryRegisterChatGcm(final String token) {
         if (token == null) {
             LogUtil.exception("Token is null while trying GCM registration");
             return Completable.error(new IllegalStateException("Token can't be null"));
         }
-        return Completable.fromAction(() -> {
-            try {
-                final Optional<String> optional = Optional.of(token);
-                this.chatService.setGcmId(optional);
-            } catch (IOException e) {
-                LogUtil.exception("Error during registering of GCM " + e.getMessage());
-                Completable.error(e);
-            }
+        final String fingerprint = PushRegistrar.Companion.fingerprintOf(token, this.chatService.getUser(), this.chatService.getUrl());
+        // Failures are remembered by the registrar for backoff, but shouldn't fail the rest of the registration
+        return this.pushRegistrar
+                .register(CHAT_ENDPOINT, fingerprint, () -> setGcmId(token))
+                .onErrorComplete();
+    }
+
+    private Completable setGcmId(final String token) {
+        return Completable.fromCallable(() -> {
+            this.chatService.setGcmId(Optional.of(token));
+            return null;
         })
+        .doOnError(throwable -> LogUtil.exception("Error during registering of GCM " + throwable.getMessage()))
         .subscribeOn(Schedulers.io());
     }
 
@@ -99,6 +117,7 @@ public class SofaMessageRegistration {
         return Completable.fromAction(() -> {
             try {
                 this.chatService.setGcmId(Optional.absent());
+                this.pushRegistrar.invalidate(CHAT_ENDPOINT);
             } catch (IOException e) {
                 LogUtil.exception("Error during unregistering of GCM " + e.getMessage());
                 Completable.error(e);
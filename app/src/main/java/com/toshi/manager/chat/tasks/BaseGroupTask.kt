@@ -17,6 +17,8 @@
 
 package com.toshi.manager.chat.tasks
 
+import com.toshi.model.local.Group
+import org.whispersystems.signalservice.api.messages.SignalServiceAttachment
 import org.whispersystems.signalservice.api.push.exceptions.EncapsulatedExceptions
 import rx.Completable
 
@@ -33,4 +35,10 @@ abstract class BaseGroupTask {
         }
         return Completable.error(throwable)
     }
+
+    // The avatar is streamed from its file, so the stream is closed once the message is sent
+    protected fun <T> withAvatar(group: Group, send: (SignalServiceAttachment?) -> T): T {
+        val avatar = group.avatar.stream
+        return avatar?.asStream()?.inputStream.use { send(avatar) }
+    }
 }
\ No newline at end of file
@@ -30,19 +30,21 @@ class CreateGroupTask(
 ) : BaseGroupTask() {
     fun run(group: Group): Single<Group> {
         return Completable.fromAction {
-            val signalGroup = SignalServiceGroup
-                    .newBuilder(SignalServiceGroup.Type.UPDATE)
-                    .withId(Hex.fromStringCondensed(group.id))
-                    .withName(group.title)
-                    .withMembers(group.memberIds)
-                    .withAvatar(group.avatar.stream)
-                    .build()
-            val groupDataMessage = SignalServiceDataMessage
-                    .newBuilder()
-                    .withTimestamp(System.currentTimeMillis())
-                    .asGroupMessage(signalGroup)
-                    .build()
-            signalMessageSender.sendMessage(group.memberAddresses, groupDataMessage)
+            withAvatar(group) { avatar ->
+                val signalGroup = SignalServiceGroup
+                        .newBuilder(SignalServiceGroup.Type.UPDATE)
+                        .withId(Hex.fromStringCondensed(group.id))
+                        .withName(group.title)
+                        .withMembers(group.memberIds)
+                        .withAvatar(avatar)
+                        .build()
+                val groupDataMessage = SignalServiceDataMessage
+                        .newBuilder()
+                        .withTimestamp(System.currentTimeMillis())
+                        .asGroupMessage(signalGroup)
+                        .build()
+                signalMessageSender.sendMessage(group.memberAddresses, groupDataMessage)
+            }
         }
         .onErrorResumeNext { handleException(it) }
         .toSingle { group }
@@ -54,7 +54,7 @@ class HandleMessageTask(
     private val recipientManager by lazy { BaseApplication.get().recipientManager }
     private val chatManager by lazy { BaseApplication.get().chatManager }
 
-    fun run(messageSource: String, dataMessage: SignalServiceDataMessage): IncomingMessage? {
+    fun run(messageSource: String, dataMessage: SignalServiceDataMessage): Single<IncomingMessage?> {
         val signalGroup = dataMessage.groupInfo
         val messageBody = dataMessage.body
         val attachments = dataMessage.attachments
@@ -62,10 +62,10 @@ class HandleMessageTask(
         return saveIncomingMessageToDatabase(decryptedMessage)
     }
 
-    private fun saveIncomingMessageToDatabase(signalMessage: DecryptedSignalMessage?): IncomingMessage? {
+    private fun saveIncomingMessageToDatabase(signalMessage: DecryptedSignalMessage?): Single<IncomingMessage?> {
         if (signalMessage?.isValid != true) {
             LogUtil.w("Attempt to save invalid DecryptedSignalMessage to database.")
-            return null
+            return Single.just(null)
         }
 
         taskProcessAttachments.run(signalMessage)
@@ -80,7 +80,7 @@ class HandleMessageTask(
             }
         }
 
-        return null
+        return Single.just(null)
     }
 
     private fun getUser(toshiId: String) = recipientManager
@@ -89,7 +89,7 @@ class HandleMessageTask(
                 .toBlocking()
                 .value() ?: throw IllegalStateException("Failure to get user")
 
-    private fun saveIncomingMessageToDatabase(sender: User, signalMessage: DecryptedSignalMessage): IncomingMessage? {
+    private fun saveIncomingMessageToDatabase(sender: User, signalMessage: DecryptedSignalMessage): Single<IncomingMessage?> {
         if (Looper.myLooper() == Looper.getMainLooper()) throw IllegalStateException("Running a blocking DB call on main thread!")
 
         val remoteMessage = SofaMessage()
@@ -102,11 +102,12 @@ class HandleMessageTask(
                 .toBlocking()
                 .value() ?: throw IllegalStateException("Failure to generate Recipient")
 
-        val conversation = saveIncomingMessageToDatabase(sender, remoteMessage, recipient) ?: return null
-        return IncomingMessage(remoteMessage, recipient, conversation)
+        return saveIncomingMessageToDatabase(sender, remoteMessage, recipient)
+                .timeout(30, TimeUnit.SECONDS)
+                .map { conversation -> conversation?.let { IncomingMessage(remoteMessage, recipient, it) } }
     }
 
-    private fun saveIncomingMessageToDatabase(sender: User, remoteMessage: SofaMessage, senderRecipient: Recipient): Conversation? {
+    private fun saveIncomingMessageToDatabase(sender: User, remoteMessage: SofaMessage, senderRecipient: Recipient): Single<Conversation?> {
         return when {
             remoteMessage.type == SofaType.INIT_REQUEST -> respondToInitRequest(sender, remoteMessage)
             remoteMessage.type == SofaType.PAYMENT -> fetchAndCacheIncomingPaymentSender(sender)
@@ -115,7 +116,7 @@ class HandleMessageTask(
         }
     }
 
-    private fun respondToInitRequest(sender: User, remoteMessage: SofaMessage): Conversation? {
+    private fun respondToInitRequest(sender: User, remoteMessage: SofaMessage): Single<Conversation?> {
         // Don't render initRequests, but respond to them.
         try {
             val initRequest = SofaAdapters.get().initRequestFrom(remoteMessage.payload)
@@ -129,37 +130,30 @@ class HandleMessageTask(
         } catch (e: TimeoutException) {
             LogUtil.exception("Failed to respond to incoming init request. $e")
         }
-        return null
+        return Single.just(null)
     }
 
     private fun getWallet() = hdWalletObservable.getTimeoutSingle().toBlocking().value()
 
-    private fun fetchAndCacheIncomingPaymentSender(sender: User): Conversation? {
+    private fun fetchAndCacheIncomingPaymentSender(sender: User): Single<Conversation?> {
         // Don't render incoming SOFA::Payments, but ensure we have the sender cached.
         recipientManager.getUserFromToshiId(sender.toshiId)
-        return null
+        return Single.just(null)
     }
 
-    private fun savePaymentRequestAndShowNotification(remoteMessage: SofaMessage, senderRecipient: Recipient): Conversation {
+    private fun savePaymentRequestAndShowNotification(remoteMessage: SofaMessage, senderRecipient: Recipient): Single<Conversation?> {
         if (Looper.myLooper() == Looper.getMainLooper()) throw IllegalStateException("Running a blocking DB call on main thread!")
         val updatedPayload = generatePayloadWithLocalAmountEmbedded(remoteMessage)
                 .timeout(30, TimeUnit.SECONDS)
                 .toBlocking()
                 .value()
         return conversationStore
-                .saveNewMessageSingle(senderRecipient, remoteMessage.setPayload(updatedPayload))
-                .timeout(30, TimeUnit.SECONDS)
-                .toBlocking()
-                .value()
+                .saveIncomingMessage(senderRecipient, remoteMessage.setPayload(updatedPayload))
     }
 
-    private fun saveMessageToDatabase(remoteMessage: SofaMessage, senderRecipient: Recipient): Conversation {
-        if (Looper.myLooper() == Looper.getMainLooper()) throw IllegalStateException("Running a blocking DB call on main thread!")
+    private fun saveMessageToDatabase(remoteMessage: SofaMessage, senderRecipient: Recipient): Single<Conversation?> {
         return conversationStore
-                .saveNewMessageSingle(senderRecipient, remoteMessage)
-                .timeout(30, TimeUnit.SECONDS)
-                .toBlocking()
-                .value()
+                .saveIncomingMessage(senderRecipient, remoteMessage)
     }
 
     private fun generateRecipientFromSignalMessage(sender: User, signalMessage: DecryptedSignalMessage): Single<Recipient> {
@@ -31,18 +31,20 @@ class SendGroupInfoTask(
     fun run(requestingUserAddress: String, group: Group): Completable {
         if (!shouldSendGroupInfo(requestingUserAddress, group)) return Completable.complete()
         return Completable.fromAction {
-            val signalGroup = SignalServiceGroup.newBuilder(SignalServiceGroup.Type.UPDATE)
-                    .withId(Hex.fromStringCondensed(group.id))
-                    .withName(group.title)
-                    .withMembers(group.memberIds)
-                    .withAvatar(group.avatar.stream)
-                    .build()
-            val groupDataMessage = SignalServiceDataMessage.newBuilder()
-                    .withTimestamp(System.currentTimeMillis())
-                    .asGroupMessage(signalGroup)
-                    .build()
-            val address = SignalServiceAddress(requestingUserAddress)
-            signalMessageSender.sendMessage(address, groupDataMessage)
+            withAvatar(group) { avatar ->
+                val signalGroup = SignalServiceGroup.newBuilder(SignalServiceGroup.Type.UPDATE)
+                        .withId(Hex.fromStringCondensed(group.id))
+                        .withName(group.title)
+                        .withMembers(group.memberIds)
+                        .withAvatar(avatar)
+                        .build()
+                val groupDataMessage = SignalServiceDataMessage.newBuilder()
+                        .withTimestamp(System.currentTimeMillis())
+                        .asGroupMessage(signalGroup)
+                        .build()
+                val address = SignalServiceAddress(requestingUserAddress)
+                signalMessageSender.sendMessage(address, groupDataMessage)
+            }
         }
         .onErrorResumeNext { handleException(it) }
     }
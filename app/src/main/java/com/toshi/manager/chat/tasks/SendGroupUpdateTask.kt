@@ -29,17 +29,19 @@ class SendGroupUpdateTask(
 ) : BaseGroupTask() {
     fun run(group: Group): Completable {
         return Completable.fromAction {
-            val signalGroup = SignalServiceGroup.newBuilder(SignalServiceGroup.Type.UPDATE)
-                    .withId(Hex.fromStringCondensed(group.id))
-                    .withName(group.title)
-                    .withMembers(group.memberIds)
-                    .withAvatar(group.avatar.stream)
-                    .build()
-            val groupDataMessage = SignalServiceDataMessage.newBuilder()
-                    .withTimestamp(System.currentTimeMillis())
-                    .asGroupMessage(signalGroup)
-                    .build()
-            signalMessageSender.sendMessage(group.memberAddresses, groupDataMessage)
+            withAvatar(group) { avatar ->
+                val signalGroup = SignalServiceGroup.newBuilder(SignalServiceGroup.Type.UPDATE)
+                        .withId(Hex.fromStringCondensed(group.id))
+                        .withName(group.title)
+                        .withMembers(group.memberIds)
+                        .withAvatar(avatar)
+                        .build()
+                val groupDataMessage = SignalServiceDataMessage.newBuilder()
+                        .withTimestamp(System.currentTimeMillis())
+                        .asGroupMessage(signalGroup)
+                        .build()
+                signalMessageSender.sendMessage(group.memberAddresses, groupDataMessage)
+            }
         }
         .onErrorResumeNext { handleException(it) }
     }
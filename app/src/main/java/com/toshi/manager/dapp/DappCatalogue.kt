@@ -0,0 +1,134 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.manager.dapp
+
+import com.toshi.manager.network.DirectoryInterface
+import com.toshi.model.network.dapp.Dapp
+import com.toshi.model.network.dapp.Dapps
+import com.toshi.util.logging.LogUtil
+import com.toshi.util.sharedPrefs.DappPrefs
+import com.toshi.util.sharedPrefs.DappPrefsInterface
+import rx.Observable
+import rx.Single
+import java.util.concurrent.TimeUnit
+
+/**
+ * On-device copy of the dapp directory.
+ *
+ * The catalogue is read from [DappPrefsInterface] on first use and seeded from the network
+ * if nothing has been stored yet. Once loaded, lookups are answered from the in-memory
+ * [DappIndex] and the directory is only hit by a background sync when the copy is older
+ * than [syncIntervalMillis].
+ */
+class DappCatalogue(
+        private val directoryService: DirectoryInterface,
+        private val dappPrefs: DappPrefsInterface = DappPrefs(),
+        private val syncIntervalMillis: Long = DEFAULT_SYNC_INTERVAL_MILLIS,
+        private val clock: () -> Long = { System.currentTimeMillis() }
+) {
+
+    companion object {
+        val DEFAULT_SYNC_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1)
+        private const val PAGE_SIZE = 500
+    }
+
+    @Volatile private var index: DappIndex? = null
+    @Volatile private var lastSynced = 0L
+    @Volatile private var lastSyncAttempt = 0L
+    private var inFlightSync: Observable<DappIndex>? = null
+
+    fun getIndex(): Single<DappIndex> {
+        return Single.defer {
+            val current = index ?: readPersistedIndex()
+            when {
+                current == null -> sync()
+                isStale() -> {
+                    syncInBackground()
+                    Single.just(current)
+                }
+                else -> Single.just(current)
+            }
+        }
+    }
+
+    private fun isStale() = clock() - maxOf(lastSynced, lastSyncAttempt) >= syncIntervalMillis
+
+    @Synchronized
+    private fun readPersistedIndex(): DappIndex? {
+        index?.let { return it }
+        val catalogue = dappPrefs.readCatalogue() ?: return null
+        lastSynced = dappPrefs.readLastSynced()
+        return DappIndex.build(catalogue).also { index = it }
+    }
+
+    private fun syncInBackground() {
+        lastSyncAttempt = clock()
+        sync().subscribe(
+                {},
+                { LogUtil.w("Error while syncing dapp catalogue $it") }
+        )
+    }
+
+    @Synchronized
+    private fun sync(): Single<DappIndex> {
+        val request = inFlightSync ?: fetchCatalogue()
+                .toObservable()
+                .map { updateIndex(it) }
+                .doOnTerminate { clearInFlightSync() }
+                .cache()
+                .also { inFlightSync = it }
+        return request.toSingle()
+    }
+
+    @Synchronized
+    private fun clearInFlightSync() {
+        inFlightSync = null
+    }
+
+    private fun fetchCatalogue(): Single<Dapps> {
+        return directoryService
+                .getAllDapps()
+                .flatMap { fetchRemainingPages(it.results, it.total) }
+    }
+
+    private fun fetchRemainingPages(fetched: Dapps, total: Int): Single<Dapps> {
+        if (fetched.dapps.size >= total) return Single.just(fetched)
+        return directoryService
+                .getAllDappsWithOffset(fetched.dapps.size, PAGE_SIZE)
+                .flatMap {
+                    val page = it.results
+                    if (page.dapps.isEmpty()) Single.just(fetched)
+                    else fetchRemainingPages(merge(fetched, page), total)
+                }
+    }
+
+    private fun merge(first: Dapps, second: Dapps): Dapps {
+        val dapps = LinkedHashMap<Long?, Dapp>()
+        (first.dapps + second.dapps).forEach { dapps[it.dappId] = it }
+        return Dapps(dapps.values.toList(), first.categories + second.categories)
+    }
+
+    private fun updateIndex(catalogue: Dapps): DappIndex {
+        val syncedAt = clock()
+        val updatedIndex = index?.update(catalogue) ?: DappIndex.build(catalogue)
+        index = updatedIndex
+        lastSynced = syncedAt
+        dappPrefs.writeCatalogue(catalogue, syncedAt)
+        return updatedIndex
+    }
+}
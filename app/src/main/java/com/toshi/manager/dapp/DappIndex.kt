@@ -0,0 +1,155 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.manager.dapp
+
+import com.toshi.model.network.dapp.Dapp
+import com.toshi.model.network.dapp.DappSearchResult
+import com.toshi.model.network.dapp.Dapps
+import java.util.BitSet
+import java.util.TreeMap
+
+/**
+ * Immutable prefix index over the name, description, url and category names of every dapp in
+ * the catalogue. Each token maps to the set of catalogue positions it occurs in, so a query is
+ * a handful of sorted-map range scans and bitset intersections.
+ */
+class DappIndex private constructor(
+        val dapps: List<Dapp>,
+        val categories: Map<Int, String>,
+        private val tokensByDapp: Map<Dapp, Set<String>>
+) {
+
+    companion object {
+        private val TOKEN_SEPARATOR = Regex("[^\\p{L}\\p{N}]+")
+        private val IGNORED_TOKENS = setOf("http", "https", "www")
+
+        fun build(catalogue: Dapps) = build(catalogue, emptyMap())
+
+        private fun build(catalogue: Dapps, previousTokens: Map<Dapp, Set<String>>): DappIndex {
+            val tokensByDapp = catalogue.dapps.associate { it to (previousTokens[it] ?: tokenize(it)) }
+            return DappIndex(catalogue.dapps, catalogue.categories, tokensByDapp)
+        }
+
+        private fun tokenize(dapp: Dapp): Set<String> {
+            return listOf(dapp.name, dapp.description, dapp.url)
+                    .flatMap { tokenize(it) }
+                    .toSet()
+        }
+
+        private fun tokenize(text: String?): List<String> {
+            if (text == null) return emptyList()
+            return text.toLowerCase()
+                    .split(TOKEN_SEPARATOR)
+                    .filter { it.isNotEmpty() && it !in IGNORED_TOKENS }
+        }
+    }
+
+    private val positionsByToken = TreeMap<String, BitSet>()
+    private val dappsByCategory = HashMap<Int, MutableList<Dapp>>()
+
+    init {
+        dapps.forEachIndexed { position, dapp ->
+            tokensByDapp[dapp]?.forEach { addToken(it, position) }
+            dapp.categories.forEach { categoryId ->
+                dappsByCategory.getOrPut(categoryId) { mutableListOf() }.add(dapp)
+                tokenize(categories[categoryId]).forEach { addToken(it, position) }
+            }
+        }
+    }
+
+    private fun addToken(token: String, position: Int) {
+        positionsByToken.getOrPut(token) { BitSet(dapps.size) }.set(position)
+    }
+
+    val size get() = dapps.size
+
+    fun isEmpty() = dapps.isEmpty()
+
+    /**
+     * Builds an index for an updated catalogue, reusing the tokens of every dapp that did not change.
+     */
+    fun update(catalogue: Dapps) = build(catalogue, tokensByDapp)
+
+    fun search(query: String): DappSearchResult {
+        val terms = tokenize(query)
+        if (terms.isEmpty()) return toResult(dapps, 0, dapps.size)
+        val matches = terms
+                .map { positionsWithPrefix(it) }
+                .reduce { acc, positions -> acc.apply { and(positions) } }
+        val normalizedQuery = query.trim().toLowerCase()
+        val results = positionsOf(matches)
+                .map { dapps[it] to rank(dapps[it], normalizedQuery, terms.first()) }
+                .sortedBy { it.second }
+                .map { it.first }
+        return toResult(results, 0, results.size)
+    }
+
+    private fun positionsWithPrefix(prefix: String): BitSet {
+        val positions = BitSet(dapps.size)
+        positionsByToken
+                .subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+                .values
+                .forEach { positions.or(it) }
+        return positions
+    }
+
+    private fun positionsOf(positions: BitSet): List<Int> {
+        val result = ArrayList<Int>(positions.cardinality())
+        var position = positions.nextSetBit(0)
+        while (position >= 0) {
+            result.add(position)
+            position = positions.nextSetBit(position + 1)
+        }
+        return result
+    }
+
+    private fun rank(dapp: Dapp, query: String, firstTerm: String): Int {
+        val name = dapp.name?.toLowerCase() ?: return 2
+        return when {
+            name.startsWith(query) -> 0
+            tokenize(name).any { it.startsWith(firstTerm) } -> 1
+            else -> 2
+        }
+    }
+
+    fun page(offset: Int, limit: Int): DappSearchResult = page(dapps, offset, limit)
+
+    fun pageInCategory(categoryId: Int, offset: Int, limit: Int): DappSearchResult {
+        return page(dappsByCategory[categoryId].orEmpty(), offset, limit)
+    }
+
+    private fun page(source: List<Dapp>, offset: Int, limit: Int): DappSearchResult {
+        val from = offset.coerceIn(0, source.size)
+        val to = (from + limit).coerceAtMost(source.size)
+        return DappSearchResult(
+                results = Dapps(source.subList(from, to), categories),
+                offset = offset,
+                limit = limit,
+                total = source.size
+        )
+    }
+
+    private fun toResult(results: List<Dapp>, offset: Int, limit: Int): DappSearchResult {
+        return DappSearchResult(
+                results = Dapps(results, categories),
+                offset = offset,
+                limit = limit,
+                total = results.size
+        )
+    }
+}
@@ -20,6 +20,8 @@ package com.toshi.manager.ethRegistration
 import com.toshi.crypto.HDWallet
 import com.toshi.extensions.getTimeoutSingle
 import com.toshi.manager.network.EthereumServiceInterface
+import com.toshi.manager.network.ServerClock
+import com.toshi.manager.pushRegistration.PushRegistrar
 import com.toshi.model.local.network.Network
 import com.toshi.model.local.network.Networks
 import com.toshi.model.network.GcmDeregistration
@@ -28,8 +30,6 @@ import com.toshi.model.network.ServerTime
 import com.toshi.util.gcm.GcmToken
 import com.toshi.util.gcm.GcmTokenInterface
 import com.toshi.util.logging.LogUtil
-import com.toshi.util.sharedPrefs.EthGcmPrefs
-import com.toshi.util.sharedPrefs.EthGcmPrefsInterface
 import rx.Completable
 import rx.Observable
 import rx.Scheduler
@@ -40,8 +40,8 @@ import java.util.concurrent.TimeUnit
 class EthGcmRegistration(
         private val networks: Networks = Networks.getInstance(),
         private val ethService: EthereumServiceInterface,
-        private val gcmPrefs: EthGcmPrefsInterface = EthGcmPrefs(),
         private val gcmToken: GcmTokenInterface = GcmToken(),
+        private val pushRegistrar: PushRegistrar = PushRegistrar(),
         private val walletObservable: Observable<HDWallet>,
         private val scheduler: Scheduler = Schedulers.io()
 ) {
@@ -64,53 +64,62 @@ class EthGcmRegistration(
 
     fun unregisterFromEthGcm(token: String?): Completable {
         val currentNetworkId = networks.currentNetwork.id
-        return ethService
-                .get()
-                .timestamp
+        return ServerClock
+                .getServerTime(ethService.getCurrentBaseUrl(), ethService.get().timestamp)
                 .flatMapCompletable { unregisterEthGcmWithTimestamp(token, it) }
-                .doOnCompleted { gcmPrefs.setEthGcmTokenSentToServer(currentNetworkId, false) }
+                .doOnCompleted { handleUnregistered(currentNetworkId) }
                 .subscribeOn(scheduler)
     }
 
-    fun forceRegisterEthGcm(): Completable {
+    private fun handleUnregistered(networkId: String) = pushRegistrar.invalidate(getEndpoint(networkId))
+
+    // The push registrar's fingerprint is the only record of a registration
+    fun isRegistered(networkId: String) = pushRegistrar.isRegistered(getEndpoint(networkId))
+
+    // Skipped if the token, addresses and network haven't changed since the last registration
+    fun registerEthGcm(): Completable {
         val currentNetwork = networks.currentNetwork
-        gcmPrefs.setEthGcmTokenSentToServer(currentNetwork.id, false)
         changeEthBaseUrl(currentNetwork)
         return registerEthGcm(currentNetwork)
                 .doOnCompleted { updateCurrentNetwork(currentNetwork) }
                 .subscribeOn(scheduler)
     }
 
+    fun forceRegisterEthGcm(): Completable {
+        pushRegistrar.invalidate(getEndpoint(networks.currentNetwork.id))
+        return registerEthGcm()
+    }
+
     private fun registerEthGcm(network: Network): Completable {
-        return if (gcmPrefs.isEthGcmTokenSentToServer(network.id)) Completable.complete()
-        else gcmToken
-                .get()
-                .flatMapCompletable { registerEthGcmToken(it) }
-                .timeout(30, TimeUnit.SECONDS)
-                .doOnError { handleGcmRegisterError(it, network) }
+        return Single.zip(
+                gcmToken.get(),
+                getWallet().map { it.getAddresses() },
+                { token, addresses -> Pair(token, addresses) }
+        )
+        .flatMapCompletable { registerEthGcmToken(network, it.first, it.second) }
+        .timeout(30, TimeUnit.SECONDS)
+        .doOnError { handleGcmRegisterError(it) }
     }
 
-    private fun registerEthGcmToken(token: String?): Completable {
-        return ethService
-                .get()
-                .timestamp
-                .flatMapCompletable { registerEthGcmWithTimestamp(token, it) }
+    private fun registerEthGcmToken(network: Network, token: String?, addresses: List<String>): Completable {
+        if (token == null) return Completable.error(IllegalStateException("token was null"))
+        val fingerprint = PushRegistrar.fingerprintOf(token, addresses.joinToString(","), network.id, network.url)
+        return pushRegistrar.register(getEndpoint(network.id), fingerprint) {
+            ServerClock
+                    .getServerTime(ethService.getCurrentBaseUrl(), ethService.get().timestamp)
+                    .flatMapCompletable { registerEthGcmWithTimestamp(token, addresses, it) }
+        }
     }
 
     @Throws(IllegalStateException::class)
-    private fun registerEthGcmWithTimestamp(token: String?, serverTime: ServerTime?): Completable {
-        return when {
-            serverTime == null -> throw IllegalStateException("ServerTime was null")
-            token == null -> throw IllegalStateException("token was null")
-            else -> registerGcm(serverTime.get(), token)
+    private fun registerEthGcmWithTimestamp(token: String, addresses: List<String>, serverTime: ServerTime?): Completable {
+        return when (serverTime) {
+            null -> throw IllegalStateException("ServerTime was null")
+            else -> ethService.get().registerGcm(serverTime.get(), GcmRegistration(token, addresses))
         }
     }
 
-    private fun registerGcm(serverTime: Long, token: String?): Completable {
-        return getWallet()
-                .map { it.getAddresses() }
-                .flatMapCompletable { ethService.get().registerGcm(serverTime, GcmRegistration(token, it)) }
-    }
+    private fun getEndpoint(networkId: String) = "eth:$networkId"
 
     private fun getWallet(): Single<HDWallet> {
         return walletObservable
@@ -120,12 +129,11 @@ class EthGcmRegistration(
 
     private fun updateCurrentNetwork(network: Network) {
         networks.currentNetwork = network
-        gcmPrefs.setEthGcmTokenSentToServer(network.id, true)
     }
 
-    private fun handleGcmRegisterError(throwable: Throwable, network: Network) {
-        LogUtil.exception("Error during registering of GCM", throwable)
-        gcmPrefs.setEthGcmTokenSentToServer(network.id, false)
+    private fun handleGcmRegisterError(throwable: Throwable) {
+        if (throwable is PushRegistrar.BackoffException) LogUtil.w("${throwable.message}")
+        else LogUtil.exception("Error during registering of GCM", throwable)
         changeEthBaseUrl(networks.currentNetwork)
     }
 
@@ -139,5 +147,5 @@ class EthGcmRegistration(
         }
     }
 
-    fun clear() = gcmPrefs.clear()
+    fun clear() = pushRegistrar.clear()
 }
\ No newline at end of file
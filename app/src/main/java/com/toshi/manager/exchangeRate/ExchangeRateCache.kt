@@ -0,0 +1,107 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.manager.exchangeRate
+
+import com.toshi.model.local.CachedExchangeRate
+import com.toshi.model.network.ExchangeRate
+import com.toshi.util.logging.LogUtil
+import com.toshi.util.sharedPrefs.BalancePrefsInterface
+import rx.Observable
+import rx.Single
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+
+/**
+ * Caches exchange rates per currency, in memory and in [BalancePrefsInterface].
+ *
+ * A rate younger than [ttlMillis] is served as is. An older rate that is still inside
+ * [staleMillis] is served immediately while a refresh runs in the background. Anything
+ * older waits for the network, but falls back to the cached rate if the request fails.
+ * Concurrent requests for the same currency share a single network call.
+ */
+class ExchangeRateCache(
+        private val fetchRate: (String) -> Single<ExchangeRate>,
+        private val balancePrefs: BalancePrefsInterface,
+        private val ttlMillis: Long = DEFAULT_TTL_MILLIS,
+        private val staleMillis: Long = DEFAULT_STALE_MILLIS,
+        private val clock: () -> Long = { System.currentTimeMillis() }
+) {
+
+    companion object {
+        val DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1)
+        val DEFAULT_STALE_MILLIS = TimeUnit.MINUTES.toMillis(30)
+    }
+
+    private val rates = ConcurrentHashMap<String, CachedExchangeRate>()
+    private val inFlight = ConcurrentHashMap<String, Observable<ExchangeRate>>()
+
+    fun getRate(currency: String): Single<ExchangeRate> {
+        return Single.defer {
+            val cached = readCachedRate(currency)
+            val age = cached?.ageAt(clock()) ?: Long.MAX_VALUE
+            when {
+                cached == null -> refresh(currency)
+                age < ttlMillis -> Single.just(cached.exchangeRate)
+                age < staleMillis -> {
+                    refreshInBackground(currency)
+                    Single.just(cached.exchangeRate)
+                }
+                else -> refresh(currency).onErrorReturn { cached.exchangeRate }
+            }
+        }
+    }
+
+    private fun readCachedRate(currency: String): CachedExchangeRate? {
+        rates[currency]?.let { return it }
+        val persisted = balancePrefs.readExchangeRate(currency) ?: return null
+        return rates.putIfAbsent(currency, persisted) ?: persisted
+    }
+
+    private fun refreshInBackground(currency: String) {
+        refresh(currency).subscribe(
+                {},
+                { LogUtil.w("Error while refreshing exchange rate for $currency $it") }
+        )
+    }
+
+    private fun refresh(currency: String): Single<ExchangeRate> {
+        val request = inFlight[currency] ?: synchronized(inFlight) {
+            inFlight.getOrPut(currency) { createRequest(currency) }
+        }
+        return request.toSingle()
+    }
+
+    private fun createRequest(currency: String): Observable<ExchangeRate> {
+        return fetchRate(currency)
+                .toObservable()
+                .doOnNext { storeRate(currency, it) }
+                .doOnTerminate { inFlight.remove(currency) }
+                .cache()
+    }
+
+    private fun storeRate(currency: String, exchangeRate: ExchangeRate) {
+        val cachedRate = CachedExchangeRate(exchangeRate, clock())
+        rates[currency] = cachedRate
+        balancePrefs.writeExchangeRate(currency, cachedRate)
+    }
+
+    fun clear() {
+        rates.clear()
+        inFlight.clear()
+    }
+}
@@ -28,9 +28,6 @@ import com.toshi.model.adapter.BigIntegerAdapter;
 import com.toshi.R;
 import com.toshi.view.BaseApplication;
 
-import java.io.File;
-
-import okhttp3.Cache;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
@@ -66,10 +63,8 @@ public class CurrencyService {
     private CurrencyService() {
         final RxJavaCallAdapterFactory rxAdapter = RxJavaCallAdapterFactory
                 .createWithScheduler(Schedulers.io());
-        final File cachePath = new File(BaseApplication.get().getCacheDir(), "ratesCache");
-        this.client = new OkHttpClient
-                .Builder()
-                .cache(new Cache(cachePath, 1024 * 1024))
+        this.client = HttpClientCore.INSTANCE
+                .newBuilder()
                 .addNetworkInterceptor(new ReadFromCacheInterceptor())
                 .addInterceptor(new OfflineCacheInterceptor());
 
@@ -26,14 +26,12 @@ import com.toshi.manager.network.interceptor.ReadFromCacheInterceptor
 import com.toshi.manager.network.interceptor.SigningInterceptor
 import com.toshi.model.adapter.RealmListAdapter
 import com.toshi.view.BaseApplication
-import okhttp3.Cache
 import okhttp3.OkHttpClient
 import okhttp3.logging.HttpLoggingInterceptor
 import retrofit2.Retrofit
 import retrofit2.adapter.rxjava.RxJavaCallAdapterFactory
 import retrofit2.converter.moshi.MoshiConverterFactory
 import rx.schedulers.Schedulers
-import java.io.File
 
 object DirectoryService {
 
@@ -43,10 +41,7 @@ object DirectoryService {
 
     private fun buildDirectoryInterface(): DirectoryInterface {
         val rxAdapter = RxJavaCallAdapterFactory.createWithScheduler(Schedulers.io())
-        val cachePath = File(BaseApplication.get().cacheDir, "dirCache")
-        val cache = Cache(cachePath, (1024 * 1024 * 2).toLong())
-        val client = OkHttpClient.Builder()
-                .cache(cache)
+        val client = HttpClientCore.newBuilder()
                 .addNetworkInterceptor(ReadFromCacheInterceptor())
                 .addInterceptor(OfflineCacheInterceptor())
 
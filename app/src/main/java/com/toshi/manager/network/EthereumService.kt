@@ -20,6 +20,7 @@ package com.toshi.manager.network
 import com.squareup.moshi.Moshi
 import com.toshi.manager.network.interceptor.AppInfoUserAgentInterceptor
 import com.toshi.manager.network.interceptor.LoggingInterceptor
+import com.toshi.manager.network.interceptor.ServerClockInterceptor
 import com.toshi.manager.network.interceptor.SigningInterceptor
 import com.toshi.model.adapter.BigIntegerAdapter
 import com.toshi.model.local.network.Networks
@@ -39,12 +40,16 @@ object EthereumService : EthereumServiceInterface {
 
     private var ethereumInterface: EthereumInterface
     private var baseUrl: String
+    private val statusClient by lazy { HttpClientCore.newBuilder().build() }
+    // One client is shared by every network, and interfaces are kept per base url so switching back is free
+    private val client by lazy { buildClient() }
+    private val ethereumInterfaces = HashMap<String, EthereumInterface>()
 
     override fun get() = ethereumInterface
 
     init {
         baseUrl = getBaseUrl()
-        ethereumInterface = buildEthereumInterface(baseUrl)
+        ethereumInterface = getEthereumInterface(baseUrl)
     }
 
     private fun getBaseUrl(): String {
@@ -52,6 +57,11 @@ object EthereumService : EthereumServiceInterface {
         return network.url
     }
 
+    @Synchronized
+    private fun getEthereumInterface(baseUrl: String): EthereumInterface {
+        return ethereumInterfaces.getOrPut(baseUrl) { buildEthereumInterface(baseUrl) }
+    }
+
     private fun buildEthereumInterface(baseUrl: String): EthereumInterface {
         val moshi = Moshi.Builder()
                 .add(BigIntegerAdapter())
@@ -60,30 +70,37 @@ object EthereumService : EthereumServiceInterface {
         val rxAdapter = RxJavaCallAdapterFactory
                 .createWithScheduler(Schedulers.io())
 
-        val client: OkHttpClient.Builder = OkHttpClient.Builder()
-                .addInterceptor(AppInfoUserAgentInterceptor())
-                .addInterceptor(SigningInterceptor())
-                .addInterceptor(buildLoggingInterceptor())
-
         val retrofit = Retrofit.Builder()
                 .baseUrl(baseUrl)
                 .addConverterFactory(MoshiConverterFactory.create(moshi))
                 .addCallAdapterFactory(rxAdapter)
-                .client(client.build())
+                .client(client)
                 .build()
 
         return retrofit.create(EthereumInterface::class.java)
     }
 
+    private fun buildClient(): OkHttpClient {
+        return HttpClientCore.newBuilder()
+                .addInterceptor(AppInfoUserAgentInterceptor())
+                .addInterceptor(SigningInterceptor())
+                .addInterceptor(buildLoggingInterceptor())
+                .addNetworkInterceptor(ServerClockInterceptor())
+                .build()
+    }
+
     private fun buildLoggingInterceptor(): HttpLoggingInterceptor {
         val interceptor = HttpLoggingInterceptor(LoggingInterceptor())
         interceptor.level = HttpLoggingInterceptor.Level.BODY
         return interceptor
     }
 
+    override fun getCurrentBaseUrl() = baseUrl
+
     override fun changeBaseUrl(baseUrl: String) {
+        if (this.baseUrl == baseUrl) return
         this.baseUrl = baseUrl
-        ethereumInterface = buildEthereumInterface(this.baseUrl)
+        ethereumInterface = getEthereumInterface(baseUrl)
     }
 
     override fun getStatusOfTransaction(transactionHash: String): Single<Payment> {
@@ -95,7 +112,7 @@ object EthereumService : EthereumServiceInterface {
                     .url(url)
                     .build()
 
-            val response = OkHttpClient()
+            val response = statusClient
                     .newCall(request)
                     .execute()
 
@@ -24,4 +24,5 @@ interface EthereumServiceInterface {
     fun getStatusOfTransaction(transactionHash: String): Single<Payment>
     fun get(): EthereumInterface
     fun changeBaseUrl(baseUrl: String)
+    fun getCurrentBaseUrl(): String
 }
\ No newline at end of file
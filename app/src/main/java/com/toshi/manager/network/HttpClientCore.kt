@@ -0,0 +1,142 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.manager.network
+
+import com.toshi.util.logging.LogUtil
+import com.toshi.view.BaseApplication
+import okhttp3.Cache
+import okhttp3.Call
+import okhttp3.Connection
+import okhttp3.ConnectionPool
+import okhttp3.Dispatcher
+import okhttp3.EventListener
+import okhttp3.OkHttpClient
+import okhttp3.Protocol
+import java.io.File
+import java.net.InetSocketAddress
+import java.net.Proxy
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+import rx.Completable
+import rx.schedulers.Schedulers
+
+/**
+ * The one OkHttpClient every service client is derived from. Clients created through
+ * [newBuilder] share the connection pool, dispatcher and disk cache, so a request to a
+ * host that any service has talked to recently can reuse the open connection instead
+ * of doing a new TCP and TLS handshake. Interceptors are added per service on top.
+ * Image loading gets its own disk cache through [newImageBuilder], so large images
+ * can't evict the API responses. [connectionStats] counts how often that reuse happens.
+ */
+object HttpClientCore {
+
+    private const val CACHE_DIRECTORY = "httpCache"
+    private const val CACHE_SIZE = 1024L * 1024 * 20
+    private const val IMAGE_CACHE_DIRECTORY = "imageCache"
+    private const val IMAGE_CACHE_SIZE = 1024L * 1024 * 20
+    private const val MAX_IDLE_CONNECTIONS = 10
+    private const val KEEP_ALIVE_MINUTES = 5L
+    private const val MAX_REQUESTS = 64
+    private const val MAX_REQUESTS_PER_HOST = 10
+    // Per service caches used before the clients shared one
+    private val LEGACY_CACHE_DIRECTORIES = listOf("ToshiImageCache", "idCache", "dirCache", "ratesCache", "repCache")
+
+    val cache by lazy { buildCache(CACHE_DIRECTORY, CACHE_SIZE) }
+    private val imageCache by lazy { buildCache(IMAGE_CACHE_DIRECTORY, IMAGE_CACHE_SIZE) }
+    private val client by lazy { buildClient() }
+    private val legacyCachesDeleted = AtomicBoolean(false)
+    val connectionStats = ConnectionStats()
+
+    fun newBuilder(): OkHttpClient.Builder = client.newBuilder()
+
+    fun newImageBuilder(): OkHttpClient.Builder = client.newBuilder().cache(imageCache)
+
+    private fun buildCache(directory: String, size: Long): Cache {
+        deleteLegacyCaches()
+        return Cache(File(BaseApplication.get().cacheDir, directory), size)
+    }
+
+    // Runs once per process, the first time one of the caches is built. Nothing writes to
+    // the old directories any more, so after the first run this only checks they are gone.
+    private fun deleteLegacyCaches() {
+        if (!legacyCachesDeleted.compareAndSet(false, true)) return
+        Completable.fromAction {
+            val cacheDir = BaseApplication.get().cacheDir
+            LEGACY_CACHE_DIRECTORIES
+                    .map { File(cacheDir, it) }
+                    .filter { it.exists() }
+                    .forEach { it.deleteRecursively() }
+        }
+        .subscribeOn(Schedulers.io())
+        .subscribe(
+                {},
+                { LogUtil.w("Error while deleting old caches $it") }
+        )
+    }
+
+    private fun buildClient(): OkHttpClient {
+        val dispatcher = Dispatcher().apply {
+            maxRequests = MAX_REQUESTS
+            maxRequestsPerHost = MAX_REQUESTS_PER_HOST
+        }
+
+        return OkHttpClient.Builder()
+                .cache(cache)
+                .connectionPool(ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .protocols(listOf(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .eventListener(connectionStats)
+                .build()
+    }
+
+    /**
+     * Counts how often calls on the shared client get a pooled connection compared to
+     * how often a new connection, and a new TLS handshake, was needed. The totals are
+     * logged every time a new connection is opened.
+     */
+    class ConnectionStats : EventListener() {
+
+        private val acquired = AtomicLong()
+        private val opened = AtomicLong()
+        private val handshakes = AtomicLong()
+
+        val connectionsAcquired get() = acquired.get()
+        val connectionsOpened get() = opened.get()
+        val tlsHandshakes get() = handshakes.get()
+        val connectionsReused get() = Math.max(0L, connectionsAcquired - connectionsOpened)
+
+        override fun connectEnd(call: Call, inetSocketAddress: InetSocketAddress, proxy: Proxy, protocol: Protocol?) {
+            opened.incrementAndGet()
+            LogUtil.d("New connection to ${call.request().url().host()}, $this")
+        }
+
+        override fun secureConnectStart(call: Call) {
+            handshakes.incrementAndGet()
+        }
+
+        override fun connectionAcquired(call: Call, connection: Connection) {
+            acquired.incrementAndGet()
+        }
+
+        override fun toString(): String {
+            return "acquired=$connectionsAcquired, opened=$connectionsOpened, " +
+                    "reused=$connectionsReused, tlsHandshakes=$tlsHandshakes"
+        }
+    }
+}
@@ -24,6 +24,7 @@ import com.squareup.moshi.Moshi;
 import com.toshi.manager.network.interceptor.LoggingInterceptor;
 import com.toshi.manager.network.interceptor.OfflineCacheInterceptor;
 import com.toshi.manager.network.interceptor.ReadFromCacheInterceptor;
+import com.toshi.manager.network.interceptor.ServerClockInterceptor;
 import com.toshi.manager.network.interceptor.SigningInterceptor;
 import com.toshi.manager.network.interceptor.AppInfoUserAgentInterceptor;
 import com.toshi.model.adapter.RealmListAdapter;
@@ -32,6 +33,7 @@ import com.toshi.view.BaseApplication;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Iterator;
 
 import okhttp3.Cache;
 import okhttp3.OkHttpClient;
@@ -46,13 +48,17 @@ public class IdService {
     private static IdService instance;
 
     private final IdInterface idInterface;
-    private final OkHttpClient.Builder client;
     private final Cache cache;
+    private final String baseUrl;
 
     public IdInterface getApi() {
         return idInterface;
     }
 
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
     public static IdService get() {
         if (instance == null) {
             instance = getSync();
@@ -69,22 +75,23 @@ public class IdService {
 
     public IdService(final IdInterface idInterface, final Context context) {
         this.cache = buildCache(context);
-        this.client = buildClient(cache);
+        // The cache belongs to this instance only, so every entry in it can be cleared
+        this.baseUrl = "";
         this.idInterface = idInterface;
     }
 
     private IdService() {
-        this.cache = buildCache(BaseApplication.get());
-        this.client = buildClient(cache);
-        final Retrofit retrofit = buildRetrofit(client);
+        this.cache = HttpClientCore.INSTANCE.getCache();
+        this.baseUrl = BaseApplication.get().getResources().getString(R.string.id_url);
+        final Retrofit retrofit = buildRetrofit(buildClient());
         this.idInterface = retrofit.create(IdInterface.class);
     }
 
-    private OkHttpClient.Builder buildClient(final Cache cache) {
-        final OkHttpClient.Builder clientBuilder = new OkHttpClient
-                .Builder()
-                .cache(cache)
+    private OkHttpClient.Builder buildClient() {
+        final OkHttpClient.Builder clientBuilder = HttpClientCore.INSTANCE
+                .newBuilder()
                 .addNetworkInterceptor(new ReadFromCacheInterceptor())
+                .addNetworkInterceptor(new ServerClockInterceptor())
                 .addInterceptor(new OfflineCacheInterceptor())
                 .addInterceptor(new AppInfoUserAgentInterceptor())
                 .addInterceptor(new SigningInterceptor());
@@ -111,14 +118,20 @@ public class IdService {
 
         final RxJavaCallAdapterFactory rxAdapter = RxJavaCallAdapterFactory.createWithScheduler(Schedulers.io());
         return new Retrofit.Builder()
-                .baseUrl(BaseApplication.get().getResources().getString(R.string.id_url))
+                .baseUrl(this.baseUrl)
                 .addConverterFactory(MoshiConverterFactory.create(moshi))
                 .addCallAdapterFactory(rxAdapter)
                 .client(clientBuilder.build())
                 .build();
     }
 
+    // The cache is shared with the other services, so only responses from the id service are removed
     public void clearCache() throws IOException {
-        this.cache.evictAll();
+        final Iterator<String> cachedUrls = this.cache.urls();
+        while (cachedUrls.hasNext()) {
+            if (cachedUrls.next().startsWith(this.baseUrl)) {
+                cachedUrls.remove();
+            }
+        }
     }
 }
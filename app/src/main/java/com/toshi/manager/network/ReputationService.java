@@ -21,14 +21,12 @@ import com.squareup.moshi.Moshi;
 import com.toshi.manager.network.interceptor.LoggingInterceptor;
 import com.toshi.manager.network.interceptor.OfflineCacheInterceptor;
 import com.toshi.manager.network.interceptor.ReadFromCacheInterceptor;
+import com.toshi.manager.network.interceptor.ServerClockInterceptor;
 import com.toshi.manager.network.interceptor.SigningInterceptor;
 import com.toshi.manager.network.interceptor.AppInfoUserAgentInterceptor;
 import com.toshi.R;
 import com.toshi.view.BaseApplication;
 
-import java.io.File;
-
-import okhttp3.Cache;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
@@ -63,11 +61,10 @@ public class ReputationService {
     private ReputationService() {
         final RxJavaCallAdapterFactory rxAdapter = RxJavaCallAdapterFactory
                 .createWithScheduler(Schedulers.io());
-        final File cachePath = new File(BaseApplication.get().getCacheDir(), "repCache");
-        this.client = new OkHttpClient
-                .Builder()
-                .cache(new Cache(cachePath, 1024 * 1024))
+        this.client = HttpClientCore.INSTANCE
+                .newBuilder()
                 .addNetworkInterceptor(new ReadFromCacheInterceptor())
+                .addNetworkInterceptor(new ServerClockInterceptor())
                 .addInterceptor(new OfflineCacheInterceptor());
 
         addSigningInterceptor();
@@ -0,0 +1,89 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.manager.network
+
+import com.toshi.model.network.ServerTime
+import okhttp3.HttpUrl
+import rx.Single
+import java.util.Date
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Keeps track of how far the local clock is from each server, so signed requests can produce
+ * their timestamp locally instead of asking /v1/timestamp first. The offset for a server is
+ * learnt from its timestamp call the first time it's needed. The Date header of responses that
+ * go through [ServerClockInterceptor] only has second precision, so it is never used as the
+ * offset; it only marks the offset for a resync when the two disagree by more than
+ * [MAX_DRIFT_MILLIS].
+ */
+open class ServerClockOffsets(private val clock: () -> Long = { System.currentTimeMillis() }) {
+
+    companion object {
+        private const val MAX_DRIFT_MILLIS = 5000L
+    }
+
+    // Server time minus local time, keyed by scheme, host and port of the server
+    private val offsets = ConcurrentHashMap<String, Offset>()
+
+    private class Offset(val millis: Long, val needsResync: Boolean = false)
+
+    /**
+     * Emits the current time of the server at [baseUrl], only subscribing to [syncSource]
+     * if its offset hasn't been learnt yet or has drifted.
+     */
+    fun getServerTime(baseUrl: String, syncSource: Single<ServerTime>): Single<ServerTime> {
+        return Single.defer {
+            val key = keyOf(baseUrl)
+            val offset = offsets[key]
+            if (offset != null && !offset.needsResync) Single.just(ServerTime(toServerSeconds(offset)))
+            else sync(key, syncSource)
+        }
+    }
+
+    private fun sync(key: String, syncSource: Single<ServerTime>): Single<ServerTime> {
+        val requestStartMillis = clock()
+        return syncSource
+                .doOnSuccess { onServerTime(key, it, requestStartMillis) }
+    }
+
+    private fun onServerTime(key: String, serverTime: ServerTime?, requestStartMillis: Long) {
+        if (serverTime == null) return
+        // Assume the server read its clock halfway through the round trip
+        val requestMidpointMillis = (requestStartMillis + clock()) / 2
+        offsets[key] = Offset(serverTime.get() * 1000 - requestMidpointMillis)
+    }
+
+    fun onServerDate(url: HttpUrl, serverDate: Date) {
+        val key = keyOf(url)
+        val offset = offsets[key] ?: return
+        val expectedServerMillis = clock() + offset.millis
+        if (Math.abs(serverDate.time - expectedServerMillis) <= MAX_DRIFT_MILLIS) return
+        offsets[key] = Offset(offset.millis, needsResync = true)
+    }
+
+    private fun toServerSeconds(offset: Offset) = (clock() + offset.millis) / 1000
+
+    private fun keyOf(baseUrl: String): String = HttpUrl.parse(baseUrl)?.let { keyOf(it) } ?: baseUrl
+
+    private fun keyOf(url: HttpUrl) = "${url.scheme()}://${url.host()}:${url.port()}"
+}
+
+/**
+ * The offsets shared by every service client in the app.
+ */
+object ServerClock : ServerClockOffsets()
@@ -24,32 +24,24 @@ import com.bumptech.glide.GlideBuilder;
 import com.bumptech.glide.integration.okhttp3.OkHttpUrlLoader;
 import com.bumptech.glide.load.model.ModelLoaderFactory;
 import com.bumptech.glide.module.GlideModule;
+import com.toshi.manager.network.HttpClientCore;
 import com.toshi.manager.network.interceptor.LoggingInterceptor;
 import com.toshi.manager.network.interceptor.AppInfoUserAgentInterceptor;
-import com.toshi.view.BaseApplication;
 
-import java.io.File;
 import java.io.InputStream;
 
-import okhttp3.Cache;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 
 public class GlideOkHttpStack implements GlideModule {
 
-    private static final int MAX_SIZE = 1024 * 1024 * 10;
-
     @Override
     public void applyOptions(Context context, GlideBuilder builder) {}
 
     @Override
     public void registerComponents(Context context, Glide glide) {
-        final File cacheDir = new File(BaseApplication.get().getCacheDir(), "ToshiImageCache");
-        final Cache cache = new Cache(cacheDir, MAX_SIZE);
-
         final OkHttpClient client =
-                new OkHttpClient().newBuilder()
-                .cache(cache)
+                HttpClientCore.INSTANCE.newImageBuilder()
                 .addInterceptor(new AppInfoUserAgentInterceptor())
                 .addInterceptor(new HttpLoggingInterceptor(new LoggingInterceptor()).setLevel(HttpLoggingInterceptor.Level.BODY))
                 .build();
@@ -21,10 +21,13 @@ package com.toshi.manager.network.interceptor;
 import android.util.Base64;
 
 import com.toshi.crypto.HDWallet;
-import com.toshi.crypto.util.HashUtil;
+import com.toshi.crypto.util.KeccakContext;
+import com.toshi.manager.network.ServerClock;
+import com.toshi.manager.network.ServerClockOffsets;
 import com.toshi.view.BaseApplication;
 
 import java.io.IOException;
+import java.util.Date;
 
 import okhttp3.HttpUrl;
 import okhttp3.Interceptor;
@@ -38,6 +41,17 @@ public class SigningInterceptor implements Interceptor {
     private final String ADDRESS_HEADER = "Toshi-ID-Address";
     private final String SIGNATURE_HEADER = "Toshi-Signature";
     private final String TIMESTAMP_HEADER = "Toshi-Timestamp";
+    private final long MAX_TIMESTAMP_DRIFT_SECONDS = 5;
+
+    private final ServerClockOffsets serverClock;
+
+    public SigningInterceptor() {
+        this(ServerClock.INSTANCE);
+    }
+
+    public SigningInterceptor(final ServerClockOffsets serverClock) {
+        this.serverClock = serverClock;
+    }
 
     @Override
     public Response intercept(final Chain chain) throws IOException {
@@ -54,26 +68,38 @@ public class SigningInterceptor implements Interceptor {
             return chain.proceed(original);
         }
 
+        final Response response = chain.proceed(signRequest(original, wallet, timestamp));
+        final Date staleServerDate = getServerDateIfRejectedAsStale(response, timestamp);
+        if (staleServerDate == null) return response;
+
+        // The server clock has moved on from what we thought it was. ServerClock has marked
+        // the offset for a resync, so sign again with the time of the rejection and retry once.
+        response.close();
+        final String freshTimestamp = String.valueOf(staleServerDate.getTime() / 1000);
+        return chain.proceed(signRequest(original, wallet, freshTimestamp));
+    }
+
+    private Request signRequest(final Request original, final HDWallet wallet, final String timestamp) throws IOException {
         final Buffer buffer = new Buffer();
         final String method = original.method();
         final String path = original.url().encodedPath();
         String encodedBody = "";
         if (original.body() != null) {
             original.body().writeTo(buffer);
-            final byte[] body = buffer.readByteArray();
-            final byte[] hashedBody = HashUtil.sha3(body);
+            final byte[] hashedBody = KeccakContext.get().update(buffer).digest();
+            buffer.clear();
             encodedBody = Base64.encodeToString(hashedBody, Base64.NO_WRAP);
         }
 
         final String forSigning = method + "\n" + path + "\n" + timestamp + "\n" + encodedBody;
         final String signature = wallet.signIdentity(forSigning);
 
-        final HttpUrl url = chain.request().url()
+        final HttpUrl url = original.url()
                 .newBuilder()
                 .removeAllQueryParameters(TIMESTAMP_QUERY_PARAMETER)
                 .build();
 
-        final Request request = original.newBuilder()
+        return original.newBuilder()
                 .removeHeader(TIMESTAMP_QUERY_PARAMETER)
                 .method(original.method(), original.body())
                 .addHeader(TIMESTAMP_HEADER, timestamp)
@@ -81,8 +107,21 @@ public class SigningInterceptor implements Interceptor {
                 .addHeader(ADDRESS_HEADER, wallet.getOwnerAddress())
                 .url(url)
                 .build();
+    }
 
-        return chain.proceed(request);
+    private Date getServerDateIfRejectedAsStale(final Response response, final String timestamp) {
+        if (response.code() != 400 && response.code() != 401) return null;
+        final Date serverDate = response.headers().getDate("Date");
+        if (serverDate == null) return null;
+        this.serverClock.onServerDate(response.request().url(), serverDate);
+
+        try {
+            final long serverSeconds = serverDate.getTime() / 1000;
+            final boolean isStale = Math.abs(serverSeconds - Long.parseLong(timestamp)) > MAX_TIMESTAMP_DRIFT_SECONDS;
+            return isStale ? serverDate : null;
+        } catch (final NumberFormatException ex) {
+            return null;
+        }
     }
 
     public HDWallet getWallet() {
@@ -0,0 +1,120 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.manager.pushRegistration
+
+import com.toshi.crypto.util.HashUtil
+import com.toshi.util.sharedPrefs.PushRegistrationPrefs
+import com.toshi.util.sharedPrefs.PushRegistrationPrefsInterface
+import org.spongycastle.util.encoders.Hex
+import rx.Completable
+import rx.Observable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+
+/**
+ * Makes push registrations idempotent.
+ *
+ * Every endpoint remembers a fingerprint of the last registration the server accepted, so a
+ * registration with the same token, addresses and server is skipped. Concurrent registrations
+ * with the same fingerprint share one request, and a failing registration is not retried until
+ * its exponential backoff has passed.
+ */
+class PushRegistrar(
+        private val registrationPrefs: PushRegistrationPrefsInterface = PushRegistrationPrefs(),
+        private val minBackoffMillis: Long = DEFAULT_MIN_BACKOFF_MILLIS,
+        private val maxBackoffMillis: Long = DEFAULT_MAX_BACKOFF_MILLIS,
+        private val clock: () -> Long = { System.currentTimeMillis() }
+) {
+
+    companion object {
+        val DEFAULT_MIN_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(30)
+        val DEFAULT_MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(30)
+        private const val MAX_BACKOFF_EXPONENT = 16
+
+        fun fingerprintOf(vararg parts: String?): String {
+            val joined = parts.joinToString(separator = "|") { it.orEmpty() }
+            return Hex.toHexString(HashUtil.sha3(joined.toByteArray()))
+        }
+    }
+
+    class BackoffException(endpoint: String) : IllegalStateException("Registration with $endpoint is backing off")
+
+    private class Backoff(val fingerprint: String, val failures: Int, val retryAt: Long)
+
+    private val inFlight = HashMap<String, Observable<Any>>()
+    private val backoffs = ConcurrentHashMap<String, Backoff>()
+
+    fun register(endpoint: String, fingerprint: String, registration: () -> Completable): Completable {
+        return Completable.defer {
+            when {
+                registrationPrefs.readFingerprint(endpoint) == fingerprint -> Completable.complete()
+                isBackingOff(endpoint, fingerprint) -> Completable.error(BackoffException(endpoint))
+                else -> join(endpoint, fingerprint, registration)
+            }
+        }
+    }
+
+    private fun isBackingOff(endpoint: String, fingerprint: String): Boolean {
+        val backoff = backoffs[endpoint] ?: return false
+        return backoff.fingerprint == fingerprint && clock() < backoff.retryAt
+    }
+
+    @Synchronized
+    private fun join(endpoint: String, fingerprint: String, registration: () -> Completable): Completable {
+        val key = "$endpoint:$fingerprint"
+        val request = inFlight[key] ?: registration()
+                .doOnCompleted { onRegistered(endpoint, fingerprint) }
+                .doOnError { onFailed(endpoint, fingerprint) }
+                .toObservable<Any>()
+                .doOnTerminate { removeInFlight(key) }
+                .cache()
+                .also { inFlight[key] = it }
+        return request.toCompletable()
+    }
+
+    @Synchronized
+    private fun removeInFlight(key: String) = inFlight.remove(key)
+
+    private fun onRegistered(endpoint: String, fingerprint: String) {
+        registrationPrefs.writeFingerprint(endpoint, fingerprint)
+        backoffs.remove(endpoint)
+    }
+
+    private fun onFailed(endpoint: String, fingerprint: String) {
+        val previous = backoffs[endpoint]
+        val failures = if (previous != null && previous.fingerprint == fingerprint) previous.failures + 1 else 1
+        val exponent = (failures - 1).coerceAtMost(MAX_BACKOFF_EXPONENT)
+        val delay = (minBackoffMillis shl exponent).coerceAtMost(maxBackoffMillis)
+        backoffs[endpoint] = Backoff(fingerprint, failures, clock() + delay)
+    }
+
+    fun isRegistered(endpoint: String) = registrationPrefs.readFingerprint(endpoint) != null
+
+    /**
+     * Forgets the registration for an endpoint, so the next registration is sent even if nothing changed.
+     */
+    fun invalidate(endpoint: String) {
+        registrationPrefs.removeFingerprint(endpoint)
+        backoffs.remove(endpoint)
+    }
+
+    fun clear() {
+        registrationPrefs.clear()
+        backoffs.clear()
+    }
+}
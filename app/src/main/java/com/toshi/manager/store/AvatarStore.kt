@@ -0,0 +1,165 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.toshi.manager.store
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import com.toshi.R
+import com.toshi.util.ImageUtil
+import com.toshi.view.BaseApplication
+import org.spongycastle.util.encoders.Hex
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.security.MessageDigest
+
+/**
+ * Stores avatar images on disk once, named by the SHA-256 of their bytes, together with a
+ * list-size thumbnail. Files carry no extension since the bytes can be PNG or JPEG.
+ * Realm only keeps the hash, so copying a group no longer copies the image.
+ */
+class AvatarStore(
+        private val directory: File,
+        private val thumbnailSize: Int
+) {
+
+    companion object {
+        private const val AVATAR_DIRECTORY = "avatars"
+        private const val THUMBNAIL_DIRECTORY = "thumbnails"
+        // Files that were just stored may belong to a group that hasn't been saved yet
+        private const val PRUNE_GRACE_MILLIS = 10 * 60 * 1000L
+
+        private var instance: AvatarStore? = null
+
+        @JvmStatic
+        @Synchronized
+        fun get(): AvatarStore {
+            return instance ?: createStore().also { instance = it }
+        }
+
+        private fun createStore(): AvatarStore {
+            val app = BaseApplication.get()
+            val directory = File(app.filesDir, AVATAR_DIRECTORY)
+            val thumbnailSize = app.resources.getDimensionPixelSize(R.dimen.avatar_size_medium)
+            return AvatarStore(directory, thumbnailSize)
+        }
+
+        @JvmStatic
+        fun hashOf(bytes: ByteArray): String {
+            val digest = MessageDigest.getInstance("SHA-256").digest(bytes)
+            return Hex.toHexString(digest)
+        }
+    }
+
+    @Throws(IOException::class)
+    fun put(bitmap: Bitmap): String {
+        val bytes = ImageUtil.toByteArray(bitmap) ?: throw IOException("Unable to encode avatar")
+        return put(bytes)
+    }
+
+    @Throws(IOException::class)
+    fun put(file: File): String = put(file.readBytes())
+
+    @Synchronized
+    @Throws(IOException::class)
+    fun put(bytes: ByteArray): String {
+        val hash = hashOf(bytes)
+        val now = System.currentTimeMillis()
+        val avatarFile = fileFor(hash)
+        if (avatarFile.exists()) avatarFile.setLastModified(now)
+        else writeAtomically(avatarFile, bytes)
+        val thumbnail = thumbnailFor(hash)
+        if (thumbnail.exists()) thumbnail.setLastModified(now)
+        else writeThumbnail(hash, bytes)
+        return hash
+    }
+
+    fun contains(hash: String) = fileFor(hash).exists()
+
+    fun read(hash: String): ByteArray? {
+        val file = fileFor(hash)
+        return if (file.exists()) file.readBytes() else null
+    }
+
+    fun fileFor(hash: String) = File(directory, hash)
+
+    // Falls back to the full image if the thumbnail couldn't be generated
+    fun thumbnailFileFor(hash: String): File {
+        val thumbnail = thumbnailFor(hash)
+        return if (thumbnail.exists()) thumbnail else fileFor(hash)
+    }
+
+    private fun thumbnailFor(hash: String) = File(File(directory, THUMBNAIL_DIRECTORY), hash)
+
+    private fun writeThumbnail(hash: String, bytes: ByteArray) {
+        val thumbnail = decodeThumbnail(bytes) ?: return
+        val thumbnailBytes = ImageUtil.toByteArray(thumbnail) ?: return
+        writeAtomically(thumbnailFor(hash), thumbnailBytes)
+    }
+
+    private fun decodeThumbnail(bytes: ByteArray): Bitmap? {
+        val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+        BitmapFactory.decodeByteArray(bytes, 0, bytes.size, bounds)
+        val shortestSide = Math.min(bounds.outWidth, bounds.outHeight)
+        if (shortestSide <= 0) return null
+
+        var sampleSize = 1
+        while (shortestSide / (sampleSize * 2) >= thumbnailSize) sampleSize *= 2
+        val options = BitmapFactory.Options().apply { inSampleSize = sampleSize }
+        val sampled = BitmapFactory.decodeByteArray(bytes, 0, bytes.size, options) ?: return null
+
+        val sampledShortestSide = Math.min(sampled.width, sampled.height)
+        if (sampledShortestSide <= thumbnailSize) return sampled
+        val scale = thumbnailSize.toFloat() / sampledShortestSide
+        val width = Math.round(sampled.width * scale)
+        val height = Math.round(sampled.height * scale)
+        return Bitmap.createScaledBitmap(sampled, width, height, true)
+    }
+
+    // Readers only ever see complete files since the rename is atomic
+    private fun writeAtomically(file: File, bytes: ByteArray) {
+        val parent = file.parentFile
+        if (!parent.exists() && !parent.mkdirs()) throw IOException("Unable to create $parent")
+        val tempFile = File(parent, "${file.name}.tmp")
+        FileOutputStream(tempFile).use { it.write(bytes) }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete()
+            throw IOException("Unable to write $file")
+        }
+    }
+
+    /**
+     * Deletes every stored avatar that isn't in [hashes]. Several groups can share an avatar,
+     * so files can only be removed once nothing references them. Recently stored files are kept.
+     */
+    @Synchronized
+    @JvmOverloads
+    fun retainOnly(hashes: Set<String>, now: Long = System.currentTimeMillis()) {
+        val storedBefore = now - PRUNE_GRACE_MILLIS
+        listOf(directory, File(directory, THUMBNAIL_DIRECTORY))
+                .flatMap { it.listFiles()?.toList() ?: emptyList() }
+                .filter { it.isFile && it.name !in hashes && it.lastModified() < storedBefore }
+                .forEach { it.delete() }
+    }
+
+    @Synchronized
+    fun clear() {
+        directory.deleteRecursively()
+    }
+}
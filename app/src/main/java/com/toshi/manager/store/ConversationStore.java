@@ -25,10 +25,12 @@ import com.toshi.extensions.SofaMessageUtil;
 import com.toshi.model.local.Avatar;
 import com.toshi.model.local.Conversation;
 import com.toshi.model.local.ConversationObservables;
+import com.toshi.model.local.ConversationStatus;
 import com.toshi.model.local.Group;
 import com.toshi.model.local.Recipient;
 import com.toshi.model.local.User;
 import com.toshi.model.sofa.SofaMessage;
+import com.toshi.model.sofa.SofaPayloadCache;
 import com.toshi.util.logging.LogUtil;
 import com.toshi.util.statusMessage.StatusMessageBuilder;
 import com.toshi.view.BaseApplication;
@@ -36,7 +38,14 @@ import com.toshi.view.BaseApplication;
 import org.jetbrains.annotations.NotNull;
 import org.whispersystems.signalservice.api.messages.SignalServiceGroup;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -46,7 +55,9 @@ import io.realm.RealmResults;
 import io.realm.Sort;
 import rx.Completable;
 import rx.Observable;
+import rx.Scheduler;
 import rx.Single;
+import rx.functions.Action1;
 import rx.schedulers.Schedulers;
 import rx.subjects.PublishSubject;
 
@@ -55,6 +66,7 @@ public class ConversationStore {
     private static final int FIFTEEN_MINUTES = 1000 * 60 * 15;
     private static final String THREAD_ID_FIELD = "threadId";
     private static final String MESSAGE_ID_FIELD = "privateKey";
+    private static final String CREATION_TIME_FIELD = "creationTime";
 
     private static String watchedThreadId;
     private final static PublishSubject<SofaMessage> NEW_MESSAGE_SUBJECT = PublishSubject.create();
@@ -63,6 +75,21 @@ public class ConversationStore {
     private final static PublishSubject<Conversation> CONVERSATION_CHANGED_SUBJECT = PublishSubject.create();
     private final static PublishSubject<Conversation> CONVERSATION_UPDATED_SUBJECT = PublishSubject.create();
     private final static ExecutorService dbThread = Executors.newSingleThreadExecutor();
+    private static final long BATCH_WINDOW_MS = 50;
+    private static final int MAX_BATCH_SIZE = 200;
+
+    private final GroupCommit<PendingMessage, Conversation> incomingMessages = new GroupCommit<>(
+            new IncomingMessageWriter(),
+            MAX_BATCH_SIZE,
+            BATCH_WINDOW_MS,
+            Schedulers.from(dbThread)
+    );
+    // Runs every other database task after committing the batched incoming messages, so group,
+    // status and local status writes can't land ahead of messages that were queued before them.
+    private final Scheduler dbScheduler = Schedulers.from(command -> dbThread.execute(() -> {
+        this.incomingMessages.flush();
+        command.run();
+    }));
 
 
     //##############################################################################################
@@ -122,52 +149,32 @@ public class ConversationStore {
             realm.close();
             return conversation;
         })
-        .subscribeOn(Schedulers.from(dbThread))
+        .subscribeOn(this.dbScheduler)
         .doOnError(throwable -> handleError(throwable, "Error while creating empty conversation"));
     }
 
+    // Only the recipient of the stored conversation is rewritten, and only a header summary
+    // is broadcast, so updating a group never copies its message history.
     private Single<Conversation> copyOrUpdateGroup(@NonNull final Group group) {
         return Single.fromCallable(() -> {
-            final Conversation conversationToStore = getOrCreateConversation(group);
+            final Recipient recipient = new Recipient(group);
             final Realm realm = BaseApplication.get().getRealm();
             realm.beginTransaction();
-            conversationToStore.updateRecipient(new Recipient(group));
-            final Conversation storedConversation = realm.copyToRealmOrUpdate(conversationToStore);
+            final Conversation storedConversation = getOrCreateStoredConversation(realm, recipient);
+            storedConversation.updateRecipient(realm.copyToRealmOrUpdate(recipient));
             realm.commitTransaction();
-            final Conversation conversationForBroadcast = realm.copyFromRealm(storedConversation);
+            final Conversation conversationForBroadcast = Conversation.summaryOf(realm, storedConversation);
             realm.close();
             return conversationForBroadcast;
         })
-        .subscribeOn(Schedulers.from(dbThread))
+        .subscribeOn(this.dbScheduler)
         .doOnError(throwable -> handleError(throwable, "Error while updating group"));
     }
 
-    @NonNull
-    private Conversation getOrCreateConversation(final Group group) {
-        final Recipient recipient = new Recipient(group);
-        return getOrCreateConversation(recipient);
-    }
-
-    @NonNull
-    private Conversation getOrCreateConversation(final Recipient recipient) {
-        final Conversation existingConversation = loadWhere(THREAD_ID_FIELD, recipient.getThreadId());
-        return existingConversation == null
-            ? new Conversation(recipient)
-            : existingConversation;
-    }
-
     //##############################################################################################
     // Saving Messages
     //##############################################################################################
 
-    public Single<Conversation> saveNewMessageSingle(@NonNull final Recipient receiver,
-                                                     @NonNull final SofaMessage message) {
-        return saveMessage(receiver, message)
-                .observeOn(Schedulers.immediate())
-                .doOnSuccess(this::broadcastConversationChanged)
-                .doOnError(throwable -> handleError(throwable,"Error while saving message"));
-    }
-
     public void saveNewMessage(
             @NonNull final Recipient receiver,
             @NonNull final SofaMessage message) {
@@ -183,37 +190,59 @@ public class ConversationStore {
         @NonNull final Recipient receiver,
         @Nullable final SofaMessage message) {
         return Single.fromCallable(() -> {
-            final Conversation conversationToStore = getOrCreateConversation(receiver);
-
-            if (message != null && shouldSaveTimestampMessage(message, conversationToStore)) {
-                final SofaMessage timestampMessage = generateTimestampMessage();
-                conversationToStore.addMessage(timestampMessage);
-                broadcastNewChatMessage(receiver.getThreadId(), timestampMessage);
-            }
-
             final Realm realm = BaseApplication.get().getRealm();
+            final List<SofaMessage> addedMessages = new ArrayList<>();
             realm.beginTransaction();
-
-            if (message != null) {
-                final SofaMessage storedMessage = realm.copyToRealmOrUpdate(message);
-                final boolean updateUnreadCounter = !conversationToStore.getThreadId().equals(watchedThreadId)
-                    && !SofaMessageUtil.isLocalStatusMessage(storedMessage);
-                if (updateUnreadCounter) conversationToStore.setLatestMessageAndUpdateUnreadCounter(storedMessage);
-                else conversationToStore.setLatestMessage(storedMessage);
-                broadcastNewChatMessage(receiver.getThreadId(), message);
-            }
-
-            final Conversation storedConversation = realm.copyToRealmOrUpdate(conversationToStore);
+            final Conversation storedConversation = appendMessage(realm, receiver, message, addedMessages);
             realm.commitTransaction();
-            final Conversation conversationForBroadcast = realm.copyFromRealm(storedConversation);
+            final Conversation conversationForBroadcast = Conversation.summaryOf(realm, storedConversation);
             realm.close();
 
+            broadcastNewChatMessages(receiver.getThreadId(), addedMessages);
             return conversationForBroadcast;
         })
-        .subscribeOn(Schedulers.from(dbThread))
+        .subscribeOn(this.dbScheduler)
         .doOnError(throwable -> handleError(throwable, "Error while saving new message"));
     }
 
+    // Must be called inside a transaction. Only the new message and the header fields
+    // of the managed conversation are written; the existing history is never copied.
+    // Every message written is added to addedMessages, to be broadcast once the transaction commits.
+    private Conversation appendMessage(
+        @NonNull final Realm realm,
+        @NonNull final Recipient receiver,
+        @Nullable final SofaMessage message,
+        @NonNull final List<SofaMessage> addedMessages) {
+        final Conversation storedConversation = getOrCreateStoredConversation(realm, receiver);
+        if (message == null) return storedConversation;
+
+        if (shouldSaveTimestampMessage(message, storedConversation)) {
+            final SofaMessage timestampMessage = generateTimestampMessage(message);
+            storedConversation.addMessage(realm.copyToRealmOrUpdate(timestampMessage));
+            addedMessages.add(timestampMessage);
+        }
+
+        final SofaMessage storedMessage = realm.copyToRealmOrUpdate(message);
+        final boolean updateUnreadCounter = !storedConversation.getThreadId().equals(watchedThreadId)
+            && !SofaMessageUtil.isLocalStatusMessage(storedMessage);
+        if (updateUnreadCounter) storedConversation.setLatestMessageAndUpdateUnreadCounter(storedMessage);
+        else storedConversation.setLatestMessage(storedMessage);
+        addedMessages.add(message);
+
+        return storedConversation;
+    }
+
+    @NonNull
+    private Conversation getOrCreateStoredConversation(final Realm realm, final Recipient recipient) {
+        final Conversation storedConversation = realm
+            .where(Conversation.class)
+            .equalTo(THREAD_ID_FIELD, recipient.getThreadId())
+            .findFirst();
+        return storedConversation == null
+            ? realm.copyToRealmOrUpdate(new Conversation(recipient))
+            : storedConversation;
+    }
+
     public void updateMessage(final Recipient receiver, final SofaMessage message) {
         Completable.fromAction(() -> {
             final Realm realm = BaseApplication.get().getRealm();
@@ -223,7 +252,7 @@ public class ConversationStore {
             realm.close();
         })
         .observeOn(Schedulers.immediate())
-        .subscribeOn(Schedulers.from(dbThread))
+        .subscribeOn(this.dbScheduler)
         .subscribe(
                 () -> broadcastUpdatedChatMessage(receiver.getThreadId(), message),
                 throwable -> handleError(throwable, "Error while updating message")
@@ -249,10 +278,88 @@ public class ConversationStore {
             }
             realm.close();
         })
-        .subscribeOn(Schedulers.from(dbThread))
+        .subscribeOn(this.dbScheduler)
         .doOnError(throwable -> handleError(throwable, "Error while updating latest message"));
     }
 
+    //##############################################################################################
+    // Group Commit
+    //##############################################################################################
+
+    // Incoming messages are held for up to BATCH_WINDOW_MS, or until MAX_BATCH_SIZE of them
+    // have queued up, and then written in a single transaction. Each affected conversation
+    // is broadcast once per batch rather than once per message. If the batch can't be written,
+    // each message is retried in its own transaction so only the bad one is dropped.
+    public Single<Conversation> saveIncomingMessage(@NonNull final Recipient receiver,
+                                                    @NonNull final SofaMessage message) {
+        return this.incomingMessages
+                .add(new PendingMessage(receiver, message))
+                .doOnError(throwable -> handleError(throwable, "Error while saving incoming message"));
+    }
+
+    private class IncomingMessageWriter implements GroupCommit.Writer<PendingMessage, Conversation> {
+
+        @Override
+        public void write(@NonNull final List<PendingMessage> pendingMessages) {
+            final Realm realm = BaseApplication.get().getRealm();
+            try {
+                realm.beginTransaction();
+                for (final PendingMessage pendingMessage : pendingMessages) {
+                    pendingMessage.addedMessages.clear();
+                    appendMessage(realm, pendingMessage.receiver, pendingMessage.message, pendingMessage.addedMessages);
+                }
+                realm.commitTransaction();
+            } catch (final RuntimeException ex) {
+                if (realm.isInTransaction()) realm.cancelTransaction();
+                throw ex;
+            } finally {
+                realm.close();
+            }
+        }
+
+        @NonNull
+        @Override
+        public List<Conversation> read(@NonNull final List<PendingMessage> storedMessages) {
+            final Map<String, Conversation> summaries = new LinkedHashMap<>();
+            final Realm realm = BaseApplication.get().getRealm();
+            try {
+                for (final PendingMessage pendingMessage : storedMessages) {
+                    final String threadId = pendingMessage.receiver.getThreadId();
+                    if (summaries.containsKey(threadId)) continue;
+                    final Conversation storedConversation = realm
+                            .where(Conversation.class)
+                            .equalTo(THREAD_ID_FIELD, threadId)
+                            .findFirst();
+                    if (storedConversation == null) throw new IllegalStateException("Stored conversation not found");
+                    summaries.put(threadId, Conversation.summaryOf(realm, storedConversation));
+                }
+            } finally {
+                realm.close();
+            }
+
+            final List<Conversation> results = new ArrayList<>(storedMessages.size());
+            for (final PendingMessage pendingMessage : storedMessages) {
+                broadcastNewChatMessages(pendingMessage.receiver.getThreadId(), pendingMessage.addedMessages);
+                results.add(summaries.get(pendingMessage.receiver.getThreadId()));
+            }
+            for (final Conversation summary : summaries.values()) {
+                broadcastConversationChanged(summary);
+            }
+            return results;
+        }
+    }
+
+    private static class PendingMessage {
+        private final Recipient receiver;
+        private final SofaMessage message;
+        private final List<SofaMessage> addedMessages = new ArrayList<>();
+
+        private PendingMessage(final Recipient receiver, final SofaMessage message) {
+            this.receiver = receiver;
+            this.message = message;
+        }
+    }
+
     //##############################################################################################
     // Status Messages
     //##############################################################################################
@@ -296,8 +403,8 @@ public class ConversationStore {
     // Timestamp
     //##############################################################################################
 
-    private SofaMessage generateTimestampMessage() {
-        return new SofaMessage().makeNewTimeStampMessage();
+    private SofaMessage generateTimestampMessage(final SofaMessage nextMessage) {
+        return new SofaMessage().makeNewTimeStampMessage(nextMessage);
     }
 
     private boolean shouldSaveTimestampMessage(final SofaMessage message,
@@ -316,6 +423,7 @@ public class ConversationStore {
             .map(conversation -> conversation.getRecipient().getGroup())
             .map(group -> group.setAvatar(avatar))
             .flatMapCompletable(this::saveGroup)
+            .andThen(pruneAvatars())
             .doOnError(throwable -> handleError(throwable, "Error while saving group avatar"));
     }
 
@@ -344,6 +452,24 @@ public class ConversationStore {
             .doOnError(throwable -> handleError(throwable, "Error while removing user from group"));
     }
 
+    // Avatars are shared by content hash, so a file is only removed once no group refers to it
+    private Completable pruneAvatars() {
+        return Completable.fromAction(() -> {
+            final Realm realm = BaseApplication.get().getRealm();
+            final RealmResults<Group> groups = realm.where(Group.class).findAll();
+            final Set<String> hashes = new HashSet<>();
+            for (final Group group : groups) {
+                final Avatar avatar = group.getAvatar();
+                if (avatar != null && avatar.getHash() != null) hashes.add(avatar.getHash());
+            }
+            realm.close();
+            AvatarStore.get().retainOnly(hashes);
+        })
+        .subscribeOn(this.dbScheduler)
+        .doOnError(throwable -> LogUtil.w("Error while pruning avatars " + throwable))
+        .onErrorComplete();
+    }
+
     private Completable saveGroup(@NonNull final Group group) {
         return copyOrUpdateGroup(group)
             .observeOn(Schedulers.immediate())
@@ -374,20 +500,55 @@ public class ConversationStore {
             final RealmResults<Conversation> results = query
                     .sort("updatedTime", Sort.DESCENDING)
                     .findAll();
-            final List<Conversation> allConversations = realm.copyFromRealm(results);
+            // The inbox only renders the header fields, so the message history is never copied
+            final List<Conversation> summaries = new ArrayList<>(results.size());
+            for (final Conversation storedConversation : results) {
+                summaries.add(Conversation.summaryOf(realm, storedConversation));
+            }
             realm.close();
-            return allConversations;
+            return summaries;
         })
-        .subscribeOn(Schedulers.from(dbThread))
+        .subscribeOn(this.dbScheduler)
         .doOnError(throwable -> handleError(throwable, "Error while loading all conversations"));
     }
 
     public Single<Conversation> loadByThreadId(final String threadId) {
         return Single.fromCallable(() -> loadWhere(THREAD_ID_FIELD, threadId))
-                .subscribeOn(Schedulers.from(dbThread))
+                .subscribeOn(this.dbScheduler)
                 .doOnError(throwable -> handleError(throwable, "Error while loading thread by id"));
     }
 
+    public Single<Conversation> loadSummaryByThreadId(final String threadId) {
+        return Single.fromCallable(() -> {
+            final Realm realm = BaseApplication.get().getRealm();
+            final Conversation result = realm
+                .where(Conversation.class)
+                .equalTo(THREAD_ID_FIELD, threadId)
+                .findFirst();
+            final Conversation summary = result == null ? null : Conversation.summaryOf(realm, result);
+            realm.close();
+            return summary;
+        })
+        .subscribeOn(this.dbScheduler)
+        .doOnError(throwable -> handleError(throwable, "Error while loading conversation summary"));
+    }
+
+    // Emits null if the conversation has no stored status
+    public Single<ConversationStatus> loadConversationStatus(final String threadId) {
+        return Single.fromCallable(() -> {
+            final Realm realm = BaseApplication.get().getRealm();
+            final ConversationStatus result = realm
+                .where(ConversationStatus.class)
+                .equalTo(THREAD_ID_FIELD, threadId)
+                .findFirst();
+            final ConversationStatus status = result == null ? null : realm.copyFromRealm(result);
+            realm.close();
+            return status;
+        })
+        .subscribeOn(this.dbScheduler)
+        .doOnError(throwable -> handleError(throwable, "Error while loading conversation status"));
+    }
+
     private Conversation loadWhere(final String fieldName, final String value) {
         final Realm realm = BaseApplication.get().getRealm();
         final Conversation result = realm
@@ -422,11 +583,110 @@ public class ConversationStore {
             realm.close();
             return sofaMessage;
         })
-        .subscribeOn(Schedulers.from(dbThread))
+        .subscribeOn(this.dbScheduler)
         .doOnError(throwable -> handleError(throwable, "Error while getting message by id"));
     }
 
 
+    //##############################################################################################
+    // Paging Messages
+    //##############################################################################################
+
+    // Pages are returned oldest first. The cursor is exclusive: the cursor message itself is never
+    // in the page, and messages sharing its creation time are split on private key instead.
+    public Single<List<SofaMessage>> loadLatestMessages(final String threadId, final int limit) {
+        return loadMessagePage(threadId, limit, Sort.DESCENDING, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Loads up to {@code limit} messages that come strictly before the cursor message. Messages are
+     * ordered by creation time, and by private key between messages with the same creation time,
+     * so paging never gets stuck on a run of identical timestamps.
+     */
+    public Single<List<SofaMessage>> loadMessagesBefore(final String threadId,
+                                                        final long creationTime,
+                                                        final String privateKey,
+                                                        final int limit) {
+        return loadMessagePage(threadId, limit, Sort.DESCENDING, creationTime, privateKey);
+    }
+
+    public Single<List<SofaMessage>> loadMessagesAfter(final String threadId,
+                                                       final long creationTime,
+                                                       final String privateKey,
+                                                       final int limit) {
+        return loadMessagePage(threadId, limit, Sort.ASCENDING, creationTime, privateKey);
+    }
+
+    private Single<List<SofaMessage>> loadMessagePage(
+            final String threadId,
+            final int limit,
+            final Sort sortOrder,
+            final long cursorTime,
+            @Nullable final String cursorKey) {
+        return Single.fromCallable(() -> {
+            final Realm realm = BaseApplication.get().getRealm();
+            final Conversation conversation = realm
+                    .where(Conversation.class)
+                    .equalTo(THREAD_ID_FIELD, threadId)
+                    .findFirst();
+            if (conversation == null) {
+                realm.close();
+                return new ArrayList<SofaMessage>(0);
+            }
+            final RealmQuery<SofaMessage> query = sortOrder == Sort.DESCENDING
+                    ? conversation.queryMessages().lessThanOrEqualTo(CREATION_TIME_FIELD, cursorTime)
+                    : conversation.queryMessages().greaterThanOrEqualTo(CREATION_TIME_FIELD, cursorTime);
+            final RealmResults<SofaMessage> results = query
+                    .sort(CREATION_TIME_FIELD, sortOrder)
+                    .findAll();
+            final List<SofaMessage> page = realm.copyFromRealm(readPage(results, limit, sortOrder, cursorTime, cursorKey));
+            realm.close();
+            if (sortOrder == Sort.DESCENDING) Collections.reverse(page);
+            return page;
+        })
+        .subscribeOn(this.dbScheduler)
+        .doOnError(throwable -> handleError(throwable, "Error while loading message page"));
+    }
+
+    // RealmResults are lazy so only the rows in the page, plus any run of messages sharing the
+    // last creation time, are ever read. Each run is ordered by private key here rather than by
+    // Realm, so the order matches the String comparison used for the cursor.
+    private List<SofaMessage> readPage(final RealmResults<SofaMessage> results,
+                                       final int limit,
+                                       final Sort sortOrder,
+                                       final long cursorTime,
+                                       @Nullable final String cursorKey) {
+        final Comparator<SofaMessage> byKey = sortOrder == Sort.DESCENDING
+                ? (first, second) -> second.getPrivateKey().compareTo(first.getPrivateKey())
+                : (first, second) -> first.getPrivateKey().compareTo(second.getPrivateKey());
+        final List<SofaMessage> page = new ArrayList<>(Math.min(limit, results.size()));
+        final List<SofaMessage> run = new ArrayList<>();
+        int index = 0;
+        while (index < results.size() && page.size() < limit) {
+            final long runTime = results.get(index).getCreationTime();
+            run.clear();
+            while (index < results.size() && results.get(index).getCreationTime() == runTime) {
+                run.add(results.get(index++));
+            }
+            Collections.sort(run, byKey);
+            for (final SofaMessage message : run) {
+                if (page.size() >= limit) break;
+                if (isAtOrBeforeCursor(message, sortOrder, cursorTime, cursorKey)) continue;
+                page.add(message);
+            }
+        }
+        return page;
+    }
+
+    private boolean isAtOrBeforeCursor(final SofaMessage message,
+                                       final Sort sortOrder,
+                                       final long cursorTime,
+                                       @Nullable final String cursorKey) {
+        if (cursorKey == null || message.getCreationTime() != cursorTime) return false;
+        final int comparison = message.getPrivateKey().compareTo(cursorKey);
+        return sortOrder == Sort.DESCENDING ? comparison >= 0 : comparison <= 0;
+    }
+
     //##############################################################################################
     // Deletion
     //##############################################################################################
@@ -443,7 +703,8 @@ public class ConversationStore {
             realm.commitTransaction();
             realm.close();
         })
-        .subscribeOn(Schedulers.from(dbThread))
+        .subscribeOn(this.dbScheduler)
+        .andThen(pruneAvatars())
         .doOnError(throwable -> handleError(throwable, "Error while deleting thread by id"));
     }
 
@@ -460,7 +721,7 @@ public class ConversationStore {
             realm.close();
         })
         .observeOn(Schedulers.immediate())
-        .subscribeOn(Schedulers.from(dbThread))
+        .subscribeOn(this.dbScheduler)
         .andThen(updateLatestMessage(receiver.getThreadId()))
         .doOnCompleted(() -> broadcastDeletedChatMessage(receiver.getThreadId(), message))
         .doOnError(throwable -> handleError(throwable, "Error while deleting message by id"));
@@ -472,49 +733,62 @@ public class ConversationStore {
 
     public Single<Conversation> muteConversation(final Conversation conversation, final boolean mute) {
         return Single.fromCallable(() -> {
-            final Realm realm = BaseApplication.get().getRealm();
-            realm.beginTransaction();
-            conversation.getConversationStatus().setMuted(mute);
-            realm.copyToRealmOrUpdate(conversation);
-            realm.commitTransaction();
-            realm.close();
+            updateConversationStatus(conversation, status -> status.setMuted(mute));
             return conversation;
         })
-        .subscribeOn(Schedulers.from(dbThread))
+        .subscribeOn(this.dbScheduler)
         .doOnError(throwable -> handleError(throwable, "Error while muting conversation"));
     }
 
     public Single<Conversation> acceptConversation(final Conversation conversation) {
         return Single.fromCallable(() -> {
-            final Realm realm = BaseApplication.get().getRealm();
-            realm.beginTransaction();
-            conversation.getConversationStatus().setAccepted(true);
-            realm.copyToRealmOrUpdate(conversation);
-            realm.commitTransaction();
-            realm.close();
+            updateConversationStatus(conversation, status -> status.setAccepted(true));
             return conversation;
         })
-        .subscribeOn(Schedulers.from(dbThread))
+        .subscribeOn(this.dbScheduler)
         .doOnError(throwable -> handleError(throwable, "Error while accepting conversation"));
     }
 
+    // Only the status row is written. Writing the conversation itself back would overwrite
+    // the stored history with whatever the (possibly partial) copy in memory holds.
+    private void updateConversationStatus(final Conversation conversation,
+                                          final Action1<ConversationStatus> update) {
+        final Realm realm = BaseApplication.get().getRealm();
+        realm.beginTransaction();
+        final Conversation storedConversation = realm
+                .where(Conversation.class)
+                .equalTo(THREAD_ID_FIELD, conversation.getThreadId())
+                .findFirst();
+        if (storedConversation != null && storedConversation.getConversationStatus() != null) {
+            update.call(storedConversation.getConversationStatus());
+        }
+        realm.commitTransaction();
+        realm.close();
+        update.call(conversation.getConversationStatus());
+    }
+
     public void resetUnreadMessageCounter(final String threadId) {
         Single.fromCallable(() -> {
-            final Conversation storedConversation = loadWhere(THREAD_ID_FIELD, threadId);
+            final Realm realm = BaseApplication.get().getRealm();
+            realm.beginTransaction();
+            final Conversation storedConversation = realm
+                    .where(Conversation.class)
+                    .equalTo(THREAD_ID_FIELD, threadId)
+                    .findFirst();
             if (storedConversation == null) {
+                realm.cancelTransaction();
+                realm.close();
                 return null;
             }
 
-            final Realm realm = BaseApplication.get().getRealm();
-            realm.beginTransaction();
             storedConversation.resetUnreadCounter();
-            realm.insertOrUpdate(storedConversation);
             realm.commitTransaction();
+            final Conversation conversationForBroadcast = Conversation.summaryOf(realm, storedConversation);
             realm.close();
-            return storedConversation;
+            return conversationForBroadcast;
         })
         .observeOn(Schedulers.immediate())
-        .subscribeOn(Schedulers.from(dbThread))
+        .subscribeOn(this.dbScheduler)
         .subscribe(
                 this::broadcastConversationChanged,
                 throwable -> handleError(throwable, "Error while resetting unread message counter")
@@ -525,14 +799,15 @@ public class ConversationStore {
     // Broadcasting changes
     //##############################################################################################
 
-    private void broadcastNewChatMessage(final String threadId, final SofaMessage newMessage) {
+    private void broadcastNewChatMessages(final String threadId, final List<SofaMessage> newMessages) {
         if (watchedThreadId == null || !watchedThreadId.equals(threadId)) {
             return;
         }
-        NEW_MESSAGE_SUBJECT.onNext(newMessage);
+        for (final SofaMessage newMessage : newMessages) NEW_MESSAGE_SUBJECT.onNext(newMessage);
     }
 
     private void broadcastUpdatedChatMessage(final String threadId, final SofaMessage updatedMessage) {
+        SofaPayloadCache.get().invalidate(updatedMessage);
         if (watchedThreadId == null || !watchedThreadId.equals(threadId)) {
             return;
         }
@@ -540,6 +815,7 @@ public class ConversationStore {
     }
 
     private void broadcastDeletedChatMessage(final String threadId, final SofaMessage deletedMessage) {
+        SofaPayloadCache.get().invalidate(deletedMessage);
         if (watchedThreadId == null || !watchedThreadId.equals(threadId)) {
             return;
         }
@@ -19,14 +19,20 @@ package com.toshi.manager.store;
 
 
 import com.toshi.crypto.HDWallet;
+import com.toshi.model.sofa.SofaAdapters;
+import com.toshi.model.sofa.SofaMessage;
+import com.toshi.model.sofa.SofaType;
+import com.toshi.util.logging.LogUtil;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
 
 import io.realm.DynamicRealm;
 import io.realm.DynamicRealmObject;
 import io.realm.FieldAttribute;
+import io.realm.RealmList;
 import io.realm.RealmMigration;
 import io.realm.RealmObjectSchema;
 import io.realm.RealmResults;
@@ -344,6 +350,81 @@ public class DbMigration implements RealmMigration {
             }
             oldVersion++;
         }
+
+        if (oldVersion == 22) {
+            final RealmObjectSchema pendingTransactionSchema = schema.get("PendingTransaction");
+            if (!pendingTransactionSchema.hasField("status")) {
+                pendingTransactionSchema
+                        .addField("status", String.class, FieldAttribute.INDEXED)
+                        .transform(obj -> obj.set("status", readPaymentStatus(obj.getObject("sofaMessage"))));
+            }
+
+            if (!pendingTransactionSchema.hasField("createdTime")) {
+                final long now = System.currentTimeMillis();
+                pendingTransactionSchema
+                        .addField("createdTime", long.class)
+                        .transform(obj -> obj.setLong("createdTime", now));
+            }
+            oldVersion++;
+        }
+
+        // Migrate to version 24:
+        // Move avatar bytes out of Realm and into the AvatarStore
+        if (oldVersion == 23) {
+            final RealmObjectSchema avatarSchema = schema.get("Avatar");
+            if (!avatarSchema.hasField("hash")) {
+                avatarSchema
+                        .addField("hash", String.class)
+                        .transform(obj -> obj.set("hash", storeAvatar(obj.getBlob("bytes"))));
+            }
+
+            if (avatarSchema.hasField("bytes")) {
+                avatarSchema.removeField("bytes");
+            }
+            oldVersion++;
+        }
+
+        // Migrate to version 25:
+        // Messages are paged by creation time, so move stored timestamp messages
+        // to just before the message they are shown above
+        if (oldVersion == 24) {
+            schema.get("Conversation")
+                    .transform(this::moveTimestampsBeforeNextMessage);
+            oldVersion++;
+        }
+    }
+
+    private void moveTimestampsBeforeNextMessage(final DynamicRealmObject conversation) {
+        final RealmList<DynamicRealmObject> messages = conversation.getList("allMessages");
+        if (messages == null) return;
+        for (int i = 0; i < messages.size() - 1; i++) {
+            final DynamicRealmObject message = messages.get(i);
+            if (message.getInt("type") != SofaType.TIMESTAMP) continue;
+            final long nextCreationTime = messages.get(i + 1).getLong("creationTime");
+            message.setLong("creationTime", nextCreationTime - 1);
+        }
+    }
+
+    private String storeAvatar(final byte[] bytes) {
+        if (bytes == null) return null;
+        try {
+            return AvatarStore.get().put(bytes);
+        } catch (final IOException ex) {
+            LogUtil.w("Unable to move avatar to the avatar store " + ex);
+            return null;
+        }
+    }
+
+    private String readPaymentStatus(final DynamicRealmObject sofaMessage) {
+        if (sofaMessage == null) return SofaType.UNCONFIRMED;
+        try {
+            final String payload = new SofaMessage()
+                    .setPayload(sofaMessage.getString("payload"))
+                    .getPayload();
+            return SofaAdapters.get().paymentFrom(payload).getStatus();
+        } catch (final IOException | RuntimeException ex) {
+            return SofaType.UNCONFIRMED;
+        }
     }
 
     @Override
@@ -0,0 +1,174 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.toshi.manager.store;
+
+import android.support.annotation.NonNull;
+
+import com.toshi.util.logging.LogUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import rx.Completable;
+import rx.Scheduler;
+import rx.Single;
+import rx.subjects.AsyncSubject;
+
+// Items are held for up to windowInMillis, or until maxBatchSize of them have queued up, and are
+// then written together. If the batch write fails, each item is retried on its own so one bad item
+// only fails its own result. flush() must always be called from the thread that does the writing.
+public class GroupCommit<T, R> {
+
+    public interface Writer<T, R> {
+        // Stores every item in one transaction, or none of them if it throws
+        void write(@NonNull List<T> items) throws Exception;
+        // Reads back one result per stored item, in the same order
+        @NonNull List<R> read(@NonNull List<T> storedItems) throws Exception;
+    }
+
+    private final Writer<T, R> writer;
+    private final int maxBatchSize;
+    private final long windowInMillis;
+    private final Scheduler flushScheduler;
+    private final List<Pending<T, R>> pendingItems = new ArrayList<>();
+    private boolean isFlushScheduled;
+
+    public GroupCommit(@NonNull final Writer<T, R> writer,
+                       final int maxBatchSize,
+                       final long windowInMillis,
+                       @NonNull final Scheduler flushScheduler) {
+        this.writer = writer;
+        this.maxBatchSize = maxBatchSize;
+        this.windowInMillis = windowInMillis;
+        this.flushScheduler = flushScheduler;
+    }
+
+    // Items are queued when this is called rather than when the Single is
+    // subscribed to, so callers get the write order they called in.
+    public Single<R> add(@NonNull final T item) {
+        final AsyncSubject<R> result = AsyncSubject.create();
+        synchronized (this.pendingItems) {
+            this.pendingItems.add(new Pending<>(item, result));
+            if (this.pendingItems.size() >= this.maxBatchSize) {
+                scheduleFlush(0);
+            } else if (!this.isFlushScheduled) {
+                scheduleFlush(this.windowInMillis);
+            }
+        }
+        return result.toSingle();
+    }
+
+    private void scheduleFlush(final long delayInMillis) {
+        this.isFlushScheduled = true;
+        Completable.timer(delayInMillis, TimeUnit.MILLISECONDS, this.flushScheduler)
+                .subscribe(
+                        this::flush,
+                        throwable -> LogUtil.exception("Error while scheduling batch", throwable)
+                );
+    }
+
+    public void flush() {
+        final List<Pending<T, R>> batch;
+        synchronized (this.pendingItems) {
+            batch = new ArrayList<>(this.pendingItems);
+            this.pendingItems.clear();
+            this.isFlushScheduled = false;
+        }
+        if (batch.isEmpty()) return;
+
+        final List<Pending<T, R>> stored = writeBatch(batch);
+        if (stored.isEmpty()) return;
+        readBack(stored);
+    }
+
+    private List<Pending<T, R>> writeBatch(final List<Pending<T, R>> batch) {
+        try {
+            this.writer.write(itemsOf(batch));
+            return batch;
+        } catch (final Exception ex) {
+            if (batch.size() == 1) {
+                batch.get(0).result.onError(ex);
+                return Collections.emptyList();
+            }
+            LogUtil.exception("Batch write failed, retrying items one at a time", ex);
+        }
+
+        final List<Pending<T, R>> stored = new ArrayList<>(batch.size());
+        for (final Pending<T, R> pending : batch) {
+            try {
+                this.writer.write(Collections.singletonList(pending.item));
+                stored.add(pending);
+            } catch (final Exception ex) {
+                pending.result.onError(ex);
+            }
+        }
+        return stored;
+    }
+
+    // The items are already stored at this point, so a failed read never fails the whole batch
+    private void readBack(final List<Pending<T, R>> stored) {
+        try {
+            complete(stored, this.writer.read(itemsOf(stored)));
+            return;
+        } catch (final Exception ex) {
+            if (stored.size() == 1) {
+                stored.get(0).result.onError(ex);
+                return;
+            }
+            LogUtil.exception("Batch read failed, reading items one at a time", ex);
+        }
+
+        for (final Pending<T, R> pending : stored) {
+            try {
+                complete(Collections.singletonList(pending), this.writer.read(Collections.singletonList(pending.item)));
+            } catch (final Exception ex) {
+                pending.result.onError(ex);
+            }
+        }
+    }
+
+    private void complete(final List<Pending<T, R>> stored, final List<R> results) {
+        if (results.size() != stored.size()) {
+            throw new IllegalStateException("Expected " + stored.size() + " results but got " + results.size());
+        }
+        for (int i = 0; i < stored.size(); i++) {
+            final AsyncSubject<R> result = stored.get(i).result;
+            result.onNext(results.get(i));
+            result.onCompleted();
+        }
+    }
+
+    private List<T> itemsOf(final List<Pending<T, R>> pendingItems) {
+        final List<T> items = new ArrayList<>(pendingItems.size());
+        for (final Pending<T, R> pending : pendingItems) items.add(pending.item);
+        return items;
+    }
+
+    private static class Pending<T, R> {
+        private final T item;
+        private final AsyncSubject<R> result;
+
+        private Pending(final T item, final AsyncSubject<R> result) {
+            this.item = item;
+            this.result = result;
+        }
+    }
+}
@@ -19,6 +19,7 @@ package com.toshi.manager.store;
 
 
 import com.toshi.model.local.PendingTransaction;
+import com.toshi.model.sofa.SofaType;
 import com.toshi.view.BaseApplication;
 
 import java.util.List;
@@ -40,8 +41,10 @@ public class PendingTransactionStore {
     }
 
     public void save(final PendingTransaction pendingTransaction) {
+        if (pendingTransaction.getStatus() == null) pendingTransaction.setStatus(SofaType.UNCONFIRMED);
         final Realm realm = BaseApplication.get().getRealm();
         realm.beginTransaction();
+        keepCreatedTime(realm, pendingTransaction);
         realm.insertOrUpdate(pendingTransaction);
         realm.commitTransaction();
         realm.close();
@@ -56,6 +59,24 @@ public class PendingTransactionStore {
         return Single.fromCallable(this::loadAll);
     }
 
+    /**
+     * Loads the transactions still waiting for confirmation. The sofa messages are left out;
+     * load a transaction by hash when its message is needed.
+     */
+    public Single<List<PendingTransaction>> loadUnconfirmedTransactions() {
+        return Single.fromCallable(this::loadUnconfirmed);
+    }
+
+    private void keepCreatedTime(final Realm realm, final PendingTransaction pendingTransaction) {
+        if (pendingTransaction.getCreatedTime() != 0) return;
+        final PendingTransaction existing = realm
+                .where(PendingTransaction.class)
+                .equalTo("txHash", pendingTransaction.getTxHash())
+                .findFirst();
+        final long createdTime = existing != null ? existing.getCreatedTime() : System.currentTimeMillis();
+        pendingTransaction.setCreatedTime(createdTime);
+    }
+
     private PendingTransaction loadSingleWhere(final String fieldName, final String value) {
         final Realm realm = BaseApplication.get().getRealm();
         final RealmQuery<PendingTransaction> query = realm
@@ -79,6 +100,16 @@ public class PendingTransactionStore {
         return allPendingTransactions;
     }
 
+    private List<PendingTransaction> loadUnconfirmed() {
+        final Realm realm = BaseApplication.get().getRealm();
+        final List<PendingTransaction> pendingTransactions = realm
+                .where(PendingTransaction.class)
+                .equalTo("status", SofaType.UNCONFIRMED)
+                .findAll();
+        final List<PendingTransaction> unconfirmedTransactions = realm.copyFromRealm(pendingTransactions, 0);
+        realm.close();
+        return unconfirmedTransactions;
+    }
 
     private void broadcastPendingTransaction(final PendingTransaction pendingTransaction) {
         this.pendingTransactionObservable.onNext(pendingTransaction);
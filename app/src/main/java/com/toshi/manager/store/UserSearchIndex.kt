@@ -0,0 +1,116 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.manager.store
+
+import com.toshi.model.local.User
+import com.toshi.model.network.user.UserType
+import java.util.TreeMap
+
+/**
+ * In-memory prefix index over the toshi id, username and display name of cached users.
+ * Kept up to date by [UserStore] whenever users are written to the database.
+ */
+class UserSearchIndex {
+
+    companion object {
+        private val TOKEN_SEPARATOR = Regex("[^\\p{L}\\p{N}]+")
+        private const val MAX_RESULTS = 50
+    }
+
+    private val usersById = HashMap<String, User>()
+    private val tokensById = HashMap<String, Set<String>>()
+    private val idsByToken = TreeMap<String, MutableSet<String>>()
+
+    @Volatile var isLoaded = false
+        private set
+
+    @Synchronized
+    fun load(users: List<User>) {
+        if (isLoaded) return
+        users.forEach { add(it) }
+        isLoaded = true
+    }
+
+    @Synchronized
+    fun addAll(users: List<User>) = users.forEach { add(it) }
+
+    @Synchronized
+    fun add(user: User) {
+        val toshiId = user.toshiId ?: return
+        remove(toshiId)
+        val tokens = tokenize(user)
+        usersById[toshiId] = user
+        tokensById[toshiId] = tokens
+        tokens.forEach { idsByToken.getOrPut(it) { HashSet() }.add(toshiId) }
+    }
+
+    private fun remove(toshiId: String) {
+        tokensById.remove(toshiId)?.forEach { token ->
+            val ids = idsByToken[token] ?: return@forEach
+            ids.remove(toshiId)
+            if (ids.isEmpty()) idsByToken.remove(token)
+        }
+        usersById.remove(toshiId)
+    }
+
+    @Synchronized
+    fun search(query: String, type: UserType): List<User> {
+        val terms = tokenize(query)
+        if (terms.isEmpty()) return emptyList()
+        val matchingIds = terms
+                .map { idsWithPrefix(it) }
+                .reduce { acc, ids -> acc.apply { retainAll(ids) } }
+        return matchingIds
+                .mapNotNull { usersById[it] }
+                .filter { it.type == type }
+                .sortedBy { it.displayName?.toLowerCase() }
+                .take(MAX_RESULTS)
+    }
+
+    private fun idsWithPrefix(prefix: String): MutableSet<String> {
+        val ids = HashSet<String>()
+        idsByToken
+                .subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+                .values
+                .forEach { ids.addAll(it) }
+        return ids
+    }
+
+    private fun tokenize(user: User): Set<String> {
+        val tokens = HashSet<String>()
+        user.toshiId?.let { tokens.add(it.toLowerCase()) }
+        tokens.addAll(tokenize(user.usernameForEditing))
+        tokens.addAll(tokenize(user.displayName))
+        return tokens
+    }
+
+    private fun tokenize(text: String?): List<String> {
+        if (text == null) return emptyList()
+        return text.toLowerCase()
+                .split(TOKEN_SEPARATOR)
+                .filter { it.isNotEmpty() }
+    }
+
+    @Synchronized
+    fun clear() {
+        usersById.clear()
+        tokensById.clear()
+        idsByToken.clear()
+        isLoaded = false
+    }
+}
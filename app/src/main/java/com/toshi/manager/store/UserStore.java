@@ -19,6 +19,7 @@ package com.toshi.manager.store;
 
 
 import com.toshi.model.local.User;
+import com.toshi.model.network.user.UserType;
 import com.toshi.view.BaseApplication;
 
 import java.util.List;
@@ -33,6 +34,7 @@ import rx.schedulers.Schedulers;
 public class UserStore {
 
     private final static ExecutorService dbThread = Executors.newSingleThreadExecutor();
+    private final static UserSearchIndex searchIndex = new UserSearchIndex();
 
     public Single<User> loadForToshiId(final String toshiId) {
         return loadWhere("owner_address", toshiId);
@@ -54,6 +56,7 @@ public class UserStore {
             realm.insertOrUpdate(users);
             realm.commitTransaction();
             realm.close();
+            searchIndex.addAll(users);
         })
         .subscribeOn(Schedulers.from(dbThread));
     }
@@ -65,10 +68,30 @@ public class UserStore {
             realm.insertOrUpdate(user);
             realm.commitTransaction();
             realm.close();
+            searchIndex.add(user);
         })
         .subscribeOn(Schedulers.from(dbThread));
     }
 
+    public Single<List<User>> search(final String query, final UserType type) {
+        return Single.fromCallable(() -> {
+            if (!searchIndex.isLoaded()) loadSearchIndex();
+            return searchIndex.search(query, type);
+        })
+        .subscribeOn(Schedulers.from(dbThread));
+    }
+
+    private void loadSearchIndex() {
+        final Realm realm = BaseApplication.get().getRealm();
+        final List<User> users = realm.copyFromRealm(realm.where(User.class).findAll());
+        realm.close();
+        searchIndex.load(users);
+    }
+
+    public void clearSearchIndex() {
+        searchIndex.clear();
+    }
+
     private Single<User> loadWhere(final String fieldName, final String value) {
         return Single.fromCallable(() -> {
             final Realm realm = BaseApplication.get().getRealm();
@@ -111,6 +111,7 @@ class IncomingTransactionManager(private val pendingTransactionStore: PendingTra
         val pendingTransaction = PendingTransaction()
                 .setTxHash(ethPaymentTask.payment.txHash)
                 .setSofaMessage(ethPaymentTask.sofaMessage)
+                .setStatus(ethPaymentTask.payment.status)
         pendingTransactionStore.save(pendingTransaction)
     }
 
@@ -0,0 +1,145 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.manager.transaction
+
+import com.toshi.manager.store.PendingTransactionStore
+import com.toshi.model.local.PendingTransaction
+import com.toshi.model.sofa.SofaType
+import com.toshi.model.sofa.payment.Payment
+import com.toshi.util.logging.LogUtil
+import rx.Observable
+import rx.Scheduler
+import rx.Single
+import rx.Subscription
+import rx.schedulers.Schedulers
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+
+/**
+ * Polls the status of unconfirmed transactions until they leave the unconfirmed state.
+ *
+ * Every tick reads the unconfirmed set from the store's status index, picks the transactions
+ * that are due and checks a small batch of them with a capped number of requests in flight.
+ * How often a transaction is due depends on its age. Anything saved with another status in the
+ * meantime, for instance a confirmation pushed to IncomingTransactionManager, drops out of the
+ * set on the next tick. Polling stops once the set is empty and starts again when a new
+ * unconfirmed transaction is saved.
+ */
+class PendingTransactionPoller(
+        private val pendingTransactionStore: PendingTransactionStore,
+        private val getTransactionStatus: (String) -> Single<Payment>,
+        private val onStatusChanged: (String, Payment) -> Unit,
+        private val scheduler: Scheduler = Schedulers.io(),
+        private val clock: () -> Long = { System.currentTimeMillis() }
+) {
+
+    companion object {
+        private const val TICK_SECONDS = 15L
+        private const val BATCH_SIZE = 10
+        private const val MAX_CONCURRENT_REQUESTS = 2
+    }
+
+    private val lastPolledTimes = ConcurrentHashMap<String, Long>()
+    private var pollSubscription: Subscription? = null
+    private var wakeSubscription: Subscription? = null
+
+    @Synchronized
+    fun start() {
+        wakeSubscription?.unsubscribe()
+        wakeSubscription = pendingTransactionStore
+                .pendingTransactionObservable
+                .filter { it.status == SofaType.UNCONFIRMED }
+                .subscribe(
+                        { restartPolling() },
+                        { LogUtil.exception("Error while listening for pending transactions $it") }
+                )
+        restartPolling()
+    }
+
+    @Synchronized
+    fun stop() {
+        wakeSubscription?.unsubscribe()
+        pollSubscription?.unsubscribe()
+        lastPolledTimes.clear()
+    }
+
+    // Restarting polls straight away, but per transaction backoff still decides what gets requested
+    @Synchronized
+    private fun restartPolling() {
+        pollSubscription?.unsubscribe()
+        pollSubscription = Observable
+                .interval(0, TICK_SECONDS, TimeUnit.SECONDS, scheduler)
+                .onBackpressureDrop()
+                .concatMap { pollDueTransactions().toObservable() }
+                .takeUntil { remaining -> remaining == 0 }
+                .subscribe(
+                        {},
+                        { LogUtil.exception("Error while polling pending transactions $it") }
+                )
+    }
+
+    /**
+     * @return the number of transactions that were unconfirmed at the start of the tick
+     */
+    private fun pollDueTransactions(): Single<Int> {
+        return pendingTransactionStore
+                .loadUnconfirmedTransactions()
+                .flatMap { unconfirmed ->
+                    val now = clock()
+                    lastPolledTimes.keys.retainAll(unconfirmed.map { it.txHash })
+                    val due = unconfirmed
+                            .filter { isDue(it, now) }
+                            .sortedBy { lastPolledTimes[it.txHash] ?: 0L }
+                            .take(BATCH_SIZE)
+                    due.forEach { lastPolledTimes[it.txHash] = now }
+
+                    Observable.from(due)
+                            .flatMap({ fetchStatus(it.txHash) }, MAX_CONCURRENT_REQUESTS)
+                            .toCompletable()
+                            .toSingle { unconfirmed.size }
+                }
+    }
+
+    private fun fetchStatus(txHash: String): Observable<Payment> {
+        return getTransactionStatus(txHash)
+                .toObservable()
+                .filter { it != null && it.status != SofaType.UNCONFIRMED }
+                .doOnNext { onStatusChanged(txHash, it) }
+                .onErrorResumeNext {
+                    LogUtil.exception("Error while getting transaction status $it")
+                    Observable.empty()
+                }
+    }
+
+    private fun isDue(pendingTransaction: PendingTransaction, now: Long): Boolean {
+        val lastPolled = lastPolledTimes[pendingTransaction.txHash] ?: return true
+        val age = now - pendingTransaction.createdTime
+        return now - lastPolled >= pollIntervalForAge(age)
+    }
+
+    // Most transactions are mined within a few minutes; the longer one stays pending the less
+    // likely the next check is to find it changed.
+    private fun pollIntervalForAge(ageMillis: Long): Long {
+        return when {
+            ageMillis < TimeUnit.MINUTES.toMillis(2) -> TimeUnit.SECONDS.toMillis(15)
+            ageMillis < TimeUnit.MINUTES.toMillis(15) -> TimeUnit.MINUTES.toMillis(1)
+            ageMillis < TimeUnit.HOURS.toMillis(1) -> TimeUnit.MINUTES.toMillis(5)
+            else -> TimeUnit.MINUTES.toMillis(30)
+        }
+    }
+}
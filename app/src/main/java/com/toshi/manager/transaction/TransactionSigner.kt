@@ -22,6 +22,7 @@ import com.toshi.crypto.HDWallet
 import com.toshi.extensions.getTimeoutSingle
 import com.toshi.manager.model.W3PaymentTask
 import com.toshi.manager.network.EthereumServiceInterface
+import com.toshi.manager.network.ServerClock
 import com.toshi.model.network.SentTransaction
 import com.toshi.model.network.ServerTime
 import com.toshi.model.network.SignedTransaction
@@ -76,5 +77,5 @@ class TransactionSigner(
                 .sendSignedTransaction(timestamp, signedTransaction)
     }
 
-    private fun getServerTime() = ethereumService.get().timestamp
+    private fun getServerTime() = ServerClock.getServerTime(ethereumService.getCurrentBaseUrl(), ethereumService.get().timestamp)
 }
\ No newline at end of file
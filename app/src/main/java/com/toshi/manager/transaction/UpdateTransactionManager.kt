@@ -17,7 +17,6 @@
 
 package com.toshi.manager.transaction
 
-import android.util.Pair
 import com.toshi.exception.UnknownTransactionException
 import com.toshi.manager.store.PendingTransactionStore
 import com.toshi.model.local.PendingTransaction
@@ -26,11 +25,9 @@ import com.toshi.model.local.User
 import com.toshi.model.sofa.PaymentRequest
 import com.toshi.model.sofa.SofaAdapters
 import com.toshi.model.sofa.SofaMessage
-import com.toshi.model.sofa.SofaType
 import com.toshi.model.sofa.payment.Payment
 import com.toshi.util.logging.LogUtil
 import com.toshi.view.BaseApplication
-import rx.Observable
 import rx.Subscription
 import rx.schedulers.Schedulers
 import rx.subjects.PublishSubject
@@ -43,6 +40,13 @@ class UpdateTransactionManager(private val pendingTransactionStore: PendingTrans
     private val balanceManager by lazy { BaseApplication.get().balanceManager }
     private val updatePaymentQueue by lazy { PublishSubject.create<Payment>() }
     private val subscriptions by lazy { CompositeSubscription() }
+    private val pendingTransactionPoller by lazy {
+        PendingTransactionPoller(
+                pendingTransactionStore,
+                { balanceManager.getTransactionStatus(it) },
+                { txHash, payment -> processUpdatedPayment(txHash, payment) }
+        )
+    }
     private var updatePaymentSub: Subscription? = null
 
     fun attachUpdatePaymentSubscriber() {
@@ -52,16 +56,16 @@ class UpdateTransactionManager(private val pendingTransactionStore: PendingTrans
                 .filter { it != null }
                 .subscribeOn(Schedulers.io())
                 .subscribe(
-                        { processUpdatedPayment(it) },
+                        { processUpdatedPayment(it.txHash, it) },
                         { LogUtil.exception("Error when updating payment $it") }
                 )
 
         subscriptions.add(updatePaymentSub)
     }
 
-    private fun processUpdatedPayment(payment: Payment) {
+    private fun processUpdatedPayment(txHash: String, payment: Payment) {
         val sub = pendingTransactionStore
-                .loadTransaction(payment.txHash)
+                .loadTransaction(txHash)
                 .subscribeOn(Schedulers.io())
                 .subscribe(
                         { updatePendingTransaction(it, payment) },
@@ -71,34 +75,7 @@ class UpdateTransactionManager(private val pendingTransactionStore: PendingTrans
         subscriptions.add(sub)
     }
 
-    fun updatePendingTransactions() {
-        val sub = pendingTransactionStore
-                .loadAllTransactions()
-                .toObservable()
-                .flatMapIterable { it }
-                .filter { isUnconfirmed(it) }
-                .flatMap {
-                    Observable.zip(
-                            Observable.just(it),
-                            getTransactionStatus(it),
-                            { first, second -> Pair(first, second) }
-                    )
-                }
-                .onErrorReturn { Pair(null, null) }
-                .subscribeOn(Schedulers.io())
-                .subscribe(
-                        { updatePendingTransaction(it.first, it.second) },
-                        { LogUtil.exception("Error during updating pending transaction $it") }
-                )
-
-        subscriptions.add(sub)
-    }
-
-    private fun getTransactionStatus(pendingTransaction: PendingTransaction): Observable<Payment> {
-        return balanceManager
-                .getTransactionStatus(pendingTransaction.txHash)
-                .toObservable()
-    }
+    fun updatePendingTransactions() = pendingTransactionPoller.start()
 
     // Returns false if this is a new transaction that the app is unaware of.
     // Returns true if the transaction was correctly updated.
@@ -109,6 +86,7 @@ class UpdateTransactionManager(private val pendingTransactionStore: PendingTrans
             val updatedPendingTransaction = PendingTransaction()
                     .setTxHash(pendingTransaction.txHash)
                     .setSofaMessage(updatedMessage)
+                    .setStatus(updatedPayment.status)
             pendingTransactionStore.save(updatedPendingTransaction)
             true
         } catch (ex: IOException) {
@@ -126,16 +104,6 @@ class UpdateTransactionManager(private val pendingTransactionStore: PendingTrans
         return sofaMessage.setPayload(messageBody)
     }
 
-    private fun isUnconfirmed(pendingTransaction: PendingTransaction): Boolean {
-        return try {
-            val sofaMessage = pendingTransaction.sofaMessage
-            val payment = SofaAdapters.get().paymentFrom(sofaMessage.payload)
-            payment.status == SofaType.UNCONFIRMED
-        } catch (ex: IOException) {
-            false
-        }
-    }
-
     fun updatePaymentRequestState(remoteUser: User, sofaMessage: SofaMessage, @PaymentRequest.State newState: Int) {
         try {
             val paymentRequest = SofaAdapters.get()
@@ -152,4 +120,5 @@ class UpdateTransactionManager(private val pendingTransactionStore: PendingTrans
 
     fun updatePayment(payment: Payment) = updatePaymentQueue.onNext(payment)
     fun clearSubscription() = updatePaymentSub?.unsubscribe()
+    fun stopPolling() = pendingTransactionPoller.stop()
 }
\ No newline at end of file
@@ -19,43 +19,50 @@ package com.toshi.model.local;
 
 
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.support.annotation.Nullable;
 
+import com.toshi.manager.store.AvatarStore;
 import com.toshi.util.FileUtil;
-import com.toshi.util.ImageUtil;
 import com.toshi.util.logging.LogUtil;
 
 import org.spongycastle.util.encoders.Hex;
 import org.whispersystems.signalservice.api.SignalServiceMessageReceiver;
 import org.whispersystems.signalservice.api.messages.SignalServiceAttachment;
 import org.whispersystems.signalservice.api.messages.SignalServiceAttachmentPointer;
-import org.whispersystems.signalservice.api.messages.SignalServiceAttachmentStream;
 import org.whispersystems.signalservice.api.messages.SignalServiceGroup;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 
 import io.realm.RealmObject;
-import io.realm.annotations.Ignore;
 import rx.Single;
 
+/**
+ * Reference to a group avatar in the {@link AvatarStore}. Only the content hash lives in Realm.
+ */
 public class Avatar extends RealmObject {
-    private byte[] bytes;
-
-    @Ignore
-    private SignalServiceAttachmentStream attachmentStream;
+    private String hash;
 
     public Avatar() {}
 
     /* package */ Avatar(final Bitmap avatar) {
+        if (avatar == null) {
+            LogUtil.w("Avatar not initialised. avatar is null");
+            return;
+        }
+
         try {
-            init(avatar);
-        } catch (final NullPointerException | FileNotFoundException | IllegalStateException ex) {
+            this.hash = AvatarStore.get().put(avatar);
+        } catch (final IOException ex) {
             LogUtil.w("Avatar not initialised. " + ex);
         }
     }
 
+    private Avatar(final String hash) {
+        this.hash = hash;
+    }
+
     public static Single<Avatar> processFromSignalGroup(final SignalServiceGroup group, final SignalServiceMessageReceiver messageReceiver) {
         if (group.getAvatar().isPresent()) {
             return Single.fromCallable(() -> {
@@ -64,9 +71,7 @@ public class Avatar extends RealmObject {
                 return FileUtil.writeAvatarToFileFromMessageReceiver(attachment, messageReceiver, groupId);
             })
             .flatMap(Avatar::compressImage)
-            .map(File::getAbsolutePath)
-            .map(BitmapFactory::decodeFile)
-            .map(Avatar::new);
+            .flatMap(Avatar::storeAndDelete);
         }
 
         return Single.just(new Avatar());
@@ -74,26 +79,43 @@ public class Avatar extends RealmObject {
 
     private static Single<File> compressImage(@Nullable final File file) {
         if (file == null) return Single.error(new Throwable("File is null when trying to compress it"));
-        return FileUtil.compressImage(FileUtil.MAX_SIZE, file);
+        return FileUtil.compressAvatar(file);
     }
 
-    private void init(final Bitmap avatar) throws FileNotFoundException, IllegalStateException {
-        if (avatar == null) throw new NullPointerException("avatar is null");
-        this.bytes = ImageUtil.toByteArray(avatar);
-        generateAttachmentStream();
+    // The downloaded file is only needed until its bytes are in the store
+    private static Single<Avatar> storeAndDelete(final File file) {
+        return Single.fromCallable(() -> {
+            try {
+                return new Avatar(AvatarStore.get().put(file));
+            } finally {
+                file.delete();
+            }
+        });
     }
 
-    public byte[] getBytes() {
-        return bytes;
+    public @Nullable String getHash() {
+        return this.hash;
     }
 
-    public SignalServiceAttachment getStream() {
-        if (this.attachmentStream == null) generateAttachmentStream();
-        return this.attachmentStream;
+    public boolean isStored() {
+        return this.hash != null && AvatarStore.get().contains(this.hash);
     }
 
-    private void generateAttachmentStream() {
-        if (this.bytes == null) return;
-        this.attachmentStream = FileUtil.buildSignalServiceAttachment(this.bytes);
+    public @Nullable File getFile() {
+        return this.hash == null ? null : AvatarStore.get().fileFor(this.hash);
+    }
+
+    public @Nullable File getThumbnailFile() {
+        return this.hash == null ? null : AvatarStore.get().thumbnailFileFor(this.hash);
+    }
+
+    public @Nullable SignalServiceAttachment getStream() {
+        if (!isStored()) return null;
+        try {
+            return FileUtil.buildSignalServiceAttachment(getFile());
+        } catch (final FileNotFoundException ex) {
+            LogUtil.w("Avatar file missing. " + ex);
+            return null;
+        }
     }
 }
@@ -25,8 +25,10 @@ import com.toshi.model.sofa.SofaMessage;
 
 import java.util.List;
 
+import io.realm.Realm;
 import io.realm.RealmList;
 import io.realm.RealmObject;
+import io.realm.RealmQuery;
 import io.realm.annotations.PrimaryKey;
 
 public class Conversation extends RealmObject implements ConversationItem {
@@ -95,7 +97,13 @@ public class Conversation extends RealmObject implements ConversationItem {
     }
 
     private boolean isDuplicateMessage(final SofaMessage message) {
-        return this.allMessages != null && this.allMessages.contains(message);
+        if (this.allMessages == null) return false;
+        if (!isManaged()) return this.allMessages.contains(message);
+        // Let Realm do the lookup so a managed conversation doesn't iterate its whole history
+        return this.allMessages
+                .where()
+                .equalTo("privateKey", message.getPrivateKey())
+                .count() > 0;
     }
 
     public void addMessage(final SofaMessage latestMessage) {
@@ -110,6 +118,11 @@ public class Conversation extends RealmObject implements ConversationItem {
         return allMessages;
     }
 
+    // Only valid on a managed conversation
+    public RealmQuery<SofaMessage> queryMessages() {
+        return this.allMessages.where();
+    }
+
     public int getNumberOfUnread() {
         return numberOfUnread;
     }
@@ -118,6 +131,23 @@ public class Conversation extends RealmObject implements ConversationItem {
         this.numberOfUnread = 0;
     }
 
+    // Creates an unmanaged copy of the header fields of a managed conversation.
+    // The message history is left out, so allMessages will be null on the copy.
+    public static Conversation summaryOf(final Realm realm, final Conversation storedConversation) {
+        final Conversation summary = new Conversation();
+        summary.threadId = storedConversation.getThreadId();
+        summary.updatedTime = storedConversation.getUpdatedTime();
+        summary.numberOfUnread = storedConversation.getNumberOfUnread();
+        summary.recipient = copyOrNull(realm, storedConversation.getRecipient());
+        summary.latestMessage = copyOrNull(realm, storedConversation.getLatestMessage());
+        summary.conversationStatus = copyOrNull(realm, storedConversation.getConversationStatus());
+        return summary;
+    }
+
+    private static <T extends RealmObject> T copyOrNull(final Realm realm, final T storedObject) {
+        return storedObject == null ? null : realm.copyFromRealm(storedObject);
+    }
+
     // Helper functions
     public final boolean isGroup() {
         return this.recipient.isGroup();
@@ -152,7 +152,7 @@ public class Group extends RealmObject {
     }
 
     /* package */ boolean hasAvatar() {
-        return this.avatar != null && this.avatar.getBytes() != null;
+        return this.avatar != null && this.avatar.getHash() != null;
     }
 
     public static Single<Group> fromSignalGroup(final SignalServiceGroup signalGroup) {
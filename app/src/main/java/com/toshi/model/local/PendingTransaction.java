@@ -21,6 +21,7 @@ package com.toshi.model.local;
 import com.toshi.model.sofa.SofaMessage;
 
 import io.realm.RealmObject;
+import io.realm.annotations.Index;
 import io.realm.annotations.PrimaryKey;
 
 public class PendingTransaction extends RealmObject {
@@ -28,6 +29,10 @@ public class PendingTransaction extends RealmObject {
     @PrimaryKey
     private String txHash;
     private SofaMessage sofaMessage;
+    // Mirrors the payment status in the payload so unconfirmed transactions can be queried without parsing it
+    @Index
+    private String status;
+    private long createdTime;
 
     public PendingTransaction() {}
 
@@ -49,6 +54,24 @@ public class PendingTransaction extends RealmObject {
         return this;
     }
 
+    public String getStatus() {
+        return status;
+    }
+
+    public PendingTransaction setStatus(final String status) {
+        this.status = status;
+        return this;
+    }
+
+    public long getCreatedTime() {
+        return createdTime;
+    }
+
+    public PendingTransaction setCreatedTime(final long createdTime) {
+        this.createdTime = createdTime;
+        return this;
+    }
+
     public void cascadeDelete() {
         if (this.sofaMessage != null) this.sofaMessage.cascadeDelete();
         deleteFromRealm();
@@ -26,7 +26,7 @@ public class ExchangeRate {
     private BigDecimal rate;
     private Integer timestamp;
 
-    // For tests only
+    // Rates normally come from the currency api, this is used when restoring a persisted rate
     public ExchangeRate(final String from, final String to, final BigDecimal rate, final Integer timestamp) {
         this.from = from;
         this.to = to;
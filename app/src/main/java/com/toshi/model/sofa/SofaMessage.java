@@ -179,7 +179,7 @@ public class SofaMessage extends RealmObject {
                 .setPayload(sofaPayload);
     }
 
-    public SofaMessage makeNewTimeStampMessage() {
+    private SofaMessage makeNewTimeStampMessage() {
         final String sofaHeader = SofaType.createHeader(SofaType.TIMESTAMP);
         final @SofaType.Type int sofaType = SofaType.getType(sofaHeader);
 
@@ -187,6 +187,13 @@ public class SofaMessage extends RealmObject {
                 .setPayload("");
     }
 
+    // Messages are ordered by creation time when paged, so the timestamp
+    // must sort before the message it's shown above.
+    public SofaMessage makeNewTimeStampMessage(final SofaMessage nextMessage) {
+        this.creationTime = nextMessage.getCreationTime() - 1;
+        return makeNewTimeStampMessage();
+    }
+
     public SofaMessage makeNewLocalStatusMessage(final String sofaPayload) {
         return setType(SofaType.LOCAL_STATUS_MESSAGE)
                 .setPayload(sofaPayload);
@@ -0,0 +1,164 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.model.sofa;
+
+
+import com.toshi.model.local.LocalStatusMessage;
+import com.toshi.model.sofa.payment.Payment;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of parsed SOFA payloads, keyed by {@link SofaMessage#getPrivateKey()}.
+ * An entry is only returned if it was parsed from the exact payload the message holds now,
+ * so an edited message is simply re-parsed.
+ *
+ * The returned models are shared and must not be changed. Callers that need to change one
+ * parse their own copy through {@link SofaAdapters}, and can hand it over with {@link #put}
+ * once they are done with it.
+ */
+public class SofaPayloadCache {
+
+    private static final int MAX_SIZE = 300;
+    private static final SofaPayloadCache instance = new SofaPayloadCache(MAX_SIZE);
+
+    private final Map<String, Entry> cache;
+
+    public static SofaPayloadCache get() {
+        return instance;
+    }
+
+    /* package */ SofaPayloadCache(final int maxSize) {
+        this.cache = new LinkedHashMap<String, Entry>(maxSize, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public Message messageFrom(final SofaMessage sofaMessage) throws IOException {
+        return get(sofaMessage, Message.class, SofaAdapters.get()::messageFrom);
+    }
+
+    public Payment paymentFrom(final SofaMessage sofaMessage) throws IOException {
+        return get(sofaMessage, Payment.class, SofaAdapters.get()::paymentFrom);
+    }
+
+    public PaymentRequest txRequestFrom(final SofaMessage sofaMessage) throws IOException {
+        return get(sofaMessage, PaymentRequest.class, SofaAdapters.get()::txRequestFrom);
+    }
+
+    public LocalStatusMessage localStatusMessageFrom(final SofaMessage sofaMessage) throws IOException {
+        return get(sofaMessage, LocalStatusMessage.class, SofaAdapters.get()::localStatusMessageRequestFrom);
+    }
+
+    // Parses anything that isn't cached yet, so that rendering doesn't have to.
+    public void warm(final Collection<SofaMessage> sofaMessages) {
+        for (final SofaMessage sofaMessage : sofaMessages) {
+            try {
+                warm(sofaMessage);
+            } catch (final IOException ex) {
+                // The renderer logs unparseable messages; nothing to cache here.
+            }
+        }
+    }
+
+    private void warm(final SofaMessage sofaMessage) throws IOException {
+        switch (sofaMessage.getType()) {
+            case SofaType.PLAIN_TEXT:
+            case SofaType.COMMAND_REQUEST:
+                messageFrom(sofaMessage);
+                break;
+            case SofaType.PAYMENT:
+                paymentFrom(sofaMessage);
+                break;
+            case SofaType.PAYMENT_REQUEST:
+                txRequestFrom(sofaMessage);
+                break;
+            case SofaType.LOCAL_STATUS_MESSAGE:
+                localStatusMessageFrom(sofaMessage);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Caches a model that has just been serialised into the message's payload.
+    public void put(final SofaMessage sofaMessage, final Object model) {
+        if (sofaMessage.getPayloadWithHeaders() == null || model == null) return;
+        synchronized (this.cache) {
+            this.cache.put(sofaMessage.getPrivateKey(), new Entry(sofaMessage.getPayloadWithHeaders(), model));
+        }
+    }
+
+    public void invalidate(final SofaMessage sofaMessage) {
+        if (sofaMessage == null) return;
+        synchronized (this.cache) {
+            this.cache.remove(sofaMessage.getPrivateKey());
+        }
+    }
+
+    public void clear() {
+        synchronized (this.cache) {
+            this.cache.clear();
+        }
+    }
+
+    private <T> T get(final SofaMessage sofaMessage,
+                      final Class<T> type,
+                      final PayloadParser<T> parser) throws IOException {
+        final String key = sofaMessage.getPrivateKey();
+        // The raw payload is the version; comparing it avoids stripping the header on every hit.
+        final String payload = sofaMessage.getPayloadWithHeaders();
+        if (payload == null) return null;
+        synchronized (this.cache) {
+            final Entry entry = this.cache.get(key);
+            if (entry != null && entry.isFor(payload, type)) return type.cast(entry.model);
+        }
+
+        // Parse outside the lock; two threads parsing the same payload is harmless.
+        final T model = parser.parse(sofaMessage.getPayload());
+        if (model == null) return null;
+        synchronized (this.cache) {
+            this.cache.put(key, new Entry(payload, model));
+        }
+        return model;
+    }
+
+    private interface PayloadParser<T> {
+        T parse(final String payload) throws IOException;
+    }
+
+    private static class Entry {
+        private final String payload;
+        private final Object model;
+
+        private Entry(final String payload, final Object model) {
+            this.payload = payload;
+            this.model = model;
+        }
+
+        private boolean isFor(final String payload, final Class<?> type) {
+            return this.payload.equals(payload) && type.isInstance(this.model);
+        }
+    }
+}
@@ -135,14 +135,14 @@ public class ImageCropPresenter implements Presenter<ImageCropActivity> {
             return;
         }
 
-        uploadAvatar(new File(bitmapUri.getPath()));
+        compressAndUploadAvatar(new File(bitmapUri.getPath()));
     }
 
     //If the image is from the gallery, no file will exist. So we need to create one
     private void uploadUncroppedImage() {
         final File file = new File(this.imageUri.getPath());
         if (file.exists()) {
-            uploadAvatar(file);
+            compressAndUploadAvatar(file);
         } else {
             createNewFileAndUploadAvatar(this.imageUri);
         }
@@ -151,7 +151,20 @@ public class ImageCropPresenter implements Presenter<ImageCropActivity> {
     private void createNewFileAndUploadAvatar(final Uri uri) {
         final Subscription sub =
                 FileUtil.saveFileFromUri(this.activity, uri)
-                .flatMap(file -> FileUtil.compressImage(FileUtil.MAX_SIZE, file))
+                .flatMap(FileUtil::compressAvatar)
+                .subscribe(
+                        this::uploadAvatar,
+                        __ -> handleUploadError()
+                );
+
+        this.subscriptions.add(sub);
+    }
+
+    // Cheap for cropped images that already fit, but camera photos can be several megabytes
+    private void compressAndUploadAvatar(final File file) {
+        final Subscription sub =
+                FileUtil.compressAvatar(file)
+                .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(
                         this::uploadAvatar,
                         __ -> handleUploadError()
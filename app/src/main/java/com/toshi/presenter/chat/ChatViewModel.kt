@@ -54,10 +54,12 @@ class ChatViewModel(private val threadId: String) : ViewModel() {
     private val toshiManager by lazy { BaseApplication.get().toshiManager }
     private val chatManager by lazy { BaseApplication.get().chatManager }
     private val chatMessageQueue by lazy { ChatMessageQueue(AsyncOutgoingMessageQueue()) }
+    private val messageSource by lazy { PagedMessageSource(threadId, chatManager) }
 
     var capturedImageName: String? = null
     val recipient by lazy { MutableLiveData<Recipient>() }
     val conversation by lazy { SingleLiveEvent<Conversation>() }
+    val messagePage by lazy { SingleLiveEvent<MessagePage>() }
     val recipientError by lazy { SingleLiveEvent<Int>() }
     val confirmPayment by lazy { SingleLiveEvent<ConfirmPaymentInfo>() }
     val resendPayment by lazy { SingleLiveEvent<ResendPaymentInfo>() }
@@ -138,6 +140,7 @@ class ChatViewModel(private val threadId: String) : ViewModel() {
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .map { it.sofaMessage }
+                .filter { messageSource.updateMessage(it) }
                 .subscribe(
                         { updateMessage.value = it },
                         { LogUtil.exception(it) }
@@ -154,6 +157,7 @@ class ChatViewModel(private val threadId: String) : ViewModel() {
                 .newMessageSubject
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
+                .filter { messageSource.addNewMessage(it) }
                 .subscribe(
                         { newMessage.value = it },
                         { LogUtil.exception(it) }
@@ -163,6 +167,7 @@ class ChatViewModel(private val threadId: String) : ViewModel() {
                 .updateMessageSubject
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
+                .filter { messageSource.updateMessage(it) }
                 .subscribe(
                         { updateMessage.value = it },
                         { LogUtil.exception(it) }
@@ -183,6 +188,7 @@ class ChatViewModel(private val threadId: String) : ViewModel() {
                 .registerForDeletedMessages(recipient.threadId)
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
+                .doOnNext { messageSource.removeMessage(it) }
                 .subscribe(
                         { deleteMessage.value = it },
                         { LogUtil.exception(it) }
@@ -210,8 +216,44 @@ class ChatViewModel(private val threadId: String) : ViewModel() {
 
     private fun handleConversation(conversation: Conversation) {
         this.conversation.value = conversation
-        val isConversationEmpty = conversation.allMessages?.isEmpty() ?: true
+        val isConversationEmpty = conversation.latestMessage == null
         if (isConversationEmpty) tryInitAppConversation(conversation.recipient)
+        loadInitialMessages(conversation.numberOfUnread)
+    }
+
+    private fun loadInitialMessages(numberOfUnread: Int) {
+        val sub = messageSource
+                .loadInitial(numberOfUnread + 1)
+                .subscribe(
+                        { messagePage.value = it },
+                        { LogUtil.exception("Error while loading messages $it") }
+                )
+
+        subscriptions.add(sub)
+    }
+
+    fun loadOlderMessages() {
+        if (!messageSource.canLoadOlder()) return
+        val sub = messageSource
+                .loadOlder()
+                .subscribe(
+                        { messagePage.value = it },
+                        { LogUtil.exception("Error while loading older messages $it") }
+                )
+
+        subscriptions.add(sub)
+    }
+
+    fun loadNewerMessages() {
+        if (!messageSource.canLoadNewer()) return
+        val sub = messageSource
+                .loadNewer()
+                .subscribe(
+                        { messagePage.value = it },
+                        { LogUtil.exception("Error while loading newer messages $it") }
+                )
+
+        subscriptions.add(sub)
     }
 
     private fun tryInitAppConversation(recipient: Recipient) {
@@ -0,0 +1,172 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.presenter.chat
+
+import com.toshi.manager.ChatManager
+import com.toshi.model.sofa.SofaMessage
+import com.toshi.model.sofa.SofaPayloadCache
+import com.toshi.viewModel.LoadingState
+import rx.Scheduler
+import rx.Single
+import rx.android.schedulers.AndroidSchedulers
+import rx.schedulers.Schedulers
+
+/**
+ * Keeps a bounded window of messages from a single thread in memory.
+ * The window starts with the newest messages, grows one page at a time in either direction
+ * and drops messages from the opposite end once it exceeds [maxWindowSize].
+ * All state is read and mutated on the main thread.
+ *
+ * Paging is driven by cursors on the oldest and newest message fetched so far, not by the
+ * window, since pages can contain messages that are never shown.
+ */
+class PagedMessageSource(
+        private val threadId: String,
+        private val chatManager: ChatManager,
+        private val pageSize: Int = PAGE_SIZE,
+        private val maxWindowSize: Int = MAX_WINDOW_SIZE,
+        private val parseScheduler: Scheduler = Schedulers.computation(),
+        private val mainScheduler: Scheduler = AndroidSchedulers.mainThread()
+) {
+
+    companion object {
+        private const val PAGE_SIZE = 30
+        private const val MAX_WINDOW_SIZE = PAGE_SIZE * 4
+    }
+
+    private data class Cursor(val creationTime: Long, val privateKey: String) {
+        constructor(message: SofaMessage) : this(message.creationTime, message.privateKey)
+    }
+
+    private val window = mutableListOf<SofaMessage>()
+    private var oldestCursor: Cursor? = null
+    private var newestCursor: Cursor? = null
+
+    var loadingState = LoadingState.NOT_LOADING
+        private set
+    var hasOlderMessages = true
+        private set
+    // True when the newest messages have been evicted, i.e. the window no longer ends at the head of the thread
+    var hasNewerMessages = false
+        private set
+
+    fun canLoadOlder() = loadingState == LoadingState.NOT_LOADING && hasOlderMessages && oldestCursor != null
+
+    fun canLoadNewer() = loadingState == LoadingState.NOT_LOADING && hasNewerMessages && newestCursor != null
+
+    fun loadInitial(minimumSize: Int): Single<MessagePage> {
+        val limit = Math.min(Math.max(pageSize, minimumSize), maxWindowSize)
+        return warmPayloadCache(chatManager.loadLatestMessages(threadId, limit))
+                .doOnSubscribe { loadingState = LoadingState.LOADING }
+                .doAfterTerminate { loadingState = LoadingState.NOT_LOADING }
+                .map { handleInitialPage(it, limit) }
+    }
+
+    // Parses the page off the main thread so binding the rows is a cache lookup
+    private fun warmPayloadCache(page: Single<List<SofaMessage>>): Single<List<SofaMessage>> {
+        return page
+                .observeOn(parseScheduler)
+                .doOnSuccess { SofaPayloadCache.get().warm(it) }
+                .observeOn(mainScheduler)
+    }
+
+    private fun handleInitialPage(messages: List<SofaMessage>, limit: Int): MessagePage {
+        hasOlderMessages = messages.size >= limit
+        hasNewerMessages = false
+        oldestCursor = messages.firstOrNull()?.let { Cursor(it) }
+        newestCursor = messages.lastOrNull()?.let { Cursor(it) }
+        val visibleMessages = messages.filter { it.isUserVisible }
+        window.clear()
+        window.addAll(visibleMessages)
+        return MessagePage(visibleMessages, PageType.INITIAL, 0)
+    }
+
+    fun loadOlder(): Single<MessagePage> {
+        val cursor = oldestCursor ?: return Single.error(IllegalStateException("Nothing loaded yet"))
+        return warmPayloadCache(chatManager.loadMessagesBefore(threadId, cursor.creationTime, cursor.privateKey, pageSize))
+                .doOnSubscribe { loadingState = LoadingState.LOADING }
+                .doAfterTerminate { loadingState = LoadingState.NOT_LOADING }
+                .map { handleOlderPage(it) }
+    }
+
+    private fun handleOlderPage(messages: List<SofaMessage>): MessagePage {
+        hasOlderMessages = messages.size >= pageSize
+        messages.firstOrNull()?.let { oldestCursor = Cursor(it) }
+        val newMessages = getNewVisibleMessages(messages)
+        window.addAll(0, newMessages)
+        val evictedCount = Math.max(window.size - maxWindowSize, 0)
+        if (evictedCount > 0) {
+            window.subList(window.size - evictedCount, window.size).clear()
+            newestCursor = Cursor(window.last())
+            hasNewerMessages = true
+        }
+        return MessagePage(newMessages, PageType.OLDER, evictedCount)
+    }
+
+    fun loadNewer(): Single<MessagePage> {
+        val cursor = newestCursor ?: return Single.error(IllegalStateException("Nothing loaded yet"))
+        return warmPayloadCache(chatManager.loadMessagesAfter(threadId, cursor.creationTime, cursor.privateKey, pageSize))
+                .doOnSubscribe { loadingState = LoadingState.LOADING }
+                .doAfterTerminate { loadingState = LoadingState.NOT_LOADING }
+                .map { handleNewerPage(it) }
+    }
+
+    private fun handleNewerPage(messages: List<SofaMessage>): MessagePage {
+        hasNewerMessages = messages.size >= pageSize
+        messages.lastOrNull()?.let { newestCursor = Cursor(it) }
+        val newMessages = getNewVisibleMessages(messages)
+        window.addAll(newMessages)
+        val evictedCount = Math.max(window.size - maxWindowSize, 0)
+        if (evictedCount > 0) {
+            window.subList(0, evictedCount).clear()
+            oldestCursor = Cursor(window.first())
+            hasOlderMessages = true
+        }
+        return MessagePage(newMessages, PageType.NEWER, evictedCount)
+    }
+
+    // New messages can arrive while a page loads, so anything already in the window is dropped
+    private fun getNewVisibleMessages(messages: List<SofaMessage>): List<SofaMessage> {
+        return messages.filter { it.isUserVisible && !window.contains(it) }
+    }
+
+    // Returns true if the new message belongs in the window. Messages arriving while the
+    // newest page is evicted are skipped; they'll be read when paging back down.
+    fun addNewMessage(message: SofaMessage): Boolean {
+        if (!message.isUserVisible || hasNewerMessages) return false
+        val position = window.indexOf(message)
+        if (position == -1) window.add(message)
+        else window[position] = message
+        return true
+    }
+
+    // Returns true if the updated message is in the window, or is newer than anything in it
+    fun updateMessage(message: SofaMessage): Boolean {
+        if (!message.isUserVisible) return false
+        val position = window.indexOf(message)
+        if (position != -1) {
+            window[position] = message
+            return true
+        }
+        val isOlderThanWindow = window.isNotEmpty() && message.creationTime < window.first().creationTime
+        return if (isOlderThanWindow && hasOlderMessages) false
+        else addNewMessage(message)
+    }
+
+    fun removeMessage(message: SofaMessage) = window.remove(message)
+}
@@ -46,27 +46,34 @@ import com.toshi.util.sharedPrefs.AppPrefs;
 import com.toshi.view.BaseApplication;
 import com.toshi.view.notification.ChatNotificationManager;
 
-import java.util.Map;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.List;
 
 import rx.Completable;
+import rx.Observable;
 import rx.Single;
 
-import static com.toshi.manager.chat.SofaMessageReceiver.INCOMING_MESSAGE_TIMEOUT;
-
 public class GcmMessageReceiver extends FirebaseMessagingService {
 
     @Override
     public void onMessageReceived(final RemoteMessage message) {
         if (AppPrefs.INSTANCE.hasSignedOut()) return;
 
+        final PushWakeupStats.Wakeup wakeup = PushWakeupStats.start();
+        final String messageBody = (String) message.getData().get("message");
+        LogUtil.i("Incoming PN: " + messageBody);
+
+        final SofaMessage sofaMessage = parseMessageBody(messageBody);
+        if (isPayment(sofaMessage)) {
+            // Payments touch the balance and transaction managers, so they still need the full init
+            tryInitApp()
+            .subscribe(
+                    () -> handleIncomingPayment(sofaMessage),
+                    throwable -> LogUtil.exception("Error during incoming message", throwable)
+            );
+            return;
+        }
 
-        tryInitApp()
-        .subscribe(
-                () -> handleIncomingMessage(message.getData()),
-                throwable -> LogUtil.exception("Error during incoming message", throwable)
-        );
+        drainAndShowIncomingMessages(wakeup);
     }
 
     private Completable tryInitApp() {
@@ -76,33 +83,68 @@ public class GcmMessageReceiver extends FirebaseMessagingService {
                 .tryInit();
     }
 
-    private void handleIncomingMessage(final Map data) {
+    private SofaMessage parseMessageBody(final String messageBody) {
+        if (messageBody == null) return null;
         try {
-            final String messageBody = (String) data.get("message");
-            LogUtil.i("Incoming PN: " + messageBody);
-
-            if (messageBody == null) {
-                tryShowIncomingMessage();
-                return;
-            }
+            return new SofaMessage().makeNew(messageBody);
+        } catch (final Exception ex) {
+            LogUtil.exception("Error while parsing incoming message: " + ex);
+            return null;
+        }
+    }
 
-            final SofaMessage sofaMessage = new SofaMessage().makeNew(messageBody);
+    private boolean isPayment(final SofaMessage sofaMessage) {
+        return sofaMessage != null
+                && (sofaMessage.getType() == SofaType.PAYMENT || sofaMessage.getType() == SofaType.TOKEN_PAYMENT);
+    }
 
+    private void handleIncomingPayment(final SofaMessage sofaMessage) {
+        try {
             if (sofaMessage.getType() == SofaType.PAYMENT) {
                 final Payment payment = SofaAdapters.get().paymentFrom(sofaMessage.getPayload());
                 checkIfUserIsBlocked(payment);
-            } else if (sofaMessage.getType() == SofaType.TOKEN_PAYMENT) {
+            } else {
                 final Payment payment = SofaAdapters.get().tokenPaymentFrom(sofaMessage.getPayload());
                 addIncomingPayment(payment);
-            } else {
-                tryShowIncomingMessage();
             }
-
         } catch (final Exception ex) {
             LogUtil.exception("Error while parsing incoming message: " + ex);
         }
     }
 
+    // Only the wallet, Realm and the message receiver are needed to turn queued envelopes into
+    // notifications. Block until they are shown so the process isn't dropped halfway through.
+    private void drainAndShowIncomingMessages(final PushWakeupStats.Wakeup wakeup) {
+        try {
+            final List<IncomingMessage> incomingMessages = tryInitForMessageDrain()
+                    .doOnCompleted(wakeup::initialised)
+                    .andThen(Observable.defer(this::drainMessages))
+                    .toList()
+                    .toBlocking()
+                    .single();
+            wakeup.drained();
+
+            ChatNotificationManager.showNotifications(incomingMessages);
+            wakeup.notified(incomingMessages.size());
+        } catch (final Exception ex) {
+            LogUtil.exception("Error while fetching incoming messages", ex);
+        }
+    }
+
+    private Completable tryInitForMessageDrain() {
+        return BaseApplication
+                .get()
+                .getToshiManager()
+                .tryInitForMessageDrain();
+    }
+
+    private Observable<IncomingMessage> drainMessages() {
+        return BaseApplication
+                .get()
+                .getChatManager()
+                .drainMessages();
+    }
+
     private void checkIfUserIsBlocked(final Payment payment) {
         isUserBlocked(payment.getFromAddress())
                 .subscribe(
@@ -155,30 +197,6 @@ public class GcmMessageReceiver extends FirebaseMessagingService {
         LogUtil.exception("Invalid payment", throwable);
     }
 
-    private void tryShowIncomingMessage() {
-        final IncomingMessage incomingMessage;
-        try {
-            incomingMessage = getIncomingMessage();
-        } catch (InterruptedException | TimeoutException e) {
-            LogUtil.i("Fetched all new messages");
-            return;
-        }
-
-        ChatNotificationManager.showNotification(incomingMessage);
-        // There may be more messages.
-        tryShowIncomingMessage();
-    }
-
-    private IncomingMessage getIncomingMessage() throws TimeoutException, InterruptedException {
-        return BaseApplication
-                .get()
-                .getChatManager()
-                .fetchLatestMessage()
-                .timeout(INCOMING_MESSAGE_TIMEOUT, TimeUnit.SECONDS)
-                .toBlocking()
-                .value();
-    }
-
     private void updatePayment(final Payment payment) {
         BaseApplication
                 .get()
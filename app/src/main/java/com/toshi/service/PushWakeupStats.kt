@@ -0,0 +1,74 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.service
+
+import android.os.SystemClock
+import com.toshi.util.logging.LogUtil
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Wake-to-notify latency of push wakeups. Every wakeup records when the components it needs were
+ * initialised, when the message queue had been drained and when the notifications were posted.
+ */
+object PushWakeupStats {
+
+    private val wakeups = AtomicLong()
+    private val messages = AtomicLong()
+    private val totalNotifyMillis = AtomicLong()
+    private val slowestNotify = AtomicLong()
+
+    val wakeupCount get() = wakeups.get()
+    val messageCount get() = messages.get()
+    val slowestNotifyMillis get() = slowestNotify.get()
+    val averageNotifyMillis get() = if (wakeupCount == 0L) 0L else totalNotifyMillis.get() / wakeupCount
+
+    @JvmStatic
+    fun start() = Wakeup(SystemClock.elapsedRealtime())
+
+    private fun record(notifyMillis: Long, messageCount: Int) {
+        wakeups.incrementAndGet()
+        messages.addAndGet(messageCount.toLong())
+        totalNotifyMillis.addAndGet(notifyMillis)
+        do {
+            val slowest = slowestNotify.get()
+        } while (notifyMillis > slowest && !slowestNotify.compareAndSet(slowest, notifyMillis))
+    }
+
+    class Wakeup internal constructor(private val wokenAt: Long) {
+
+        private var initialisedAt = wokenAt
+        private var drainedAt = wokenAt
+
+        fun initialised() {
+            initialisedAt = SystemClock.elapsedRealtime()
+        }
+
+        fun drained() {
+            drainedAt = SystemClock.elapsedRealtime()
+        }
+
+        fun notified(messageCount: Int) {
+            val notifiedAt = SystemClock.elapsedRealtime()
+            val notifyMillis = notifiedAt - wokenAt
+            record(notifyMillis, messageCount)
+            LogUtil.i("Push wakeup: $messageCount messages, init=${initialisedAt - wokenAt}ms, " +
+                    "drain=${drainedAt - initialisedAt}ms, wake-to-notify=${notifyMillis}ms " +
+                    "(average=${averageNotifyMillis}ms, slowest=${slowestNotifyMillis}ms over $wakeupCount wakeups)")
+        }
+    }
+}
@@ -20,6 +20,7 @@ package com.toshi.service;
 import android.app.IntentService;
 import android.content.Intent;
 
+import com.toshi.util.logging.LogUtil;
 import com.toshi.view.BaseApplication;
 
 public class RegistrationIntentService extends IntentService {
@@ -33,11 +34,19 @@ public class RegistrationIntentService extends IntentService {
         BaseApplication
                 .get()
                 .getBalanceManager()
-                .registerEthGcm();
+                .forceRegisterEthGcm()
+                .subscribe(
+                        () -> {},
+                        throwable -> LogUtil.exception("Error while registering eth gcm", throwable)
+                );
 
         BaseApplication
                 .get()
                 .getChatManager()
-                .forceRegisterChatGcm();
+                .forceRegisterChatGcm()
+                .subscribe(
+                        () -> {},
+                        throwable -> LogUtil.exception("Error while registering chat gcm", throwable)
+                );
     }
 }
@@ -18,8 +18,9 @@
 package com.toshi.util;
 
 public class FileNames {
-    public static final String GCM_PREFS = "gcmp";
     public static final String USER_PREFS = "usm";
     public static final String BALANCE_PREFS = "bm";
     public static final String WALLET_PREFS = "wa";
+    public static final String DAPP_PREFS = "dp";
+    public static final String PUSH_REGISTRATION_PREFS = "pr";
 }
@@ -43,10 +43,8 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.UUID;
@@ -155,16 +153,16 @@ public class FileUtil {
     }
 
     public static Single<File> compressImage(final long maxSize, final File file) {
-        return Single.fromCallable(() -> {
-            if (file.length() <= maxSize) return file;
-            final int compressPercentage = (int)(((double)maxSize / file.length()) * 100);
-            final Bitmap bitmap = BitmapFactory.decodeFile(file.getAbsolutePath());
-            if (bitmap == null) return file; // Return original file if bitmap is null
-            final OutputStream outputStream = new FileOutputStream(file);
-            bitmap.compress(Bitmap.CompressFormat.JPEG, compressPercentage, outputStream);
-            return file;
-        })
-        .subscribeOn(Schedulers.io());
+        return compressImage(new ImageCompressor(ImageCompressor.ATTACHMENT_MAX_DIMENSION, maxSize), file);
+    }
+
+    public static Single<File> compressAvatar(final File file) {
+        return compressImage(new ImageCompressor(ImageCompressor.AVATAR_MAX_DIMENSION, MAX_SIZE), file);
+    }
+
+    private static Single<File> compressImage(final ImageCompressor compressor, final File file) {
+        return Single.fromCallable(() -> compressor.compress(file))
+                .subscribeOn(Schedulers.io());
     }
 
     public static Attachment getNameAndSizeFromUri(final Uri uri) {
@@ -222,6 +220,23 @@ public class FileUtil {
                 .build();
     }
 
+    // The stream is open on the file, so callers close it once the attachment has been sent
+    public static SignalServiceAttachmentStream buildSignalServiceAttachment(final File imageFile) throws FileNotFoundException {
+        return SignalServiceAttachmentStream.newStreamBuilder()
+                .withContentType(getImageMimeType(imageFile))
+                .withStream(new FileInputStream(imageFile))
+                .withLength(imageFile.length())
+                .build();
+    }
+
+    // Reads the format from the image header, since stored images can be PNG or JPEG
+    private static String getImageMimeType(final File imageFile) {
+        final BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(imageFile.getPath(), bounds);
+        return bounds.outMimeType != null ? bounds.outMimeType : "image/png";
+    }
+
     public static SignalServiceAttachmentStream buildSignalServiceAttachment(final Bitmap bitmap) {
         final byte[] bytes = ImageUtil.toByteArray(bitmap);
         return buildSignalServiceAttachment(bytes);
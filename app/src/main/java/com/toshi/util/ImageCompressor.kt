@@ -0,0 +1,209 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.toshi.util
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.graphics.Matrix
+import android.media.ExifInterface
+import com.toshi.util.logging.LogUtil
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+
+/**
+ * Downscales and re-encodes images so they fit within [maxDimension] pixels and [maxBytes].
+ *
+ * Only the bounds are read to decide whether any work is needed. The decode is sampled by a
+ * power of two, so a large camera photo is never held in memory at full resolution. The JPEG
+ * quality is the highest that fits the budget, and the result replaces the source atomically.
+ * Re-encoding drops the EXIF tags, so the EXIF orientation is applied to the pixels first.
+ */
+class ImageCompressor(
+        private val maxDimension: Int,
+        private val maxBytes: Long
+) {
+
+    companion object {
+        const val ATTACHMENT_MAX_DIMENSION = 2048
+        const val AVATAR_MAX_DIMENSION = 800
+        private const val MAX_QUALITY = 90
+        private const val MIN_QUALITY = 40
+
+        /**
+         * The largest power of two that keeps the longest side at or above [maxDimension],
+         * so that the final scale only ever has to shrink the sampled bitmap.
+         */
+        fun calculateSampleSize(width: Int, height: Int, maxDimension: Int): Int {
+            val longestSide = Math.max(width, height)
+            var sampleSize = 1
+            while (longestSide / (sampleSize * 2) >= maxDimension) sampleSize *= 2
+            return sampleSize
+        }
+
+        /**
+         * Binary searches for the highest quality whose encoded size fits [maxBytes]. Returns
+         * [MIN_QUALITY] if nothing fits, since going lower mostly just adds artifacts.
+         */
+        fun findQuality(maxBytes: Long, encodedSize: (Int) -> Long): Int {
+            if (encodedSize(MAX_QUALITY) <= maxBytes) return MAX_QUALITY
+            var low = MIN_QUALITY
+            var high = MAX_QUALITY - 1
+            var best = MIN_QUALITY
+            while (low <= high) {
+                val quality = (low + high) / 2
+                if (encodedSize(quality) <= maxBytes) {
+                    best = quality
+                    low = quality + 1
+                } else {
+                    high = quality - 1
+                }
+            }
+            return best
+        }
+    }
+
+    @Throws(IOException::class)
+    fun compress(file: File): File {
+        val timings = Timings()
+        val originalSize = file.length()
+        val bounds = readBounds(file)
+        timings.lap("bounds")
+
+        val longestSide = Math.max(bounds.outWidth, bounds.outHeight)
+        if (longestSide <= 0) return file // Not an image we can decode, leave it alone
+        if (originalSize <= maxBytes && longestSide <= maxDimension) return file
+
+        val bitmap = decodeScaled(file, bounds, timings) ?: return file
+        val encoded = encode(bitmap, timings)
+        bitmap.recycle()
+
+        writeAtomically(file, encoded)
+        timings.lap("write")
+        LogUtil.i("Compressed ${bounds.outWidth}x${bounds.outHeight} image from $originalSize to ${encoded.size} bytes: $timings")
+        return file
+    }
+
+    private fun readBounds(file: File): BitmapFactory.Options {
+        val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+        BitmapFactory.decodeFile(file.absolutePath, bounds)
+        return bounds
+    }
+
+    private fun decodeScaled(file: File, bounds: BitmapFactory.Options, timings: Timings): Bitmap? {
+        val options = BitmapFactory.Options().apply {
+            inSampleSize = calculateSampleSize(bounds.outWidth, bounds.outHeight, maxDimension)
+        }
+        val sampled = BitmapFactory.decodeFile(file.absolutePath, options) ?: return null
+        timings.lap("decode")
+
+        // Scaling and turning the image upright are done in a single pass
+        val matrix = Matrix()
+        val sampledLongestSide = Math.max(sampled.width, sampled.height)
+        if (sampledLongestSide > maxDimension) {
+            val scale = maxDimension.toFloat() / sampledLongestSide
+            matrix.setScale(scale, scale)
+        }
+        matrix.postConcat(orientationMatrixOf(readOrientation(file)))
+        if (matrix.isIdentity) return sampled
+
+        val transformed = Bitmap.createBitmap(sampled, 0, 0, sampled.width, sampled.height, matrix, true)
+        if (transformed != sampled) sampled.recycle()
+        timings.lap("scale")
+        return transformed
+    }
+
+    private fun readOrientation(file: File): Int {
+        return try {
+            ExifInterface(file.absolutePath).getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL)
+        } catch (e: IOException) {
+            ExifInterface.ORIENTATION_NORMAL
+        }
+    }
+
+    private fun orientationMatrixOf(orientation: Int): Matrix {
+        val matrix = Matrix()
+        when (orientation) {
+            ExifInterface.ORIENTATION_FLIP_HORIZONTAL -> matrix.setScale(-1f, 1f)
+            ExifInterface.ORIENTATION_ROTATE_180 -> matrix.setRotate(180f)
+            ExifInterface.ORIENTATION_FLIP_VERTICAL -> matrix.setScale(1f, -1f)
+            ExifInterface.ORIENTATION_TRANSPOSE -> {
+                matrix.setRotate(90f)
+                matrix.postScale(-1f, 1f)
+            }
+            ExifInterface.ORIENTATION_ROTATE_90 -> matrix.setRotate(90f)
+            ExifInterface.ORIENTATION_TRANSVERSE -> {
+                matrix.setRotate(-90f)
+                matrix.postScale(-1f, 1f)
+            }
+            ExifInterface.ORIENTATION_ROTATE_270 -> matrix.setRotate(-90f)
+        }
+        return matrix
+    }
+
+    private fun encode(bitmap: Bitmap, timings: Timings): ByteArray {
+        val stream = ByteArrayOutputStream()
+        var encodeCount = 0
+        var fittingQuality = -1
+        var fittingBytes: ByteArray? = null
+        val encodeAt: (Int) -> ByteArray = { quality ->
+            encodeCount++
+            stream.reset()
+            bitmap.compress(Bitmap.CompressFormat.JPEG, quality, stream)
+            stream.toByteArray()
+        }
+        // Qualities that fit only ever increase during the search, so the last one is kept
+        val quality = findQuality(maxBytes) {
+            val bytes = encodeAt(it)
+            if (bytes.size <= maxBytes) {
+                fittingQuality = it
+                fittingBytes = bytes
+            }
+            bytes.size.toLong()
+        }
+        val encoded = fittingBytes?.takeIf { fittingQuality == quality } ?: encodeAt(quality)
+        timings.lap("encode(q=$quality, attempts=$encodeCount)")
+        return encoded
+    }
+
+    private fun writeAtomically(file: File, bytes: ByteArray) {
+        val tempFile = File(file.parentFile, "${file.name}.tmp")
+        try {
+            FileOutputStream(tempFile).use { it.write(bytes) }
+            if (!tempFile.renameTo(file)) throw IOException("Unable to replace $file")
+        } finally {
+            tempFile.delete()
+        }
+    }
+
+    private class Timings {
+        private val laps = mutableListOf<String>()
+        private val start = System.nanoTime()
+        private var lapStart = start
+
+        fun lap(stage: String) {
+            val now = System.nanoTime()
+            laps.add("$stage=${(now - lapStart) / 1_000_000}ms")
+            lapStart = now
+        }
+
+        override fun toString() = "${laps.joinToString(", ")}, total=${(lapStart - start) / 1_000_000}ms"
+    }
+}
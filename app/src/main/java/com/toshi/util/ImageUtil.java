@@ -19,7 +19,6 @@ package com.toshi.util;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Color;
 import android.net.Uri;
 import android.support.annotation.NonNull;
@@ -44,6 +43,7 @@ import com.toshi.manager.network.image.CachedGlideUrl;
 import com.toshi.manager.network.image.ForceLoadGlideUrl;
 import com.toshi.model.local.Avatar;
 import com.toshi.model.local.Recipient;
+import com.toshi.util.identicon.IdenticonCache;
 import com.toshi.util.logging.LogUtil;
 import com.toshi.view.BaseApplication;
 import com.toshi.view.custom.CropCircleTransformation;
@@ -61,8 +61,6 @@ import rx.Single;
 import rx.android.schedulers.AndroidSchedulers;
 import rx.schedulers.Schedulers;
 
-import static com.toshi.util.identicon.IdenticonKt.createIdenticon;
-
 public class ImageUtil {
 
     private static final List<String> supportedImageTypes = Arrays.asList("jpg", "jpeg", "png", "gif", "bmp", "webp");
@@ -138,32 +136,59 @@ public class ImageUtil {
         }
     }
 
+    // Avatar files are immutable since they're named by their content, so Glide can keep the
+    // decoded bitmaps in its memory cache. The files are already on disk so skip its disk cache.
     public static void load(final Avatar avatar, final ImageView imageView) {
-        if (avatar == null || avatar.getBytes() == null || imageView == null) return;
+        if (avatar == null || imageView == null) return;
+        renderAvatarFile(avatar.getThumbnailFile(), imageView);
+    }
 
-        Single
-                .fromCallable(() -> BitmapFactory.decodeByteArray(avatar.getBytes(), 0, avatar.getBytes().length))
-                .subscribeOn(Schedulers.io())
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(
-                        imageView::setImageBitmap,
-                        LogUtil::exception
-                );
+    public static void loadFullSize(final Avatar avatar, final ImageView imageView) {
+        if (avatar == null || imageView == null) return;
+        renderAvatarFile(avatar.getFile(), imageView);
+    }
+
+    private static void renderAvatarFile(final File avatarFile, final ImageView imageView) {
+        if (avatarFile == null || imageView.getContext() == null) return;
+
+        try {
+            Glide
+                .with(imageView.getContext())
+                .load(avatarFile)
+                .diskCacheStrategy(DiskCacheStrategy.NONE)
+                .dontAnimate()
+                .into(imageView);
+        } catch (final IllegalArgumentException ex) {
+            LogUtil.i("Tried to render into a now destroyed view.");
+        }
     }
 
     public static void loadIdenticon(final String value, final ImageView imageView) {
         if (value == null || imageView == null) return;
 
-        Single
-                .fromCallable(() -> createIdenticon(value))
-                .subscribeOn(Schedulers.io())
+        final IdenticonCache identiconCache = IdenticonCache.get();
+        final Bitmap cachedIdenticon = identiconCache.getCached(value);
+        imageView.setTag(R.id.identicon_value, value);
+        if (cachedIdenticon != null) {
+            imageView.setImageBitmap(cachedIdenticon);
+            return;
+        }
+
+        identiconCache
+                .get(value)
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(
-                        imageView::setImageBitmap,
+                        identicon -> renderIdenticon(value, identicon, imageView),
                         LogUtil::exception
                 );
     }
 
+    // The view may have been rebound to another value while the identicon was generated
+    private static void renderIdenticon(final String value, final Bitmap identicon, final ImageView imageView) {
+        if (!value.equals(imageView.getTag(R.id.identicon_value))) return;
+        imageView.setImageBitmap(identicon);
+    }
+
     public static Single<Bitmap> loadAsBitmap(final Uri uri, final Context context) {
         return Single.fromCallable(() -> {
             if (uri == null || context == null) return null;
@@ -186,7 +211,7 @@ public class ImageUtil {
     public static Bitmap loadNotificationIcon(final Recipient recipient) throws ExecutionException, InterruptedException {
         final RequestManager requestManager = Glide.with(BaseApplication.get());
         final DrawableTypeRequest typeRequest = recipient.isGroup()
-                ? requestManager.load(recipient.getGroupAvatar().getBytes())
+                ? requestManager.load(recipient.getGroupAvatar().getThumbnailFile())
                 : requestManager.load(recipient.getUserAvatar());
         return (Bitmap) typeRequest
                 .asBitmap()
@@ -242,6 +267,7 @@ public class ImageUtil {
             Glide
                     .get(BaseApplication.get())
                     .clearDiskCache();
+            IdenticonCache.get().clear();
         })
         .subscribeOn(Schedulers.io())
         .observeOn(AndroidSchedulers.mainThread())
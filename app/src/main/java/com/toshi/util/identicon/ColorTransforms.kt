@@ -17,8 +17,6 @@
 
 package com.toshi.util.identicon
 
-import android.graphics.Color
-
 fun hslToRgb(h: Double, s: Double, l: Double): Int {
     val hue = (h % 360.0f) / 360f
     val saturation = s / 100f
@@ -38,7 +36,8 @@ fun hslToRgb(h: Double, s: Double, l: Double): Int {
     val red = (r * 255).toInt()
     val green = (g * 255).toInt()
     val blue = (b * 255).toInt()
-    return Color.rgb(red, green, blue)
+    // Same as Color.rgb, without needing the framework
+    return (0xFF shl 24) or (red shl 16) or (green shl 8) or blue
 }
 
 fun hueToRgb(p: Double, q: Double, h: Double): Double {
@@ -19,75 +19,66 @@ package com.toshi.util.identicon
 
 import android.graphics.Bitmap
 import android.graphics.Canvas
+import android.graphics.Paint
 
 fun createIdenticon(address: String) = Identicon(address).toBitmap()
 
-private class Identicon(address: String) {
+/**
+ * Blockies style identicon. The seed is kept in plain ints, which wrap exactly like the 32-bit
+ * bitwise operations of the original JavaScript implementation.
+ */
+class Identicon(address: String) {
+
+    companion object {
+        const val GRID_SIZE = 8
+        const val SCALE = 15
+        const val ICON_SIZE = GRID_SIZE * SCALE
+    }
 
-    private val seed by lazy { arrayOf<Long>(0, 0, 0, 0) }
-    private val gridSize = 8
-    private val scale = 15
+    private val seed = IntArray(4)
+    val palette: Palette
+    val cells: IntArray
 
     init {
         fromAddress(address.toLowerCase())
+        palette = Palette { createColorAndChangeSeed() }
+        cells = encodeImageDataAndChangeSeed()
     }
 
     private fun fromAddress(address: String) {
         for (i in address.indices) {
-            val shifted = seed[i % 4] shl 5
-            val shiftFixed = asInt(shifted)
+            val index = i % 4
             val code = Character.codePointAt(address, i)
-            seed[i % 4] = shiftFixed - seed[i % 4] + code
+            seed[index] = (seed[index] shl 5) - seed[index] + code
         }
     }
 
-    /**
-     * Make sure long behaves the same as numbers in JavaScript when performing bitwise operations
-     * */
-    private fun asInt(value: Long) = if (-2 <= value || value < 0) value.toInt().toLong() else value
-
     private fun seedShift(): Double {
-        val shift11 = intShl(seed[0], 11)
-        val t = seed[0] xor shift11
-        val shift8 = intShr(t, 8)
-        val shift19 = intShr(seed[3], 19)
+        val t = seed[0] xor (seed[0] shl 11)
         seed[0] = seed[1]
         seed[1] = seed[2]
         seed[2] = seed[3]
-        seed[3] = asInt(seed[3] xor shift19 xor t xor shift8)
-        val absolute = Math.abs(seed[3]).toDouble()
-        return absolute / Integer.MAX_VALUE
+        seed[3] = seed[3] xor (seed[3] shr 19) xor t xor (t shr 8)
+        // Widen before abs so that Int.MIN_VALUE doesn't stay negative
+        return Math.abs(seed[3].toDouble()) / Integer.MAX_VALUE
     }
 
-    private fun intShr(value: Long, right: Int): Long = asInt(value) shr right
-
-    private fun intShl(value: Long, left: Int): Long = asInt(value) shl left
-
     fun toBitmap(): Bitmap {
-        val palette = Palette({ createColorAndChangeSeed() })
-        val imageData = encodeImageDataAndChangeSeed()
-        val iconSize = gridSize * scale
-        val bitmap = Bitmap.createBitmap(iconSize, iconSize, Bitmap.Config.RGB_565)
+        val bitmap = Bitmap.createBitmap(ICON_SIZE, ICON_SIZE, Bitmap.Config.RGB_565)
         val canvas = Canvas(bitmap)
-        drawBackground(iconSize, canvas, palette)
-        drawArtifacts(imageData, palette, canvas)
+        val paint = Paint().apply { style = Paint.Style.FILL }
+        canvas.drawColor(palette.backgroundColor)
+        drawArtifacts(canvas, paint)
         return bitmap
     }
 
-    private fun drawBackground(size: Int, canvas: Canvas, palette: Palette) {
-        val iconSize = size.toFloat()
-        canvas.drawRect(0f, 0f, iconSize, iconSize, palette.backgroundColor)
-    }
-
-    private fun drawArtifacts(data: List<Double>, colors: Palette, canvas: Canvas) {
-        for (i in data.indices) {
-            if (data[i] == 0.0) continue
-            val row = Math.floor((i / gridSize).toDouble()).toFloat()
-            val col = (i % gridSize).toFloat()
-            val paint = if (data[i] == 1.0) colors.foregroundColor else colors.spotColor
-            val x = col * scale
-            val y = row * scale
-            canvas.drawRect(x, y, x + scale, y + scale, paint)
+    private fun drawArtifacts(canvas: Canvas, paint: Paint) {
+        for (i in cells.indices) {
+            if (cells[i] == 0) continue
+            paint.color = if (cells[i] == 1) palette.foregroundColor else palette.spotColor
+            val x = (i % GRID_SIZE * SCALE).toFloat()
+            val y = (i / GRID_SIZE * SCALE).toFloat()
+            canvas.drawRect(x, y, x + SCALE, y + SCALE, paint)
         }
     }
 
@@ -98,18 +89,18 @@ private class Identicon(address: String) {
         return hslToRgb(h, s, l)
     }
 
-    private fun encodeImageDataAndChangeSeed(): List<Double> {
-        val dataWidth = gridSize / 2
-        val imageData = mutableListOf<Double>()
-        for (y in 0 until gridSize) {
-            val row = mutableListOf<Double>()
+    // Each row is generated for the left half and mirrored onto the right
+    private fun encodeImageDataAndChangeSeed(): IntArray {
+        val dataWidth = GRID_SIZE / 2
+        val imageData = IntArray(GRID_SIZE * GRID_SIZE)
+        for (y in 0 until GRID_SIZE) {
+            val rowStart = y * GRID_SIZE
             for (x in 0 until dataWidth) {
-                row.add(x, Math.floor(seedShift() * 2.3))
+                val value = Math.floor(seedShift() * 2.3).toInt()
+                imageData[rowStart + x] = value
+                imageData[rowStart + GRID_SIZE - 1 - x] = value
             }
-            val reversed = row.reversed()
-            row.addAll(reversed)
-            imageData.addAll(row)
         }
         return imageData
     }
-}
\ No newline at end of file
+}
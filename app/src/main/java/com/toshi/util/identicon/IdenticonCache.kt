@@ -0,0 +1,133 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.toshi.util.identicon
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import com.toshi.util.logging.LogUtil
+import com.toshi.view.BaseApplication
+import rx.Observable
+import rx.Scheduler
+import rx.Single
+import rx.schedulers.Schedulers
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Caches generated identicons by lowercase address. Bitmaps are kept in a bounded LRU in memory
+ * and, when [diskDirectory] is set, as PNGs on disk. Concurrent binds of the same address share
+ * a single generation.
+ */
+class IdenticonCache(
+        private val diskDirectory: File?,
+        private val maxEntries: Int = MAX_ENTRIES,
+        private val scheduler: Scheduler = Schedulers.io(),
+        private val generate: (String) -> Bitmap = ::createIdenticon
+) {
+
+    companion object {
+        // An RGB_565 identicon is 120 * 120 * 2 bytes, so this is about 4 MB
+        private const val MAX_ENTRIES = 150
+        private const val DIRECTORY = "identicons"
+        private val fileSafeKey = Regex("[0-9a-z]{1,64}")
+
+        private var instance: IdenticonCache? = null
+
+        @JvmStatic
+        @Synchronized
+        fun get(): IdenticonCache {
+            return instance ?: createCache().also { instance = it }
+        }
+
+        private fun createCache(): IdenticonCache {
+            val diskDirectory = File(BaseApplication.get().cacheDir, DIRECTORY)
+            return IdenticonCache(diskDirectory)
+        }
+
+        private fun keyOf(address: String) = address.toLowerCase()
+    }
+
+    private val memoryCache = object : LinkedHashMap<String, Bitmap>(maxEntries, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Bitmap>?) = size > maxEntries
+    }
+    private val inFlight = ConcurrentHashMap<String, Observable<Bitmap>>()
+
+    fun getCached(address: String): Bitmap? {
+        return synchronized(memoryCache) { memoryCache[keyOf(address)] }
+    }
+
+    fun get(address: String): Single<Bitmap> {
+        val key = keyOf(address)
+        return Single.defer {
+            val cached = synchronized(memoryCache) { memoryCache[key] }
+            if (cached != null) return@defer Single.just(cached)
+            val request = inFlight[key] ?: synchronized(inFlight) {
+                inFlight.getOrPut(key) { createRequest(key) }
+            }
+            request.toSingle()
+        }
+    }
+
+    private fun createRequest(key: String): Observable<Bitmap> {
+        return Observable.fromCallable { readFromDisk(key) ?: generateAndStore(key) }
+                .subscribeOn(scheduler)
+                .doOnNext { synchronized(memoryCache) { memoryCache[key] = it } }
+                .doOnTerminate { inFlight.remove(key) }
+                .cache()
+    }
+
+    private fun readFromDisk(key: String): Bitmap? {
+        val file = fileFor(key) ?: return null
+        if (!file.exists()) return null
+        return BitmapFactory.decodeFile(file.absolutePath)
+    }
+
+    private fun generateAndStore(key: String): Bitmap {
+        val identicon = generate(key)
+        writeToDisk(key, identicon)
+        return identicon
+    }
+
+    private fun writeToDisk(key: String, identicon: Bitmap) {
+        val file = fileFor(key) ?: return
+        try {
+            val directory = file.parentFile
+            if (!directory.exists() && !directory.mkdirs()) return
+            val tempFile = File(directory, "$key.tmp")
+            val isWritten = FileOutputStream(tempFile).use { identicon.compress(Bitmap.CompressFormat.PNG, 100, it) }
+            if (!isWritten || !tempFile.renameTo(file)) tempFile.delete()
+        } catch (e: IOException) {
+            LogUtil.w("Unable to write identicon to disk $e")
+        }
+    }
+
+    // Other values, like group names, could be anything, so they are only cached in memory
+    private fun fileFor(key: String): File? {
+        if (diskDirectory == null || !fileSafeKey.matches(key)) return null
+        return File(diskDirectory, "$key.png")
+    }
+
+    fun clear() {
+        synchronized(memoryCache) { memoryCache.clear() }
+        inFlight.clear()
+        diskDirectory?.deleteRecursively()
+    }
+}
@@ -17,15 +17,8 @@
 
 package com.toshi.util.identicon
 
-import android.graphics.Paint
-
 class Palette(colorGenerator: () -> Int) {
-    val foregroundColor: Paint = toPaint(colorGenerator)
-    val backgroundColor: Paint = toPaint(colorGenerator)
-    val spotColor: Paint = toPaint(colorGenerator)
-
-    private fun toPaint(colorGenerator: () -> Int): Paint = Paint().apply {
-        style = Paint.Style.FILL
-        color = colorGenerator()
-    }
-}
\ No newline at end of file
+    val foregroundColor: Int = colorGenerator()
+    val backgroundColor: Int = colorGenerator()
+    val spotColor: Int = colorGenerator()
+}
@@ -18,14 +18,19 @@
 package com.toshi.util.sharedPrefs
 
 import android.content.Context
+import com.toshi.model.local.CachedExchangeRate
 import com.toshi.model.network.Balance
+import com.toshi.model.network.ExchangeRate
 import com.toshi.util.FileNames
 import com.toshi.view.BaseApplication
+import java.math.BigDecimal
 
 class BalancePrefs : BalancePrefsInterface {
 
     companion object {
         private const val LAST_KNOWN_BALANCE = "lkb"
+        private const val EXCHANGE_RATE = "er"
+        private const val SEPARATOR = ";"
     }
 
     private val prefs by lazy { BaseApplication.get().getSharedPreferences(FileNames.BALANCE_PREFS, Context.MODE_PRIVATE) }
@@ -40,5 +45,31 @@ class BalancePrefs : BalancePrefsInterface {
                 .apply()
     }
 
+    override fun readExchangeRate(currency: String): CachedExchangeRate? {
+        val stored = prefs.getString("$EXCHANGE_RATE$currency", null) ?: return null
+        val parts = stored.split(SEPARATOR)
+        if (parts.size != 5) return null
+        return try {
+            val exchangeRate = ExchangeRate(parts[0], parts[1], BigDecimal(parts[2]), parts[3].toIntOrNull())
+            CachedExchangeRate(exchangeRate, parts[4].toLong())
+        } catch (e: NumberFormatException) {
+            null
+        }
+    }
+
+    override fun writeExchangeRate(currency: String, cachedRate: CachedExchangeRate) {
+        val exchangeRate = cachedRate.exchangeRate
+        val stored = listOf(
+                exchangeRate.from,
+                exchangeRate.to,
+                exchangeRate.rate.toPlainString(),
+                exchangeRate.timestamp?.toString() ?: "",
+                cachedRate.fetchedAt.toString()
+        ).joinToString(SEPARATOR)
+        prefs.edit()
+                .putString("$EXCHANGE_RATE$currency", stored)
+                .apply()
+    }
+
     override fun clear() = prefs.edit().clear().apply()
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.util.sharedPrefs
+
+import android.content.Context
+import com.squareup.moshi.JsonDataException
+import com.squareup.moshi.Moshi
+import com.toshi.model.network.dapp.Dapps
+import com.toshi.util.FileNames
+import com.toshi.util.logging.LogUtil
+import com.toshi.view.BaseApplication
+import java.io.IOException
+
+class DappPrefs : DappPrefsInterface {
+
+    companion object {
+        private const val CATALOGUE = "catalogue"
+        private const val LAST_SYNCED = "lastSynced"
+    }
+
+    private val prefs by lazy { BaseApplication.get().getSharedPreferences(FileNames.DAPP_PREFS, Context.MODE_PRIVATE) }
+    private val adapter by lazy { Moshi.Builder().build().adapter(Dapps::class.java) }
+
+    override fun readCatalogue(): Dapps? {
+        val json = prefs.getString(CATALOGUE, null) ?: return null
+        return try {
+            adapter.fromJson(json)
+        } catch (e: IOException) {
+            LogUtil.exception("Error while reading dapp catalogue", e)
+            null
+        } catch (e: JsonDataException) {
+            LogUtil.exception("Error while reading dapp catalogue", e)
+            null
+        }
+    }
+
+    override fun writeCatalogue(dapps: Dapps, syncedAt: Long) {
+        prefs.edit()
+                .putString(CATALOGUE, adapter.toJson(dapps))
+                .putLong(LAST_SYNCED, syncedAt)
+                .apply()
+    }
+
+    override fun readLastSynced() = prefs.getLong(LAST_SYNCED, 0L)
+
+    override fun clear() = prefs.edit().clear().apply()
+}
@@ -17,10 +17,11 @@
 
 package com.toshi.util.sharedPrefs
 
-interface EthGcmPrefsInterface {
-    fun setEthGcmTokenSentToServer(networkId: String, isSentToServer: Boolean)
-
-    fun isEthGcmTokenSentToServer(networkId: String): Boolean
+import com.toshi.model.network.dapp.Dapps
 
+interface DappPrefsInterface {
+    fun readCatalogue(): Dapps?
+    fun writeCatalogue(dapps: Dapps, syncedAt: Long)
+    fun readLastSynced(): Long
     fun clear()
-}
\ No newline at end of file
+}
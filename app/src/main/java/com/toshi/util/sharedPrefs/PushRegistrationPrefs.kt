@@ -21,15 +21,19 @@ import android.content.Context
 import com.toshi.util.FileNames
 import com.toshi.view.BaseApplication
 
-class EthGcmPrefs : EthGcmPrefsInterface {
+class PushRegistrationPrefs : PushRegistrationPrefsInterface {
 
-    private val prefs by lazy { BaseApplication.get().getSharedPreferences(FileNames.GCM_PREFS, Context.MODE_PRIVATE) }
+    private val prefs by lazy { BaseApplication.get().getSharedPreferences(FileNames.PUSH_REGISTRATION_PREFS, Context.MODE_PRIVATE) }
 
-    override fun setEthGcmTokenSentToServer(networkId: String, isSentToServer: Boolean) {
-        prefs.edit().putBoolean(networkId, isSentToServer).commit()
+    override fun readFingerprint(endpoint: String): String? = prefs.getString(endpoint, null)
+
+    override fun writeFingerprint(endpoint: String, fingerprint: String) {
+        prefs.edit().putString(endpoint, fingerprint).apply()
     }
 
-    override fun isEthGcmTokenSentToServer(networkId: String) = prefs.getBoolean(networkId, false)
+    override fun removeFingerprint(endpoint: String) {
+        prefs.edit().remove(endpoint).apply()
+    }
 
     override fun clear() = prefs.edit().clear().apply()
-}
\ No newline at end of file
+}
@@ -39,6 +39,8 @@ object SignalPrefs : SignalPrefsInterface {
 
     private val prefs by lazy { PreferenceManager.getDefaultSharedPreferences(BaseApplication.get()) }
 
+    @Volatile private var clears = 0
+
     override fun getRegisteredWithServer(): Boolean = prefs.getBoolean(REGISTERED_WITH_SERVER)
 
     override fun setRegisteredWithServer() = prefs.applyBoolean(REGISTERED_WITH_SERVER, true)
@@ -79,5 +81,11 @@ object SignalPrefs : SignalPrefsInterface {
         prefs.applyInt(SIGNED_PRE_KEY_ID, signedPreKeyId)
     }
 
-    override fun clear() = prefs.applyClear()
+    @Synchronized
+    override fun clear() {
+        prefs.applyClear()
+        clears++
+    }
+
+    override fun getClearCount(): Int = clears
 }
\ No newline at end of file
@@ -44,4 +44,9 @@ interface SignalPrefsInterface {
     fun getSignedPreKeyId(): Int
     fun setSignedPreKeyId(signedPreKeyId: Int)
     fun clear()
+    /**
+     * Bumped every time the prefs are cleared, so anything holding decoded
+     * values in memory can tell that its copy is stale.
+     */
+    fun getClearCount(): Int
 }
\ No newline at end of file
@@ -25,6 +25,7 @@ import com.toshi.extensions.commitInt
 import com.toshi.extensions.applyString
 import com.toshi.extensions.getString
 import com.toshi.util.FileNames
+import com.toshi.util.sharedPrefs.WalletPrefsInterface.Companion.DERIVED_KEYS
 import com.toshi.util.sharedPrefs.WalletPrefsInterface.Companion.MASTER_SEED
 import com.toshi.util.sharedPrefs.WalletPrefsInterface.Companion.WALLET_INDEX
 import com.toshi.view.BaseApplication
@@ -41,5 +42,9 @@ class WalletPrefs : WalletPrefsInterface {
 
     override fun setCurrentWalletIndex(index: Int) { prefs.commitInt(WALLET_INDEX, index) }
 
+    override fun getDerivedKeys(): String? = prefs.getString(DERIVED_KEYS)
+
+    override fun setDerivedKeys(derivedKeys: String?) = prefs.applyString(DERIVED_KEYS, derivedKeys)
+
     override fun clear() = prefs.applyClear()
 }
\ No newline at end of file
@@ -24,11 +24,14 @@ interface WalletPrefsInterface {
     companion object {
         const val MASTER_SEED = "ms"
         const val WALLET_INDEX = "wi"
+        const val DERIVED_KEYS = "dk"
     }
 
     fun getMasterSeed(): String?
     fun setMasterSeed(masterSeed: String?)
     fun getCurrentWalletIndex(): Int
     fun setCurrentWalletIndex(index: Int)
+    fun getDerivedKeys(): String?
+    fun setDerivedKeys(derivedKeys: String?)
     fun clear()
 }
\ No newline at end of file
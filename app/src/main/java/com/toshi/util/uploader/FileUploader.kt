@@ -17,7 +17,8 @@
 
 package com.toshi.util.uploader
 
-import com.toshi.manager.network.IdInterface
+import com.toshi.manager.network.IdService
+import com.toshi.manager.network.ServerClock
 import com.toshi.model.local.User
 import com.toshi.util.FileUtil
 import okhttp3.MediaType
@@ -27,7 +28,7 @@ import rx.Single
 import java.io.File
 
 class FileUploader(
-        private val idService: IdInterface
+        private val idService: IdService
 ) {
 
     companion object {
@@ -40,7 +41,7 @@ class FileUploader(
         val requestFile = RequestBody.create(mediaType, file)
         val body = MultipartBody.Part.createFormData(FORM_DATA_NAME, file.name, requestFile)
 
-        return idService.timestamp
-                .flatMap { idService.uploadFile(body, it.get()) }
+        return ServerClock.getServerTime(idService.baseUrl, idService.api.timestamp)
+                .flatMap { idService.api.uploadFile(body, it.get()) }
     }
 }
\ No newline at end of file
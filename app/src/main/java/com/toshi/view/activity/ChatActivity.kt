@@ -24,6 +24,7 @@ import android.arch.lifecycle.ViewModelProviders
 import android.content.Intent
 import android.os.Bundle
 import android.support.v7.app.AppCompatActivity
+import android.support.v7.widget.RecyclerView
 import android.text.TextUtils
 import android.view.View
 import android.view.animation.AnimationUtils
@@ -43,6 +44,8 @@ import com.toshi.model.sofa.SofaMessage
 import com.toshi.presenter.chat.ChatViewModel
 import com.toshi.presenter.chat.ChatViewModelFactory
 import com.toshi.presenter.chat.ConfirmPaymentInfo
+import com.toshi.presenter.chat.MessagePage
+import com.toshi.presenter.chat.PageType
 import com.toshi.presenter.chat.ResendPaymentInfo
 import com.toshi.util.ChatNavigation
 import com.toshi.util.ChatPaymentHandler
@@ -83,6 +86,7 @@ class ChatActivity : AppCompatActivity() {
         private const val CAPTURE_IMAGE = 4
         private const val CONFIRM_ATTACHMENT = 5
         private const val LAST_VISIBLE_MESSAGE_POSITION = "lastVisibleMessagePosition"
+        private const val PREFETCH_NUMBER = 5
 
         const val EXTRA__THREAD_ID = "remote_user_owner_address"
         const val EXTRA__PAYMENT_ACTION = "payment_action"
@@ -157,6 +161,20 @@ class ChatActivity : AppCompatActivity() {
         messagesList.adapter = messageAdapter
         messagesList.layoutManager = layoutManager
         messagesList.isScrollContainer = true
+        messagesList.addOnScrollListener(object : RecyclerView.OnScrollListener() {
+            override fun onScrolled(recyclerView: RecyclerView?, dx: Int, dy: Int) {
+                super.onScrolled(recyclerView, dx, dy)
+                handleScroll()
+            }
+        })
+    }
+
+    private fun handleScroll() {
+        if (messageAdapter.itemCount == 0) return
+        val isNearTop = layoutManager.findFirstVisibleItemPosition() <= PREFETCH_NUMBER
+        val isNearBottom = layoutManager.findLastVisibleItemPosition() >= messageAdapter.itemCount - 1 - PREFETCH_NUMBER
+        if (isNearTop) viewModel.loadOlderMessages()
+        if (isNearBottom) viewModel.loadNewerMessages()
     }
 
     private fun initMessageAdapter(arePaymentButtonsEnabled: Boolean): MessageAdapter {
@@ -361,6 +379,9 @@ class ChatActivity : AppCompatActivity() {
         viewModel.conversation.observe(this, Observer {
             conversation -> conversation?.let { handleConversation(it) }
         })
+        viewModel.messagePage.observe(this, Observer {
+            messagePage -> messagePage?.let { handleMessagePage(it) }
+        })
     }
 
     private fun handleNewMessage(sofaMessage: SofaMessage) {
@@ -375,19 +396,38 @@ class ChatActivity : AppCompatActivity() {
     }
 
     private fun handleConversation(conversation: Conversation) {
-        messageAdapter.setMessages(conversation.allMessages)
-        val unreadScrollPosition = messageAdapter.itemCount - conversation.numberOfUnread
-        val scrollPosition = if (conversation.numberOfUnread == 0) getSafePosition() else unreadScrollPosition
-        messagesList.scrollToPosition(scrollPosition)
         updateControlView(conversation.conversationStatus.isAccepted)
         initConversationRequestView(conversation)
+    }
+
+    private fun handleMessagePage(messagePage: MessagePage) {
+        when (messagePage.type) {
+            PageType.INITIAL -> handleInitialMessages(messagePage.messages)
+            PageType.OLDER -> {
+                messageAdapter.addOlderMessages(messagePage.messages)
+                messageAdapter.removeNewestMessages(messagePage.evictedCount)
+            }
+            PageType.NEWER -> {
+                messageAdapter.addNewerMessages(messagePage.messages)
+                messageAdapter.removeOldestMessages(messagePage.evictedCount)
+            }
+        }
         updateEmptyState()
     }
 
+    private fun handleInitialMessages(messages: List<SofaMessage>) {
+        messageAdapter.setMessages(messages)
+        val numberOfUnread = viewModel.conversation.value?.numberOfUnread ?: 0
+        val unreadScrollPosition = Math.max(messageAdapter.itemCount - numberOfUnread, 0)
+        val scrollPosition = if (numberOfUnread == 0) getSafePosition() else unreadScrollPosition
+        messagesList.scrollToPosition(scrollPosition)
+    }
+
     // Returns last known scroll position, or last position if unknown
     private fun getSafePosition(): Int {
-        if (lastVisibleMessagePosition > 0) return lastVisibleMessagePosition
-        return if (messageAdapter.itemCount - 1 > 0) messageAdapter.itemCount - 1 else 0
+        val lastPosition = if (messageAdapter.itemCount - 1 > 0) messageAdapter.itemCount - 1 else 0
+        if (lastVisibleMessagePosition > 0) return Math.min(lastVisibleMessagePosition, lastPosition)
+        return lastPosition
     }
 
     private fun initAcceptConversationObservers() {
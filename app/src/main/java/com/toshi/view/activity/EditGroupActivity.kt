@@ -142,7 +142,7 @@ class EditGroupActivity : AppCompatActivity() {
     }
 
     private fun updateUiFromGroup(group: Group) {
-        ImageUtil.load(group.avatar, avatar)
+        ImageUtil.loadFullSize(group.avatar, avatar)
         groupName.setText(group.title)
     }
 
@@ -31,8 +31,8 @@ import com.toshi.model.local.User;
 import com.toshi.model.sofa.Message;
 import com.toshi.model.sofa.payment.Payment;
 import com.toshi.model.sofa.PaymentRequest;
-import com.toshi.model.sofa.SofaAdapters;
 import com.toshi.model.sofa.SofaMessage;
+import com.toshi.model.sofa.SofaPayloadCache;
 import com.toshi.model.sofa.SofaType;
 import com.toshi.util.logging.LogUtil;
 import com.toshi.view.BaseApplication;
@@ -133,11 +133,52 @@ public final class MessageAdapter extends RecyclerView.Adapter<RecyclerView.View
 
     private void addMessages(final Collection<SofaMessage> sofaMessages) {
         this.sofaMessages.clear();
+        this.sofaMessages.addAll(getUserVisibleMessages(sofaMessages));
         notifyDataSetChanged();
+    }
 
-        for (SofaMessage sofaMessage : sofaMessages) {
-            addMessage(sofaMessage);
+    public void addOlderMessages(final Collection<SofaMessage> olderMessages) {
+        final List<SofaMessage> messagesToAdd = getUserVisibleMessages(olderMessages);
+        if (messagesToAdd.isEmpty()) return;
+        final boolean hadMessages = this.sofaMessages.size() > 0;
+        this.sofaMessages.addAll(0, messagesToAdd);
+        notifyItemRangeInserted(0, messagesToAdd.size());
+        // The chain position of the previously first message may have changed.
+        if (hadMessages) notifyItemChanged(messagesToAdd.size());
+    }
+
+    public void addNewerMessages(final Collection<SofaMessage> newerMessages) {
+        final List<SofaMessage> messagesToAdd = getUserVisibleMessages(newerMessages);
+        if (messagesToAdd.isEmpty()) return;
+        final int previousSize = this.sofaMessages.size();
+        this.sofaMessages.addAll(messagesToAdd);
+        notifyItemRangeInserted(previousSize, messagesToAdd.size());
+        if (previousSize > 0) notifyItemChanged(previousSize - 1);
+    }
+
+    public void removeOldestMessages(final int count) {
+        final int numberToRemove = Math.min(count, this.sofaMessages.size());
+        if (numberToRemove <= 0) return;
+        this.sofaMessages.subList(0, numberToRemove).clear();
+        notifyItemRangeRemoved(0, numberToRemove);
+        if (this.sofaMessages.size() > 0) notifyItemChanged(0);
+    }
+
+    public void removeNewestMessages(final int count) {
+        final int numberToRemove = Math.min(count, this.sofaMessages.size());
+        if (numberToRemove <= 0) return;
+        final int newSize = this.sofaMessages.size() - numberToRemove;
+        this.sofaMessages.subList(newSize, this.sofaMessages.size()).clear();
+        notifyItemRangeRemoved(newSize, numberToRemove);
+        if (newSize > 0) notifyItemChanged(newSize - 1);
+    }
+
+    private List<SofaMessage> getUserVisibleMessages(final Collection<SofaMessage> sofaMessages) {
+        final List<SofaMessage> visibleMessages = new ArrayList<>(sofaMessages.size());
+        for (final SofaMessage sofaMessage : sofaMessages) {
+            if (sofaMessage != null && sofaMessage.isUserVisible()) visibleMessages.add(sofaMessage);
         }
+        return visibleMessages;
     }
 
     private void addMessage(final SofaMessage sofaMessage) {
@@ -242,11 +283,10 @@ public final class MessageAdapter extends RecyclerView.Adapter<RecyclerView.View
             final int position) {
 
         final SofaMessage sofaMessage = this.sofaMessages.get(position);
-        final String payload = sofaMessage.getPayload();
-        if (payload == null) return;
+        if (sofaMessage.getPayloadWithHeaders() == null) return;
 
         try {
-            renderChatMessageIntoViewHolder(holder, sofaMessage, payload, position);
+            renderChatMessageIntoViewHolder(holder, sofaMessage, position);
         } catch (final IOException ex) {
             LogUtil.w("Unable to render view holder: " + ex);
         }
@@ -255,7 +295,6 @@ public final class MessageAdapter extends RecyclerView.Adapter<RecyclerView.View
     private void renderChatMessageIntoViewHolder(
             final RecyclerView.ViewHolder holder,
             final SofaMessage sofaMessage,
-            final String payload,
             final int position) throws IOException {
 
         final boolean isRemote = holder.getItemViewType() >= SENDER_MASK;
@@ -265,7 +304,7 @@ public final class MessageAdapter extends RecyclerView.Adapter<RecyclerView.View
             case SofaType.COMMAND_REQUEST:
             case SofaType.PLAIN_TEXT: {
                 final TextViewHolder vh = (TextViewHolder) holder;
-                final Message message = SofaAdapters.get().messageFrom(payload);
+                final Message message = SofaPayloadCache.get().messageFrom(sofaMessage);
                 final @ChainPosition.Position int chainPosition = getChainPosition(position);
                 final boolean showAvatar = chainPosition == LAST || chainPosition == NONE;
 
@@ -284,7 +323,7 @@ public final class MessageAdapter extends RecyclerView.Adapter<RecyclerView.View
 
             case SofaType.IMAGE: {
                 final ImageViewHolder vh = (ImageViewHolder) holder;
-                final Message message = SofaAdapters.get().messageFrom(payload);
+                final Message message = SofaPayloadCache.get().messageFrom(sofaMessage);
                 vh
                         .setAvatarUri(sofaMessage.getSenderAvatar())
                         .setSendState(sofaMessage.getSendState())
@@ -312,7 +351,7 @@ public final class MessageAdapter extends RecyclerView.Adapter<RecyclerView.View
 
             case SofaType.PAYMENT: {
                 final PaymentViewHolder vh = (PaymentViewHolder) holder;
-                final Payment payment = SofaAdapters.get().paymentFrom(payload);
+                final Payment payment = SofaPayloadCache.get().paymentFrom(sofaMessage);
                 vh
                         .setPayment(payment)
                         .setAvatarUri(sofaMessage.getSenderAvatar())
@@ -325,7 +364,7 @@ public final class MessageAdapter extends RecyclerView.Adapter<RecyclerView.View
 
             case SofaType.PAYMENT_REQUEST: {
                 final PaymentRequestViewHolder vh = (PaymentRequestViewHolder) holder;
-                final PaymentRequest request = SofaAdapters.get().txRequestFrom(payload);
+                final PaymentRequest request = SofaPayloadCache.get().txRequestFrom(sofaMessage);
                 if (this.recipient != null && this.recipient.isGroup()) {
                     // Todo - support group payment requests
                     LogUtil.i("Payment requests to groups currently not supported.");
@@ -353,7 +392,7 @@ public final class MessageAdapter extends RecyclerView.Adapter<RecyclerView.View
 
             case SofaType.LOCAL_STATUS_MESSAGE: {
                 final LocalStatusMessageViewHolder vh = (LocalStatusMessageViewHolder) holder;
-                final LocalStatusMessage localStatusMessage = SofaAdapters.get().localStatusMessageRequestFrom(payload);
+                final LocalStatusMessage localStatusMessage = SofaPayloadCache.get().localStatusMessageFrom(sofaMessage);
                 final User localUser = getCurrentLocalUser();
                 final User sender = localStatusMessage.getSender();
                 final boolean isSenderLocalUser = (localUser != null && sender != null)
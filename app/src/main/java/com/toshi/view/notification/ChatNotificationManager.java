@@ -28,7 +28,6 @@ import android.support.v4.app.RemoteInput;
 
 import com.toshi.R;
 import com.toshi.crypto.HDWallet;
-import com.toshi.model.local.Conversation;
 import com.toshi.model.local.ConversationStatus;
 import com.toshi.model.local.IncomingMessage;
 import com.toshi.model.local.Recipient;
@@ -36,15 +35,20 @@ import com.toshi.model.sofa.Message;
 import com.toshi.model.sofa.payment.Payment;
 import com.toshi.model.sofa.PaymentRequest;
 import com.toshi.model.sofa.SofaAdapters;
+import com.toshi.model.sofa.SofaPayloadCache;
 import com.toshi.model.sofa.SofaMessage;
 import com.toshi.model.sofa.SofaType;
 import com.toshi.util.logging.LogUtil;
 import com.toshi.view.BaseApplication;
 import com.toshi.view.notification.model.ChatNotification;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+import rx.Observable;
 import rx.Single;
 import rx.android.schedulers.AndroidSchedulers;
 import rx.schedulers.Schedulers;
@@ -89,6 +93,80 @@ public class ChatNotificationManager extends ToshiNotificationBuilder {
         );
     }
 
+    /**
+     * Shows a batch of messages, for example everything drained after a push wakeup,
+     * with one notification update per conversation instead of one per message.
+     */
+    public static void showNotifications(final List<IncomingMessage> incomingMessages) {
+        final Map<String, List<IncomingMessage>> messagesByThread = new LinkedHashMap<>();
+        for (final IncomingMessage incomingMessage : incomingMessages) {
+            if (incomingMessage == null) continue;
+            final String threadId = getNotificationKey(incomingMessage.getRecipient());
+            List<IncomingMessage> threadMessages = messagesByThread.get(threadId);
+            if (threadMessages == null) {
+                threadMessages = new ArrayList<>();
+                messagesByThread.put(threadId, threadMessages);
+            }
+            threadMessages.add(incomingMessage);
+        }
+
+        for (final List<IncomingMessage> threadMessages : messagesByThread.values()) {
+            showThreadNotification(threadMessages);
+        }
+    }
+
+    // Payments and payment requests get their local price first, then the whole batch is
+    // added to the thread's notification and shown once.
+    private static void showThreadNotification(final List<IncomingMessage> threadMessages) {
+        final IncomingMessage latestMessage = threadMessages.get(threadMessages.size() - 1);
+        final ConversationStatus conversationStatus = latestMessage.getConversation().getConversationStatus();
+        if (conversationStatus.isMuted()) return;
+
+        Observable
+                .from(threadMessages)
+                .concatMap(incomingMessage -> prepareForNotification(incomingMessage.getSofaMessage()))
+                .toList()
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(
+                        sofaMessages -> showThreadNotification(latestMessage.getRecipient(), sofaMessages, conversationStatus),
+                        throwable -> LogUtil.w("Error while preparing notifications " + throwable)
+                );
+    }
+
+    private static void showThreadNotification(final Recipient sender,
+                                               final List<SofaMessage> sofaMessages,
+                                               final ConversationStatus conversationStatus) {
+        if (sofaMessages.isEmpty()) return;
+        final ChatNotification activeChatNotification = getAndCacheChatNotification(sender);
+        if (activeChatNotification == null) return;
+        activeChatNotification.setIsAccepted(conversationStatus.isAccepted());
+
+        for (final SofaMessage sofaMessage : sofaMessages) {
+            activeChatNotification.addUnreadMessage(sofaMessage);
+        }
+        // Payment request actions act on the newest message
+        final String latestMessageId = sofaMessages.get(sofaMessages.size() - 1).getPrivateKey();
+        generateIconAndShowNotification(activeChatNotification, latestMessageId);
+    }
+
+    private static Observable<SofaMessage> prepareForNotification(final SofaMessage sofaMessage) {
+        final Observable<SofaMessage> preparedMessage;
+        if (sofaMessage.getType() == SofaType.PLAIN_TEXT) {
+            preparedMessage = Observable.just(sofaMessage);
+        } else if (sofaMessage.getType() == SofaType.PAYMENT_REQUEST) {
+            preparedMessage = addLocalPriceToPaymentRequest(sofaMessage);
+        } else if (sofaMessage.getType() == SofaType.PAYMENT) {
+            preparedMessage = addLocalPriceToPayment(sofaMessage);
+        } else {
+            preparedMessage = Observable.empty();
+        }
+        return preparedMessage.onErrorResumeNext(throwable -> {
+            LogUtil.w("Error while preparing notification " + throwable);
+            return Observable.empty();
+        });
+    }
+
     public static void showChatNotification(final Recipient sender, final String content) {
         final Message message = new Message().setBody(content);
         final String messageBody = SofaAdapters.get().toJson(message);
@@ -98,6 +176,8 @@ public class ChatNotificationManager extends ToshiNotificationBuilder {
 
     public static void showChatNotification(final Recipient sender, final SofaMessage sofaMessage) {
         getConversationStatus(sender.getThreadId())
+                .toObservable()
+                .filter(conversationStatus -> conversationStatus != null)
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(
                         conversationStatus -> tryShowNotification(sender, sofaMessage, conversationStatus),
@@ -118,13 +198,9 @@ public class ChatNotificationManager extends ToshiNotificationBuilder {
             activeChatNotification.addUnreadMessage(sofaMessage);
             generateIconAndShowNotification(activeChatNotification, null);
         } else if (sofaMessage.getType() == SofaType.PAYMENT_REQUEST) {
-            final PaymentRequest paymentRequest = getPaymentRequestFromMessage(sofaMessage);
-            if (paymentRequest == null) return;
-            getLocalPriceAndShowPaymentRequestNotification(sender, paymentRequest, sofaMessage);
+            getLocalPriceAndShowPaymentRequestNotification(sender, sofaMessage);
         } else if (sofaMessage.getType() == SofaType.PAYMENT) {
-            final Payment payment = getPaymentFromMessage(sofaMessage);
-            if (payment == null) return;
-            getLocalPriceAndShowPaymentNotification(sender, payment, sofaMessage);
+            getLocalPriceAndShowPaymentNotification(sender, sofaMessage);
         }
     }
 
@@ -132,10 +208,11 @@ public class ChatNotificationManager extends ToshiNotificationBuilder {
         return BaseApplication
                 .get()
                 .getChatManager()
-                .loadConversation(threadId)
-                .map(Conversation::getConversationStatus);
+                .loadConversationStatus(threadId);
     }
 
+    // The local price is written into the parsed model, so these parse their own copies
+    // instead of taking the shared ones from SofaPayloadCache.
     private static PaymentRequest getPaymentRequestFromMessage(final SofaMessage sofaMessage) {
         try {
             return SofaAdapters.get().txRequestFrom(sofaMessage.getPayload());
@@ -155,13 +232,10 @@ public class ChatNotificationManager extends ToshiNotificationBuilder {
     }
 
     private static void getLocalPriceAndShowPaymentRequestNotification(final Recipient sender,
-                                                                       final PaymentRequest paymentRequest,
                                                                        final SofaMessage sofaMessage) {
-        paymentRequest
-                .generateLocalPrice()
+        addLocalPriceToPaymentRequest(sofaMessage)
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
-                .map(pr -> addLocalPriceToSofaMessage(pr, sofaMessage))
                 .subscribe(
                         sofaMessageWithLocalPrice -> showPaymentRequestNotification(sender, sofaMessageWithLocalPrice),
                         throwable -> LogUtil.w("Error " + throwable)
@@ -169,23 +243,37 @@ public class ChatNotificationManager extends ToshiNotificationBuilder {
     }
 
     private static void getLocalPriceAndShowPaymentNotification(final Recipient sender,
-                                                                final Payment payment,
                                                                 final SofaMessage sofaMessage) {
-        if (payment.getStatus().equals(SofaType.CONFIRMED)) return;
-        getWallet()
-                .toObservable()
-                .filter(wallet -> paymentNotSentByLocalUser(wallet, payment))
-                .toSingle()
-                .flatMap(__ -> generateLocalPrice(payment))
+        addLocalPriceToPayment(sofaMessage)
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
-                .map(paymentWithLocalPrice -> addLocalPriceToSofaMessage(paymentWithLocalPrice, sofaMessage))
                 .subscribe(
                         sofaMessageWithLocalPrice -> showPaymentNotification(sender, sofaMessageWithLocalPrice),
                         throwable -> LogUtil.w("Error while fetching local price " + throwable)
                 );
     }
 
+    // Emits nothing if the request can't be parsed
+    private static Observable<SofaMessage> addLocalPriceToPaymentRequest(final SofaMessage sofaMessage) {
+        final PaymentRequest paymentRequest = getPaymentRequestFromMessage(sofaMessage);
+        if (paymentRequest == null) return Observable.empty();
+        return paymentRequest
+                .generateLocalPrice()
+                .map(pr -> addLocalPriceToSofaMessage(pr, sofaMessage))
+                .toObservable();
+    }
+
+    // Emits nothing for unparseable or confirmed payments, and for payments sent by the local user
+    private static Observable<SofaMessage> addLocalPriceToPayment(final SofaMessage sofaMessage) {
+        final Payment payment = getPaymentFromMessage(sofaMessage);
+        if (payment == null || payment.getStatus().equals(SofaType.CONFIRMED)) return Observable.empty();
+        return getWallet()
+                .toObservable()
+                .filter(wallet -> paymentNotSentByLocalUser(wallet, payment))
+                .flatMap(__ -> generateLocalPrice(payment).toObservable())
+                .map(paymentWithLocalPrice -> addLocalPriceToSofaMessage(paymentWithLocalPrice, sofaMessage));
+    }
+
     private static Single<Payment> generateLocalPrice(final Payment payment) {
         return BaseApplication
                 .get()
@@ -194,7 +282,7 @@ public class ChatNotificationManager extends ToshiNotificationBuilder {
     }
 
     private static boolean paymentNotSentByLocalUser(final HDWallet wallet, final Payment payment) {
-        return !wallet.getPaymentAddress().equals(payment.getFromAddress());
+        return !wallet.hasAddress(payment.getFromAddress());
     }
 
     private static Single<HDWallet> getWallet() {
@@ -207,13 +295,18 @@ public class ChatNotificationManager extends ToshiNotificationBuilder {
     private static SofaMessage addLocalPriceToSofaMessage(final PaymentRequest paymentRequest,
                                                           final SofaMessage sofaMessage) {
         final String payload = SofaAdapters.get().toJson(paymentRequest);
-        return sofaMessage.setPayload(payload);
+        sofaMessage.setPayload(payload);
+        // The cached request now carries the local price, so re-key it by the new payload.
+        SofaPayloadCache.get().put(sofaMessage, paymentRequest);
+        return sofaMessage;
     }
 
     private static SofaMessage addLocalPriceToSofaMessage(final Payment payment,
                                                           final SofaMessage sofaMessage) {
         final String payload = SofaAdapters.get().toJson(payment);
-        return sofaMessage.setPayload(payload);
+        sofaMessage.setPayload(payload);
+        SofaPayloadCache.get().put(sofaMessage, payment);
+        return sofaMessage;
     }
 
     private static void showPaymentRequestNotification(final Recipient sender, final SofaMessage sofaMessage) {
@@ -238,9 +331,13 @@ public class ChatNotificationManager extends ToshiNotificationBuilder {
                 .subscribe(() -> showNotification(activeChatNotification, getChatNotificationBuilder(messageId, activeChatNotification)));
     }
 
-    private static ChatNotification getAndCacheChatNotification(final Recipient sender) {
+    private static String getNotificationKey(final Recipient sender) {
         // Sender will be null if the transaction came from outside of the Toshi platform.
-        final String notificationKey = sender == null ? ChatNotification.DEFAULT_TAG : sender.getThreadId();
+        return sender == null ? ChatNotification.DEFAULT_TAG : sender.getThreadId();
+    }
+
+    private static ChatNotification getAndCacheChatNotification(final Recipient sender) {
+        final String notificationKey = getNotificationKey(sender);
 
         if (notificationKey.equals(currentlyOpenConversation) && !BaseApplication.get().isInBackground()) {
             return null;
@@ -5,10 +5,11 @@ import android.arch.lifecycle.ViewModel
 import com.toshi.R
 import com.toshi.model.local.Group
 import com.toshi.model.local.User
+import com.toshi.model.network.user.UserType
 import com.toshi.util.SingleLiveEvent
 import com.toshi.util.logging.LogUtil
 import com.toshi.view.BaseApplication
-import rx.Single
+import rx.Observable
 import rx.android.schedulers.AndroidSchedulers
 import rx.schedulers.Schedulers
 import rx.subjects.PublishSubject
@@ -36,11 +37,13 @@ class AddGroupParticipantsViewModel(val groupId: String) : ViewModel() {
     }
 
     private fun subscribeForQueryChanges() {
-        val startSearchSub = querySubject.debounce(500, TimeUnit.MILLISECONDS)
+        val startSearchSub = querySubject.debounce(150, TimeUnit.MILLISECONDS)
                 .filter { query -> query.length >= 3 }
+                .switchMap { searchForUsers(it) }
+                .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(
-                        { runSearchQuery(it) },
-                        { LogUtil.w("Error while listening for query changes $it") }
+                        { searchResults.value = it },
+                        { LogUtil.w("Error while search for user $it") }
                 )
 
         val clearSub = querySubject.filter { query -> query.length < 3 }
@@ -59,22 +62,15 @@ class AddGroupParticipantsViewModel(val groupId: String) : ViewModel() {
 
     fun queryUpdated(query: CharSequence?) = querySubject.onNext(query.toString())
 
-    private fun runSearchQuery(query: String) {
-        val searchSub =
-                Single.zip(
-                        recipientManager.searchOnlineUsers(query),
-                        getGroupMembers(groupId),
-                        { searchResult, groupMembers -> Pair(searchResult, groupMembers) }
-                )
+    private fun searchForUsers(query: String): Observable<List<User>> {
+        return recipientManager
+                .searchUsers(UserType.USER, query)
+                .concatMap { searchResult ->
+                    getGroupMembers(groupId)
+                            .map { filterSearchResult(searchResult, it) }
+                            .toObservable()
+                }
                 .subscribeOn(Schedulers.io())
-                .map { filterSearchResult(it.first, it.second) }
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(
-                        { searchResults.value = it },
-                        { LogUtil.w("Error while search for user $it") }
-                )
-
-        subscriptions.add(searchSub)
     }
 
     private fun filterSearchResult(searchResults: List<User>, groupMembers: List<User>): List<User> {
@@ -19,15 +19,13 @@ package com.toshi.viewModel
 
 import android.arch.lifecycle.MutableLiveData
 import android.arch.lifecycle.ViewModel
-import com.toshi.extensions.findTypeParamValue
 import com.toshi.manager.RecipientManager
 import com.toshi.model.local.User
-import com.toshi.model.network.SearchResult
 import com.toshi.model.network.user.UserType
 import com.toshi.util.logging.LogUtil
 import com.toshi.view.BaseApplication
+import rx.Observable
 import rx.Scheduler
-import rx.Single
 import rx.android.schedulers.AndroidSchedulers
 import rx.subjects.PublishSubject
 import rx.subscriptions.CompositeSubscription
@@ -51,40 +49,30 @@ class ChatSearchViewModel(
 
     private fun subscribeForQueryChanges() {
         val sub = querySubject
-                .debounce(500, TimeUnit.MILLISECONDS)
+                .debounce(150, TimeUnit.MILLISECONDS)
                 .filter { it.first.length > 1 }
-                .subscribe(
-                        { runSearchQuery(it.first, it.second) },
-                        { LogUtil.w("Error while listening for query changes $it") }
-                )
-
-        subscriptions.add(sub)
-    }
-
-    private fun runSearchQuery(query: String, userType: UserType) {
-        val searchSub = searchForUsers(query = query, type = userType)
+                .switchMap { searchForUsers(query = it.first, type = it.second) }
                 .observeOn(scheduler)
                 .subscribe(
-                        { handleResponse(it) },
+                        { handleResponse(it.first, it.second) },
                         { LogUtil.w("Error while searching for users $it") }
                 )
 
-        subscriptions.add(searchSub)
+        subscriptions.add(sub)
     }
 
-    private fun handleResponse(searchResult: SearchResult<User>) {
-        val searchQuery = searchResult.query
-        val result = searchResult.results
-        val resultType = searchQuery.findTypeParamValue()
-        when {
-            resultType.equals(UserType.BOT.name, true) -> botsSearchResults.value = result
-            resultType.equals(UserType.GROUPBOT.name, true) -> groupSearchResults.value = result
-            resultType.equals(UserType.USER.name, true) -> userSearchResults.value = result
+    private fun handleResponse(type: UserType, result: List<User>) {
+        when (type) {
+            UserType.BOT -> botsSearchResults.value = result
+            UserType.GROUPBOT -> groupSearchResults.value = result
+            UserType.USER -> userSearchResults.value = result
         }
     }
 
-    private fun searchForUsers(query: String, type: UserType): Single<SearchResult<User>> {
-        return recipientManager.searchForUsersWithType(type = type.name.toLowerCase(), query = query)
+    private fun searchForUsers(query: String, type: UserType): Observable<Pair<UserType, List<User>>> {
+        return recipientManager
+                .searchUsers(type = type, query = query)
+                .map { Pair(type, it) }
     }
 
     fun search(query: String, userType: UserType) = querySubject.onNext(Pair(query, userType))
@@ -64,8 +64,8 @@ class DappViewModel : ViewModel() {
 
     private fun initSearchListener() {
         val sub = searchSubject
-                .debounce(500, TimeUnit.MILLISECONDS)
-                .flatMap { searchForDapps(it).toObservable() }
+                .debounce(100, TimeUnit.MILLISECONDS)
+                .switchMap { searchForDapps(it).toObservable() }
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(
@@ -20,6 +20,7 @@ package com.toshi.viewModel
 import android.arch.lifecycle.MutableLiveData
 import android.arch.lifecycle.ViewModel
 import com.toshi.model.local.User
+import com.toshi.model.network.user.UserType
 import com.toshi.util.SingleLiveEvent
 import com.toshi.util.logging.LogUtil
 import com.toshi.view.BaseApplication
@@ -46,11 +47,13 @@ class GroupParticipantsViewModel : ViewModel() {
     }
 
     private fun subscribeForQueryChanges() {
-        val startSearchSub = querySubject.debounce(500, TimeUnit.MILLISECONDS)
+        val startSearchSub = querySubject.debounce(150, TimeUnit.MILLISECONDS)
                 .filter { query -> query.length >= 3 }
+                .switchMap { recipientManager.searchUsers(UserType.USER, it) }
+                .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(
-                        { runSearchQuery(it) },
-                        { LogUtil.w("Error while listening for query changes $it") }
+                        { searchResults.value = it },
+                        { LogUtil.w("Error while search for user $it") }
                 )
 
         val clearSub = querySubject.filter { query -> query.length < 3 }
@@ -69,18 +72,6 @@ class GroupParticipantsViewModel : ViewModel() {
 
     fun queryUpdated(query: CharSequence?) = querySubject.onNext(query.toString())
 
-    private fun runSearchQuery(query: String) {
-        val searchSub = recipientManager
-                .searchOnlineUsers(query)
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(
-                        { searchResults.value = it },
-                        { LogUtil.w("Error while search for user $it") }
-                )
-
-        subscriptions.add(searchSub)
-    }
-
     fun toggleSelectedParticipant(user: User) {
         if (participants.contains(user)) participants.remove(user)
         else participants.add(user)
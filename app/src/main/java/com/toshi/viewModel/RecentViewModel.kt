@@ -55,7 +55,7 @@ class RecentViewModel(
     private fun attachSubscriber() {
         val sub = chatManager
                 .registerForAllConversationChanges()
-                .filter { it.allMessages.size > 0 }
+                .filter { it.latestMessage != null }
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(
                         { handleUpdatedConversation(it) },
@@ -0,0 +1,57 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.toshi.benchmark
+
+/**
+ * Timing helpers shared by the *Benchmark classes. Benchmarks only print numbers, so they
+ * are annotated with @Ignore(IGNORED) and left out of the normal test run. Remove the
+ * annotation locally to run one, and keep the correctness checks in the regular tests.
+ */
+object Benchmark {
+
+    const val IGNORED = "Benchmark, prints timings and is run by hand"
+
+    /**
+     * Runs [operation] [warmupRounds] times, then times [measuredRounds] runs and returns
+     * the runs per second. The operation gets the round index, so it can pick its input.
+     */
+    fun opsPerSecond(warmupRounds: Int, measuredRounds: Int, operation: (Int) -> Unit): Double {
+        repeat(warmupRounds) { operation(it % measuredRounds) }
+
+        val start = System.nanoTime()
+        repeat(measuredRounds) { operation(it) }
+        val elapsedNanos = System.nanoTime() - start
+        return measuredRounds / (elapsedNanos / 1_000_000_000.0)
+    }
+
+    /**
+     * Average time of [operation] over [rounds] runs in milliseconds. [beforeEachRound]
+     * runs before each round and is not timed.
+     */
+    fun averageMillis(rounds: Int, beforeEachRound: () -> Unit = {}, operation: () -> Unit): Double {
+        var totalNanos = 0L
+        repeat(rounds) {
+            beforeEachRound()
+            val start = System.nanoTime()
+            operation()
+            totalNanos += System.nanoTime() - start
+        }
+        return totalNanos / rounds / 1_000_000.0
+    }
+}
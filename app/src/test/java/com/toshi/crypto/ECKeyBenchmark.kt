@@ -0,0 +1,64 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.crypto
+
+import com.toshi.benchmark.Benchmark
+import org.junit.Ignore
+import org.junit.Test
+import org.spongycastle.asn1.sec.SECNamedCurves
+import java.math.BigInteger
+import java.util.Random
+
+/**
+ * Operations per second for the secp256k1 primitives ECKey exposes: keygen, sign, verify and recover.
+ * Keygen is also measured on the generic SEC curve for comparison. ECKeySigningTest checks
+ * that both give the same keys.
+ */
+@Ignore(Benchmark.IGNORED)
+class ECKeyBenchmark {
+
+    private val warmupRounds = 200
+    private val measuredRounds = 1000
+    private val random = Random(11)
+
+    @Test
+    fun measureSecp256k1Operations() {
+        val privateKeys = List(measuredRounds) { BigInteger(256, random).mod(ECKey.CURVE.n) }
+        val hashes = List(measuredRounds) { ByteArray(32).also { random.nextBytes(it) } }
+        val key = ECKey.fromPrivate(privateKeys.first())
+        val signatures = hashes.map { key.sign(it) }
+        val genericCurve = SECNamedCurves.getByName("secp256k1")
+
+        val genericKeygen = measure { genericCurve.g.multiply(privateKeys[it]).getEncoded(false) }
+        val keygen = measure { ECKey.publicKeyFromPrivate(privateKeys[it], false) }
+        val sign = measure { key.sign(hashes[it]) }
+        val verify = measure { ECKey.verify(hashes[it], signatures[it], key.pubKey) }
+        val recover = measure {
+            val signature = signatures[it]
+            ECKey.recoverPubBytesFromSignature(signature.v - 27, signature, hashes[it])
+        }
+
+        println("secp256k1 keygen, generic curve: %.0f ops/s".format(genericKeygen))
+        println("secp256k1 keygen: %.0f ops/s".format(keygen))
+        println("secp256k1 sign: %.0f ops/s".format(sign))
+        println("secp256k1 verify: %.0f ops/s".format(verify))
+        println("secp256k1 recover: %.0f ops/s".format(recover))
+    }
+
+    private fun measure(operation: (Int) -> Unit) = Benchmark.opsPerSecond(warmupRounds, measuredRounds, operation)
+}
@@ -0,0 +1,51 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.crypto
+
+import com.toshi.benchmark.Benchmark
+import org.junit.Ignore
+import org.junit.Test
+import java.util.Random
+
+/**
+ * Signatures per second for ECKey.sign against the old sign-then-recover approach.
+ * ECKeySigningTest checks that both produce the same signatures.
+ */
+@Ignore(Benchmark.IGNORED)
+class ECKeySigningBenchmark {
+
+    private val warmupRounds = 200
+    private val measuredRounds = 1000
+
+    @Test
+    fun compareSigningThroughput() {
+        val key = ECKey()
+        val random = Random(7)
+        val hashes = List(measuredRounds) { ByteArray(32).also { random.nextBytes(it) } }
+
+        val trialRecovery = measure(hashes) { signWithTrialRecovery(key, it) }
+        val directRecoveryId = measure(hashes) { key.sign(it) }
+
+        println("ECDSA sign, trial recovery: %.0f sig/s".format(trialRecovery))
+        println("ECDSA sign, direct recovery id: %.0f sig/s".format(directRecoveryId))
+    }
+
+    private fun measure(hashes: List<ByteArray>, sign: (ByteArray) -> ECKey.ECDSASignature): Double {
+        return Benchmark.opsPerSecond(warmupRounds, hashes.size) { sign(hashes[it]) }
+    }
+}
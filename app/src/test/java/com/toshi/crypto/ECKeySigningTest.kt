@@ -0,0 +1,91 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.crypto
+
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.spongycastle.asn1.sec.SECNamedCurves
+import java.math.BigInteger
+import java.util.Arrays
+import java.util.Random
+
+class ECKeySigningTest {
+
+    private val random = Random(42)
+
+    @Test
+    fun signatureMatchesTrialRecoverySignature() {
+        repeat(200) {
+            val key = ECKey()
+            val messageHash = randomHash()
+            val signature = key.sign(messageHash)
+            val expected = signWithTrialRecovery(key, messageHash)
+            assertThat(signature.r, `is`(expected.r))
+            assertThat(signature.s, `is`(expected.s))
+            assertThat(signature.v, `is`(expected.v))
+        }
+    }
+
+    @Test
+    fun publicKeyCanBeRecoveredFromSignature() {
+        repeat(50) {
+            val key = ECKey()
+            val messageHash = randomHash()
+            val signature = key.sign(messageHash)
+            val recovered = ECKey.recoverPubBytesFromSignature(signature.v - 27, signature, messageHash)
+            assertThat(Arrays.equals(recovered, key.pubKey), `is`(true))
+        }
+    }
+
+    @Test
+    fun publicKeyMatchesGenericCurveMultiplication() {
+        val genericCurve = SECNamedCurves.getByName("secp256k1")
+        repeat(50) {
+            val privateKey = BigInteger(256, random).mod(ECKey.CURVE.n)
+            val expected = genericCurve.g.multiply(privateKey).getEncoded(false)
+            assertThat(Arrays.equals(ECKey.publicKeyFromPrivate(privateKey, false), expected), `is`(true))
+        }
+    }
+
+    @Test
+    fun signatureVerifiesAgainstPublicKey() {
+        repeat(50) {
+            val key = ECKey()
+            val messageHash = randomHash()
+            val signature = key.sign(messageHash)
+            assertThat(ECKey.verify(messageHash, signature, key.pubKey), `is`(true))
+            assertThat(ECKey.verify(randomHash(), signature, key.pubKey), `is`(false))
+        }
+    }
+
+    private fun randomHash() = ByteArray(32).also { random.nextBytes(it) }
+}
+
+/**
+ * How ECKey.sign used to find v: sign, then try every recovery id until one
+ * gives back the signer's public key.
+ */
+fun signWithTrialRecovery(key: ECKey, messageHash: ByteArray): ECKey.ECDSASignature {
+    val signature = key.doSign(messageHash)
+    val recId = (0..3).first {
+        Arrays.equals(ECKey.recoverPubBytesFromSignature(it, signature, messageHash), key.pubKey)
+    }
+    signature.v = (recId + 27).toByte()
+    return signature
+}
@@ -1,6 +1,7 @@
 package com.toshi.crypto
 
 import android.content.Context
+import com.toshi.crypto.util.toAddressWithChecksum
 import com.toshi.testSharedPrefs.TestWalletPrefs
 import org.hamcrest.CoreMatchers.`is`
 import org.hamcrest.MatcherAssert.assertThat
@@ -80,4 +81,52 @@ class HDWalletTest {
             assertThat(hdwallet.paymentAddress, `is`(expected[index]))
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    fun walletLoadedFromDerivedKeyCacheMatchesDerivedWallet() {
+        val derivedWallet = HdWalletBuilder(walletPrefs, context)
+                .getExistingWallet()
+                .toBlocking()
+                .value()
+        assertThat(walletPrefs.getDerivedKeys() != null, `is`(true))
+
+        val cachedWallet = HdWalletBuilder(walletPrefs, context)
+                .getExistingWallet()
+                .toBlocking()
+                .value()
+        assertThat(cachedWallet.ownerAddress, `is`(derivedWallet.ownerAddress))
+        assertThat(cachedWallet.paymentAddress, `is`(expectedPaymentAddress))
+    }
+
+    @Test
+    fun corruptDerivedKeyCacheFallsBackToDerivation() {
+        walletPrefs.setDerivedKeys("not a key cache")
+        val wallet = HdWalletBuilder(walletPrefs, context)
+                .getExistingWallet()
+                .toBlocking()
+                .value()
+        assertThat(wallet.ownerAddress, `is`(expectedOwnerAddress))
+        assertThat(wallet.paymentAddress, `is`(expectedPaymentAddress))
+    }
+
+    @Test
+    fun walletAddressesAreIndexedByWalletIndex() {
+        val wallet = HdWalletBuilder(walletPrefs, context)
+                .getExistingWallet()
+                .toBlocking()
+                .value()
+        val addresses = wallet.getAddresses()
+        addresses.forEachIndexed { index, address ->
+            val checksumAddress = wallet.getChecksumAddresses()[index]
+            assertThat(checksumAddress, `is`(toAddressWithChecksum(address)))
+            assertThat(wallet.getWalletIndexOf(address), `is`(index))
+            assertThat(wallet.getWalletIndexOf(checksumAddress), `is`(index))
+            assertThat(wallet.hasAddress(address), `is`(true))
+            assertThat(wallet.hasAddress(checksumAddress), `is`(true))
+        }
+        assertThat(wallet.getWalletIndexOf(expectedOwnerAddress), `is`(-1))
+        assertThat(wallet.hasAddress(expectedOwnerAddress), `is`(false))
+        assertThat(wallet.hasAddress("0x0000000000000000000000000000000000000000"), `is`(false))
+        assertThat(wallet.hasAddress(null), `is`(false))
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.crypto
+
+import android.content.Context
+import com.toshi.benchmark.Benchmark
+import com.toshi.testSharedPrefs.TestWalletPrefs
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Ignore
+import org.junit.Test
+import org.mockito.Mockito
+
+/**
+ * Compares opening an existing wallet by deriving every key from the master seed
+ * against opening it from the derived key cache. HDWalletTest checks that both give
+ * the same wallet.
+ */
+@Ignore(Benchmark.IGNORED)
+class HdWalletStartupBenchmark {
+
+    private val masterSeed = "abandon abandon abandon abandon abandon abandon abandon abandon abandon abandon abandon about"
+    private val rounds = 5
+
+    @Test
+    fun compareDerivedAndCachedStartup() {
+        val walletPrefs = TestWalletPrefs()
+        val context = Mockito.mock(Context::class.java)
+        val expectedWallet = HdWalletBuilder(walletPrefs, context)
+                .buildFromMasterSeed(masterSeed)
+                .toBlocking()
+                .value()
+
+        val derivedMillis = measure(walletPrefs, context, expectedWallet.ownerAddress) { walletPrefs.setDerivedKeys(null) }
+        val cachedMillis = measure(walletPrefs, context, expectedWallet.ownerAddress) {}
+
+        println("Wallet startup, full derivation: %.1f ms".format(derivedMillis))
+        println("Wallet startup, derived key cache: %.1f ms".format(cachedMillis))
+    }
+
+    private fun measure(walletPrefs: TestWalletPrefs,
+                        context: Context,
+                        expectedOwnerAddress: String,
+                        beforeEachRound: () -> Unit): Double {
+        return Benchmark.averageMillis(rounds, beforeEachRound) {
+            val wallet = HdWalletBuilder(walletPrefs, context)
+                    .getExistingWallet()
+                    .toBlocking()
+                    .value()
+            assertThat(wallet.ownerAddress, `is`(expectedOwnerAddress))
+        }
+    }
+}
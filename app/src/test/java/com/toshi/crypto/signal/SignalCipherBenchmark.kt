@@ -0,0 +1,134 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.toshi.crypto.signal
+
+import com.toshi.benchmark.Benchmark
+import com.toshi.crypto.signal.store.ProtocolStore
+import com.toshi.crypto.signal.store.SignalIdentityKeyStore
+import com.toshi.testSharedPrefs.TestSignalPrefs
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Ignore
+import org.junit.Test
+import org.whispersystems.libsignal.IdentityKeyPair
+import org.whispersystems.libsignal.SessionBuilder
+import org.whispersystems.libsignal.SessionCipher
+import org.whispersystems.libsignal.SignalProtocolAddress
+import org.whispersystems.libsignal.ecc.Curve
+import org.whispersystems.libsignal.protocol.CiphertextMessage
+import org.whispersystems.libsignal.protocol.PreKeySignalMessage
+import org.whispersystems.libsignal.protocol.SignalMessage
+import org.whispersystems.libsignal.state.IdentityKeyStore
+import org.whispersystems.libsignal.state.PreKeyBundle
+import org.whispersystems.libsignal.state.PreKeyRecord
+import org.whispersystems.libsignal.state.SignalProtocolStore
+import org.whispersystems.libsignal.state.SignedPreKeyRecord
+import org.whispersystems.libsignal.state.impl.InMemorySignalProtocolStore
+import org.whispersystems.libsignal.util.KeyHelper
+
+/**
+ * Encrypt/decrypt throughput with the local identity read through SignalIdentityKeyStore, which
+ * decodes it from prefs on every call, against ProtocolStore, which keeps it in memory.
+ * Sessions and prekeys are held in memory for both, since the real stores need Realm.
+ */
+@Ignore(Benchmark.IGNORED)
+class SignalCipherBenchmark {
+
+    private val warmupRounds = 50
+    private val measuredRounds = 300
+
+    @Test
+    fun compareDecodedAndCachedIdentityThroughput() {
+        val decoded = measure { SignalIdentityKeyStore(it) }
+        val cached = measure { ProtocolStore(it) }
+
+        // Every round is two encrypts and two decrypts
+        println("Signal encrypt/decrypt, decoded identity: %.1f msg/s".format(decoded * 2))
+        println("Signal encrypt/decrypt, cached identity: %.1f msg/s".format(cached * 2))
+    }
+
+    private fun measure(identityStoreFactory: (TestSignalPrefs) -> IdentityKeyStore): Double {
+        val alice = IdentityBackedStore(identityStoreFactory(newSignalPrefs()))
+        val bob = IdentityBackedStore(identityStoreFactory(newSignalPrefs()))
+        val aliceAddress = SignalProtocolAddress("alice", 1)
+        val bobAddress = SignalProtocolAddress("bob", 1)
+
+        SessionBuilder(alice, bobAddress).process(createPreKeyBundle(bob))
+        val aliceCipher = SessionCipher(alice, bobAddress)
+        val bobCipher = SessionCipher(bob, aliceAddress)
+
+        return Benchmark.opsPerSecond(warmupRounds, measuredRounds) { exchange(aliceCipher, bobCipher, it) }
+    }
+
+    private fun newSignalPrefs(): TestSignalPrefs {
+        val signalPrefs = TestSignalPrefs()
+        signalPrefs.setSerializedIdentityKeyPair(KeyHelper.generateIdentityKeyPair().serialize())
+        signalPrefs.setLocalRegistrationId(KeyHelper.generateRegistrationId(false))
+        return signalPrefs
+    }
+
+    private fun exchange(aliceCipher: SessionCipher, bobCipher: SessionCipher, round: Int) {
+        val ping = "ping $round"
+        assertThat(String(decrypt(bobCipher, aliceCipher.encrypt(ping.toByteArray()))), `is`(ping))
+        val pong = "pong $round"
+        assertThat(String(decrypt(aliceCipher, bobCipher.encrypt(pong.toByteArray()))), `is`(pong))
+    }
+
+    private fun decrypt(cipher: SessionCipher, message: CiphertextMessage): ByteArray {
+        return if (message.type == CiphertextMessage.PREKEY_TYPE) {
+            cipher.decrypt(PreKeySignalMessage(message.serialize()))
+        } else {
+            cipher.decrypt(SignalMessage(message.serialize()))
+        }
+    }
+
+    private fun createPreKeyBundle(store: SignalProtocolStore): PreKeyBundle {
+        val preKeyPair = Curve.generateKeyPair()
+        val signedPreKeyPair = Curve.generateKeyPair()
+        val signature = Curve.calculateSignature(
+                store.identityKeyPair.privateKey,
+                signedPreKeyPair.publicKey.serialize()
+        )
+        store.storePreKey(1, PreKeyRecord(1, preKeyPair))
+        store.storeSignedPreKey(1, SignedPreKeyRecord(1, System.currentTimeMillis(), signedPreKeyPair, signature))
+        return PreKeyBundle(
+                store.localRegistrationId,
+                1,
+                1,
+                preKeyPair.publicKey,
+                1,
+                signedPreKeyPair.publicKey,
+                signature,
+                store.identityKeyPair.publicKey
+        )
+    }
+
+    /**
+     * Asks the given store for the local identity on every call, the way libsignal uses
+     * ProtocolStore, and keeps everything else in memory.
+     */
+    private class IdentityBackedStore(
+            private val identityStore: IdentityKeyStore
+    ) : InMemorySignalProtocolStore(identityStore.identityKeyPair, identityStore.localRegistrationId) {
+
+        override fun getIdentityKeyPair(): IdentityKeyPair = identityStore.identityKeyPair
+
+        override fun getLocalRegistrationId(): Int = identityStore.localRegistrationId
+    }
+}
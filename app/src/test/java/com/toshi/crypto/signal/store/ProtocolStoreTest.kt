@@ -0,0 +1,81 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.toshi.crypto.signal.store
+
+import com.toshi.testSharedPrefs.TestSignalPrefs
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.not
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.whispersystems.libsignal.IdentityKeyPair
+import org.whispersystems.libsignal.util.KeyHelper
+
+class ProtocolStoreTest {
+
+    private lateinit var signalPrefs: TestSignalPrefs
+    private lateinit var protocolStore: ProtocolStore
+
+    @Before
+    fun setup() {
+        signalPrefs = TestSignalPrefs()
+        protocolStore = ProtocolStore(signalPrefs)
+    }
+
+    @Test
+    fun `identity is read from prefs once and kept in memory`() {
+        val storedIdentity = storeNewIdentity(registrationId = 1)
+        assertThat(protocolStore.identityKeyPair.serialize(), `is`(storedIdentity.serialize()))
+        assertThat(protocolStore.localRegistrationId, `is`(1))
+
+        storeNewIdentity(registrationId = 2)
+        assertThat(protocolStore.identityKeyPair.serialize(), `is`(storedIdentity.serialize()))
+        assertThat(protocolStore.localRegistrationId, `is`(1))
+    }
+
+    @Test
+    fun `cached identity is dropped when prefs are cleared`() {
+        val oldIdentity = storeNewIdentity(registrationId = 1)
+        assertThat(protocolStore.identityKeyPair.serialize(), `is`(oldIdentity.serialize()))
+        assertThat(protocolStore.localRegistrationId, `is`(1))
+
+        signalPrefs.clear()
+        val newIdentity = storeNewIdentity(registrationId = 2)
+        assertThat(protocolStore.identityKeyPair.serialize(), `is`(newIdentity.serialize()))
+        assertThat(protocolStore.localRegistrationId, `is`(2))
+    }
+
+    @Test
+    fun `identity is regenerated and stored when prefs are cleared without a new one`() {
+        val oldIdentity = storeNewIdentity(registrationId = 1)
+        assertThat(protocolStore.identityKeyPair.serialize(), `is`(oldIdentity.serialize()))
+
+        signalPrefs.clear()
+        val regeneratedIdentity = protocolStore.identityKeyPair
+        assertThat(regeneratedIdentity.serialize(), not(oldIdentity.serialize()))
+        assertThat(signalPrefs.getSerializedIdentityKeyPair(), `is`(regeneratedIdentity.serialize()))
+    }
+
+    private fun storeNewIdentity(registrationId: Int): IdentityKeyPair {
+        val identity = KeyHelper.generateIdentityKeyPair()
+        signalPrefs.setSerializedIdentityKeyPair(identity.serialize())
+        signalPrefs.setLocalRegistrationId(registrationId)
+        return identity
+    }
+}
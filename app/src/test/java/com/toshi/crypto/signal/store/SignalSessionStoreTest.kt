@@ -0,0 +1,119 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.toshi.crypto.signal.store
+
+import android.content.Context
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.mockito.Mockito
+import org.whispersystems.libsignal.SignalProtocolAddress
+import org.whispersystems.libsignal.ecc.Curve
+import org.whispersystems.libsignal.kdf.HKDF
+import org.whispersystems.libsignal.ratchet.ChainKey
+import org.whispersystems.libsignal.state.SessionRecord
+
+class SignalSessionStoreTest {
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private val address = SignalProtocolAddress("0x1", 1)
+    private lateinit var sessionStore: SignalSessionStore
+
+    @Before
+    fun setup() {
+        val context = Mockito.mock(Context::class.java)
+        Mockito.`when`(context.filesDir).thenReturn(temporaryFolder.newFolder("files"))
+        sessionStore = SignalSessionStore(context)
+    }
+
+    // The session cache is shared by every store, so it is emptied between tests
+    @After
+    fun tearDown() = sessionStore.deleteAllSessions()
+
+    @Test
+    fun `absent sessions are not contained before or after loading`() {
+        assertThat(sessionStore.containsSession(address), `is`(false))
+        assertThat(sessionStore.loadSession(address).sessionState.hasSenderChain(), `is`(false))
+        assertThat(sessionStore.containsSession(address), `is`(false))
+    }
+
+    @Test
+    fun `stored session replaces an absent one`() {
+        sessionStore.loadSession(address)
+        sessionStore.storeSession(address, createSession(remoteRegistrationId = 7))
+
+        assertThat(sessionStore.containsSession(address), `is`(true))
+        assertThat(sessionStore.loadSession(address).sessionState.remoteRegistrationId, `is`(7))
+    }
+
+    @Test
+    fun `session without a sender chain is not contained`() {
+        sessionStore.storeSession(address, SessionRecord())
+        assertThat(sessionStore.containsSession(address), `is`(false))
+    }
+
+    @Test
+    fun `loaded sessions are independent copies`() {
+        val stored = createSession(remoteRegistrationId = 7)
+        sessionStore.storeSession(address, stored)
+        stored.sessionState.remoteRegistrationId = 8
+
+        val first = sessionStore.loadSession(address)
+        first.sessionState.remoteRegistrationId = 9
+        val second = sessionStore.loadSession(address)
+
+        assertThat(second.sessionState.remoteRegistrationId, `is`(7))
+        assertThat(first === second, `is`(false))
+    }
+
+    @Test
+    fun `deleted session loads as a new record`() {
+        sessionStore.storeSession(address, createSession(remoteRegistrationId = 7))
+        sessionStore.deleteSession(address)
+
+        assertThat(sessionStore.containsSession(address), `is`(false))
+        val loaded = sessionStore.loadSession(address)
+        assertThat(loaded.sessionState.hasSenderChain(), `is`(false))
+        assertThat(loaded.sessionState.remoteRegistrationId, `is`(0))
+    }
+
+    @Test
+    fun `sessions for different devices are kept apart`() {
+        val otherDevice = SignalProtocolAddress(address.name, 2)
+        sessionStore.storeSession(address, createSession(remoteRegistrationId = 7))
+        sessionStore.storeSession(otherDevice, createSession(remoteRegistrationId = 8))
+        sessionStore.deleteSession(address)
+
+        assertThat(sessionStore.containsSession(address), `is`(false))
+        assertThat(sessionStore.loadSession(otherDevice).sessionState.remoteRegistrationId, `is`(8))
+    }
+
+    private fun createSession(remoteRegistrationId: Int): SessionRecord {
+        val record = SessionRecord()
+        record.sessionState.remoteRegistrationId = remoteRegistrationId
+        record.sessionState.setSenderChain(Curve.generateKeyPair(), ChainKey(HKDF.createFor(3), ByteArray(32), 0))
+        return record
+    }
+}
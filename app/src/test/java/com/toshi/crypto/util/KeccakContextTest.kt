@@ -0,0 +1,83 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.crypto.util
+
+import okio.Buffer
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.spongycastle.util.encoders.Hex
+import java.nio.ByteBuffer
+import java.util.Random
+
+class KeccakContextTest {
+
+    private val random = Random(9)
+
+    @Test
+    fun hashesKnownVectors() {
+        assertThat(Hex.toHexString(HashUtil.sha3(ByteArray(0))), `is`("c5d2460186f7233c927e7db2dcc703c0e500b653ca82273b7bfad8045d85a470"))
+        assertThat(Hex.toHexString(HashUtil.sha3("abc".toByteArray())), `is`("4e03657aea45a94fc7d47ba826c8d667c0d1e6e33a64a036ec44f58fa12d6c45"))
+    }
+
+    @Test
+    fun fragmentsHashLikeTheWholeInput() {
+        val input = randomBytes(1000)
+        val expected = HashUtil.sha3(input)
+        val context = KeccakContext.get()
+                .update(input, 0, 135)
+                .update(input, 135, 1)
+                .update(input, 136, input.size - 136)
+        assertThat(Hex.toHexString(context.digest()), `is`(Hex.toHexString(expected)))
+    }
+
+    @Test
+    fun digestIntoWritesAtOffset() {
+        val input = randomBytes(64)
+        val output = ByteArray(40)
+        KeccakContext.get().update(input).digestInto(output, 8)
+        assertThat(Hex.toHexString(output.copyOfRange(8, 40)), `is`(Hex.toHexString(HashUtil.sha3(input))))
+    }
+
+    @Test
+    fun byteBuffersAreConsumed() {
+        val input = randomBytes(500)
+        val expected = Hex.toHexString(HashUtil.sha3(input))
+
+        val heap = ByteBuffer.wrap(input)
+        assertThat(Hex.toHexString(KeccakContext.get().update(heap).digest()), `is`(expected))
+        assertThat(heap.hasRemaining(), `is`(false))
+
+        val direct = ByteBuffer.allocateDirect(input.size).put(input).also { it.flip() }
+        assertThat(Hex.toHexString(KeccakContext.get().update(direct).digest()), `is`(expected))
+        assertThat(direct.hasRemaining(), `is`(false))
+    }
+
+    @Test
+    fun okioBufferIsHashedInPlace() {
+        // Large enough to span several okio segments
+        val input = randomBytes(20_000)
+        val buffer = Buffer().write(input)
+        val hash = KeccakContext.get().update(buffer).digest()
+        assertThat(Hex.toHexString(hash), `is`(Hex.toHexString(HashUtil.sha3(input))))
+        assertThat(buffer.size(), `is`(input.size.toLong()))
+        assertThat(Hex.toHexString(KeccakContext.get().update(Buffer()).digest()), `is`(Hex.toHexString(HashUtil.sha3(ByteArray(0)))))
+    }
+
+    private fun randomBytes(size: Int) = ByteArray(size).also { random.nextBytes(it) }
+}
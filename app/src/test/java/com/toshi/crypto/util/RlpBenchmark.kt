@@ -0,0 +1,71 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.crypto.util
+
+import com.toshi.benchmark.Benchmark
+import org.junit.Ignore
+import org.junit.Test
+import java.math.BigInteger
+import java.util.Random
+
+/**
+ * Encodes and decodes per second for RLP, against the concatenating encoder it replaced.
+ * RlpEquivalenceTest checks that both encoders give the same bytes.
+ */
+@Ignore(Benchmark.IGNORED)
+class RlpBenchmark {
+
+    private val warmupRounds = 500
+    private val measuredRounds = 5000
+
+    @Test
+    fun compareRlpThroughput() {
+        val random = Random(5)
+        val transaction = arrayOf<Any>(
+                BigInteger.valueOf(random.nextInt(1000).toLong()),
+                BigInteger.valueOf(20_000_000_000L),
+                BigInteger.valueOf(21000),
+                ByteArray(20).also { random.nextBytes(it) },
+                BigInteger.TEN.pow(18),
+                ByteArray(68).also { random.nextBytes(it) },
+                BigInteger.valueOf(116),
+                "",
+                ""
+        )
+        val largeList = Array<Any>(500) { BigInteger(64, random) }
+        val encodedLargeList = RLP.encode(largeList)
+
+        println("RLP encode transaction, concatenating: %.0f ops/s".format(measure { legacyEncode(transaction) }))
+        println("RLP encode transaction, single buffer: %.0f ops/s".format(measure { RLP.encode(transaction) }))
+        println("RLP encode 500 item list, concatenating: %.0f ops/s".format(measure { legacyEncode(largeList) }))
+        println("RLP encode 500 item list, single buffer: %.0f ops/s".format(measure { RLP.encode(largeList) }))
+        println("RLP decode 500 item list to objects: %.0f ops/s".format(measure { RLP.decode(encodedLargeList, 0) }))
+        println("RLP walk 500 item list with cursor: %.0f ops/s".format(measure { walk(encodedLargeList) }))
+    }
+
+    private fun walk(encoded: ByteArray): Int {
+        val items = RlpReader(encoded).next().list()
+        var payloadBytes = 0
+        while (items.hasNext()) payloadBytes += items.next().payloadLength()
+        return payloadBytes
+    }
+
+    private fun measure(operation: () -> Any): Double {
+        return Benchmark.opsPerSecond(warmupRounds, measuredRounds) { operation() }
+    }
+}
@@ -22,15 +22,16 @@ import com.toshi.manager.BalanceManager
 import com.toshi.manager.ethRegistration.EthGcmRegistration
 import com.toshi.manager.network.CurrencyInterface
 import com.toshi.manager.network.EthereumServiceInterface
+import com.toshi.manager.pushRegistration.PushRegistrar
 import com.toshi.managers.baseApplication.BaseApplicationMocker
 import com.toshi.mockWallet
 import com.toshi.mockWalletSubject
 import com.toshi.model.local.network.Network
 import com.toshi.model.local.network.Networks
 import com.toshi.model.network.ExchangeRate
+import com.toshi.testSharedPrefs.TestPushRegistrationPrefs
 import com.toshi.util.sharedPrefs.AppPrefsInterface
 import com.toshi.util.sharedPrefs.BalancePrefsInterface
-import com.toshi.util.sharedPrefs.EthGcmPrefsInterface
 import org.mockito.ArgumentMatchers
 import org.mockito.Mockito
 import rx.Observable
@@ -59,8 +60,7 @@ class BalanceManagerMocker(
         val appPrefs = createAppPrefsMock()
         val currencyApi = createCurrencyApiMock()
         val balancePrefs = createBalancePrefsMock()
-        val gcmPrefs = createGcmPrefsMock()
-        val ethGcmRegistration = createEthGcmRegistration(gcmPrefs, ethService)
+        val ethGcmRegistration = createEthGcmRegistration(ethService)
         val baseApplication = createMockBaseApplication()
         val walletObservable = mockWalletObservable()
 
@@ -88,13 +88,6 @@ class BalanceManagerMocker(
         return currencyApi
     }
 
-    private fun createGcmPrefsMock(): EthGcmPrefsInterface {
-        val gcmPrefs = Mockito.mock(EthGcmPrefsInterface::class.java)
-        Mockito.`when`(gcmPrefs.isEthGcmTokenSentToServer(ArgumentMatchers.anyString()))
-                .thenReturn(true)
-        return gcmPrefs
-    }
-
     private fun createAppPrefsMock(): AppPrefsInterface {
         val appPrefs = Mockito.mock(AppPrefsInterface::class.java)
         Mockito.`when`(appPrefs.getCurrency())
@@ -109,14 +102,13 @@ class BalanceManagerMocker(
         return balancePrefs
     }
 
-    private fun createEthGcmRegistration(gcmPrefs: EthGcmPrefsInterface,
-                                         ethApi: EthereumServiceInterface): EthGcmRegistration {
+    private fun createEthGcmRegistration(ethApi: EthereumServiceInterface): EthGcmRegistration {
         val networks = createMockedNetworks()
         val walletObservable = mockWalletObservable()
         return EthGcmRegistration(
                 networks = networks,
-                gcmPrefs = gcmPrefs,
                 ethService = ethApi,
+                pushRegistrar = PushRegistrar(TestPushRegistrationPrefs()),
                 walletObservable = walletObservable,
                 scheduler = Schedulers.trampoline()
         )
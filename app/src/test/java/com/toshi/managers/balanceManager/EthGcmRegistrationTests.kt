@@ -20,17 +20,17 @@ package com.toshi.managers.balanceManager
 import com.toshi.crypto.HDWallet
 import com.toshi.manager.ethRegistration.EthGcmRegistration
 import com.toshi.manager.network.EthereumServiceInterface
+import com.toshi.manager.pushRegistration.PushRegistrar
 import com.toshi.masterSeed
 import com.toshi.mockNetwork
 import com.toshi.mockWallet
 import com.toshi.mockWalletSubject
 import com.toshi.network
 import com.toshi.testSharedPrefs.TestAppPrefs
-import com.toshi.testSharedPrefs.TestEthGcmPrefs
 import com.toshi.testSharedPrefs.TestGcmToken
+import com.toshi.testSharedPrefs.TestPushRegistrationPrefs
 import com.toshi.util.gcm.GcmTokenInterface
 import com.toshi.util.sharedPrefs.AppPrefsInterface
-import com.toshi.util.sharedPrefs.EthGcmPrefsInterface
 import org.junit.Assert.assertFalse
 import org.junit.Assert.assertTrue
 import org.junit.Assert.fail
@@ -44,7 +44,6 @@ class EthGcmRegistrationTests {
     private lateinit var wallet: HDWallet
     private lateinit var ethGcmRegistration: EthGcmRegistration
     private lateinit var appPrefs: AppPrefsInterface
-    private lateinit var gcmPrefs: EthGcmPrefsInterface
     private lateinit var ethService: EthereumServiceInterface
     private lateinit var gcmToken: GcmTokenInterface
 
@@ -56,7 +55,6 @@ class EthGcmRegistrationTests {
     private fun mock() {
         ethService = mockEthService()
         appPrefs = TestAppPrefs()
-        gcmPrefs = TestEthGcmPrefs()
         gcmToken = TestGcmToken()
         wallet = mockWallet(masterSeed)
     }
@@ -70,8 +68,7 @@ class EthGcmRegistrationTests {
             ethGcmRegistration.forceRegisterEthGcm().await()
         } catch (e: RuntimeException) {
             assertTrue(e.cause is TimeoutException)
-            val isEthGcmTokenSentToServer = gcmPrefs.isEthGcmTokenSentToServer(network.id)
-            assertFalse(isEthGcmTokenSentToServer)
+            assertFalse(ethGcmRegistration.isRegistered(network.id))
             return
         }
         fail("An exception should have been thrown here")
@@ -86,13 +83,14 @@ class EthGcmRegistrationTests {
             fail("No exception should be thrown when registering")
             return
         }
-        val isEthGcmTokenSentToServer = gcmPrefs.isEthGcmTokenSentToServer(network.id)
-        assertTrue(isEthGcmTokenSentToServer)
+        assertTrue(ethGcmRegistration.isRegistered(network.id))
     }
 
     @Test
     fun unregisterGcm() {
         initEthGcmRegistration(wallet)
+        ethGcmRegistration.forceRegisterEthGcm().await()
+        assertTrue(ethGcmRegistration.isRegistered(network.id))
         val token = gcmToken.get().toBlocking().value()
         try {
             ethGcmRegistration.unregisterFromEthGcm(token).await()
@@ -100,36 +98,33 @@ class EthGcmRegistrationTests {
             fail("No exception should be thrown when unregistering")
             return
         }
-        val isEthGcmTokenSentToServer = gcmPrefs.isEthGcmTokenSentToServer(network.id)
-        assertFalse(isEthGcmTokenSentToServer)
+        assertFalse(ethGcmRegistration.isRegistered(network.id))
     }
 
     @Test
     fun clearPrefs() {
         initEthGcmRegistration(wallet)
-        gcmPrefs.setEthGcmTokenSentToServer(network.id, true)
-        assertTrue(gcmPrefs.isEthGcmTokenSentToServer(network.id))
+        ethGcmRegistration.forceRegisterEthGcm().await()
+        assertTrue(ethGcmRegistration.isRegistered(network.id))
         ethGcmRegistration.clear()
-        assertFalse(gcmPrefs.isEthGcmTokenSentToServer(network.id))
+        assertFalse(ethGcmRegistration.isRegistered(network.id))
     }
 
     private fun initEthGcmRegistration(wallet: HDWallet?) {
         appPrefs.clear()
-        gcmPrefs.clear()
-        ethGcmRegistration = createEthGcmRegistration(wallet, gcmPrefs, ethService, gcmToken)
+        ethGcmRegistration = createEthGcmRegistration(wallet, ethService, gcmToken)
     }
 
     private fun createEthGcmRegistration(wallet: HDWallet?,
-                                         gcmPrefs: EthGcmPrefsInterface,
                                          ethService: EthereumServiceInterface,
                                          gcmToken: GcmTokenInterface): EthGcmRegistration {
         val networks = mockNetwork(network)
         val walletObservable = mockWalletSubject(wallet)
         return EthGcmRegistration(
                 networks = networks,
-                gcmPrefs = gcmPrefs,
                 ethService = ethService,
                 gcmToken = gcmToken,
+                pushRegistrar = PushRegistrar(TestPushRegistrationPrefs()),
                 walletObservable = walletObservable,
                 scheduler = Schedulers.trampoline()
         )
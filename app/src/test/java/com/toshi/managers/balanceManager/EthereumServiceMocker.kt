@@ -55,12 +55,7 @@ class EthereumServiceMocker {
         Mockito.`when`(ethApi.sendSignedTransaction(any(Long::class.java), any(SignedTransaction::class.java)))
                 .thenReturn(Single.just(SentTransaction()))
 
-        val ethService = Mockito.mock(EthereumServiceInterface::class.java)
-
-        Mockito.`when`(ethService.get())
-                .thenReturn(ethApi)
-
-        return ethService
+        return mockEthService(ethApi)
     }
 
     fun mockWithErrorResponse(): EthereumServiceInterface {
@@ -73,12 +68,7 @@ class EthereumServiceMocker {
         Mockito.`when`(ethApi.unregisterGcm(any(Long::class.java), any(GcmDeregistration::class.java)))
                 .thenThrow(IllegalStateException("No network"))
 
-        val ethService = Mockito.mock(EthereumServiceInterface::class.java)
-
-        Mockito.`when`(ethService.get())
-                .thenReturn(ethApi)
-
-        return ethService
+        return mockEthService(ethApi)
     }
 
     fun mockCreateTransaction(unsignedTransaction: UnsignedTransaction): EthereumServiceInterface {
@@ -88,11 +78,17 @@ class EthereumServiceMocker {
                 .`when`(ethApi.createTransaction(any(TransactionRequest::class.java)))
                 .thenReturn(Single.just(unsignedTransaction))
 
+        return mockEthService(ethApi)
+    }
+
+    private fun mockEthService(ethApi: EthereumInterface): EthereumServiceInterface {
         val ethService = Mockito.mock(EthereumServiceInterface::class.java)
 
         Mockito.`when`(ethService.get())
                 .thenReturn(ethApi)
+        Mockito.`when`(ethService.getCurrentBaseUrl())
+                .thenReturn("https://ethereum.test")
 
         return ethService
     }
-}
\ No newline at end of file
+}
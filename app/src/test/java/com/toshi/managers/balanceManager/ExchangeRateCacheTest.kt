@@ -0,0 +1,116 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.managers.balanceManager
+
+import com.toshi.manager.exchangeRate.ExchangeRateCache
+import com.toshi.model.local.CachedExchangeRate
+import com.toshi.model.network.ExchangeRate
+import com.toshi.util.sharedPrefs.BalancePrefsInterface
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.junit.Before
+import org.junit.Test
+import org.mockito.ArgumentMatchers
+import org.mockito.Mockito
+import rx.Single
+import rx.subjects.PublishSubject
+import java.io.IOException
+import java.math.BigDecimal
+
+class ExchangeRateCacheTest {
+
+    private val ttl = 1000L
+    private val stale = 10000L
+    private var now = 0L
+    private var fetchCount = 0
+    private lateinit var balancePrefs: BalancePrefsInterface
+
+    @Before
+    fun setup() {
+        now = 0L
+        fetchCount = 0
+        balancePrefs = Mockito.mock(BalancePrefsInterface::class.java)
+    }
+
+    @Test
+    fun `fresh rate is served from memory`() {
+        val cache = createCache { Single.just(rate(500)) }
+        cache.getRate("USD").toBlocking().value()
+        now += ttl - 1
+        val exchangeRate = cache.getRate("USD").toBlocking().value()
+        assertThat(exchangeRate.rate, `is`(BigDecimal(500)))
+        assertThat(fetchCount, `is`(1))
+    }
+
+    @Test
+    fun `concurrent requests share one network call`() {
+        val response = PublishSubject.create<ExchangeRate>()
+        val cache = createCache { response.toSingle() }
+        val first = cache.getRate("USD").test()
+        val second = cache.getRate("USD").test()
+        response.onNext(rate(500))
+        response.onCompleted()
+        first.assertValueCount(1)
+        second.assertValueCount(1)
+        assertThat(fetchCount, `is`(1))
+    }
+
+    @Test
+    fun `stale rate is served while refreshing`() {
+        var nextRate = 500
+        val cache = createCache { Single.just(rate(nextRate)) }
+        cache.getRate("USD").toBlocking().value()
+        now += ttl
+        nextRate = 600
+        val staleRate = cache.getRate("USD").toBlocking().value()
+        val refreshedRate = cache.getRate("USD").toBlocking().value()
+        assertThat(staleRate.rate, `is`(BigDecimal(500)))
+        assertThat(refreshedRate.rate, `is`(BigDecimal(600)))
+        assertThat(fetchCount, `is`(2))
+    }
+
+    @Test
+    fun `persisted rate is served when offline`() {
+        Mockito.`when`(balancePrefs.readExchangeRate(ArgumentMatchers.anyString()))
+                .thenReturn(CachedExchangeRate(rate(450), -stale))
+        val cache = createCache { Single.error(IOException("offline")) }
+        val exchangeRate = cache.getRate("USD").toBlocking().value()
+        assertThat(exchangeRate.rate, `is`(BigDecimal(450)))
+        assertThat(fetchCount, `is`(1))
+    }
+
+    @Test
+    fun `fetched rate is persisted`() {
+        val fetchedRate = rate(500)
+        val cache = createCache { Single.just(fetchedRate) }
+        cache.getRate("USD").toBlocking().value()
+        Mockito.verify(balancePrefs).writeExchangeRate("USD", CachedExchangeRate(fetchedRate, now))
+    }
+
+    private fun createCache(fetch: () -> Single<ExchangeRate>): ExchangeRateCache {
+        return ExchangeRateCache(
+                fetchRate = { fetchCount++; fetch() },
+                balancePrefs = balancePrefs,
+                ttlMillis = ttl,
+                staleMillis = stale,
+                clock = { now }
+        )
+    }
+
+    private fun rate(value: Int) = ExchangeRate("ETH", "USD", BigDecimal(value), 0)
+}
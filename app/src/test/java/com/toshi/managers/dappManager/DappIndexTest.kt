@@ -0,0 +1,82 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.managers.dappManager
+
+import com.toshi.manager.dapp.DappIndex
+import com.toshi.model.network.dapp.Dapp
+import com.toshi.model.network.dapp.Dapps
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.junit.Test
+
+class DappIndexTest {
+
+    private val categories = mapOf(1 to "Games", 2 to "Exchanges")
+    private val kitties = Dapp(1, "CryptoKitties", "https://www.cryptokitties.co", "Collect and breed digital cats", null, null, listOf(1))
+    private val dex = Dapp(2, "Kyber Network", "https://kyber.network", "Instant token exchange", null, null, listOf(2))
+    private val cards = Dapp(3, "Etherbots", "https://etherbots.io", "Robot battle cards for crypto collectors", null, null, listOf(1))
+    private val index = DappIndex.build(Dapps(listOf(kitties, dex, cards), categories))
+
+    @Test
+    fun `search matches token prefixes`() {
+        val result = index.search("kyb")
+        assertThat(result.results.dapps, `is`(listOf(dex)))
+        assertThat(result.total, `is`(1))
+    }
+
+    @Test
+    fun `search ranks name matches first`() {
+        val result = index.search("crypto")
+        assertThat(result.results.dapps, `is`(listOf(kitties, cards)))
+    }
+
+    @Test
+    fun `search requires every term to match`() {
+        assertThat(index.search("robot crypto").results.dapps, `is`(listOf(cards)))
+        assertThat(index.search("robot kyber").results.dapps, `is`(emptyList()))
+    }
+
+    @Test
+    fun `search matches category names`() {
+        assertThat(index.search("games").results.dapps, `is`(listOf(kitties, cards)))
+    }
+
+    @Test
+    fun `paging follows directory offsets`() {
+        val firstPage = index.page(0, 2)
+        val lastPage = index.page(2, 2)
+        assertThat(firstPage.results.dapps, `is`(listOf(kitties, dex)))
+        assertThat(lastPage.results.dapps, `is`(listOf(cards)))
+        assertThat(lastPage.total, `is`(3))
+    }
+
+    @Test
+    fun `category paging only returns dapps in category`() {
+        val result = index.pageInCategory(1, 0, 20)
+        assertThat(result.results.dapps, `is`(listOf(kitties, cards)))
+        assertThat(result.total, `is`(2))
+    }
+
+    @Test
+    fun `updated index reflects changed catalogue`() {
+        val renamed = dex.copy(name = "Kyber Swap")
+        val updated = index.update(Dapps(listOf(kitties, renamed), categories))
+        assertThat(updated.search("swap").results.dapps, `is`(listOf(renamed)))
+        assertThat(updated.search("etherbots").results.dapps, `is`(emptyList()))
+    }
+}
@@ -20,14 +20,18 @@
 package com.toshi.managers.dappManager
 
 import com.toshi.manager.DappManager
+import com.toshi.manager.dapp.DappCatalogue
 import com.toshi.manager.network.DirectoryInterface
+import com.toshi.util.sharedPrefs.DappPrefsInterface
 import org.mockito.Mockito
 import rx.schedulers.Schedulers
 
 class DappManagerMocker {
     fun mock(): DappManager {
+        val directoryApi = mockDirectoryApi()
         return DappManager(
-                directoryService = mockDirectoryApi(),
+                directoryService = directoryApi,
+                dappCatalogue = DappCatalogue(directoryApi, Mockito.mock(DappPrefsInterface::class.java)),
                 scheduler = Schedulers.trampoline()
         )
     }
@@ -0,0 +1,118 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.toshi.managers.network
+
+import com.toshi.manager.network.ServerClockOffsets
+import com.toshi.model.network.ServerTime
+import okhttp3.HttpUrl
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.junit.Before
+import org.junit.Test
+import rx.Single
+import java.util.Date
+
+class ServerClockTest {
+
+    private val idUrl = "https://identity.service.toshi.org"
+    private val ethUrl = "https://ethereum.service.toshi.org"
+
+    private var now = 1_000_000L
+    private var syncs = 0
+    private lateinit var serverClock: ServerClockOffsets
+
+    @Before
+    fun setup() {
+        now = 1_000_000L
+        syncs = 0
+        serverClock = ServerClockOffsets { now }
+    }
+
+    // A server whose clock is [offsetMillis] ahead of ours, answering in [roundTripMillis]
+    private fun syncSource(offsetMillis: Long, roundTripMillis: Long = 0): Single<ServerTime> {
+        return Single.fromCallable {
+            syncs++
+            val serverTime = ServerTime((now + roundTripMillis / 2 + offsetMillis) / 1000)
+            now += roundTripMillis
+            serverTime
+        }
+    }
+
+    private fun serverSeconds(baseUrl: String, source: Single<ServerTime>): Long {
+        return serverClock.getServerTime(baseUrl, source).toBlocking().value().get()
+    }
+
+    @Test
+    fun `offset is learnt once and then applied to the local clock`() {
+        val source = syncSource(offsetMillis = 60_000, roundTripMillis = 400)
+        assertThat(serverSeconds(idUrl, source), `is`(1060L))
+        assertThat(syncs, `is`(1))
+
+        now += 10_000
+        assertThat(serverSeconds(idUrl, source), `is`(1070L))
+        assertThat(syncs, `is`(1))
+    }
+
+    @Test
+    fun `each server keeps its own offset`() {
+        assertThat(serverSeconds(idUrl, syncSource(offsetMillis = 60_000)), `is`(1060L))
+        assertThat(serverSeconds(ethUrl, syncSource(offsetMillis = -60_000)), `is`(940L))
+        assertThat(syncs, `is`(2))
+
+        assertThat(serverSeconds("$idUrl/v1/user", syncSource(offsetMillis = 0)), `is`(1060L))
+        assertThat(syncs, `is`(2))
+    }
+
+    @Test
+    fun `date within the allowed drift does not resync`() {
+        serverSeconds(idUrl, syncSource(offsetMillis = 60_000))
+        serverClock.onServerDate(HttpUrl.parse("$idUrl/v1/user")!!, Date(now + 60_000 + 4_000))
+
+        serverSeconds(idUrl, syncSource(offsetMillis = 60_000))
+        assertThat(syncs, `is`(1))
+    }
+
+    @Test
+    fun `date that drifted resyncs only that server`() {
+        serverSeconds(idUrl, syncSource(offsetMillis = 60_000))
+        serverSeconds(ethUrl, syncSource(offsetMillis = 0))
+        serverClock.onServerDate(HttpUrl.parse("$idUrl/v1/user")!!, Date(now + 90_000))
+
+        assertThat(serverSeconds(idUrl, syncSource(offsetMillis = 90_000)), `is`(1090L))
+        assertThat(syncs, `is`(3))
+        assertThat(serverSeconds(ethUrl, syncSource(offsetMillis = 0)), `is`(1000L))
+        assertThat(syncs, `is`(3))
+    }
+
+    @Test
+    fun `date from a server that was never synced is ignored`() {
+        serverClock.onServerDate(HttpUrl.parse(idUrl)!!, Date(now + 90_000))
+        assertThat(serverSeconds(idUrl, syncSource(offsetMillis = 60_000)), `is`(1060L))
+        assertThat(syncs, `is`(1))
+    }
+
+    @Test
+    fun `failed sync is retried on the next call`() {
+        val failure = Single.error<ServerTime>(IllegalStateException("offline"))
+        serverClock.getServerTime(idUrl, failure).subscribe({}, {})
+
+        assertThat(serverSeconds(idUrl, syncSource(offsetMillis = 60_000)), `is`(1060L))
+        assertThat(syncs, `is`(1))
+    }
+}
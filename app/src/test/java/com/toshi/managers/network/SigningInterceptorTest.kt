@@ -0,0 +1,192 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.toshi.managers.network
+
+import com.toshi.any
+import com.toshi.crypto.HDWallet
+import com.toshi.manager.network.ServerClockOffsets
+import com.toshi.manager.network.interceptor.SigningInterceptor
+import com.toshi.masterSeed
+import com.toshi.mockWallet
+import com.toshi.model.network.ServerTime
+import okhttp3.Interceptor
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.internal.http.HttpDate
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.hamcrest.Matchers.nullValue
+import org.junit.Before
+import org.junit.Test
+import org.mockito.Mockito
+import rx.Single
+import java.util.Date
+
+class SigningInterceptorTest {
+
+    private val baseUrl = "https://identity.service.toshi.org"
+    private val wallet = mockWallet(masterSeed)
+
+    private var now = 1_000_000L
+    private var syncs = 0
+    private lateinit var serverClock: ServerClockOffsets
+    private lateinit var interceptor: SigningInterceptor
+    private lateinit var chain: Interceptor.Chain
+    private val sentRequests = mutableListOf<Request>()
+    private val responses = mutableListOf<Pair<Int, Long>>()
+
+    @Before
+    fun setup() {
+        now = 1_000_000L
+        syncs = 0
+        sentRequests.clear()
+        responses.clear()
+        serverClock = ServerClockOffsets { now }
+        interceptor = object : SigningInterceptor(serverClock) {
+            override fun getWallet(): HDWallet = this@SigningInterceptorTest.wallet
+        }
+        chain = mockChain()
+    }
+
+    private fun mockChain(): Interceptor.Chain {
+        val chain = Mockito.mock(Interceptor.Chain::class.java)
+        Mockito
+                .`when`(chain.proceed(any()))
+                .thenAnswer { invocation ->
+                    val request = invocation.getArgument<Request>(0)
+                    sentRequests.add(request)
+                    val (code, serverDateMillis) = responses.removeAt(0)
+                    Response.Builder()
+                            .request(request)
+                            .protocol(Protocol.HTTP_1_1)
+                            .code(code)
+                            .message("")
+                            .header("Date", HttpDate.format(Date(serverDateMillis)))
+                            .build()
+                }
+        return chain
+    }
+
+    // Queues the response to the next request, from a server whose clock reads [serverDateMillis]
+    private fun respondWith(code: Int, serverDateMillis: Long) = responses.add(Pair(code, serverDateMillis))
+
+    private fun signedRequest(timestamp: Long): Request {
+        return Request.Builder()
+                .url("$baseUrl/v1/user?timestamp=$timestamp")
+                .build()
+    }
+
+    private fun syncOffset(offsetMillis: Long) {
+        val source = Single.fromCallable {
+            syncs++
+            ServerTime((now + offsetMillis) / 1000)
+        }
+        serverClock.getServerTime(baseUrl, source).toBlocking().value()
+    }
+
+    private fun intercept(request: Request): Response {
+        Mockito.`when`(chain.request()).thenReturn(request)
+        return interceptor.intercept(chain)
+    }
+
+    @Test
+    fun `request without a timestamp is not signed`() {
+        respondWith(200, now)
+        val request = Request.Builder().url("$baseUrl/v1/user").build()
+        intercept(request)
+
+        assertThat(sentRequests.size, `is`(1))
+        assertThat(sentRequests[0].header("Toshi-Signature"), `is`(nullValue()))
+    }
+
+    @Test
+    fun `signed request moves the timestamp into the headers`() {
+        respondWith(200, now)
+        intercept(signedRequest(timestamp = 1000))
+
+        assertThat(sentRequests.size, `is`(1))
+        val sent = sentRequests[0]
+        assertThat(sent.url().queryParameter("timestamp"), `is`(nullValue()))
+        assertThat(sent.header("Toshi-Timestamp"), `is`("1000"))
+        assertThat(sent.header("Toshi-ID-Address"), `is`(wallet.ownerAddress))
+    }
+
+    @Test
+    fun `rejection with a stale timestamp is retried once with the server time`() {
+        syncOffset(offsetMillis = 0)
+        respondWith(401, 1_060_000)
+        respondWith(401, 1_060_000)
+        val response = intercept(signedRequest(timestamp = 1000))
+
+        assertThat(response.code(), `is`(401))
+        assertThat(sentRequests.size, `is`(2))
+        assertThat(sentRequests[0].header("Toshi-Timestamp"), `is`("1000"))
+        assertThat(sentRequests[1].header("Toshi-Timestamp"), `is`("1060"))
+    }
+
+    @Test
+    fun `retry with the server time can succeed`() {
+        respondWith(400, 1_060_000)
+        respondWith(200, 1_060_000)
+        val response = intercept(signedRequest(timestamp = 1000))
+
+        assertThat(response.code(), `is`(200))
+        assertThat(sentRequests.size, `is`(2))
+    }
+
+    @Test
+    fun `rejection within the allowed drift is not retried`() {
+        respondWith(401, 1_004_000)
+        val response = intercept(signedRequest(timestamp = 1000))
+
+        assertThat(response.code(), `is`(401))
+        assertThat(sentRequests.size, `is`(1))
+    }
+
+    @Test
+    fun `successful response with a stale date is not retried`() {
+        respondWith(200, 1_060_000)
+        val response = intercept(signedRequest(timestamp = 1000))
+
+        assertThat(response.code(), `is`(200))
+        assertThat(sentRequests.size, `is`(1))
+    }
+
+    @Test
+    fun `stale rejection marks the server clock for a resync`() {
+        syncOffset(offsetMillis = 0)
+        respondWith(401, 1_060_000)
+        respondWith(200, 1_060_000)
+        intercept(signedRequest(timestamp = 1000))
+
+        syncOffset(offsetMillis = 60_000)
+        assertThat(syncs, `is`(2))
+    }
+
+    @Test
+    fun `successful response does not touch the server clock`() {
+        syncOffset(offsetMillis = 0)
+        respondWith(200, 1_060_000)
+        intercept(signedRequest(timestamp = 1000))
+
+        syncOffset(offsetMillis = 60_000)
+        assertThat(syncs, `is`(1))
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.managers.pushRegistration
+
+import com.toshi.manager.pushRegistration.PushRegistrar
+import com.toshi.testSharedPrefs.TestPushRegistrationPrefs
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.junit.Before
+import org.junit.Test
+import rx.Completable
+import rx.subjects.PublishSubject
+import java.io.IOException
+
+class PushRegistrarTest {
+
+    private val endpoint = "eth:1"
+    private val fingerprint = PushRegistrar.fingerprintOf("token", "0x1", "1")
+    private var now = 0L
+    private var registrations = 0
+    private lateinit var pushRegistrar: PushRegistrar
+
+    @Before
+    fun setup() {
+        now = 0L
+        registrations = 0
+        pushRegistrar = PushRegistrar(
+                registrationPrefs = TestPushRegistrationPrefs(),
+                minBackoffMillis = 1000L,
+                maxBackoffMillis = 4000L,
+                clock = { now }
+        )
+    }
+
+    private fun register(fingerprint: String = this.fingerprint, result: () -> Completable = { Completable.complete() }): Completable {
+        return pushRegistrar.register(endpoint, fingerprint) {
+            registrations++
+            result()
+        }
+    }
+
+    @Test
+    fun `unchanged registration is skipped`() {
+        register().await()
+        register().await()
+        assertThat(registrations, `is`(1))
+    }
+
+    @Test
+    fun `changed fingerprint registers again`() {
+        register().await()
+        register(PushRegistrar.fingerprintOf("newToken", "0x1", "1")).await()
+        assertThat(registrations, `is`(2))
+    }
+
+    @Test
+    fun `invalidated registration registers again`() {
+        register().await()
+        pushRegistrar.invalidate(endpoint)
+        register().await()
+        assertThat(registrations, `is`(2))
+    }
+
+    @Test
+    fun `concurrent registrations share one request`() {
+        val response = PublishSubject.create<Unit>()
+        val first = register { response.toCompletable() }.test()
+        val second = register { response.toCompletable() }.test()
+        response.onCompleted()
+        first.assertCompleted()
+        second.assertCompleted()
+        assertThat(registrations, `is`(1))
+    }
+
+    @Test
+    fun `failed registration backs off`() {
+        val failing = { Completable.error(IOException("offline")) }
+        register(result = failing).test().assertError(IOException::class.java)
+        register(result = failing).test().assertError(PushRegistrar.BackoffException::class.java)
+        now += 1000L
+        register(result = failing).test().assertError(IOException::class.java)
+        now += 1000L
+        register(result = failing).test().assertError(PushRegistrar.BackoffException::class.java)
+        now += 1000L
+        register().await()
+        assertThat(registrations, `is`(3))
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.toshi.managers.recipientManager
+
+import android.content.Context
+import com.toshi.manager.RecipientManager
+import com.toshi.manager.network.IdInterface
+import com.toshi.manager.network.IdService
+import com.toshi.manager.store.BlockedUserStore
+import com.toshi.manager.store.GroupStore
+import com.toshi.manager.store.UserStore
+import com.toshi.managers.baseApplication.BaseApplicationMocker
+import com.toshi.model.local.User
+import com.toshi.model.network.SearchResult
+import com.toshi.model.network.user.UserType
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.hamcrest.Matchers.sameInstance
+import org.junit.Before
+import org.junit.Test
+import org.mockito.ArgumentMatchers.anyList
+import org.mockito.Mockito
+import rx.Completable
+import rx.Single
+import rx.observers.TestSubscriber
+import rx.schedulers.Schedulers
+import rx.subjects.PublishSubject
+import java.io.File
+import java.io.IOException
+
+class RecipientManagerTests {
+
+    private val query = "ali"
+    private val type = UserType.USER
+
+    private lateinit var idApi: IdInterface
+    private lateinit var userStore: UserStore
+    private lateinit var onlineResults: PublishSubject<SearchResult<User>>
+    private lateinit var recipientManager: RecipientManager
+
+    @Before
+    fun setup() {
+        idApi = Mockito.mock(IdInterface::class.java)
+        userStore = Mockito.mock(UserStore::class.java)
+        onlineResults = PublishSubject.create()
+        Mockito.`when`(idApi.search(type.type, query)).thenReturn(onlineResults.toSingle())
+        Mockito.`when`(userStore.saveUsers(anyList())).thenReturn(Completable.complete())
+
+        recipientManager = RecipientManager(
+                idService = IdService(idApi, mockContext()),
+                groupStore = Mockito.mock(GroupStore::class.java),
+                userStore = userStore,
+                blockedUserStore = Mockito.mock(BlockedUserStore::class.java),
+                baseApplication = BaseApplicationMocker().mock(),
+                scheduler = Schedulers.trampoline()
+        )
+    }
+
+    private fun mockContext(): Context {
+        val context = Mockito.mock(Context::class.java)
+        Mockito.`when`(context.cacheDir).thenReturn(File(""))
+        return context
+    }
+
+    @Test
+    fun `local users are emitted first and then merged with the online users`() {
+        val localAlice = User("0x1")
+        val onlineAlice = User("0x1")
+        val onlineAlison = User("0x2")
+        givenLocalUsers(listOf(localAlice))
+
+        val subscriber = search()
+        subscriber.assertValues(listOf(localAlice))
+
+        respondWith(listOf(onlineAlison, onlineAlice))
+        subscriber.assertCompleted()
+        val merged = subscriber.onNextEvents[1]
+        assertThat(merged, `is`(listOf(onlineAlice, onlineAlison)))
+        // Online results replace the cached copy of the same user, and keep the local order
+        assertThat(merged[0], sameInstance(onlineAlice))
+    }
+
+    @Test
+    fun `identical searches in flight share one request`() {
+        givenLocalUsers(emptyList())
+        val first = search()
+        val second = search()
+
+        respondWith(listOf(User("0x1")))
+
+        Mockito.verify(idApi, Mockito.times(1)).search(type.type, query)
+        first.assertValueCount(1)
+        second.assertValueCount(1)
+        assertThat(first.onNextEvents[0], `is`(second.onNextEvents[0]))
+    }
+
+    @Test
+    fun `a finished search is sent again`() {
+        givenLocalUsers(emptyList())
+        search()
+        respondWith(emptyList())
+
+        val secondResult = searchResult(emptyList())
+        Mockito.`when`(idApi.search(type.type, query)).thenReturn(Single.just(secondResult))
+        search().assertCompleted()
+
+        Mockito.verify(idApi, Mockito.times(2)).search(type.type, query)
+    }
+
+    @Test
+    fun `a failed search with no local matches emits an empty list`() {
+        givenLocalUsers(emptyList())
+        val subscriber = search()
+
+        onlineResults.onError(IOException("offline"))
+
+        subscriber.assertNoErrors()
+        subscriber.assertValues(emptyList())
+        subscriber.assertCompleted()
+    }
+
+    @Test
+    fun `a failed search with local matches keeps the local users`() {
+        val localAlice = User("0x1")
+        givenLocalUsers(listOf(localAlice))
+        val subscriber = search()
+
+        onlineResults.onError(IOException("offline"))
+
+        subscriber.assertNoErrors()
+        subscriber.assertValues(listOf(localAlice))
+        subscriber.assertCompleted()
+    }
+
+    private fun givenLocalUsers(users: List<User>) {
+        Mockito.`when`(userStore.search(query, type)).thenReturn(Single.just(users))
+    }
+
+    private fun search(): TestSubscriber<List<User>> {
+        val subscriber = TestSubscriber<List<User>>()
+        recipientManager.searchUsers(type, query).subscribe(subscriber)
+        return subscriber
+    }
+
+    private fun respondWith(users: List<User>) {
+        onlineResults.onNext(searchResult(users))
+        onlineResults.onCompleted()
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun searchResult(users: List<User>): SearchResult<User> {
+        val searchResult = Mockito.mock(SearchResult::class.java) as SearchResult<User>
+        Mockito.`when`(searchResult.results).thenReturn(users)
+        return searchResult
+    }
+}
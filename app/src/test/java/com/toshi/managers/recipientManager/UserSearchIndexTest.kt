@@ -0,0 +1,63 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.managers.recipientManager
+
+import com.toshi.manager.store.UserSearchIndex
+import com.toshi.model.local.User
+import com.toshi.model.network.user.UserType
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.junit.Test
+
+class UserSearchIndexTest {
+
+    private fun user(toshiId: String, username: String): User {
+        return User(toshiId).apply { setUsername(username) }
+    }
+
+    private val alice = user("0xa11ce", "alice_smith")
+    private val bob = user("0xb0b", "bob")
+    private val alicia = user("0xa11c1a", "alicia")
+
+    @Test
+    fun `search matches username prefixes`() {
+        val index = UserSearchIndex().apply { load(listOf(alice, bob, alicia)) }
+        assertThat(index.search("ali", UserType.USER), `is`(listOf(alice, alicia)))
+        assertThat(index.search("@smi", UserType.USER), `is`(listOf(alice)))
+    }
+
+    @Test
+    fun `search matches toshi id prefixes`() {
+        val index = UserSearchIndex().apply { load(listOf(alice, bob, alicia)) }
+        assertThat(index.search("0xb0", UserType.USER), `is`(listOf(bob)))
+    }
+
+    @Test
+    fun `search filters by user type`() {
+        val index = UserSearchIndex().apply { load(listOf(alice, bob)) }
+        assertThat(index.search("bob", UserType.BOT), `is`(emptyList()))
+    }
+
+    @Test
+    fun `saved user replaces previous entry`() {
+        val index = UserSearchIndex().apply { load(listOf(alice, bob)) }
+        index.add(user("0xb0b", "robert"))
+        assertThat(index.search("bob", UserType.USER), `is`(emptyList()))
+        assertThat(index.search("rob", UserType.USER).map { it.usernameForEditing }, `is`(listOf("robert")))
+    }
+}
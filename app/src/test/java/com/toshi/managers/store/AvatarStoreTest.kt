@@ -0,0 +1,86 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.toshi.managers.store
+
+import com.toshi.manager.store.AvatarStore
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+
+class AvatarStoreTest {
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private lateinit var directory: File
+    private lateinit var avatarStore: AvatarStore
+
+    @Before
+    fun setup() {
+        directory = temporaryFolder.newFolder("avatars")
+        avatarStore = AvatarStore(directory, 72)
+    }
+
+    @Test
+    fun `identical avatars are stored once`() {
+        val bytes = byteArrayOf(1, 2, 3, 4)
+        val firstHash = avatarStore.put(bytes)
+        val secondHash = avatarStore.put(bytes.copyOf())
+
+        assertThat(firstHash, `is`(secondHash))
+        assertThat(firstHash, `is`(AvatarStore.hashOf(bytes)))
+        assertThat(directory.listFiles().count { it.isFile }, `is`(1))
+        assertThat(avatarStore.read(firstHash)!!.toList(), `is`(bytes.toList()))
+    }
+
+    @Test
+    fun `different avatars get different hashes`() {
+        val firstHash = avatarStore.put(byteArrayOf(1, 2, 3))
+        val secondHash = avatarStore.put(byteArrayOf(3, 2, 1))
+
+        assertThat(firstHash == secondHash, `is`(false))
+        assertThat(avatarStore.contains(firstHash), `is`(true))
+        assertThat(avatarStore.contains(secondHash), `is`(true))
+    }
+
+    @Test
+    fun `thumbnail falls back to the full avatar`() {
+        // The image can't be decoded in a unit test so no thumbnail is generated
+        val hash = avatarStore.put(byteArrayOf(1, 2, 3))
+        assertThat(avatarStore.thumbnailFileFor(hash), `is`(avatarStore.fileFor(hash)))
+    }
+
+    @Test
+    fun `retainOnly only removes old unreferenced avatars`() {
+        val keptHash = avatarStore.put(byteArrayOf(1))
+        val removedHash = avatarStore.put(byteArrayOf(2))
+        val inAnHour = System.currentTimeMillis() + 60 * 60 * 1000L
+
+        avatarStore.retainOnly(setOf(keptHash))
+        assertThat(avatarStore.contains(removedHash), `is`(true))
+
+        avatarStore.retainOnly(setOf(keptHash), inAnHour)
+        assertThat(avatarStore.contains(keptHash), `is`(true))
+        assertThat(avatarStore.contains(removedHash), `is`(false))
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.managers.store
+
+import com.toshi.manager.store.GroupCommit
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.junit.Before
+import org.junit.Test
+import rx.observers.TestSubscriber
+import rx.schedulers.TestScheduler
+import java.util.concurrent.TimeUnit
+
+class GroupCommitTest {
+
+    private lateinit var scheduler: TestScheduler
+    private lateinit var writer: FakeWriter
+    private lateinit var groupCommit: GroupCommit<String, String>
+
+    @Before
+    fun setup() {
+        scheduler = TestScheduler()
+        writer = FakeWriter()
+        groupCommit = GroupCommit(writer, 3, 50, scheduler)
+    }
+
+    @Test
+    fun `items are written together once the window has passed`() {
+        val first = subscribe("a")
+        val second = subscribe("b")
+
+        scheduler.advanceTimeBy(49, TimeUnit.MILLISECONDS)
+        assertThat(writer.writes.isEmpty(), `is`(true))
+
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS)
+        assertThat(writer.writes, `is`(listOf(listOf("a", "b"))))
+        first.assertValue("read a")
+        second.assertValue("read b")
+    }
+
+    @Test
+    fun `a full batch is written without waiting for the window`() {
+        subscribe("a")
+        subscribe("b")
+        subscribe("c")
+
+        scheduler.triggerActions()
+        assertThat(writer.writes, `is`(listOf(listOf("a", "b", "c"))))
+
+        subscribe("d")
+        scheduler.advanceTimeBy(50, TimeUnit.MILLISECONDS)
+        assertThat(writer.writes, `is`(listOf(listOf("a", "b", "c"), listOf("d"))))
+    }
+
+    @Test
+    fun `items are written in the order they were added`() {
+        groupCommit.add("a")
+        groupCommit.add("b")
+        groupCommit.flush()
+        groupCommit.add("c")
+        groupCommit.flush()
+
+        assertThat(writer.stored, `is`(listOf("a", "b", "c")))
+    }
+
+    @Test
+    fun `flush writes pending items straight away and the timer then finds nothing to write`() {
+        val result = subscribe("a")
+        groupCommit.flush()
+        result.assertValue("read a")
+
+        scheduler.advanceTimeBy(50, TimeUnit.MILLISECONDS)
+        assertThat(writer.writes.size, `is`(1))
+    }
+
+    @Test
+    fun `a failing item only fails its own result`() {
+        writer.failingWrites.add("b")
+        val first = subscribe("a")
+        val second = subscribe("b")
+        val third = subscribe("c")
+
+        groupCommit.flush()
+
+        assertThat(writer.stored, `is`(listOf("a", "c")))
+        first.assertValue("read a")
+        second.assertError(IllegalArgumentException::class.java)
+        third.assertValue("read c")
+    }
+
+    @Test
+    fun `a failing read does not fail stored items that can be read`() {
+        writer.failingReads.add("b")
+        val first = subscribe("a")
+        val second = subscribe("b")
+
+        groupCommit.flush()
+
+        assertThat(writer.stored, `is`(listOf("a", "b")))
+        first.assertValue("read a")
+        second.assertError(IllegalStateException::class.java)
+    }
+
+    private fun subscribe(item: String): TestSubscriber<String> {
+        val subscriber = TestSubscriber<String>()
+        groupCommit.add(item).subscribe(subscriber)
+        return subscriber
+    }
+
+    private class FakeWriter : GroupCommit.Writer<String, String> {
+        val writes = mutableListOf<List<String>>()
+        val stored = mutableListOf<String>()
+        val failingWrites = mutableSetOf<String>()
+        val failingReads = mutableSetOf<String>()
+
+        // Like a transaction, nothing is stored if any item fails
+        override fun write(items: List<String>) {
+            writes.add(items)
+            if (items.any { it in failingWrites }) throw IllegalArgumentException("Can't write $items")
+            stored.addAll(items)
+        }
+
+        override fun read(storedItems: List<String>): List<String> {
+            if (storedItems.any { it in failingReads }) throw IllegalStateException("Can't read $storedItems")
+            return storedItems.map { "read $it" }
+        }
+    }
+}
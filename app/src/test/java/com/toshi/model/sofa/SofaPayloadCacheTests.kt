@@ -0,0 +1,78 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.model.sofa
+
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.not
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Before
+import org.junit.Test
+
+class SofaPayloadCacheTests {
+
+    private lateinit var cache: SofaPayloadCache
+
+    @Before
+    fun setup() {
+        cache = SofaPayloadCache(2)
+    }
+
+    @Test
+    fun testSamePayloadIsOnlyParsedOnce() {
+        val sofaMessage = SofaMessage().makeNew(createMessagePayload("Hello"))
+        val first = cache.messageFrom(sofaMessage)
+        val second = cache.messageFrom(sofaMessage)
+        assertThat(first.body, `is`("Hello"))
+        assertThat(second, sameInstance(first))
+    }
+
+    @Test
+    fun testChangedPayloadIsParsedAgain() {
+        val sofaMessage = SofaMessage().makeNew(createMessagePayload("Hello"))
+        val first = cache.messageFrom(sofaMessage)
+        sofaMessage.payload = createMessagePayload("Goodbye")
+        val second = cache.messageFrom(sofaMessage)
+        assertThat(second, not(sameInstance(first)))
+        assertThat(second.body, `is`("Goodbye"))
+    }
+
+    @Test
+    fun testInvalidatedMessageIsParsedAgain() {
+        val sofaMessage = SofaMessage().makeNew(createMessagePayload("Hello"))
+        val first = cache.messageFrom(sofaMessage)
+        cache.invalidate(sofaMessage)
+        val second = cache.messageFrom(sofaMessage)
+        assertThat(second, not(sameInstance(first)))
+    }
+
+    @Test
+    fun testLeastRecentlyUsedEntryIsEvicted() {
+        val firstMessage = SofaMessage().makeNew(createMessagePayload("1"))
+        val secondMessage = SofaMessage().makeNew(createMessagePayload("2"))
+        val thirdMessage = SofaMessage().makeNew(createMessagePayload("3"))
+        val first = cache.messageFrom(firstMessage)
+        val second = cache.messageFrom(secondMessage)
+        cache.messageFrom(firstMessage)
+        cache.messageFrom(thirdMessage)
+        assertThat(cache.messageFrom(firstMessage), sameInstance(first))
+        assertThat(cache.messageFrom(secondMessage), not(sameInstance(second)))
+    }
+
+    private fun createMessagePayload(body: String) = "SOFA::Message:{\"body\":\"$body\"}"
+}
@@ -19,6 +19,7 @@ package com.toshi.networkSwitching
 
 import com.toshi.crypto.HDWallet
 import com.toshi.manager.ethRegistration.EthGcmRegistration
+import com.toshi.manager.pushRegistration.PushRegistrar
 import com.toshi.managers.balanceManager.EthereumServiceMocker
 import com.toshi.masterSeed
 import com.toshi.mockWallet
@@ -26,8 +27,8 @@ import com.toshi.mockWalletSubject
 import com.toshi.model.local.network.Network
 import com.toshi.model.local.network.Networks
 import com.toshi.testSharedPrefs.TestAppPrefs
-import com.toshi.testSharedPrefs.TestEthGcmPrefs
 import com.toshi.testSharedPrefs.TestGcmToken
+import com.toshi.testSharedPrefs.TestPushRegistrationPrefs
 import org.junit.Assert.assertEquals
 import org.junit.Assert.fail
 import org.junit.Test
@@ -43,7 +44,6 @@ class NetworkSwitchingTests {
     private val mainnet = networkList[0]
     private val ropsten = networkList[1]
     private val appPrefs = TestAppPrefs()
-    private val ethGcmPrefs = TestEthGcmPrefs()
     private val networks = Networks.getInstance(networkList, appPrefs)
     private lateinit var ethGcmRegistration: EthGcmRegistration
 
@@ -52,12 +52,12 @@ class NetworkSwitchingTests {
         init()
 
         assertCurrentNetwork(mainnet)
-        assertEthGcmPrefs(expectedIsMainnetRegistered = true, expectedIsRopstenRegistered = false)
+        assertEthGcmRegistrations(expectedIsMainnetRegistered = true, expectedIsRopstenRegistered = false)
 
         ethGcmRegistration.changeNetwork(ropsten).await()
 
         assertCurrentNetwork(ropsten)
-        assertEthGcmPrefs(expectedIsMainnetRegistered = true, expectedIsRopstenRegistered = true)
+        assertEthGcmRegistrations(expectedIsMainnetRegistered = true, expectedIsRopstenRegistered = true)
     }
 
     @Test
@@ -65,23 +65,22 @@ class NetworkSwitchingTests {
         init()
 
         assertCurrentNetwork(mainnet)
-        assertEthGcmPrefs(expectedIsMainnetRegistered = true, expectedIsRopstenRegistered = false)
+        assertEthGcmRegistrations(expectedIsMainnetRegistered = true, expectedIsRopstenRegistered = false)
 
         ethGcmRegistration.changeNetwork(ropsten).await()
         ethGcmRegistration.changeNetwork(mainnet).await()
 
         assertCurrentNetwork(mainnet)
-        assertEthGcmPrefs(expectedIsMainnetRegistered = true, expectedIsRopstenRegistered = false)
+        assertEthGcmRegistrations(expectedIsMainnetRegistered = true, expectedIsRopstenRegistered = false)
     }
 
     private fun init() {
         appPrefs.clear()
-        ethGcmPrefs.clear()
         ethGcmRegistration = EthGcmRegistration(
                 networks = networks,
                 ethService = EthereumServiceMocker().mock(),
-                gcmPrefs = ethGcmPrefs,
                 gcmToken = TestGcmToken(),
+                pushRegistrar = PushRegistrar(TestPushRegistrationPrefs()),
                 walletObservable = mockWalletObservable(),
                 scheduler = Schedulers.trampoline()
         )
@@ -93,13 +92,13 @@ class NetworkSwitchingTests {
         initWithResponseError()
 
         assertCurrentNetwork(mainnet)
-        assertEthGcmPrefs(expectedIsMainnetRegistered = false, expectedIsRopstenRegistered = false)
+        assertEthGcmRegistrations(expectedIsMainnetRegistered = false, expectedIsRopstenRegistered = false)
 
         try {
             ethGcmRegistration.changeNetwork(ropsten).await()
         } catch (e: IllegalStateException) {
             assertCurrentNetwork(mainnet)
-            assertEthGcmPrefs(expectedIsMainnetRegistered = false, expectedIsRopstenRegistered = false)
+            assertEthGcmRegistrations(expectedIsMainnetRegistered = false, expectedIsRopstenRegistered = false)
             return
         }
 
@@ -108,13 +107,12 @@ class NetworkSwitchingTests {
 
     private fun initWithResponseError() {
         appPrefs.clear()
-        ethGcmPrefs.clear()
         val walletObservable = mockWalletObservable()
         ethGcmRegistration = EthGcmRegistration(
                 networks = networks,
                 ethService = EthereumServiceMocker().mockWithErrorResponse(),
-                gcmPrefs = ethGcmPrefs,
                 gcmToken = TestGcmToken(),
+                pushRegistrar = PushRegistrar(TestPushRegistrationPrefs()),
                 walletObservable = walletObservable,
                 scheduler = Schedulers.trampoline()
         )
@@ -124,9 +122,9 @@ class NetworkSwitchingTests {
         assertEquals(network.id, networks.currentNetwork.id)
     }
 
-    private fun assertEthGcmPrefs(expectedIsMainnetRegistered: Boolean, expectedIsRopstenRegistered: Boolean) {
-        assertEquals(expectedIsMainnetRegistered, ethGcmPrefs.isEthGcmTokenSentToServer(networkList[0].id))
-        assertEquals(expectedIsRopstenRegistered, ethGcmPrefs.isEthGcmTokenSentToServer(networkList[1].id))
+    private fun assertEthGcmRegistrations(expectedIsMainnetRegistered: Boolean, expectedIsRopstenRegistered: Boolean) {
+        assertEquals(expectedIsMainnetRegistered, ethGcmRegistration.isRegistered(networkList[0].id))
+        assertEquals(expectedIsRopstenRegistered, ethGcmRegistration.isRegistered(networkList[1].id))
     }
 
     private fun mockWalletObservable(): Observable<HDWallet> {
@@ -0,0 +1,129 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.toshi.presenter.chat
+
+import com.toshi.manager.ChatManager
+import com.toshi.model.sofa.SofaMessage
+import com.toshi.model.sofa.SofaType
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.junit.Before
+import org.junit.Test
+import org.mockito.ArgumentMatchers.anyInt
+import org.mockito.ArgumentMatchers.anyLong
+import org.mockito.ArgumentMatchers.anyString
+import org.mockito.Mockito
+import rx.Single
+import rx.schedulers.Schedulers
+
+class PagedMessageSourceTest {
+
+    private val threadId = "0x1"
+    private val pageSize = 5
+    private val thread = mutableListOf<SofaMessage>()
+    private lateinit var chatManager: ChatManager
+
+    @Before
+    fun setup() {
+        thread.clear()
+        chatManager = Mockito.mock(ChatManager::class.java)
+        Mockito.`when`(chatManager.loadLatestMessages(anyString(), anyInt())).thenAnswer {
+            Single.just(sortedThread().takeLast(it.getArgument(1)))
+        }
+        Mockito.`when`(chatManager.loadMessagesBefore(anyString(), anyLong(), anyString(), anyInt())).thenAnswer {
+            val cursor = Pair(it.getArgument<Long>(1), it.getArgument<String>(2))
+            Single.just(sortedThread().filter { compare(it, cursor) < 0 }.takeLast(it.getArgument(3)))
+        }
+        Mockito.`when`(chatManager.loadMessagesAfter(anyString(), anyLong(), anyString(), anyInt())).thenAnswer {
+            val cursor = Pair(it.getArgument<Long>(1), it.getArgument<String>(2))
+            Single.just(sortedThread().filter { compare(it, cursor) > 0 }.take(it.getArgument(3)))
+        }
+    }
+
+    // Same ordering as ConversationStore: creation time, then private key
+    private fun sortedThread() = thread.sortedWith(compareBy<SofaMessage> { it.creationTime }.thenBy { it.privateKey })
+
+    private fun compare(message: SofaMessage, cursor: Pair<Long, String>): Int {
+        val byTime = message.creationTime.compareTo(cursor.first)
+        return if (byTime != 0) byTime else message.privateKey.compareTo(cursor.second)
+    }
+
+    private fun addMessage(creationTime: Long, isUserVisible: Boolean = true): SofaMessage {
+        val message = Mockito.mock(SofaMessage::class.java)
+        Mockito.`when`(message.creationTime).thenReturn(creationTime)
+        Mockito.`when`(message.privateKey).thenReturn("%04d".format(thread.size))
+        Mockito.`when`(message.isUserVisible).thenReturn(isUserVisible)
+        Mockito.`when`(message.type).thenReturn(if (isUserVisible) SofaType.TIMESTAMP else SofaType.INIT)
+        thread.add(message)
+        return message
+    }
+
+    private fun createSource() = PagedMessageSource(
+            threadId = threadId,
+            chatManager = chatManager,
+            pageSize = pageSize,
+            maxWindowSize = 100,
+            parseScheduler = Schedulers.immediate(),
+            mainScheduler = Schedulers.immediate()
+    )
+
+    @Test
+    fun `paging continues past a page of invisible messages`() {
+        val oldest = (1L..3L).map { addMessage(it) }
+        (4L..8L).forEach { addMessage(it, isUserVisible = false) }
+        (9L..13L).forEach { addMessage(it) }
+        val source = createSource()
+
+        source.loadInitial(0).toBlocking().value()
+        val invisiblePage = source.loadOlder().toBlocking().value()
+        assertThat(invisiblePage.messages.isEmpty(), `is`(true))
+        assertThat(source.canLoadOlder(), `is`(true))
+
+        val olderPage = source.loadOlder().toBlocking().value()
+        assertThat(olderPage.messages, `is`(oldest))
+        assertThat(source.hasOlderMessages, `is`(false))
+    }
+
+    @Test
+    fun `paging continues through messages sharing one creation time`() {
+        val messages = (1..12).map { addMessage(100L) }
+        val source = createSource()
+
+        val loaded = source.loadInitial(0).toBlocking().value().messages.toMutableList()
+        while (source.canLoadOlder()) {
+            val page = source.loadOlder().toBlocking().value()
+            loaded.addAll(0, page.messages)
+        }
+
+        assertThat(loaded, `is`(messages))
+    }
+
+    @Test
+    fun `paging newer continues past evicted messages with the same creation time`() {
+        val messages = (1..12).map { addMessage(100L) }
+        val source = PagedMessageSource(threadId, chatManager, pageSize, 5, Schedulers.immediate(), Schedulers.immediate())
+
+        source.loadInitial(0).toBlocking().value()
+        source.loadOlder().toBlocking().value()
+        assertThat(source.hasNewerMessages, `is`(true))
+
+        val newerPage = source.loadNewer().toBlocking().value()
+        assertThat(newerPage.messages, `is`(messages.subList(7, 12)))
+    }
+}
@@ -17,18 +17,20 @@
 
 package com.toshi.testSharedPrefs
 
-import com.toshi.util.sharedPrefs.EthGcmPrefsInterface
+import com.toshi.util.sharedPrefs.PushRegistrationPrefsInterface
 
-class TestEthGcmPrefs : EthGcmPrefsInterface {
-    private val map by lazy { HashMap<String, Any?>() }
+class TestPushRegistrationPrefs : PushRegistrationPrefsInterface {
+    private val map by lazy { HashMap<String, String>() }
 
-    override fun setEthGcmTokenSentToServer(networkId: String, isSentToServer: Boolean) {
-        map[networkId] = isSentToServer
+    override fun readFingerprint(endpoint: String) = map[endpoint]
+
+    override fun writeFingerprint(endpoint: String, fingerprint: String) {
+        map[endpoint] = fingerprint
     }
 
-    override fun isEthGcmTokenSentToServer(networkId: String): Boolean {
-        return map[networkId] as Boolean? ?: false
+    override fun removeFingerprint(endpoint: String) {
+        map.remove(endpoint)
     }
 
     override fun clear() = map.clear()
-}
\ No newline at end of file
+}
@@ -20,6 +20,7 @@
 package com.toshi.testSharedPrefs
 
 import com.toshi.util.sharedPrefs.WalletPrefsInterface
+import com.toshi.util.sharedPrefs.WalletPrefsInterface.Companion.DERIVED_KEYS
 import com.toshi.util.sharedPrefs.WalletPrefsInterface.Companion.MASTER_SEED
 
 class TestWalletPrefs : WalletPrefsInterface {
@@ -41,5 +42,11 @@ class TestWalletPrefs : WalletPrefsInterface {
         prefs[WalletPrefsInterface.WALLET_INDEX] = index
     }
 
+    override fun getDerivedKeys(): String? = prefs[DERIVED_KEYS] as String?
+
+    override fun setDerivedKeys(derivedKeys: String?) {
+        prefs[DERIVED_KEYS] = derivedKeys
+    }
+
     override fun clear() = prefs.clear()
 }
\ No newline at end of file
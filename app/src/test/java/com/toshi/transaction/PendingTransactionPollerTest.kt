@@ -0,0 +1,118 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.toshi.transaction
+
+import com.toshi.manager.store.PendingTransactionStore
+import com.toshi.manager.transaction.PendingTransactionPoller
+import com.toshi.model.local.PendingTransaction
+import com.toshi.model.sofa.SofaType
+import com.toshi.model.sofa.payment.Payment
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.mockito.Mockito
+import rx.Single
+import rx.schedulers.TestScheduler
+import rx.subjects.PublishSubject
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+
+class PendingTransactionPollerTest {
+
+    private lateinit var scheduler: TestScheduler
+    private lateinit var unconfirmed: MutableList<PendingTransaction>
+    private lateinit var requestedHashes: MutableList<String>
+    private lateinit var confirmedHashes: MutableSet<String>
+    private lateinit var poller: PendingTransactionPoller
+
+    @Before
+    fun setup() {
+        scheduler = TestScheduler()
+        scheduler.advanceTimeTo(TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS)
+        unconfirmed = CopyOnWriteArrayList()
+        requestedHashes = mutableListOf()
+        confirmedHashes = mutableSetOf()
+
+        val store = Mockito.mock(PendingTransactionStore::class.java)
+        Mockito.`when`(store.loadUnconfirmedTransactions()).thenReturn(Single.fromCallable { unconfirmed.toList() })
+        Mockito.`when`(store.pendingTransactionObservable).thenReturn(PublishSubject.create())
+
+        poller = PendingTransactionPoller(
+                store,
+                { txHash -> requestStatus(txHash) },
+                { txHash, _ -> unconfirmed.removeAll { it.txHash == txHash } },
+                scheduler,
+                { scheduler.now() }
+        )
+    }
+
+    private fun requestStatus(txHash: String): Single<Payment> {
+        requestedHashes.add(txHash)
+        val status = if (txHash in confirmedHashes) SofaType.CONFIRMED else SofaType.UNCONFIRMED
+        return Single.just(Payment().setStatus(status))
+    }
+
+    private fun addTransactions(count: Int, ageMillis: Long) {
+        repeat(count) {
+            unconfirmed.add(PendingTransaction()
+                    .setTxHash("0x${unconfirmed.size}")
+                    .setStatus(SofaType.UNCONFIRMED)
+                    .setCreatedTime(scheduler.now() - ageMillis))
+        }
+    }
+
+    @Test
+    fun checksTransactionsInBatches() {
+        addTransactions(25, 0)
+        poller.start()
+
+        scheduler.triggerActions()
+        assertThat(requestedHashes.size, `is`(10))
+        scheduler.advanceTimeBy(15, TimeUnit.SECONDS)
+        assertThat(requestedHashes.toSet().size, `is`(20))
+        scheduler.advanceTimeBy(15, TimeUnit.SECONDS)
+        assertThat(requestedHashes.toSet().size, `is`(25))
+    }
+
+    @Test
+    fun oldTransactionsArePolledLessOften() {
+        addTransactions(3, TimeUnit.HOURS.toMillis(2))
+        poller.start()
+
+        scheduler.advanceTimeBy(10, TimeUnit.MINUTES)
+        assertThat(requestedHashes.size, `is`(3))
+        scheduler.advanceTimeBy(20, TimeUnit.MINUTES)
+        assertThat(requestedHashes.size, `is`(6))
+    }
+
+    @Test
+    fun stopsPollingOnceNothingIsUnconfirmed() {
+        addTransactions(2, 0)
+        confirmedHashes.addAll(unconfirmed.map { it.txHash })
+        poller.start()
+
+        scheduler.advanceTimeBy(15, TimeUnit.SECONDS)
+        assertThat(unconfirmed.isEmpty(), `is`(true))
+        val requestsWhenConfirmed = requestedHashes.size
+
+        addTransactions(1, 0)
+        scheduler.advanceTimeBy(5, TimeUnit.MINUTES)
+        assertThat(requestedHashes.size, `is`(requestsWhenConfirmed))
+    }
+}
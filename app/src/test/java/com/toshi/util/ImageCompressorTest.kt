@@ -0,0 +1,73 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.toshi.util
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.hamcrest.Matchers.lessThanOrEqualTo
+import org.junit.Test
+
+class ImageCompressorTest {
+
+    @Test
+    fun `small images are not sampled`() {
+        assertThat(ImageCompressor.calculateSampleSize(800, 600, 2048), `is`(1))
+        assertThat(ImageCompressor.calculateSampleSize(2048, 1536, 2048), `is`(1))
+    }
+
+    @Test
+    fun `sampling keeps the longest side at or above the target`() {
+        // 12 MP camera photo
+        assertThat(ImageCompressor.calculateSampleSize(4032, 3024, 2048), `is`(1))
+        assertThat(ImageCompressor.calculateSampleSize(4032, 3024, 800), `is`(4))
+        assertThat(ImageCompressor.calculateSampleSize(3024, 4032, 800), `is`(4))
+        assertThat(ImageCompressor.calculateSampleSize(8192, 100, 2048), `is`(4))
+    }
+
+    @Test
+    fun `highest quality is used when it fits`() {
+        val attempts = mutableListOf<Int>()
+        val quality = ImageCompressor.findQuality(1000) {
+            attempts.add(it)
+            500
+        }
+
+        assertThat(quality, `is`(90))
+        assertThat(attempts.size, `is`(1))
+    }
+
+    @Test
+    fun `quality search finds the highest quality within budget`() {
+        // Encoded size grows by 100 bytes per quality step
+        val encodedSize = { quality: Int -> quality * 100L }
+        val attempts = mutableListOf<Int>()
+        val quality = ImageCompressor.findQuality(6550) {
+            attempts.add(it)
+            encodedSize(it)
+        }
+
+        assertThat(quality, `is`(65))
+        assertThat(attempts.size, lessThanOrEqualTo(7))
+    }
+
+    @Test
+    fun `minimum quality is used when nothing fits`() {
+        assertThat(ImageCompressor.findQuality(10) { 1000L }, `is`(40))
+    }
+}
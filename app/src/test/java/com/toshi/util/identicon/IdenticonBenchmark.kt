@@ -0,0 +1,66 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.toshi.util.identicon
+
+import android.graphics.Bitmap
+import com.toshi.benchmark.Benchmark
+import org.junit.Ignore
+import org.junit.Test
+import org.mockito.Mockito
+import rx.schedulers.Schedulers
+import java.util.Random
+
+/**
+ * Identicons per second, with and without the cache. Bitmap drawing is stubbed out in unit
+ * tests, so this measures seeding, palette and pattern generation. IdenticonCacheTest checks
+ * the generated output and the caching behaviour.
+ */
+@Ignore(Benchmark.IGNORED)
+class IdenticonBenchmark {
+
+    private val warmupRounds = 2000
+    private val measuredRounds = 20000
+    private val random = Random(11)
+
+    @Test
+    fun measureIdenticonGeneration() {
+        val addresses = List(measuredRounds) { randomAddress() }
+        val bitmap = Mockito.mock(Bitmap::class.java)
+        val identiconCache = IdenticonCache(
+                diskDirectory = null,
+                scheduler = Schedulers.immediate(),
+                generate = { Identicon(it).let { bitmap } }
+        )
+        val listAddresses = addresses.take(50)
+        listAddresses.forEach { identiconCache.get(it).toBlocking().value() }
+
+        val generated = measure { Identicon(addresses[it]) }
+        val cached = measure { identiconCache.get(listAddresses[it % listAddresses.size]).toBlocking().value() }
+
+        println("Identicon generation: %.0f icons/s".format(generated))
+        println("Identicon cache hits: %.0f icons/s".format(cached))
+    }
+
+    private fun randomAddress(): String {
+        val bytes = ByteArray(20).also { random.nextBytes(it) }
+        return "0x" + bytes.joinToString("") { "%02x".format(it) }
+    }
+
+    private fun measure(operation: (Int) -> Unit) = Benchmark.opsPerSecond(warmupRounds, measuredRounds, operation)
+}
@@ -0,0 +1,108 @@
+/*
+ * 	Copyright (c) 2017. Toshi Inc
+ *
+ * 	This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.toshi.util.identicon
+
+import android.graphics.Bitmap
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.hamcrest.Matchers.nullValue
+import org.hamcrest.Matchers.sameInstance
+import org.junit.Before
+import org.junit.Test
+import org.mockito.Mockito
+import rx.Observable
+import rx.observers.TestSubscriber
+import rx.schedulers.TestScheduler
+
+class IdenticonCacheTest {
+
+    private val address = "0x011c6dd9565b8b83e6a9ee3f06e89ece3251ef2f"
+    private lateinit var scheduler: TestScheduler
+    private lateinit var generated: MutableList<String>
+    private lateinit var identiconCache: IdenticonCache
+
+    @Before
+    fun setup() {
+        scheduler = TestScheduler()
+        generated = mutableListOf()
+        identiconCache = IdenticonCache(
+                diskDirectory = null,
+                maxEntries = 2,
+                scheduler = scheduler,
+                generate = {
+                    generated.add(it)
+                    Mockito.mock(Bitmap::class.java)
+                }
+        )
+    }
+
+    private fun load(address: String): Bitmap {
+        val subscriber = TestSubscriber<Bitmap>()
+        identiconCache.get(address).subscribe(subscriber)
+        scheduler.triggerActions()
+        return subscriber.onNextEvents.single()
+    }
+
+    @Test
+    fun `identicon is generated once and served from memory`() {
+        val first = load(address)
+        val second = load(address.toUpperCase())
+
+        assertThat(second, `is`(sameInstance(first)))
+        assertThat(identiconCache.getCached(address), `is`(sameInstance(first)))
+        assertThat(generated, `is`(listOf(address)))
+    }
+
+    @Test
+    fun `concurrent requests share one generation`() {
+        val results = Observable.merge(
+                identiconCache.get(address).toObservable(),
+                identiconCache.get(address).toObservable()
+        ).toList().toSingle()
+        val subscriber = TestSubscriber<List<Bitmap>>()
+        results.subscribe(subscriber)
+        scheduler.triggerActions()
+
+        val bitmaps = subscriber.onNextEvents.single()
+        assertThat(bitmaps[0], `is`(sameInstance(bitmaps[1])))
+        assertThat(generated.size, `is`(1))
+    }
+
+    @Test
+    fun `least recently used identicon is evicted`() {
+        load("0x1")
+        load("0x2")
+        load("0x1")
+        load("0x3")
+
+        assertThat(identiconCache.getCached("0x2"), `is`(nullValue()))
+        assertThat(identiconCache.getCached("0x1") == null, `is`(false))
+        assertThat(identiconCache.getCached("0x3") == null, `is`(false))
+    }
+
+    @Test
+    fun `generator matches the original blockies output`() {
+        val identicon = Identicon(address)
+
+        assertThat(identicon.palette.foregroundColor, `is`(0xFF89D9C8.toInt()))
+        assertThat(identicon.palette.backgroundColor, `is`(0xFF848CE0.toInt()))
+        assertThat(identicon.palette.spotColor, `is`(0xFFC7A8E1.toInt()))
+        assertThat(identicon.cells.joinToString(""), `is`("1210012101100110010220101000000110111101102222011021120111211211"))
+    }
+}